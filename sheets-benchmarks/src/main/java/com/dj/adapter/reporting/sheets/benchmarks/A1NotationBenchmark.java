@@ -0,0 +1,62 @@
+package com.dj.adapter.reporting.sheets.benchmarks;
+
+import com.dj.adapter.reporting.sheets.utils.A1Notation;
+import com.dj.adapter.reporting.sheets.utils.A1NotationHelper;
+import com.google.api.services.sheets.v4.model.GridRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building range strings, which happens on every call to the API.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class A1NotationBenchmark {
+	/**
+	 * Within the cached labels, and past them.
+	 */
+	@Param({"5", "59", "1500"})
+	public int column;
+
+	private GridRange range;
+	private String reference;
+
+	@Setup
+	public void setUp() {
+		range = new GridRange().setStartRowIndex(1)
+		                       .setStartColumnIndex(0)
+		                       .setEndRowIndex(1000)
+		                       .setEndColumnIndex(column);
+		reference = A1Notation.encode("Class Data", range);
+	}
+
+	@Benchmark
+	public String encodeRange() {
+		return A1NotationHelper.getNotationFromSheetNameAndGridRange("Class Data", range);
+	}
+
+	@Benchmark
+	public String columnLabel() {
+		return A1NotationHelper.convertNumToColString(column);
+	}
+
+	@Benchmark
+	public A1Notation.A1Range parseRange() {
+		return A1Notation.parse(reference);
+	}
+}
@@ -0,0 +1,89 @@
+package com.dj.adapter.reporting.sheets.benchmarks;
+
+import com.dj.adapter.reporting.sheets.domain.GoogleSheet;
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepository;
+import com.dj.adapter.reporting.sheets.retry.SyncRetryExecutor;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.client.util.IOUtils;
+import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.model.GridProperties;
+import com.google.api.services.sheets.v4.model.GridRange;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sheets client answering every request with a canned response, so that benchmarks measure the
+ * library and not the network.
+ */
+final class CannedSheets extends MockHttpTransport {
+	static final String SPREADSHEET_ID = "benchmark";
+
+	private final byte[] header = resource("canned/header.json");
+	private final byte[] append = resource("canned/append.json");
+
+	private CannedSheets() {
+	}
+
+	/**
+	 * Returns a sheet of 60 columns whose operations run on the calling thread against canned
+	 * responses.
+	 */
+	static GoogleSheet newSheet() {
+		final Sheets client = new Sheets.Builder(new CannedSheets(), JacksonFactory.getDefaultInstance(), null)
+		                                .setApplicationName("Sheets Benchmarks")
+		                                .build();
+		final Sheet sheet = new Sheet().setProperties(new SheetProperties().setSheetId(0)
+		                                                                   .setTitle("Class Data")
+		                                                                   .setGridProperties(new GridProperties().setRowCount(1000)
+		                                                                                                          .setColumnCount(60)));
+		return new GoogleSheet(sheet, new GoogleSheetsRepository(client)).setSpreadSheetId(SPREADSHEET_ID)
+		                                                                 .setExecutor(SyncRetryExecutor.INSTANCE)
+		                                                                 .setHeaderOffset(new GridRange().setStartRowIndex(1)
+		                                                                                                 .setStartColumnIndex(0)
+		                                                                                                 .setEndRowIndex(1));
+	}
+
+	/**
+	 * Names of the columns of the canned header.
+	 */
+	static List<String> headerColumns() {
+		final List<String> columns = new ArrayList<>(60);
+		Collections.addAll(columns, "Id", "Student Name", "Gender", "Class Level", "Home State", "Major",
+		                   "Extracurricular Activity", "Editor", "Language", "Category", "Country",
+		                   "Task Creation Date/Time", "Task ID", "Claim Date", "Completed Date");
+		for (int i = columns.size() + 1; i <= 60; i++) {
+			columns.add("Column " + i);
+		}
+		return columns;
+	}
+
+	@Override
+	public MockLowLevelHttpRequest buildRequest(String method, String url) {
+		final byte[] content = url.contains(":append") ? append : header;
+		return new MockLowLevelHttpRequest(url).setResponse(new MockLowLevelHttpResponse().setContentType(Json.MEDIA_TYPE)
+		                                                                                  .setContent(content));
+	}
+
+	private static byte[] resource(String name) {
+		try (InputStream in = CannedSheets.class.getClassLoader()
+		                                        .getResourceAsStream(name)) {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			IOUtils.copy(in, out);
+			return out.toByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.dj.adapter.reporting.sheets.benchmarks;
+
+import com.dj.adapter.reporting.sheets.domain.Cell;
+import com.dj.adapter.reporting.sheets.domain.CellBuilder;
+import com.dj.adapter.reporting.sheets.domain.FormattingPolicy;
+import com.dj.adapter.reporting.sheets.domain.Formatters;
+import com.dj.adapter.reporting.sheets.domain.RowSchema;
+import com.dj.adapter.reporting.sheets.domain.ValidationPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validating and formatting cell values before they are written.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CellBuilderBenchmark {
+	private static final int ROWS = 10000;
+
+	private CellBuilder cellBuilder;
+	private RowSchema schema;
+	private List<Object> row;
+	private List<List<Object>> rows;
+	private Date date;
+
+	@Setup
+	public void setUp() {
+		final FormattingPolicy formattingPolicy = new FormattingPolicy().applyFormat(Formatters.nullToEmpty())
+		                                                                .applyFormat("Claim Date", Formatters.dateTime("yyyy-MM-dd HH:mm:ss"));
+		final ValidationPolicy validationPolicy = new ValidationPolicy().applyValidation((column, value) -> value);
+		cellBuilder = new CellBuilder(formattingPolicy, validationPolicy);
+		final List<String> columns = CannedSheets.headerColumns();
+		schema = RowSchema.of(new ArrayList<>(columns), 0);
+		date = new Date();
+		row = new ArrayList<>(columns.size());
+		for (String column : columns) {
+			row.add("Claim Date".equals(column) ? date : column);
+		}
+		rows = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			rows.add(row);
+		}
+	}
+
+	@Benchmark
+	public Cell create() {
+		return cellBuilder.create("Claim Date", date);
+	}
+
+	@Benchmark
+	public void createCellByCell(Blackhole blackhole) {
+		for (int i = 0; i < schema.size(); i++) {
+			blackhole.consume(cellBuilder.create(schema.getColumnName(i), row.get(i)));
+		}
+	}
+
+	@Benchmark
+	public List<Object> createRow() {
+		return cellBuilder.createRow(schema, row);
+	}
+
+	/**
+	 * Validators here are not declared thread-safe, so rows are transformed on the calling thread.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public List<List<Object>> createRows() {
+		return cellBuilder.createRows(schema, rows);
+	}
+}
@@ -0,0 +1,75 @@
+package com.dj.adapter.reporting.sheets.benchmarks;
+
+import com.dj.adapter.reporting.sheets.utils.CompositeKeyMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking a row up by its key columns, the key being on the last row. Compares with
+ * {@link MergedValueRangesBenchmark}, which joins the same columns.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompositeKeyMatcherBenchmark {
+	@Param({"1", "3", "8"})
+	public int columns;
+
+	@Param({"1000", "50000"})
+	public int rows;
+
+	private List<List<List<Object>>> value;
+	private CompositeKeyMatcher.Index index;
+	private List<Object> key;
+
+	@Setup
+	public void setUp() {
+		value = new ArrayList<>(columns);
+		key = new ArrayList<>(columns);
+		for (int column = 0; column < columns; column++) {
+			final List<List<Object>> cells = new ArrayList<>(rows);
+			for (int row = 0; row < rows; row++) {
+				cells.add(Collections.singletonList("value " + column + "/" + row));
+			}
+			value.add(cells);
+			key.add("value " + column + "/" + (rows - 1));
+		}
+		index = CompositeKeyMatcher.of(value)
+		                           .index();
+	}
+
+	@Benchmark
+	public OptionalInt scan() {
+		return CompositeKeyMatcher.of(value)
+		                          .firstMatch(key);
+	}
+
+	@Benchmark
+	public CompositeKeyMatcher.Index buildIndex() {
+		return CompositeKeyMatcher.of(value)
+		                          .index();
+	}
+
+	@Benchmark
+	public OptionalInt indexedLookup() {
+		return index.firstMatch(key);
+	}
+}
@@ -0,0 +1,73 @@
+package com.dj.adapter.reporting.sheets.benchmarks;
+
+import com.dj.adapter.reporting.sheets.domain.GoogleSheet;
+import com.dj.adapter.reporting.sheets.domain.RowSchema;
+import com.dj.adapter.reporting.sheets.utils.GoogleSheetsUtils;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning the header into lookup tables and laying out rows in the order of the header.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeaderBenchmark {
+	private List<Object> header;
+	private RowSchema schema;
+	private Map<String, Object> row;
+	private GoogleSheet sheet;
+
+	@Setup
+	public void setUp() throws IOException {
+		header = new ArrayList<>(CannedSheets.headerColumns());
+		schema = RowSchema.of(header, 0);
+		row = new HashMap<>();
+		for (Object column : header) {
+			row.put(column.toString(), "value of " + column);
+		}
+		sheet = CannedSheets.newSheet();
+		// Fetch and keep the header, so that appendRow measures row assembly and the canned round trip
+		sheet.getRowSchema();
+	}
+
+	@Benchmark
+	public Map<String, Integer> listToMap() {
+		return GoogleSheetsUtils.listToMap(header, 0);
+	}
+
+	@Benchmark
+	public RowSchema buildSchema() {
+		return RowSchema.of(header, 0);
+	}
+
+	@Benchmark
+	public List<Object> encodeRow() {
+		return schema.encode(row);
+	}
+
+	@Benchmark
+	public ValueRange appendRow() throws IOException {
+		return sheet.appendRow(row)
+		            .join();
+	}
+}
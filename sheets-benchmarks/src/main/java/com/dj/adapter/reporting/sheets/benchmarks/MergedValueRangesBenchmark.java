@@ -0,0 +1,57 @@
+package com.dj.adapter.reporting.sheets.benchmarks;
+
+import com.dj.adapter.reporting.sheets.utils.MergedValueRanges;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Joining key columns of a sheet row by row, as done when looking a row up by its keys.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MergedValueRangesBenchmark {
+	@Param({"1", "3", "8"})
+	public int columns;
+
+	@Param({"1000", "50000"})
+	public int rows;
+
+	private MergedValueRanges ranges;
+
+	@Setup
+	public void setUp() {
+		final List<List<List<Object>>> value = new ArrayList<>(columns);
+		for (int column = 0; column < columns; column++) {
+			final List<List<Object>> cells = new ArrayList<>(rows);
+			for (int row = 0; row < rows; row++) {
+				cells.add(Collections.singletonList("value " + column + "/" + row));
+			}
+			value.add(cells);
+		}
+		ranges = MergedValueRanges.of(value);
+	}
+
+	@Benchmark
+	public Optional<List<String>> concat() {
+		return ranges.concat("|");
+	}
+}
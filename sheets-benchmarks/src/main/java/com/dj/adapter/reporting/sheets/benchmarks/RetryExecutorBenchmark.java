@@ -0,0 +1,61 @@
+package com.dj.adapter.reporting.sheets.benchmarks;
+
+import com.dj.adapter.reporting.sheets.retry.AsyncRetryExecutor;
+import com.dj.adapter.reporting.sheets.retry.RetryExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of running a task that succeeds at once through the retry executor.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RetryExecutorBenchmark {
+	private ScheduledExecutorService scheduler;
+	private RetryExecutor executor;
+
+	@Setup
+	public void setUp() {
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		executor = new AsyncRetryExecutor(scheduler).withFixedBackoff(200)
+		                                            .withFixedRate()
+		                                            .withMaxRetries(3);
+	}
+
+	@TearDown
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Benchmark
+	public Integer baseline() {
+		return task();
+	}
+
+	@Benchmark
+	public Integer getWithRetry() {
+		return executor.getWithRetry(ctx -> task())
+		               .join();
+	}
+
+	private static Integer task() {
+		return 42;
+	}
+}
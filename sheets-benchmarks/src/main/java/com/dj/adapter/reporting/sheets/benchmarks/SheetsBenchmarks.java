@@ -0,0 +1,22 @@
+package com.dj.adapter.reporting.sheets.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so that every result comes with its allocation rate
+ * next to its throughput. Accepts the usual JMH options, e.g. a regular expression selecting the
+ * benchmarks to run.
+ */
+public class SheetsBenchmarks {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+		                               .addProfiler(GCProfiler.class)
+		                               .build()).run();
+	}
+}
@@ -0,0 +1,81 @@
+package com.dj.adapter.reporting.sheets.benchmarks;
+
+import com.dj.adapter.reporting.sheets.utils.ColumnSnapshot;
+import com.dj.adapter.reporting.sheets.utils.ValueRangeStreamReader;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a large {@code values.get} response, either into a {@code ValueRange} as the client
+ * does, or streamed into a {@link ColumnSnapshot}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValueRangeReadBenchmark {
+	@Param({"1", "15"})
+	public int columns;
+
+	@Param({"1000", "50000"})
+	public int rows;
+
+	private final JsonFactory jsonFactory = JacksonFactory.getDefaultInstance();
+	private byte[] response;
+
+	@Setup
+	public void setUp() throws IOException {
+		final List<List<Object>> values = new ArrayList<>(rows);
+		for (int row = 0; row < rows; row++) {
+			final List<Object> cells = new ArrayList<>(columns);
+			for (int column = 0; column < columns; column++) {
+				cells.add("value " + column + "/" + row);
+			}
+			values.add(cells);
+		}
+		response = jsonFactory.toByteArray(new ValueRange().setRange("'Class Data'!A1:O" + rows)
+		                                                   .setMajorDimension("ROWS")
+		                                                   .setValues(values));
+	}
+
+	@Benchmark
+	public ValueRange materialized() throws IOException {
+		return jsonFactory.fromInputStream(new ByteArrayInputStream(response), StandardCharsets.UTF_8,
+		                                   ValueRange.class);
+	}
+
+	@Benchmark
+	public ColumnSnapshot streamed() throws IOException {
+		final ColumnSnapshot snapshot = new ColumnSnapshot();
+		final JsonParser parser = jsonFactory.createJsonParser(new ByteArrayInputStream(response),
+		                                                       StandardCharsets.UTF_8);
+		try {
+			ValueRangeStreamReader.read(parser, snapshot);
+		} finally {
+			parser.close();
+		}
+		return snapshot;
+	}
+}
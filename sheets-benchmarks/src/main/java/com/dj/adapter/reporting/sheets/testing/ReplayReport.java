@@ -0,0 +1,150 @@
+package com.dj.adapter.reporting.sheets.testing;
+
+import com.dj.adapter.reporting.sheets.transport.SheetsApiCall;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of replaying a trace with {@link TraceReplayer}: throughput and latency of the replayed
+ * calls, next to the ones recorded, and the number of calls per API method.
+ */
+public final class ReplayReport {
+	private final int calls;
+	private final int skipped;
+	private final int failures;
+	private final long elapsedNanos;
+	private final long[] latencyNanos;
+	private final long[] recordedLatencyNanos;
+	private final long recordedSpanMillis;
+	private final Map<SheetsApiCall.Method, Long> tracedCalls;
+	private final Map<SheetsApiCall.Method, Long> apiCalls;
+
+	ReplayReport(int skipped,
+	             int failures,
+	             long elapsedNanos,
+	             long[] latencyNanos,
+	             long[] recordedLatencyNanos,
+	             long recordedSpanMillis,
+	             Map<SheetsApiCall.Method, Long> tracedCalls,
+	             Map<SheetsApiCall.Method, Long> apiCalls) {
+		this.calls = latencyNanos.length;
+		this.skipped = skipped;
+		this.failures = failures;
+		this.elapsedNanos = elapsedNanos;
+		this.latencyNanos = latencyNanos.clone();
+		this.recordedLatencyNanos = recordedLatencyNanos.clone();
+		this.recordedSpanMillis = recordedSpanMillis;
+		this.tracedCalls = Collections.unmodifiableMap(new EnumMap<>(tracedCalls));
+		this.apiCalls = Collections.unmodifiableMap(new EnumMap<>(apiCalls));
+		Arrays.sort(this.latencyNanos);
+		Arrays.sort(this.recordedLatencyNanos);
+	}
+
+	/**
+	 * Number of calls replayed, failed ones included.
+	 */
+	public int getCalls() {
+		return calls;
+	}
+
+	/**
+	 * Number of traced calls not replayed, because the replayer does not know how to.
+	 */
+	public int getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * Number of replayed calls that ended with an error.
+	 */
+	public int getFailures() {
+		return failures;
+	}
+
+	public long getElapsed(TimeUnit unit) {
+		return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Replayed calls per second.
+	 */
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : calls * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Calls per second in the recording.
+	 */
+	public double getRecordedThroughput() {
+		return recordedSpanMillis == 0 ? 0 : recordedLatencyNanos.length * 1e3 / recordedSpanMillis;
+	}
+
+	/**
+	 * Latency of the replayed calls at a percentile.
+	 *
+	 * @param percentile from 0 to 100
+	 * @return the latency in milliseconds
+	 */
+	public double getLatencyMillis(double percentile) {
+		return percentile(latencyNanos, percentile);
+	}
+
+	/**
+	 * Latency of the recorded calls at a percentile.
+	 *
+	 * @param percentile from 0 to 100
+	 * @return the latency in milliseconds
+	 */
+	public double getRecordedLatencyMillis(double percentile) {
+		return percentile(recordedLatencyNanos, percentile);
+	}
+
+	/**
+	 * Number of calls per method in the trace.
+	 */
+	public Map<SheetsApiCall.Method, Long> getTracedCalls() {
+		return tracedCalls;
+	}
+
+	/**
+	 * Number of calls per method received by the stand-in during the replay.
+	 */
+	public Map<SheetsApiCall.Method, Long> getApiCalls() {
+		return apiCalls;
+	}
+
+	/**
+	 * Nearest-rank percentile of sorted values.
+	 */
+	private static double percentile(long[] sortedNanos, double percentile) {
+		if (sortedNanos.length == 0) {
+			return 0;
+		}
+		final int rank = (int) Math.ceil(percentile / 100 * sortedNanos.length);
+		return sortedNanos[Math.max(0, Math.min(sortedNanos.length - 1, rank - 1))] / 1e6;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder report = new StringBuilder(512);
+		report.append(String.format("Replayed %d calls in %d ms (%d skipped, %d failed)%n",
+		                            calls, getElapsed(TimeUnit.MILLISECONDS), skipped, failures))
+		      .append(String.format("Throughput: %.1f calls/s, recorded %.1f calls/s%n",
+		                            getThroughput(), getRecordedThroughput()))
+		      .append(String.format("Latency p50/p99: %.1f/%.1f ms, recorded %.1f/%.1f ms%n",
+		                            getLatencyMillis(50), getLatencyMillis(99),
+		                            getRecordedLatencyMillis(50), getRecordedLatencyMillis(99)));
+		for (SheetsApiCall.Method method : SheetsApiCall.Method.values()) {
+			final long traced = tracedCalls.getOrDefault(method, 0L);
+			final long sent = apiCalls.getOrDefault(method, 0L);
+			if (traced > 0 || sent > 0) {
+				report.append(String.format("  %-32s traced %6d, sent %6d%n", method.getName(), traced, sent));
+			}
+		}
+		return report.toString();
+	}
+}
@@ -0,0 +1,293 @@
+package com.dj.adapter.reporting.sheets.testing;
+
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepository;
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepositoryFactory;
+import com.dj.adapter.reporting.sheets.transport.SheetsApiCall;
+import com.dj.adapter.reporting.sheets.transport.TracedCall;
+import com.dj.adapter.reporting.sheets.utils.A1Notation;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesRequest;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays a trace recorded by {@link com.dj.adapter.reporting.sheets.transport.CallRecorder}
+ * through a {@link GoogleSheetsRepository} backed by an {@link InMemorySheetsServer}, at the
+ * recorded pace or faster, and reports throughput, latency and API calls.
+ * <p>
+ * Written values are synthetic, with the recorded number of rows and cells; the sheets named in
+ * the trace are created empty before the replay starts.
+ */
+public class TraceReplayer {
+	private static Logger logger = LoggerFactory.getLogger(TraceReplayer.class);
+	private static final String VALUE = "x";
+
+	private final InMemorySheetsServer server;
+	private final GoogleSheetsRepository repository;
+	private double speed = 1;
+	private int threads = 8;
+
+	/**
+	 * @param server     the stand-in answering the repository
+	 * @param repository a repository whose clients use the transport of the server
+	 */
+	public TraceReplayer(InMemorySheetsServer server, GoogleSheetsRepository repository) {
+		this.server = server;
+		this.repository = repository;
+	}
+
+	/**
+	 * Replays a trace file against an in-memory server.
+	 * Arguments: trace file, speed (1 by default, 0 as fast as possible), and optionally the median
+	 * and 99th percentile latency of the server in milliseconds.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.err.println("Usage: TraceReplayer <trace file> [speed] [median millis] [p99 millis]");
+			System.exit(1);
+		}
+		final InMemorySheetsServer server = new InMemorySheetsServer();
+		if (args.length >= 4) {
+			server.setLatency(LatencyDistribution.logNormal(Double.parseDouble(args[2]), Double.parseDouble(args[3])));
+		}
+		final GoogleSheetsRepositoryFactory factory = new GoogleSheetsRepositoryFactory();
+		final ReplayReport report = new TraceReplayer(server, server.newRepository(factory))
+				.setSpeed(args.length >= 2 ? Double.parseDouble(args[1]) : 1)
+				.replay(read(Paths.get(args[0])));
+		System.out.print(report);
+		factory.shutdown();
+	}
+
+	/**
+	 * Reads the calls of a trace file.
+	 *
+	 * @param trace the trace file
+	 * @return the calls, in the order they were recorded
+	 */
+	public static List<TracedCall> read(Path trace) throws IOException {
+		final List<TracedCall> calls = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(trace, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty() && !line.startsWith("#")) {
+					calls.add(TracedCall.parse(line));
+				}
+			}
+		}
+		return calls;
+	}
+
+	/**
+	 * Sets how much faster than recorded the calls are sent.
+	 *
+	 * @param speed 1 for the recorded pace, 2 for twice as fast, 0 for as fast as possible
+	 * @return this replayer
+	 */
+	public TraceReplayer setSpeed(double speed) {
+		if (speed < 0) {
+			throw new IllegalArgumentException("Speed must not be negative");
+		}
+		this.speed = speed;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads sending calls, which bounds the calls in flight.
+	 *
+	 * @param threads number of threads, 8 by default
+	 * @return this replayer
+	 */
+	public TraceReplayer setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("At least one thread is needed");
+		}
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Replays calls, each one when its offset in the recording is reached.
+	 *
+	 * @param calls calls in the order they were recorded
+	 * @return the report of the replay
+	 */
+	public ReplayReport replay(List<TracedCall> calls) throws InterruptedException {
+		final List<TracedCall> replayed = new ArrayList<>(calls.size());
+		final Map<SheetsApiCall.Method, Long> tracedCalls = new EnumMap<>(SheetsApiCall.Method.class);
+		final List<Long> recordedLatencies = new ArrayList<>(calls.size());
+		long recordedSpanMillis = 0;
+		for (TracedCall call : calls) {
+			tracedCalls.merge(call.getMethod(), 1L, Long::sum);
+			recordedLatencies.add(TimeUnit.MICROSECONDS.toNanos(call.getDurationMicros()));
+			recordedSpanMillis = Math.max(recordedSpanMillis,
+			                              call.getOffsetMillis() + TimeUnit.MICROSECONDS.toMillis(call.getDurationMicros()));
+			if (isReplayable(call)) {
+				replayed.add(call);
+			}
+		}
+		seed(replayed);
+		server.resetCounters();
+		logger.info("Replaying {} of {} calls at speed {}", replayed.size(), calls.size(), speed);
+
+		final long[] latencies = new long[replayed.size()];
+		final AtomicInteger failures = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(replayed.size());
+		final ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+			final Thread thread = new Thread(runnable, "trace-replay");
+			thread.setDaemon(true);
+			return thread;
+		});
+		final long startNanos = System.nanoTime();
+		try {
+			for (int index = 0; index < replayed.size(); index++) {
+				final TracedCall call = replayed.get(index);
+				if (speed > 0) {
+					final long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(call.getOffsetMillis()) / speed);
+					final long waitNanos = dueNanos - System.nanoTime();
+					if (waitNanos > 0) {
+						TimeUnit.NANOSECONDS.sleep(waitNanos);
+					}
+				}
+				final int slot = index;
+				pool.execute(() -> {
+					final long callStart = System.nanoTime();
+					try {
+						execute(call);
+					} catch (IOException | RuntimeException e) {
+						logger.debug("Replayed call {} failed", call, e);
+						failures.incrementAndGet();
+					}
+					latencies[slot] = System.nanoTime() - callStart;
+					done.countDown();
+				});
+			}
+			done.await();
+		} finally {
+			pool.shutdownNow();
+		}
+		final long elapsedNanos = System.nanoTime() - startNanos;
+
+		final Map<SheetsApiCall.Method, Long> apiCalls = new EnumMap<>(SheetsApiCall.Method.class);
+		for (SheetsApiCall.Method method : SheetsApiCall.Method.values()) {
+			apiCalls.put(method, server.getRequestCount(method));
+		}
+		final long[] recorded = new long[recordedLatencies.size()];
+		for (int index = 0; index < recorded.length; index++) {
+			recorded[index] = recordedLatencies.get(index);
+		}
+		return new ReplayReport(calls.size() - replayed.size(), failures.get(), elapsedNanos, latencies, recorded,
+		                        recordedSpanMillis, tracedCalls, apiCalls);
+	}
+
+	private static boolean isReplayable(TracedCall call) {
+		switch (call.getMethod()) {
+			case SPREADSHEETS_GET:
+			case VALUES_BATCH_GET:
+			case VALUES_BATCH_UPDATE:
+				return call.getSpreadsheetId() != null;
+			case VALUES_GET:
+			case VALUES_APPEND:
+			case VALUES_UPDATE:
+				return call.getSpreadsheetId() != null && !call.getRanges()
+				                                               .isEmpty();
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Creates the spreadsheets and sheets the calls refer to.
+	 */
+	private void seed(List<TracedCall> calls) {
+		for (TracedCall call : calls) {
+			server.addSpreadsheet(call.getSpreadsheetId());
+			for (String range : call.getRanges()) {
+				final String sheetName;
+				try {
+					sheetName = A1Notation.parse(range)
+					                      .getSheetName();
+				} catch (IllegalArgumentException e) {
+					continue;
+				}
+				if (sheetName != null && !server.hasSheet(call.getSpreadsheetId(), sheetName)) {
+					server.addSheet(call.getSpreadsheetId(), sheetName, Collections.emptyList());
+				}
+			}
+		}
+	}
+
+	private void execute(TracedCall call) throws IOException {
+		final String spreadsheetId = call.getSpreadsheetId();
+		switch (call.getMethod()) {
+			case SPREADSHEETS_GET:
+				repository.getSpreadSheetById(spreadsheetId);
+				break;
+			case VALUES_GET:
+				repository.getRange(spreadsheetId, call.getRanges()
+				                                       .get(0));
+				break;
+			case VALUES_BATCH_GET:
+				repository.getMultipleRanges(spreadsheetId, call.getRanges());
+				break;
+			case VALUES_APPEND:
+				repository.append(spreadsheetId, call.getRanges()
+				                                     .get(0), values(call.getRows(), call.getCells()))
+				          .setValueInputOption("USER_ENTERED")
+				          .setInsertDataOption("INSERT_ROWS")
+				          .execute();
+				break;
+			case VALUES_UPDATE:
+				repository.update(spreadsheetId, call.getRanges()
+				                                     .get(0), values(call.getRows(), call.getCells()))
+				          .setValueInputOption("USER_ENTERED")
+				          .execute();
+				break;
+			case VALUES_BATCH_UPDATE:
+				final int updates = Math.max(1, call.getRanges()
+				                                    .size());
+				final List<ValueRange> data = new ArrayList<>(updates);
+				for (String range : call.getRanges()) {
+					data.add(values(call.getRows() / updates, call.getCells() / updates).setRange(range));
+				}
+				repository.get()
+				          .spreadsheets()
+				          .values()
+				          .batchUpdate(spreadsheetId, new BatchUpdateValuesRequest().setValueInputOption("USER_ENTERED")
+				                                                                    .setData(data))
+				          .execute();
+				break;
+			default:
+				throw new IllegalStateException("Cannot replay " + call.getMethod());
+		}
+	}
+
+	/**
+	 * Synthetic rows with about as many cells as recorded.
+	 */
+	private static ValueRange values(int rows, int cells) {
+		final int rowCount = Math.max(1, rows);
+		final int width = Math.max(1, cells / rowCount);
+		final List<List<Object>> values = new ArrayList<>(rowCount);
+		for (int row = 0; row < rowCount; row++) {
+			values.add(Collections.<Object>nCopies(width, VALUE));
+		}
+		return new ValueRange().setValues(values);
+	}
+}
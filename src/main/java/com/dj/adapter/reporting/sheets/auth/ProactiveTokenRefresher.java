@@ -0,0 +1,266 @@
+package com.dj.adapter.reporting.sheets.auth;
+
+import com.google.api.client.auth.oauth2.BearerToken;
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpStatusCodes;
+import com.google.api.client.http.HttpUnsuccessfulResponseHandler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Authorizes requests with the access token of a {@link Credential}, refreshing it in background
+ * before it expires instead of inline on the request that finds it expired.
+ * <p>
+ * Requests read the last known token without taking any lock. Only one refresh is in flight at a
+ * time: a request that still needs a new token (the token already expired or the server answered
+ * 401) joins the refresh in flight instead of starting another one.
+ * <p>
+ * A failed refresh is retried in background after a delay doubling with every failure in a row,
+ * from 10 seconds up to 10 minutes. Failures are logged when refreshes start failing, and again
+ * when they recover.
+ */
+public class ProactiveTokenRefresher implements HttpRequestInitializer, HttpExecuteInterceptor, HttpUnsuccessfulResponseHandler {
+	public static final long DEFAULT_REFRESH_MARGIN_MILLIS = 5 * 60_000;
+	private static final long MIN_RETRY_DELAY_MILLIS = 10_000;
+	private static final long MAX_RETRY_DELAY_MILLIS = 10 * 60_000;
+	private static Logger logger = LoggerFactory.getLogger(ProactiveTokenRefresher.class);
+
+	private final String name;
+	private final Credential credential;
+	private final ScheduledExecutorService scheduler;
+	private final long refreshMarginMillis;
+	private final Timer refreshTimer;
+	private final AtomicReference<CompletableFuture<Token>> inFlight = new AtomicReference<>();
+	/**
+	 * Refreshes failed in a row, since the last successful one
+	 */
+	private final AtomicInteger failures = new AtomicInteger();
+	private volatile Token token;
+	private ScheduledFuture<?> nextRefresh;
+
+	public ProactiveTokenRefresher(String name, Credential credential, ScheduledExecutorService scheduler,
+	                               MeterRegistry registry) {
+		this(name, credential, scheduler, registry, DEFAULT_REFRESH_MARGIN_MILLIS);
+	}
+
+	public ProactiveTokenRefresher(String name, Credential credential, ScheduledExecutorService scheduler,
+	                               MeterRegistry registry, long refreshMarginMillis) {
+		this.name = name;
+		this.credential = Objects.requireNonNull(credential);
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.refreshMarginMillis = refreshMarginMillis;
+		this.token = Token.of(credential);
+		this.refreshTimer = Timer.builder("sheets.auth.token.refresh")
+		                         .description("Latency of access token refreshes")
+		                         .tag("credential", name)
+		                         .register(registry);
+		Gauge.builder("sheets.auth.token.ttl", this, ProactiveTokenRefresher::getSecondsToExpiration)
+		     .description("Seconds until the current access token expires")
+		     .tag("credential", name)
+		     .register(registry);
+	}
+
+	/**
+	 * Refreshes the token now if it is missing or about to expire, and schedules the next
+	 * background refresh.
+	 *
+	 * @return this refresher
+	 */
+	public ProactiveTokenRefresher start() {
+		if (token.expiresWithin(refreshMarginMillis)) {
+			refresh();
+		} else {
+			scheduleNextRefresh(token);
+		}
+		return this;
+	}
+
+	@Override
+	public void initialize(HttpRequest request) {
+		request.setInterceptor(this);
+		request.setUnsuccessfulResponseHandler(this);
+	}
+
+	@Override
+	public void intercept(HttpRequest request) throws IOException {
+		Token current = token;
+		if (current.isExpired()) {
+			// The background refresh did not make it in time (e.g. it failed), so wait for one
+			current = await(refresh());
+		}
+		BearerToken.authorizationHeaderAccessMethod()
+		           .intercept(request, current.accessToken);
+	}
+
+	@Override
+	public boolean handleResponse(HttpRequest request, HttpResponse response, boolean supportsRetry) throws IOException {
+		if (response.getStatusCode() != HttpStatusCodes.STATUS_CODE_UNAUTHORIZED) {
+			return false;
+		}
+		final Token rejected = token;
+		final String sentToken = BearerToken.authorizationHeaderAccessMethod()
+		                                    .getAccessTokenFromRequest(request);
+		if (sentToken != null && !sentToken.equals(rejected.accessToken)) {
+			// Someone else already replaced the token that was rejected
+			return supportsRetry;
+		}
+		return await(refresh()).accessToken != null && supportsRetry;
+	}
+
+	/**
+	 * Starts a refresh unless one is already in flight, in which case it is joined.
+	 *
+	 * @return the refreshed token
+	 */
+	public CompletableFuture<Token> refresh() {
+		final CompletableFuture<Token> refreshing = new CompletableFuture<>();
+		while (!inFlight.compareAndSet(null, refreshing)) {
+			final CompletableFuture<Token> existing = inFlight.get();
+			if (existing != null) {
+				return existing;
+			}
+		}
+		scheduler.execute(() -> doRefresh(refreshing));
+		return refreshing;
+	}
+
+	private void doRefresh(CompletableFuture<Token> refreshing) {
+		final long start = System.nanoTime();
+		try {
+			if (!credential.refreshToken()) {
+				throw new IOException("Access token of credential " + name + " could not be refreshed");
+			}
+			refreshTimer.record(System.nanoTime() - start, NANOSECONDS);
+			final Token refreshed = Token.of(credential);
+			token = refreshed;
+			final int failed = failures.getAndSet(0);
+			if (failed > 0) {
+				logger.info("Access token of credential {} refreshed after {} failed attempts", name, failed);
+			}
+			logger.debug("Access token of credential {} refreshed, expires in {}s", name, refreshed.secondsToExpiration());
+			inFlight.set(null);
+			refreshing.complete(refreshed);
+			scheduleNextRefresh(refreshed);
+		} catch (Throwable t) {
+			final int failed = failures.incrementAndGet();
+			final long delay = retryDelayMillis(failed);
+			if (failed == 1) {
+				logger.warn("Refresh of access token of credential {} failed, retrying in {}ms", name, delay, t);
+			} else {
+				logger.debug("Refresh of access token of credential {} failed {} times in a row, retrying in {}ms: {}",
+				             name, failed, delay, t.toString());
+			}
+			inFlight.set(null);
+			refreshing.completeExceptionally(t);
+			scheduleRefresh(delay);
+		}
+	}
+
+	/**
+	 * Delay before retrying a refresh, doubling with every failure in a row.
+	 */
+	static long retryDelayMillis(int failures) {
+		final int doublings = Math.min(Math.max(failures - 1, 0), 16);
+		return Math.min(MIN_RETRY_DELAY_MILLIS << doublings, MAX_RETRY_DELAY_MILLIS);
+	}
+
+	/**
+	 * Number of refreshes failed in a row, 0 once a refresh succeeds.
+	 */
+	public int getFailures() {
+		return failures.get();
+	}
+
+	private void scheduleNextRefresh(Token current) {
+		if (current.expirationMillis == null) {
+			return;
+		}
+		scheduleRefresh(Math.max(0, current.expirationMillis - refreshMarginMillis - System.currentTimeMillis()));
+	}
+
+	private synchronized void scheduleRefresh(long delayMillis) {
+		if (nextRefresh != null) {
+			nextRefresh.cancel(false);
+		}
+		nextRefresh = scheduler.schedule(this::refresh, delayMillis, MILLISECONDS);
+	}
+
+	private static Token await(CompletableFuture<Token> refresh) throws IOException {
+		try {
+			return refresh.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+			      .interrupt();
+			throw new IOException("Interrupted while waiting for an access token", e);
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException ?
+			      (IOException) e.getCause() :
+			      new IOException("Access token could not be refreshed", e.getCause());
+		}
+	}
+
+	public double getSecondsToExpiration() {
+		return token.secondsToExpiration();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Immutable snapshot of an access token, so that requests never see a token and an expiration
+	 * time coming from different refreshes.
+	 */
+	public static final class Token {
+		private final String accessToken;
+		private final Long expirationMillis;
+
+		private Token(String accessToken, Long expirationMillis) {
+			this.accessToken = accessToken;
+			this.expirationMillis = expirationMillis;
+		}
+
+		static Token of(Credential credential) {
+			return new Token(credential.getAccessToken(), credential.getExpirationTimeMilliseconds());
+		}
+
+		boolean isExpired() {
+			return expiresWithin(0);
+		}
+
+		boolean expiresWithin(long millis) {
+			return accessToken == null || expirationMillis != null && expirationMillis - millis <= System.currentTimeMillis();
+		}
+
+		double secondsToExpiration() {
+			return expirationMillis == null ? Double.NaN : (expirationMillis - System.currentTimeMillis()) / 1000d;
+		}
+
+		public String getAccessToken() {
+			return accessToken;
+		}
+
+		public Long getExpirationMillis() {
+			return expirationMillis;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.dj.adapter.reporting.sheets.concurrent;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs asynchronous tasks one after the other per key, and tasks of different keys concurrently,
+ * without blocking any thread: a task starts once the future of the previous task of its key
+ * completes, whatever its outcome.
+ * <p>
+ * A task with no predecessor starts right away on the submitting thread, which gets the exceptions
+ * thrown while starting it; a queued task starts on the executor, as its predecessor may complete
+ * on a thread that must not run it, e.g. the one of a retry scheduler, and its exceptions complete
+ * its future instead. The executor runs whatever a task does before returning its future, so tasks
+ * that block must not be queued on a pool they would starve, such as the common fork/join pool.
+ * Keys are only held while they have tasks pending.
+ *
+ * @param <K> type of the keys, compared with {@code equals}
+ */
+public final class KeyedSequencer<K> {
+	private final ConcurrentMap<K, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+	private final Executor executor;
+
+	/**
+	 * @param executor runs the tasks queued behind another task of their key
+	 */
+	public KeyedSequencer(Executor executor) {
+		this.executor = Objects.requireNonNull(executor);
+	}
+
+	/**
+	 * Starts a task after the tasks already submitted for its key.
+	 *
+	 * @param key  key of the task
+	 * @param task starts the task
+	 * @param <V>  type of the result
+	 * @param <E>  type of the exceptions thrown while starting the task
+	 * @return completes with the future of the task
+	 * @throws E if the task had no predecessor and failed to start; a queued task that fails to
+	 *           start completes the returned future exceptionally instead
+	 */
+	public <V, E extends Exception> CompletableFuture<V> submit(K key, Task<V, E> task) throws E {
+		Objects.requireNonNull(key);
+		final CompletableFuture<V> result = new CompletableFuture<>();
+		final CompletableFuture<?> previous = tails.put(key, result);
+		if (previous == null) {
+			final CompletableFuture<V> running;
+			try {
+				running = Objects.requireNonNull(task.start(), "Task returned no future");
+			} catch (Throwable t) {
+				// Fails the task for the tasks queued behind it meanwhile, which still run
+				finish(key, result, null, t);
+				throw t;
+			}
+			running.whenComplete((value, throwable) -> finish(key, result, value, throwable));
+		} else {
+			previous.whenComplete((value, throwable) -> {
+				try {
+					executor.execute(() -> start(key, task, result));
+				} catch (RuntimeException e) {
+					// Rejected: the task is failed, so that the tasks behind it still run
+					finish(key, result, null, e);
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Number of keys with tasks running or waiting.
+	 */
+	public int getPendingKeys() {
+		return tails.size();
+	}
+
+	private <V> void start(K key, Task<V, ?> task, CompletableFuture<V> result) {
+		final CompletableFuture<V> running;
+		try {
+			running = Objects.requireNonNull(task.start(), "Task returned no future");
+		} catch (Throwable t) {
+			finish(key, result, null, t);
+			return;
+		}
+		running.whenComplete((value, throwable) -> finish(key, result, value, throwable));
+	}
+
+	private <V> void finish(K key, CompletableFuture<V> result, V value, Throwable throwable) {
+		// Forgets the key unless another task was queued behind this one
+		tails.remove(key, result);
+		if (throwable != null) {
+			result.completeExceptionally(throwable);
+		} else {
+			result.complete(value);
+		}
+	}
+
+	/**
+	 * Starts an asynchronous task.
+	 *
+	 * @param <V> type of the result
+	 * @param <E> type of the exceptions thrown while starting the task
+	 */
+	@FunctionalInterface
+	public interface Task<V, E extends Exception> {
+		CompletableFuture<V> start() throws E;
+	}
+}
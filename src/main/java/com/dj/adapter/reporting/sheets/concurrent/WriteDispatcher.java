@@ -0,0 +1,104 @@
+package com.dj.adapter.reporting.sheets.concurrent;
+
+import com.dj.adapter.reporting.sheets.retry.RetryExecutor;
+import com.dj.adapter.reporting.sheets.retry.function.RetryCallable;
+import com.dj.adapter.reporting.sheets.retry.function.RetryRunnable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Dispatches writes to ordered lanes, one per spreadsheet or per sheet: a lane runs its writes one
+ * after the other, retries included, in the order they were submitted, while lanes run
+ * concurrently on the threads of the delegate executor.
+ * <p>
+ * A lane has at most one write running or waiting for a retry, so lanes share the threads fairly
+ * whatever the number of writes queued in each of them, and a slow or throttled spreadsheet only
+ * holds its own lane. Writes are started without blocking the submitting thread.
+ */
+public class WriteDispatcher {
+	private final RetryExecutor delegate;
+	private final LaneScope scope;
+	private final KeyedSequencer<List<String>> lanes = new KeyedSequencer<>(Runnable::run);
+
+	/**
+	 * @param delegate executor running and retrying the writes, usually on a pool of threads
+	 * @param scope    what the writes of a lane target
+	 */
+	public WriteDispatcher(RetryExecutor delegate, LaneScope scope) {
+		this.delegate = Objects.requireNonNull(delegate);
+		this.scope = Objects.requireNonNull(scope);
+	}
+
+	/**
+	 * Returns the lane of a sheet, as an executor whose tasks run in the order they are submitted.
+	 *
+	 * @param spreadsheetId identifier of the spreadsheet
+	 * @param sheetName     title of the sheet, ignored when lanes are per spreadsheet
+	 * @return the lane; lanes of the same spreadsheet or sheet share their order
+	 */
+	public RetryExecutor lane(String spreadsheetId, String sheetName) {
+		final List<String> key = scope == LaneScope.SHEET ?
+		                         Arrays.asList(spreadsheetId, sheetName) :
+		                         Arrays.asList(spreadsheetId, null);
+		return new Lane(key);
+	}
+
+	public RetryExecutor getDelegate() {
+		return delegate;
+	}
+
+	public LaneScope getScope() {
+		return scope;
+	}
+
+	/**
+	 * Number of lanes with writes running or waiting.
+	 */
+	public int getActiveLanes() {
+		return lanes.getPendingKeys();
+	}
+
+	/**
+	 * What the writes of a lane target.
+	 */
+	public enum LaneScope {
+		SPREADSHEET,
+		SHEET
+	}
+
+	private final class Lane implements RetryExecutor {
+		private final List<String> key;
+
+		private Lane(List<String> key) {
+			this.key = key;
+		}
+
+		@Override
+		public CompletableFuture<Void> doWithRetry(RetryRunnable action) {
+			return submit(() -> delegate.doWithRetry(action));
+		}
+
+		@Override
+		public <V> CompletableFuture<V> getWithRetry(Callable<V> task) {
+			return submit(() -> delegate.getWithRetry(task));
+		}
+
+		@Override
+		public <V> CompletableFuture<V> getWithRetry(RetryCallable<V> task) {
+			return submit(() -> delegate.getWithRetry(task));
+		}
+
+		@Override
+		public <V> CompletableFuture<V> getFutureWithRetry(RetryCallable<CompletableFuture<V>> task) {
+			return submit(() -> delegate.getFutureWithRetry(task));
+		}
+
+		private <V> CompletableFuture<V> submit(KeyedSequencer.Task<V, RuntimeException> write) {
+			return lanes.submit(key, write);
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.dj.adapter.reporting.sheets.concurrent;
+
+import com.dj.adapter.reporting.sheets.domain.ValueUpdateMultiplexer;
+
+/**
+ * Settings of the {@link WriteDispatcher} of the reports, as bound from {@code google.reporting.writes}.
+ */
+public class WriteDispatcherSettings {
+	/**
+	 * Threads running the writes of all lanes, and their retries.
+	 */
+	private int threads = 4;
+	/**
+	 * Whether writes are ordered per spreadsheet or per sheet.
+	 */
+	private WriteDispatcher.LaneScope laneScope = WriteDispatcher.LaneScope.SHEET;
+	/**
+	 * Threads starting the upserts queued behind another upsert of the same key, which block
+	 * while they look their row up.
+	 */
+	private int upsertThreads = 2;
+	/**
+	 * How long value updates to a spreadsheet wait to be sent together, in milliseconds; 0 sends
+	 * every write on its own.
+	 */
+	private long batchWindowMillis = ValueUpdateMultiplexer.DEFAULT_WINDOW_MILLIS;
+	/**
+	 * Number of ranges that sends a batch before its window elapses.
+	 */
+	private int batchMaxRanges = ValueUpdateMultiplexer.DEFAULT_MAX_RANGES;
+	/**
+	 * Number of cells that sends a batch before its window elapses.
+	 */
+	private int batchMaxCells = ValueUpdateMultiplexer.DEFAULT_MAX_CELLS;
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public WriteDispatcher.LaneScope getLaneScope() {
+		return laneScope;
+	}
+
+	public void setLaneScope(WriteDispatcher.LaneScope laneScope) {
+		this.laneScope = laneScope;
+	}
+
+	public int getUpsertThreads() {
+		return upsertThreads;
+	}
+
+	public void setUpsertThreads(int upsertThreads) {
+		this.upsertThreads = upsertThreads;
+	}
+
+	public long getBatchWindowMillis() {
+		return batchWindowMillis;
+	}
+
+	public void setBatchWindowMillis(long batchWindowMillis) {
+		this.batchWindowMillis = batchWindowMillis;
+	}
+
+	public int getBatchMaxRanges() {
+		return batchMaxRanges;
+	}
+
+	public void setBatchMaxRanges(int batchMaxRanges) {
+		this.batchMaxRanges = batchMaxRanges;
+	}
+
+	public int getBatchMaxCells() {
+		return batchMaxCells;
+	}
+
+	public void setBatchMaxCells(int batchMaxCells) {
+		this.batchMaxCells = batchMaxCells;
+	}
+}
@@ -0,0 +1,62 @@
+package com.dj.adapter.reporting.sheets.configuration;
+
+import com.dj.adapter.reporting.sheets.domain.SheetsClientPool;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "google.api")
+public class GoogleApiConfiguration {
+	private List<String> credentials = new ArrayList<>();
+	private SheetsClientPool.Routing routing = SheetsClientPool.Routing.ROUND_ROBIN;
+	private int requestsPerMinute = SheetsClientPool.DEFAULT_REQUESTS_PER_MINUTE;
+	private boolean interactive = false;
+	private String traceFile;
+
+	public List<String> getCredentials() {
+		return credentials;
+	}
+
+	public void setCredentials(List<String> credentials) {
+		this.credentials = credentials;
+	}
+
+	public SheetsClientPool.Routing getRouting() {
+		return routing;
+	}
+
+	public void setRouting(SheetsClientPool.Routing routing) {
+		this.routing = routing;
+	}
+
+	public int getRequestsPerMinute() {
+		return requestsPerMinute;
+	}
+
+	public void setRequestsPerMinute(int requestsPerMinute) {
+		this.requestsPerMinute = requestsPerMinute;
+	}
+
+	public boolean isInteractive() {
+		return interactive;
+	}
+
+	public void setInteractive(boolean interactive) {
+		this.interactive = interactive;
+	}
+
+	/**
+	 * File where every Sheets API call is recorded, to be replayed later; nothing is recorded if
+	 * not set.
+	 */
+	public String getTraceFile() {
+		return traceFile;
+	}
+
+	public void setTraceFile(String traceFile) {
+		this.traceFile = traceFile;
+	}
+}
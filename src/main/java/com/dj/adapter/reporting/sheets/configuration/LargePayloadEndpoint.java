@@ -0,0 +1,40 @@
+package com.dj.adapter.reporting.sheets.configuration;
+
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepositoryFactory;
+import com.dj.adapter.reporting.sheets.transport.LargePayloadLog;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint {@code sheetspayloads} listing the latest Sheets API calls with a large request
+ * or response body, newest first, with their sizes and timings. Deleting it clears the list.
+ */
+@Component
+@Endpoint(id = "sheetspayloads")
+public class LargePayloadEndpoint {
+	private final LargePayloadLog log;
+
+	public LargePayloadEndpoint(GoogleSheetsRepositoryFactory repositoryFactory) {
+		this.log = repositoryFactory.getLargePayloads();
+	}
+
+	@ReadOperation
+	public Map<String, Object> largePayloads() {
+		final Map<String, Object> result = new LinkedHashMap<>();
+		result.put("thresholdBytes", log.getThresholdBytes());
+		result.put("capacity", log.getCapacity());
+		result.put("total", log.getTotal());
+		result.put("samples", log.getSamples());
+		return result;
+	}
+
+	@DeleteOperation
+	public void clear() {
+		log.clear();
+	}
+}
@@ -1,19 +1,29 @@
 package com.dj.adapter.reporting.sheets.configuration;
 
-import com.dj.adapter.reporting.sheets.configuration.reports.FirstSheetConfiguration;
-import com.dj.adapter.reporting.sheets.domain.GoogleSheet;
+import com.dj.adapter.reporting.sheets.concurrent.WriteDispatcher;
+import com.dj.adapter.reporting.sheets.concurrent.WriteDispatcherSettings;
+import com.dj.adapter.reporting.sheets.configuration.reports.ReportsConfiguration;
 import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepository;
 import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepositoryFactory;
+import com.dj.adapter.reporting.sheets.domain.ValueUpdateMultiplexer;
 import com.dj.adapter.reporting.sheets.retry.AsyncRetryExecutor;
 import com.dj.adapter.reporting.sheets.retry.RetryExecutor;
+import com.dj.adapter.reporting.sheets.service.ReportRegistry;
 import com.dj.adapter.reporting.sheets.service.SheetsReportingService;
-import com.google.api.client.util.Value;
-import com.google.api.services.sheets.v4.model.GridRange;
+import com.dj.adapter.reporting.sheets.transport.CallRecorder;
+import com.dj.adapter.reporting.sheets.transport.TransportSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -32,21 +42,81 @@ public class ReportingConfiguration {
 		return Executors.newSingleThreadScheduledExecutor();
 	}
 
+	/**
+	 * Threads running the writes of the reports and their retries, shared by all write lanes.
+	 */
+	@Bean(destroyMethod = "shutdownNow")
+	public ScheduledExecutorService writeScheduler() {
+		return Executors.newScheduledThreadPool(Math.max(1, writeDispatcherSettings().getThreads()));
+	}
+
+	/**
+	 * Threads looking rows up for the upserts queued behind another upsert of the same key, shared
+	 * by all reports.
+	 */
+	@Bean(destroyMethod = "shutdownNow")
+	public ExecutorService upsertExecutor() {
+		return Executors.newFixedThreadPool(Math.max(1, writeDispatcherSettings().getUpsertThreads()));
+	}
+
 	@Bean
 	public RetryExecutor retryExecutor() {
-		return new AsyncRetryExecutor(scheduler()).withFixedBackoff(fixedBackoff)
-		                                          .withFixedRate()
-		                                          .withMaxRetries(maxRetries);
+		return new AsyncRetryExecutor(writeScheduler()).withFixedBackoff(fixedBackoff)
+		                                               .withFixedRate()
+		                                               .withMaxRetries(maxRetries);
 	}
 
 	@Bean
-	GoogleSheetsRepositoryFactory repositoryFactory() {
-		return new GoogleSheetsRepositoryFactory();
+	@ConfigurationProperties(prefix = "google.reporting.writes")
+	WriteDispatcherSettings writeDispatcherSettings() {
+		return new WriteDispatcherSettings();
 	}
 
 	@Bean
-	GoogleSheetsRepository sheetsRepository(GoogleSheetsRepositoryFactory repositoryFactory) {
-		return repositoryFactory.getRepository("client_secret.json");
+	WriteDispatcher writeDispatcher() {
+		return new WriteDispatcher(retryExecutor(), writeDispatcherSettings().getLaneScope());
+	}
+
+	@Bean
+	@ConfigurationProperties(prefix = "google.api.transport")
+	TransportSettings transportSettings() {
+		return new TransportSettings();
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty("google.api.trace-file")
+	CallRecorder callRecorder(GoogleApiConfiguration apiConfiguration) throws IOException {
+		return CallRecorder.toFile(Paths.get(apiConfiguration.getTraceFile()));
+	}
+
+	@Bean(destroyMethod = "shutdown")
+	GoogleSheetsRepositoryFactory repositoryFactory(TransportSettings transportSettings,
+	                                                GoogleApiConfiguration apiConfiguration,
+	                                                MeterRegistry meterRegistry,
+	                                                ObjectProvider<CallRecorder> callRecorder) {
+		final GoogleSheetsRepositoryFactory repositoryFactory = new GoogleSheetsRepositoryFactory(transportSettings);
+		repositoryFactory.setMeterRegistry(meterRegistry);
+		repositoryFactory.setInteractive(apiConfiguration.isInteractive());
+		repositoryFactory.setCallRecorder(callRecorder.getIfAvailable());
+		return repositoryFactory;
+	}
+
+	@Bean
+	GoogleSheetsRepository sheetsRepository(GoogleSheetsRepositoryFactory repositoryFactory,
+	                                        GoogleApiConfiguration apiConfiguration) {
+		final GoogleSheetsRepository repository = repositoryFactory.getRepository(apiConfiguration.getCredentials(),
+		                                                                          apiConfiguration.getRouting(),
+		                                                                          apiConfiguration.getRequestsPerMinute());
+		final WriteDispatcherSettings writes = writeDispatcherSettings();
+		if (writes.getBatchWindowMillis() > 0) {
+			repository.setUpdateMultiplexer(new ValueUpdateMultiplexer(repository,
+			                                                           retryExecutor(),
+			                                                           writeScheduler(),
+			                                                           writes.getBatchWindowMillis(),
+			                                                           writes.getBatchMaxRanges(),
+			                                                           writes.getBatchMaxCells()));
+		}
+		return repository;
 	}
 
 	@Bean
@@ -55,16 +125,12 @@ public class ReportingConfiguration {
 	}
 
 	@Bean
-	GoogleSheet firstSheet(SheetsReportingService reportingService,
-	                       FirstSheetConfiguration firstSheetConfiguration) throws IOException {
-		FirstSheetConfiguration.HeaderOffset configuredHeaderOffset = firstSheetConfiguration.getHeaderOffset();
-		GridRange sheetHeaderOffset = new GridRange().setStartRowIndex(configuredHeaderOffset.getStartRowIndex())
-		                                             .setEndRowIndex(configuredHeaderOffset.getEndRowIndex())
-		                                             .setStartColumnIndex(configuredHeaderOffset.getStartColumnIndex())
-		                                             .setEndColumnIndex(configuredHeaderOffset.getEndColumnIndex());
-		return reportingService.getSheetByName(firstSheetConfiguration.getSpreadsheetId(),
-		                                       firstSheetConfiguration.getSheetName())
-		                       .setHeaderOffset(sheetHeaderOffset);
-
+	ReportRegistry reportRegistry(GoogleSheetsRepository sheetsRepository,
+	                              ReportsConfiguration reportsConfiguration) {
+		return new ReportRegistry(sheetsRepository,
+		                          writeDispatcher(),
+		                          scheduler(),
+		                          upsertExecutor(),
+		                          reportsConfiguration.getReports());
 	}
 }
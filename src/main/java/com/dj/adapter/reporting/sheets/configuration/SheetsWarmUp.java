@@ -0,0 +1,68 @@
+package com.dj.adapter.reporting.sheets.configuration;
+
+import com.dj.adapter.reporting.sheets.domain.GoogleSheet;
+import com.dj.adapter.reporting.sheets.service.Report;
+import com.dj.adapter.reporting.sheets.service.ReportRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Once the application is ready, fetches in background the metadata and header of every sheet and report,
+ * so that the first operations do not pay for it, and checks that the header of every report is
+ * mapped. Failures are only logged: sheets are resolved again when they are first used.
+ */
+@Component
+@ConditionalOnProperty(prefix = "google.reporting.warm-up", name = "enabled", havingValue = "true")
+public class SheetsWarmUp implements ApplicationListener<ApplicationReadyEvent> {
+	private static Logger logger = LoggerFactory.getLogger(SheetsWarmUp.class);
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		final Map<String, GoogleSheet> sheets = new LinkedHashMap<>(event.getApplicationContext()
+		                                                                 .getBeansOfType(GoogleSheet.class));
+		final List<Report> reports = new ArrayList<>();
+		event.getApplicationContext()
+		     .getBeansOfType(ReportRegistry.class)
+		     .values()
+		     .forEach(registry -> registry.getReports()
+		                                  .forEach(report -> {
+			                                  sheets.put(report.getName(), report.getSheet());
+			                                  reports.add(report);
+		                                  }));
+		final Thread warmUp = new Thread(() -> {
+			sheets.forEach(this::warmUp);
+			reports.forEach(this::checkHeader);
+		}, "sheets-warm-up");
+		warmUp.setDaemon(true);
+		warmUp.start();
+	}
+
+	private void checkHeader(Report report) {
+		try {
+			report.checkHeader();
+		} catch (IllegalStateException e) {
+			logger.error("Report {} cannot map objects to its sheet: {}", report.getName(), e.getMessage());
+		} catch (Exception e) {
+			logger.debug("Header of report {} could not be checked", report.getName(), e);
+		}
+	}
+
+	private void warmUp(String name, GoogleSheet sheet) {
+		try {
+			final long start = System.currentTimeMillis();
+			sheet.warmUp();
+			logger.debug("Sheet {} warmed up in {}ms", name, System.currentTimeMillis() - start);
+		} catch (Exception e) {
+			logger.warn("Sheet {} could not be warmed up, it will be resolved on first use", name, e);
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package com.dj.adapter.reporting.sheets.configuration.reports;
+
+import com.dj.adapter.reporting.sheets.domain.GoogleSheet;
+import com.dj.adapter.reporting.sheets.utils.AppendCursor;
+import com.dj.adapter.reporting.sheets.utils.RowRangePlanner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Definition of a report sheet, as bound from {@code google.reporting.reports.<name>}.
+ */
+public class ReportDefinition {
+	public static final long DEFAULT_FULL_READ_MAX_CELLS = 10_000;
+
+	private String spreadsheetId;
+	private String sheetName;
+	private HeaderOffset headerOffset = new HeaderOffset();
+	/**
+	 * Maps every column of the sheet header to the field of the reported object holding its value.
+	 * Header names with spaces or symbols are to be bound in brackets, e.g. {@code "[Task ID]"}.
+	 */
+	private Map<String, String> columns = new LinkedHashMap<>();
+	/**
+	 * Columns that uniquely establish the identity of a row.
+	 */
+	private List<String> keyColumns = new ArrayList<>();
+	/**
+	 * Maximum number of operations of this report running at the same time, unlimited if not positive.
+	 */
+	private int maxConcurrency = 0;
+	/**
+	 * Maximum number of operations of this report started per second, unlimited if not positive.
+	 */
+	private double requestsPerSecond = 0;
+	/**
+	 * Unwanted rows read at most to join two requested rows in a single range when reading many rows.
+	 */
+	private int rowGapThreshold = RowRangePlanner.DEFAULT_MAX_GAP;
+	/**
+	 * Size in cells up to which the sheet is read whole to look a row up in a single round trip; 0 never does.
+	 */
+	private long fullReadMaxCells = DEFAULT_FULL_READ_MAX_CELLS;
+	/**
+	 * How rows found by their key are updated: every column, or only the cells that changed.
+	 */
+	private GoogleSheet.UpdateMode updateMode = GoogleSheet.UpdateMode.FULL_ROW;
+	/**
+	 * Whether updates send the written values back, as rendered by the sheet.
+	 */
+	private boolean echoUpdates = true;
+	/**
+	 * How rows are appended: inserted by the API, or written after the last row known locally.
+	 */
+	private GoogleSheet.AppendMode appendMode = GoogleSheet.AppendMode.INSERT_ROWS;
+	/**
+	 * Rows added at least to the grid when appended rows do not fit in it, in cursor mode.
+	 */
+	private int appendChunkRows = AppendCursor.DEFAULT_CHUNK_ROWS;
+
+	public String getSpreadsheetId() {
+		return spreadsheetId;
+	}
+
+	public void setSpreadsheetId(String spreadsheetId) {
+		this.spreadsheetId = spreadsheetId;
+	}
+
+	public String getSheetName() {
+		return sheetName;
+	}
+
+	public void setSheetName(String sheetName) {
+		this.sheetName = sheetName;
+	}
+
+	public HeaderOffset getHeaderOffset() {
+		return headerOffset;
+	}
+
+	public void setHeaderOffset(HeaderOffset headerOffset) {
+		this.headerOffset = headerOffset;
+	}
+
+	public Map<String, String> getColumns() {
+		return columns;
+	}
+
+	public void setColumns(Map<String, String> columns) {
+		this.columns = columns;
+	}
+
+	public List<String> getKeyColumns() {
+		return keyColumns;
+	}
+
+	public void setKeyColumns(List<String> keyColumns) {
+		this.keyColumns = keyColumns;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	public double getRequestsPerSecond() {
+		return requestsPerSecond;
+	}
+
+	public void setRequestsPerSecond(double requestsPerSecond) {
+		this.requestsPerSecond = requestsPerSecond;
+	}
+
+	public int getRowGapThreshold() {
+		return rowGapThreshold;
+	}
+
+	public void setRowGapThreshold(int rowGapThreshold) {
+		this.rowGapThreshold = rowGapThreshold;
+	}
+
+	public long getFullReadMaxCells() {
+		return fullReadMaxCells;
+	}
+
+	public void setFullReadMaxCells(long fullReadMaxCells) {
+		this.fullReadMaxCells = fullReadMaxCells;
+	}
+
+	public GoogleSheet.UpdateMode getUpdateMode() {
+		return updateMode;
+	}
+
+	public void setUpdateMode(GoogleSheet.UpdateMode updateMode) {
+		this.updateMode = updateMode;
+	}
+
+	public boolean isEchoUpdates() {
+		return echoUpdates;
+	}
+
+	public void setEchoUpdates(boolean echoUpdates) {
+		this.echoUpdates = echoUpdates;
+	}
+
+	public GoogleSheet.AppendMode getAppendMode() {
+		return appendMode;
+	}
+
+	public void setAppendMode(GoogleSheet.AppendMode appendMode) {
+		this.appendMode = appendMode;
+	}
+
+	public int getAppendChunkRows() {
+		return appendChunkRows;
+	}
+
+	public void setAppendChunkRows(int appendChunkRows) {
+		this.appendChunkRows = appendChunkRows;
+	}
+
+	public static class HeaderOffset {
+		private Integer startRowIndex = 0;
+		private Integer endRowIndex;
+		private Integer startColumnIndex = 0;
+		private Integer endColumnIndex;
+
+		public Integer getStartRowIndex() {
+			return startRowIndex;
+		}
+
+		public void setStartRowIndex(Integer startRowIndex) {
+			this.startRowIndex = startRowIndex;
+		}
+
+		public Integer getEndRowIndex() {
+			return endRowIndex;
+		}
+
+		public void setEndRowIndex(Integer endRowIndex) {
+			this.endRowIndex = endRowIndex;
+		}
+
+		public Integer getStartColumnIndex() {
+			return startColumnIndex;
+		}
+
+		public void setStartColumnIndex(Integer startColumnIndex) {
+			this.startColumnIndex = startColumnIndex;
+		}
+
+		public Integer getEndColumnIndex() {
+			return endColumnIndex;
+		}
+
+		public void setEndColumnIndex(Integer endColumnIndex) {
+			this.endColumnIndex = endColumnIndex;
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.dj.adapter.reporting.sheets.configuration.reports;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "google.reporting")
+public class ReportsConfiguration {
+	private Map<String, ReportDefinition> reports = new LinkedHashMap<>();
+
+	public Map<String, ReportDefinition> getReports() {
+		return reports;
+	}
+
+	public void setReports(Map<String, ReportDefinition> reports) {
+		this.reports = reports;
+	}
+}
@@ -1,10 +1,32 @@
 package com.dj.adapter.reporting.sheets.domain;
 
-import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds cells running the validation and formatting policies on their values. Policies are
+ * compiled into a pipeline per column the first time the column is seen.
+ */
 public class CellBuilder {
+	private static Logger logger = LoggerFactory.getLogger(CellBuilder.class);
+	/**
+	 * Number of rows transformed by a single task when running in parallel.
+	 */
+	private static final int ROWS_PER_TASK = 1024;
+
 	private final FormattingPolicy formattingPolicy;
 	private final ValidationPolicy validationPolicy;
+	private final Map<String, CellPipeline> pipelines = new ConcurrentHashMap<>();
+	private volatile RowPipeline rowPipeline;
 
 	public CellBuilder() {
 		this.formattingPolicy = FormattingPolicy.DEFAULT;
@@ -32,14 +54,154 @@ public class CellBuilder {
 	}
 
 	public Cell create(String column, Object value) {
-		Optional<Object> validated = validationPolicy.getValidators()
-		                                       .stream()
-		                                       .map(validator -> validator.validate(column, value))
-		                                       .findAny();
-		Optional<Object> formattedValue = formattingPolicy.getFormatters()
-		                                                  .stream()
-		                                                  .map(formatter -> formatter.format(column, validated))
-		                                                  .findAny();
-		return new Cell(column, formattedValue.get());
+		return new Cell(column, pipeline(column).apply(value));
+	}
+
+	/**
+	 * Runs the policies on every value of a row.
+	 *
+	 * @param schema schema of the header the row is laid out in
+	 * @param values values of the row, in the order of the header columns
+	 * @return new list with the resulting values
+	 * @throws IllegalArgumentException if the row has more values than the header columns
+	 */
+	public List<Object> createRow(RowSchema schema, List<Object> values) {
+		return transform(rowPipeline(schema), values);
+	}
+
+	/**
+	 * Runs the policies on every value of many rows, splitting them across the common fork-join
+	 * pool.
+	 *
+	 * @param schema schema of the header the rows are laid out in
+	 * @param rows   values of every row, in the order of the header columns
+	 * @return resulting rows, in the same order
+	 * @see #createRows(RowSchema, List, ForkJoinPool)
+	 */
+	public List<List<Object>> createRows(RowSchema schema, List<List<Object>> rows) {
+		return createRows(schema, rows, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs the policies on every value of many rows, splitting them in blocks across a fork-join
+	 * pool. Rows only run in parallel if every validator and formatter of the columns is declared
+	 * thread-safe; otherwise they are all transformed on the calling thread.
+	 *
+	 * @param schema schema of the header the rows are laid out in
+	 * @param rows   values of every row, in the order of the header columns
+	 * @param pool   pool running the transformation
+	 * @return resulting rows, in the same order
+	 * @throws IllegalArgumentException if a row has more values than the header columns
+	 * @see Formatter#isThreadSafe()
+	 * @see Validator#isThreadSafe()
+	 */
+	public List<List<Object>> createRows(RowSchema schema, List<List<Object>> rows, ForkJoinPool pool) {
+		final CellPipeline[] columns = rowPipeline(schema);
+		final List<List<Object>> input = rows instanceof RandomAccess ? rows : new ArrayList<>(rows);
+		@SuppressWarnings("unchecked")
+		final List<Object>[] output = new List[input.size()];
+		if (input.size() <= ROWS_PER_TASK) {
+			transform(columns, input, output, 0, input.size());
+		} else if (!isThreadSafe(columns)) {
+			logger.warn("Transforming {} rows on the calling thread: not every validator and formatter is thread-safe",
+			            input.size());
+			transform(columns, input, output, 0, input.size());
+		} else {
+			pool.invoke(new TransformRows(columns, input, output, 0, input.size()));
+		}
+		return Arrays.asList(output);
+	}
+
+	private static boolean isThreadSafe(CellPipeline[] columns) {
+		for (CellPipeline column : columns) {
+			if (!column.isThreadSafe()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void transform(CellPipeline[] columns,
+	                              List<List<Object>> rows,
+	                              List<Object>[] output,
+	                              int from,
+	                              int to) {
+		for (int i = from; i < to; i++) {
+			output[i] = transform(columns, rows.get(i));
+		}
+	}
+
+	private static List<Object> transform(CellPipeline[] columns, List<Object> values) {
+		if (values.size() > columns.length) {
+			throw new IllegalArgumentException(String.format("Row has %d values but header has only %d columns",
+			                                                 values.size(), columns.length));
+		}
+		final List<Object> result = new ArrayList<>(values.size());
+		for (int i = 0; i < values.size(); i++) {
+			result.add(columns[i].apply(values.get(i)));
+		}
+		return result;
+	}
+
+	private CellPipeline pipeline(String column) {
+		return pipelines.computeIfAbsent(column, name -> new CellPipeline(name,
+		                                                                  validationPolicy.getValidators(name),
+		                                                                  formattingPolicy.getFormatters(name)));
+	}
+
+	private CellPipeline[] rowPipeline(RowSchema schema) {
+		final RowPipeline current = rowPipeline;
+		if (current != null && current.version == schema.getVersion()) {
+			return current.columns;
+		}
+		final CellPipeline[] columns = new CellPipeline[schema.size()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = pipeline(schema.getColumnName(i));
+		}
+		rowPipeline = new RowPipeline(schema.getVersion(), columns);
+		return columns;
+	}
+
+	/**
+	 * Pipelines of the columns of the last header a row was created for.
+	 */
+	private static final class RowPipeline {
+		private final long version;
+		private final CellPipeline[] columns;
+
+		private RowPipeline(long version, CellPipeline[] columns) {
+			this.version = version;
+			this.columns = columns;
+		}
+	}
+
+	/**
+	 * Transforms a block of rows, splitting it in halves until blocks are small enough.
+	 */
+	private static final class TransformRows extends RecursiveAction {
+		private final CellPipeline[] columns;
+		private final List<List<Object>> rows;
+		private final List<Object>[] output;
+		private final int from;
+		private final int to;
+
+		private TransformRows(CellPipeline[] columns, List<List<Object>> rows, List<Object>[] output, int from, int to) {
+			this.columns = columns;
+			this.rows = rows;
+			this.output = output;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= ROWS_PER_TASK) {
+				transform(columns, rows, output, from, to);
+				return;
+			}
+			final int middle = (from + to) >>> 1;
+			invokeAll(new TransformRows(columns, rows, output, from, middle),
+			          new TransformRows(columns, rows, output, middle, to));
+		}
 	}
 }
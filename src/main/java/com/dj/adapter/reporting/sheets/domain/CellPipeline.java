@@ -0,0 +1,47 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import java.util.List;
+
+/**
+ * Every validator and formatter of a column, compiled into a single function: validators run
+ * first, each one on the result of the previous, and then formatters the same way.
+ */
+final class CellPipeline {
+	private final String column;
+	private final Validator[] validators;
+	private final Formatter[] formatters;
+
+	CellPipeline(String column, List<Validator> validators, List<Formatter> formatters) {
+		this.column = column;
+		this.validators = validators.toArray(new Validator[0]);
+		this.formatters = formatters.toArray(new Formatter[0]);
+	}
+
+	/**
+	 * Whether every validator and formatter of the column is declared thread-safe.
+	 */
+	boolean isThreadSafe() {
+		for (Validator validator : validators) {
+			if (!validator.isThreadSafe()) {
+				return false;
+			}
+		}
+		for (Formatter formatter : formatters) {
+			if (!formatter.isThreadSafe()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	Object apply(Object value) {
+		Object result = value;
+		for (Validator validator : validators) {
+			result = validator.validate(column, result);
+		}
+		for (Formatter formatter : formatters) {
+			result = formatter.format(column, result);
+		}
+		return result;
+	}
+}
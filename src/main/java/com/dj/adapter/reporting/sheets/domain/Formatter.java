@@ -1,7 +1,31 @@
 package com.dj.adapter.reporting.sheets.domain;
 
+import java.util.Objects;
+
 @FunctionalInterface
 public interface Formatter {
+	/**
+	 * Returns a formatter that runs the given one and declares it can run on several threads at
+	 * once, e.g. because it is stateless.
+	 *
+	 * @param formatter a formatter safe to run in parallel
+	 * @return the declared formatter
+	 */
+	static Formatter threadSafe(Formatter formatter) {
+		Objects.requireNonNull(formatter);
+		return new Formatter() {
+			@Override
+			public Object format(String k, Object v) {
+				return formatter.format(k, v);
+			}
+
+			@Override
+			public boolean isThreadSafe() {
+				return true;
+			}
+		};
+	}
+
 	/**
 	 * Applies this function to the given arguments.
 	 *
@@ -11,4 +35,14 @@ public interface Formatter {
 	 */
 	Object format(String k, Object v);
 
+	/**
+	 * Whether this formatter can run on several threads at once. Formatters are not, unless they
+	 * declare it.
+	 *
+	 * @return {@code true} if it is safe to run this formatter in parallel
+	 * @see #threadSafe(Formatter)
+	 */
+	default boolean isThreadSafe() {
+		return false;
+	}
 }
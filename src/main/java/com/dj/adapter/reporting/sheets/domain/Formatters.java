@@ -0,0 +1,101 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Built-in formatters. All of them are stateless and declared thread-safe, so they can be used
+ * for parallel formatting.
+ */
+public final class Formatters {
+	private Formatters() {
+	}
+
+	/**
+	 * Formats dates and times with a pattern, in the default time zone. Supports {@link Date},
+	 * {@link Calendar}, {@link Instant} and {@code java.time} values; any other value is returned
+	 * as is. Dates without time are formatted at the start of the day.
+	 *
+	 * @param pattern pattern as defined by {@link DateTimeFormatter}, e.g. {@code yyyy-MM-dd HH:mm:ss}
+	 * @return a thread-safe formatter
+	 */
+	public static Formatter dateTime(String pattern) {
+		return dateTime(DateTimeFormatter.ofPattern(pattern, Locale.ENGLISH), ZoneId.systemDefault());
+	}
+
+	/**
+	 * Formats dates and times with the given formatter; instants are converted to the given zone.
+	 *
+	 * @param formatter formatter of the values
+	 * @param zone      zone of the instants
+	 * @return a thread-safe formatter
+	 * @see #dateTime(String)
+	 */
+	public static Formatter dateTime(DateTimeFormatter formatter, ZoneId zone) {
+		Objects.requireNonNull(formatter);
+		Objects.requireNonNull(zone);
+		return Formatter.threadSafe((column, value) -> {
+			final TemporalAccessor temporal = toTemporal(value, zone);
+			return temporal == null ? value : formatter.format(temporal);
+		});
+	}
+
+	/**
+	 * Formats dates as {@code yyyy-MM-dd}.
+	 *
+	 * @return a thread-safe formatter
+	 */
+	public static Formatter isoDate() {
+		return dateTime(DateTimeFormatter.ISO_LOCAL_DATE, ZoneId.systemDefault());
+	}
+
+	/**
+	 * Replaces {@code null} with an empty cell.
+	 *
+	 * @return a thread-safe formatter
+	 */
+	public static Formatter nullToEmpty() {
+		return Formatter.threadSafe((column, value) -> value == null ? "" : value);
+	}
+
+	/**
+	 * Truncates text longer than the given length, e.g. the 50000 characters a cell can hold.
+	 *
+	 * @param maxLength maximum length of the text
+	 * @return a thread-safe formatter
+	 */
+	public static Formatter maxLength(int maxLength) {
+		return Formatter.threadSafe((column, value) -> (value instanceof String) && ((String) value).length() > maxLength ?
+		                                               ((String) value).substring(0, maxLength) :
+		                                               value);
+	}
+
+	private static TemporalAccessor toTemporal(Object value, ZoneId zone) {
+		if (value instanceof Date) {
+			return ((Date) value).toInstant()
+			                     .atZone(zone);
+		}
+		if (value instanceof Calendar) {
+			return ((Calendar) value).toInstant()
+			                         .atZone(zone);
+		}
+		if (value instanceof Instant) {
+			return ((Instant) value).atZone(zone);
+		}
+		if (value instanceof LocalDate) {
+			return ((LocalDate) value).atStartOfDay();
+		}
+		if (value instanceof TemporalAccessor && ((TemporalAccessor) value).isSupported(ChronoField.EPOCH_DAY)) {
+			return (TemporalAccessor) value;
+		}
+		return null;
+	}
+}
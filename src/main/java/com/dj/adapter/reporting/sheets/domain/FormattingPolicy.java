@@ -1,34 +1,73 @@
 package com.dj.adapter.reporting.sheets.domain;
 
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
+/**
+ * Ordered list of formatters. Formatters run in the order they were applied; those applied for
+ * a column only run on that column.
+ */
 public class FormattingPolicy {
 	public static final FormattingPolicy DEFAULT = new FormattingPolicy();
 
-	private final Set<Formatter> formatters;
+	private final List<Scoped<Formatter>> formatters;
 
 	public FormattingPolicy() {
 		this(Collections.emptySet());
 	}
 
 	public FormattingPolicy(Set<Formatter> applyFormat) {
-		this.formatters = applyFormat;
+		this(Scoped.of(null, applyFormat));
 	}
 
-	private static <T> Set<T> setPlusElems(Set<T> initial, T... newElement) {
-		final HashSet<T> copy = new HashSet<>(initial);
-		copy.addAll(Arrays.asList(newElement));
-		return Collections.unmodifiableSet(copy);
+	private FormattingPolicy(List<Scoped<Formatter>> formatters) {
+		this.formatters = formatters;
 	}
 
+	/**
+	 * Applies formatters to every column, after the ones already applied.
+	 *
+	 * @param applyFormats formatters to be applied
+	 * @return a new policy
+	 */
 	public FormattingPolicy applyFormat(Formatter... applyFormats) {
-		return new FormattingPolicy(setPlusElems(formatters, applyFormats));
+		return new FormattingPolicy(Scoped.plus(formatters, null, applyFormats));
 	}
 
+	/**
+	 * Applies formatters to a single column, after the ones already applied.
+	 *
+	 * @param column       name of the column
+	 * @param applyFormats formatters to be applied
+	 * @return a new policy
+	 */
+	public FormattingPolicy applyFormat(String column, Formatter... applyFormats) {
+		return new FormattingPolicy(Scoped.plus(formatters, Objects.requireNonNull(column), applyFormats));
+	}
+
+	/**
+	 * Formatters applied to every column, in order.
+	 *
+	 * @return unmodifiable set of formatters
+	 */
 	public Set<Formatter> getFormatters() {
-		return formatters;
+		final Set<Formatter> result = new LinkedHashSet<>();
+		formatters.stream()
+		          .filter(scoped -> scoped.column == null)
+		          .forEach(scoped -> result.add(scoped.value));
+		return Collections.unmodifiableSet(result);
+	}
+
+	/**
+	 * Formatters that run on a column, in order.
+	 *
+	 * @param column name of the column
+	 * @return list of formatters
+	 */
+	public List<Formatter> getFormatters(String column) {
+		return Scoped.forColumn(formatters, column);
 	}
 }
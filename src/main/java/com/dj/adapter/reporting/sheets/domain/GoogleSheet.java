@@ -1,34 +1,76 @@
 package com.dj.adapter.reporting.sheets.domain;
 
 
+import com.dj.adapter.reporting.sheets.concurrent.KeyedSequencer;
+import com.dj.adapter.reporting.sheets.metrics.OperationMetrics;
 import com.dj.adapter.reporting.sheets.retry.AsyncRetryExecutor;
 import com.dj.adapter.reporting.sheets.retry.RetryExecutor;
-import com.dj.adapter.reporting.sheets.utils.A1NotationHelper;
+import com.dj.adapter.reporting.sheets.retry.policy.AbortRetryException;
+import com.dj.adapter.reporting.sheets.utils.A1Notation;
+import com.dj.adapter.reporting.sheets.utils.AppendCursor;
+import com.dj.adapter.reporting.sheets.utils.CellEquality;
+import com.dj.adapter.reporting.sheets.utils.CompositeKeyMatcher;
+import com.dj.adapter.reporting.sheets.utils.RowRangePlanner;
 import com.google.api.services.sheets.v4.Sheets;
 import com.google.api.services.sheets.v4.model.*;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-
-import static com.dj.adapter.reporting.sheets.utils.A1NotationHelper.getNotationFromSheetNameAndGridRange;
-import static com.dj.adapter.reporting.sheets.utils.GoogleSheetsUtils.*;
 
 public class GoogleSheet {
 	private static org.slf4j.Logger logger = LoggerFactory.getLogger(GoogleSheet.class);
-	private final Sheet value;
+	private static final String GET_HEADER = "getHeader";
+	private static final String GET_ROW_ID_BY_COLUMN_VALUES = "getRowIdByColumnValues";
+	private static final String GET_ROW_IDS_BY_COLUMN_VALUES = "getRowIdsByColumnValues";
+	private static final String GET_ROW_BY_COLUMN_VALUES = "getRowByColumnValues";
+	private static final String GET_ROW_BY_ID = "getRowById";
+	private static final String GET_ROWS_BY_IDS = "getRowsByIds";
+	private static final String GET_ROWS_BY_COLUMN_VALUES = "getRowsByColumnValues";
+	private static final String APPEND_ROW = "appendRow";
+	private static final String APPEND_ROWS = "appendRows";
+	private static final String SAVE_ROW = "saveRow";
+	private static final String UPDATE_ROW = "updateRow";
+	private static final long DEFAULT_FULL_READ_MAX_CELLS = 10_000;
+	/**
+	 * Renders cells as stored: formulas as such, other values unformatted
+	 */
+	private static final String FORMULA = "FORMULA";
+	private volatile Sheet value;
+	private final SheetResolver resolver;
+	/**
+	 * Title of the sheet, known without its metadata
+	 */
+	private final String sheetName;
 	private final GoogleSheetsRepository repository;
 	private ScheduledExecutorService scheduler;
 	private RetryExecutor executor;
 	private String spreadSheetId;
 	private GridRange headerOffset;
-	private boolean refreshHeaderColumns;
+	private volatile boolean refreshHeaderColumns;
+	private volatile RowSchema schema;
+	private volatile String headerRange;
+	private volatile RowRangePlanner rowPlanner = new RowRangePlanner(RowRangePlanner.DEFAULT_MAX_GAP);
+	private volatile long fullReadMaxCells = DEFAULT_FULL_READ_MAX_CELLS;
+	private volatile UpdateMode updateMode = UpdateMode.FULL_ROW;
+	private volatile boolean echoUpdates = true;
+	private volatile AppendMode appendMode = AppendMode.INSERT_ROWS;
+	private volatile AppendCursor appendCursor = new AppendCursor(AppendCursor.DEFAULT_CHUNK_ROWS);
+	/**
+	 * Rows of the table after the header, as seen by the last read plus the rows appended since;
+	 * -1 until the table is read
+	 */
+	private final AtomicInteger tableRows = new AtomicInteger(-1);
+	private KeyedSequencer<Map<String, String>> upserts;
 
 	/**
 	 * Constructs an instance with the value present.
@@ -44,11 +86,10 @@ public class GoogleSheet {
 		             value.getProperties()
 		                  .getTitle());
 		this.value = Objects.requireNonNull(value);
+		this.resolver = null;
+		this.sheetName = value.getProperties()
+		                      .getTitle();
 		this.repository = repository;
-		this.scheduler = Executors.newSingleThreadScheduledExecutor();
-		executor = new AsyncRetryExecutor(scheduler).withFixedBackoff(200)
-		                                            .withFixedRate()
-		                                            .withMaxRetries(3);
 		headerOffset = new GridRange().setSheetId(value.getProperties()
 		                                               .getSheetId())
 		                              .setStartColumnIndex(0)
@@ -56,6 +97,77 @@ public class GoogleSheet {
 		refreshHeaderColumns = false;
 	}
 
+	/**
+	 * Constructs an instance whose sheet metadata is not fetched until it is first needed, so that
+	 * creating it never goes to the network.
+	 *
+	 * @param spreadSheetId identifier of the spreadsheet the sheet belongs to
+	 * @param sheetName     title of the sheet, which ranges and metrics use before it is resolved
+	 * @param resolver      fetches the sheet metadata on first use
+	 * @param repository    repository used for every operation
+	 */
+	public GoogleSheet(String spreadSheetId,
+	                   String sheetName,
+	                   SheetResolver resolver,
+	                   GoogleSheetsRepository repository) {
+		logger.debug("A new lazy instance of GoogleSheet '{}' for spreadsheet {} is being created. ", sheetName, spreadSheetId);
+		this.value = null;
+		this.resolver = Objects.requireNonNull(resolver);
+		this.sheetName = Objects.requireNonNull(sheetName);
+		this.repository = repository;
+		this.spreadSheetId = spreadSheetId;
+		headerOffset = new GridRange().setStartColumnIndex(0)
+		                              .setStartRowIndex(0);
+		refreshHeaderColumns = false;
+	}
+
+	/**
+	 * Returns the sheet metadata, fetching it on first use for lazy instances. Public operations
+	 * throw the failure to fetch it as such, see {@link #measure(String, IOCallable)}.
+	 *
+	 * @return the sheet metadata
+	 * @throws UncheckedIOException if the metadata cannot be fetched
+	 */
+	private Sheet sheet() {
+		Sheet sheet = value;
+		if (sheet == null) {
+			synchronized (this) {
+				sheet = value;
+				if (sheet == null) {
+					try {
+						sheet = Objects.requireNonNull(resolver.resolve());
+					} catch (IOException e) {
+						throw new UncheckedIOException("Unable to fetch sheet metadata", e);
+					}
+					logger.debug("Resolved GoogleSheet with id {} and title '{}'",
+					             sheet.getProperties()
+					                  .getSheetId(),
+					             sheet.getProperties()
+					                  .getTitle());
+					if (headerOffset.getSheetId() == null) {
+						headerOffset.setSheetId(sheet.getProperties()
+						                             .getSheetId());
+					}
+					value = sheet;
+				}
+			}
+		}
+		return sheet;
+	}
+
+	/**
+	 * Fetches everything needed before the first operation: sheet metadata and header. It also
+	 * opens connections and gets an access token, so the first real operation does not pay for it.
+	 */
+	public void warmUp() throws IOException {
+		try {
+			sheet();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		getHeader();
+	}
+
 	public String getSpreadSheetId() {
 		return spreadSheetId;
 	}
@@ -65,6 +177,53 @@ public class GoogleSheet {
 		return this;
 	}
 
+	/**
+	 * Sets the executor running the operations of this sheet, so that it can be shared with
+	 * other sheets. Otherwise a dedicated one is created on first use.
+	 *
+	 * @param executor executor for the operations of this sheet
+	 * @return this sheet
+	 */
+	public GoogleSheet setExecutor(RetryExecutor executor) {
+		this.executor = Objects.requireNonNull(executor);
+		return this;
+	}
+
+	/**
+	 * Sets the executor starting the upserts queued behind another upsert of the same key, so that
+	 * it can be shared with other sheets. They look their row up before writing it, blocking the
+	 * thread, so the executor must be bounded and dedicated to them. Otherwise a single thread is
+	 * created on first use. To be set before the first upsert.
+	 *
+	 * @param upsertExecutor executor for the queued upserts of this sheet
+	 * @return this sheet
+	 */
+	public synchronized GoogleSheet setUpsertExecutor(Executor upsertExecutor) {
+		this.upserts = new KeyedSequencer<>(upsertExecutor);
+		return this;
+	}
+
+	private synchronized KeyedSequencer<Map<String, String>> upserts() {
+		if (upserts == null) {
+			upserts = new KeyedSequencer<>(Executors.newSingleThreadExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "sheets-upserts");
+				thread.setDaemon(true);
+				return thread;
+			}));
+		}
+		return upserts;
+	}
+
+	private synchronized RetryExecutor executor() {
+		if (executor == null) {
+			this.scheduler = Executors.newSingleThreadScheduledExecutor();
+			executor = new AsyncRetryExecutor(scheduler).withFixedBackoff(200)
+			                                            .withFixedRate()
+			                                            .withMaxRetries(3);
+		}
+		return executor;
+	}
+
 	public void setRefreshHeaderColumns(boolean refreshHeaderColumns) {
 		this.refreshHeaderColumns = refreshHeaderColumns;
 	}
@@ -77,10 +236,10 @@ public class GoogleSheet {
 	 * @see GoogleSheet#isPresent()
 	 */
 	public Sheet get() {
-		if (value == null) {
+		if (!isPresent()) {
 			throw new NoSuchElementException("No value present");
 		}
-		return value;
+		return sheet();
 	}
 
 	/**
@@ -89,7 +248,7 @@ public class GoogleSheet {
 	 * @return {@code true} if there is a value present, otherwise {@code false}
 	 */
 	public boolean isPresent() {
-		return value != null;
+		return value != null || resolver != null;
 	}
 
 	/**
@@ -98,19 +257,18 @@ public class GoogleSheet {
 	 * @return value for the identifier of actual sheet
 	 */
 	public Integer getSheetId() {
-		if (this.isPresent()) return value.getProperties()
-		                                  .getSheetId();
+		if (this.isPresent()) return sheet().getProperties()
+		                                    .getSheetId();
 		throw new NullPointerException("getSheetId: Google sheet is empty, so there is no identifier to be returned.");
 	}
 
 	/**
-	 * The title of the sheet.
+	 * The title of the sheet, known without fetching the metadata of lazy instances.
 	 *
 	 * @return value for the title of actual sheet
 	 */
 	public String getSheetTitle() {
-		if (this.isPresent()) return value.getProperties()
-		                                  .getTitle();
+		if (this.isPresent()) return sheetName;
 		throw new NullPointerException("getSheetTitle: Google sheet is empty, so there is no title to be returned.");
 	}
 
@@ -121,9 +279,9 @@ public class GoogleSheet {
 	 */
 	public Optional<Integer> getRowCount() {
 		return (isPresent()) ?
-		       Optional.of(value.getProperties()
-		                        .getGridProperties()
-		                        .getRowCount()) :
+		       Optional.of(sheet().getProperties()
+		                          .getGridProperties()
+		                          .getRowCount()) :
 		       Optional.empty();
 	}
 
@@ -134,9 +292,9 @@ public class GoogleSheet {
 	 */
 	public Optional<Integer> getColumnCount() {
 		return (isPresent()) ?
-		       Optional.of(value.getProperties()
-		                        .getGridProperties()
-		                        .getColumnCount()) :
+		       Optional.of(sheet().getProperties()
+		                          .getGridProperties()
+		                          .getColumnCount()) :
 		       Optional.empty();
 	}
 
@@ -147,37 +305,106 @@ public class GoogleSheet {
 	 * @return
 	 */
 	public Map<String, Integer> getHeader() throws IOException {
-		final String headerRange = getNotationFromSheetNameAndGridRange(this.getSheetTitle(),
-		                                                                this.getHeaderOffset());
-		final Optional<List<Object>> headerTitles = repository.getRange(spreadSheetId, headerRange)
+		return measure(GET_HEADER, () -> getRowSchema().toHeaderMap());
+	}
+
+	/**
+	 * Get the names of the header columns, in the order they appear on the sheet.
+	 *
+	 * @return unmodifiable list of column names
+	 */
+	public List<String> getHeaderColumns() throws IOException {
+		return getRowSchema().getColumnNames();
+	}
+
+	/**
+	 * Get the schema of the header. It is fetched once and kept, unless header columns are set
+	 * to be refreshed, in which case it is fetched every time and replaced only if it changed.
+	 *
+	 * @return the schema of the current header
+	 */
+	public RowSchema getRowSchema() throws IOException {
+		final RowSchema current = schema;
+		if (current != null && !refreshHeaderColumns) {
+			return current;
+		}
+		try {
+			return updateSchema(fetchHeaderRow());
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Keeps the schema of a fetched header row, unless the current one already describes it.
+	 *
+	 * @return the current schema, the same instance if the header did not change
+	 */
+	private RowSchema updateSchema(List<Object> headerRow) {
+		final RowSchema current = schema;
+		final int startColumnIndex = startColumnIndex();
+		if (current != null && current.describes(headerRow, startColumnIndex)) {
+			return current;
+		}
+		final RowSchema fetched = RowSchema.of(headerRow, startColumnIndex);
+		logger.debug("Header of sheet {} changed: {}", spreadSheetId, fetched);
+		schema = fetched;
+		return fetched;
+	}
+
+	private List<Object> fetchHeaderRow() throws IOException {
+		final Optional<List<Object>> headerTitles = repository.getRange(spreadSheetId, headerRange())
 		                                                      .getValues()
 		                                                      .stream()
 		                                                      .findFirst();
 		logger.debug(String.format("Fetched header information: %s", headerTitles.get()));
-		return listToMap(headerTitles.get(), this.headerOffset.getStartColumnIndex());
+		return headerTitles.get();
+	}
+
+	private String headerRange() {
+		String headerRange = this.headerRange;
+		if (headerRange == null) {
+			headerRange = A1Notation.encode(this.getSheetTitle(), this.getHeaderOffset());
+			this.headerRange = headerRange;
+		}
+		return headerRange;
+	}
+
+	/**
+	 * Header row of a range read along with others; an empty one if the header is empty.
+	 */
+	private static List<Object> headerRowOf(ValueRange header) {
+		return header.getValues() == null || header.getValues()
+		                                           .isEmpty() ?
+		       Collections.emptyList() :
+		       header.getValues()
+		             .get(0);
+	}
+
+	private int startColumnIndex() {
+		return headerOffset.getStartColumnIndex() == null ? 0 : headerOffset.getStartColumnIndex();
 	}
 
 	/**
 	 * Given the name of a column on the actual sheet, it returns its range in A1 notation,
-	 * considering header definition.
+	 * from the first row after the header.
 	 *
+	 * @param schema     the schema of the header
 	 * @param columnName the name of the column
 	 * @return a range in A1 notation
+	 * @throws IllegalArgumentException if the header has no such column
 	 */
-	private String getRangeFromColumnName(String columnName) {
-		final Map<String, Integer> header;
-		try {
-			header = this.getHeader();
-			final Integer columnIndex = header.get(columnName);
-			final GridRange columnRange = new GridRange().setStartColumnIndex(columnIndex)
-			                                             .setStartRowIndex(headerOffset.getStartRowIndex() + 1)
-			                                             .setEndColumnIndex(columnIndex);
-			return A1NotationHelper.getNotationFromSheetNameAndGridRange(value.getProperties()
-			                                                                  .getTitle(), columnRange);
-		} catch (IOException e) {
-			e.printStackTrace();
+	private String getRangeFromColumnName(RowSchema schema, String columnName) {
+		final int position = schema.indexOf(columnName);
+		if (position < 0) {
+			throw new IllegalArgumentException(String.format("No column '%s' in the header of sheet %s",
+			                                                 columnName, getSheetTitle()));
 		}
-		return null;
+		final int columnIndex = schema.getStartColumnIndex() + position;
+		final GridRange columnRange = new GridRange().setStartColumnIndex(columnIndex)
+		                                             .setStartRowIndex(headerOffset.getStartRowIndex() + 1)
+		                                             .setEndColumnIndex(columnIndex);
+		return A1Notation.encode(getSheetTitle(), columnRange);
 	}
 
 	/**
@@ -187,25 +414,97 @@ public class GoogleSheet {
 	 * @return the row identifier if it exists, otherwise empty
 	 */
 	public Optional<Integer> getRowIdByColumnValues(Map<String, Object> criteria) throws IOException {
-		final Map<String, Integer> header = this.getHeader();
-		final List<String> ranges = criteria.keySet()
-		                                    .stream()
-		                                    .map(this::getRangeFromColumnName)
-		                                    .collect(Collectors.toList());
-		final BatchGetValuesResponse targetedColumns = repository.getMultipleRanges(spreadSheetId, ranges);
-		List<String> targetedValues = mergeMultipleValueRanges(targetedColumns).concat("|")
-		                                                                       .get();
-		String searchValue = criteria.values()
-		                             .stream()
-		                             .map(Object::toString)
-		                             .collect(Collectors.joining("|"));
-		OptionalInt rowId = IntStream.range(headerOffset.getStartRowIndex() + 1, targetedValues.size())
-		                             .filter(index -> targetedValues.get(index)
-		                                                            .equals(searchValue))
-		                             .findFirst();
-		return rowId.isPresent() ?
-		       Optional.of(rowId.getAsInt() + this.headerOffset.getStartRowIndex() + 2) :
-		       Optional.empty();
+		return measure(GET_ROW_ID_BY_COLUMN_VALUES, () -> findRowId(criteria));
+	}
+
+	private Optional<Integer> findRowId(Map<String, Object> criteria) throws IOException {
+		final OptionalInt index = keyMatcher(criteria).firstMatch(new ArrayList<>(criteria.values()));
+		return index.isPresent() ? Optional.of(toRowId(index.getAsInt())) : Optional.empty();
+	}
+
+	/**
+	 * Finds every row matching a specified criteria, e.g. to detect rows sharing the same key.
+	 *
+	 * @param criteria key and value pairs defining columns and cells that needed to be found
+	 * @return the row identifiers, in ascending order
+	 */
+	public List<Integer> getRowIdsByColumnValues(Map<String, Object> criteria) throws IOException {
+		return measure(GET_ROW_IDS_BY_COLUMN_VALUES, () -> findRowIds(criteria));
+	}
+
+	private List<Integer> findRowIds(Map<String, Object> criteria) throws IOException {
+		final int[] indexes = keyMatcher(criteria).allMatches(new ArrayList<>(criteria.values()));
+		final List<Integer> rowIds = new ArrayList<>(indexes.length);
+		for (int index : indexes) {
+			rowIds.add(toRowId(index));
+		}
+		return rowIds;
+	}
+
+	/**
+	 * Reads the columns of the criteria, from the first row after the header, in the order of the
+	 * criteria. When the header has to be refreshed, it is read in the same {@code batchGet}, along
+	 * with the key columns of the schema known so far; they are only read again if it changed.
+	 */
+	private CompositeKeyMatcher keyMatcher(Map<String, Object> criteria) throws IOException {
+		return keyMatcher(criteria, null);
+	}
+
+	/**
+	 * @param valueRenderOption how the key columns are rendered, formatted if null
+	 */
+	private CompositeKeyMatcher keyMatcher(Map<String, Object> criteria, String valueRenderOption) throws IOException {
+		final CompositeKeyMatcher matcher = readKeyColumns(criteria, valueRenderOption);
+		observeTable(matcher.getRowCount());
+		return matcher;
+	}
+
+	private CompositeKeyMatcher readKeyColumns(Map<String, Object> criteria, String valueRenderOption) throws IOException {
+		final RowSchema known = schema;
+		if (known == null || !refreshHeaderColumns) {
+			return keyMatcher(getRowSchema(), criteria, valueRenderOption);
+		}
+		final List<String> ranges = new ArrayList<>(criteria.size() + 1);
+		ranges.add(headerRange());
+		for (String column : criteria.keySet()) {
+			ranges.add(getRangeFromColumnName(known, column));
+		}
+		final List<ValueRange> valueRanges = valueRangesOf(batchGet(ranges, valueRenderOption));
+		final RowSchema current = updateSchema(headerRowOf(valueRanges.get(0)));
+		if (current != known) {
+			// Key columns may have moved
+			return keyMatcher(current, criteria, valueRenderOption);
+		}
+		return CompositeKeyMatcher.of(new BatchGetValuesResponse().setValueRanges(valueRanges.subList(1, valueRanges.size())));
+	}
+
+	private CompositeKeyMatcher keyMatcher(RowSchema schema,
+	                                       Map<String, Object> criteria,
+	                                       String valueRenderOption) throws IOException {
+		final List<String> ranges = new ArrayList<>(criteria.size());
+		for (String column : criteria.keySet()) {
+			ranges.add(getRangeFromColumnName(schema, column));
+		}
+		return CompositeKeyMatcher.of(batchGet(ranges, valueRenderOption));
+	}
+
+	/**
+	 * Value ranges of a response, one per requested range.
+	 */
+	private static List<ValueRange> valueRangesOf(BatchGetValuesResponse response) throws IOException {
+		final List<ValueRange> valueRanges = response.getValueRanges();
+		if (valueRanges == null || valueRanges.isEmpty()) {
+			throw new IOException("No value ranges in batchGet response");
+		}
+		return valueRanges;
+	}
+
+	/**
+	 * Converts the index of a row in the key columns, which start right after the header, to its
+	 * zero-based row identifier on the sheet.
+	 */
+	private int toRowId(int index) {
+		return index + this.headerOffset.getStartRowIndex() + 1;
 	}
 
 	/**
@@ -215,11 +514,127 @@ public class GoogleSheet {
 	 * @return the row itself if it exists, otherwise empty
 	 */
 	public Optional<List<Object>> getRowByColumnValues(Map<String, Object> criteria) throws IOException {
-		Optional<Integer> rowId = this.getRowIdByColumnValues(criteria);
-		if (!rowId.isPresent()) {
+		return measure(GET_ROW_BY_COLUMN_VALUES, () -> {
+			final Optional<FoundRow> row = lookupRow(criteria, null);
+			return row.isPresent() ? Optional.ofNullable(row.get().values) : Optional.empty();
+		});
+	}
+
+	/**
+	 * Finds and reads a row in as few round trips as possible: sheets small enough are read whole,
+	 * header included if needed, in a single {@code batchGet}; larger ones have their key columns
+	 * read, then the row.
+	 *
+	 * @param valueRenderOption how the row and its key cells are rendered, formatted if null;
+	 *                          unformatted keys are compared as stored values, see
+	 *                          {@link CellEquality}
+	 */
+	private Optional<FoundRow> lookupRow(Map<String, Object> criteria, String valueRenderOption) throws IOException {
+		final List<Object> key = new ArrayList<>(criteria.values());
+		if (!isSmallEnoughForFullRead()) {
+			final OptionalInt index = valueRenderOption == null ?
+			                          keyMatcher(criteria).firstMatch(key) :
+			                          keyMatcher(criteria, valueRenderOption).firstMatch(key, CellEquality::isSameValue);
+			if (!index.isPresent()) {
+				return Optional.empty();
+			}
+			final int rowId = toRowId(index.getAsInt());
+			return Optional.of(new FoundRow(rowId, readRows(Collections.singleton(rowId), valueRenderOption).get(rowId)));
+		}
+		final RowSchema known = schema;
+		final boolean withHeader = known == null || refreshHeaderColumns;
+		final String dataRange = dataRange();
+		final List<ValueRange> valueRanges = valueRangesOf(batchGet(withHeader ?
+		                                                            Arrays.asList(headerRange(), dataRange) :
+		                                                            Collections.singletonList(dataRange), valueRenderOption));
+		final RowSchema current = withHeader ? updateSchema(headerRowOf(valueRanges.get(0))) : known;
+		final List<List<Object>> rows = valueRanges.get(valueRanges.size() - 1)
+		                                           .getValues();
+		observeTable(rows == null ? 0 : rows.size());
+		if (rows == null) {
 			return Optional.empty();
 		}
-		return this.getRowById(rowId.get());
+		final int[] keyColumns = new int[criteria.size()];
+		int column = 0;
+		for (String columnName : criteria.keySet()) {
+			keyColumns[column] = current.indexOf(columnName);
+			if (keyColumns[column++] < 0) {
+				throw new IllegalArgumentException(String.format("No column '%s' in the header of sheet %s",
+				                                                 columnName, getSheetTitle()));
+			}
+		}
+		final CompositeKeyMatcher matcher = CompositeKeyMatcher.ofRows(rows, keyColumns);
+		final OptionalInt index = valueRenderOption == null ?
+		                          matcher.firstMatch(key) :
+		                          matcher.firstMatch(key, CellEquality::isSameValue);
+		return index.isPresent() ?
+		       Optional.of(new FoundRow(toRowId(index.getAsInt()), rows.get(index.getAsInt()))) :
+		       Optional.empty();
+	}
+
+	private BatchGetValuesResponse batchGet(List<String> ranges, String valueRenderOption) throws IOException {
+		return valueRenderOption == null ?
+		       repository.getMultipleRanges(spreadSheetId, ranges) :
+		       repository.getMultipleRanges(spreadSheetId, ranges, valueRenderOption);
+	}
+
+	/**
+	 * Range of the table without its header: every row after the header, from the first to the last
+	 * column of the table.
+	 */
+	private String dataRange() {
+		return A1Notation.encode(getSheetTitle(),
+		                         headerOffset.getStartRowIndex() + 1,
+		                         startColumnIndex(),
+		                         null,
+		                         endColumnIndex());
+	}
+
+	/**
+	 * Whether the table, from the first row after the header, has no more cells than the full read
+	 * threshold. Its rows are the ones seen by the last read plus those appended since, or the rows
+	 * of the grid as known from the sheet metadata until it is read: the metadata is not refreshed,
+	 * so it falls behind as soon as rows are inserted.
+	 */
+	private boolean isSmallEnoughForFullRead() {
+		if (fullReadMaxCells <= 0) {
+			return false;
+		}
+		long rows = tableRows.get();
+		if (rows < 0) {
+			final Optional<Integer> rowCount = getRowCount();
+			if (!rowCount.isPresent() || rowCount.get() == null) {
+				return false;
+			}
+			rows = Math.max(0, rowCount.get() - headerOffset.getStartRowIndex() - 1);
+		}
+		final long columns = endColumnIndex() - startColumnIndex() + 1;
+		return rows * columns <= fullReadMaxCells;
+	}
+
+	/**
+	 * Last column of the table: the one of the header offset if set, otherwise the last of the grid.
+	 */
+	private int endColumnIndex() {
+		if (headerOffset.getEndColumnIndex() != null) {
+			return headerOffset.getEndColumnIndex();
+		}
+		final Optional<Integer> columnCount = getColumnCount();
+		return columnCount.isPresent() && columnCount.get() != null ? columnCount.get() - 1 : startColumnIndex();
+	}
+
+	/**
+	 * Finds every row matching a specified criteria and reads them, in two round trips whatever
+	 * the number of rows.
+	 *
+	 * @param criteria key and value pairs defining columns and cells that needed to be found
+	 * @return the rows by identifier, in ascending order
+	 */
+	public Map<Integer, List<Object>> getRowsByColumnValues(Map<String, Object> criteria) throws IOException {
+		return measure(GET_ROWS_BY_COLUMN_VALUES, () -> {
+			final List<Integer> rowIds = findRowIds(criteria);
+			return rowIds.isEmpty() ? Collections.emptyMap() : readRows(rowIds);
+		});
 	}
 
 	/**
@@ -229,6 +644,10 @@ public class GoogleSheet {
 	 * @return {@code Optional} row values or empty() for none
 	 */
 	public Optional<List<Object>> getRowById(Integer rowId) throws IOException {
+		return measure(GET_ROW_BY_ID, () -> readRow(rowId));
+	}
+
+	private Optional<List<Object>> readRow(Integer rowId) throws IOException {
 		// Should take into account not only rowId parameter but also header offset
 		// Check if rowId position is after header
 		GridRange rowRange = new GridRange().setStartRowIndex(rowId)
@@ -236,51 +655,274 @@ public class GoogleSheet {
 		                                    .setEndRowIndex(rowId)
 		                                    .setEndColumnIndex(this.headerOffset.getEndColumnIndex());
 
-		String range = getNotationFromSheetNameAndGridRange(value.getProperties()
-		                                                         .getTitle(), rowRange);
+		String range = A1Notation.encode(getSheetTitle(), rowRange);
 		final ValueRange row = repository.getRange(spreadSheetId, range);
 		return row.getValues()
 		          .stream()
 		          .findFirst();
 	}
 
+	/**
+	 * Reads many rows in a single {@code batchGet}: rows are sorted and those close enough are
+	 * read as a single range, see {@link #setRowGapThreshold(int)}.
+	 *
+	 * @param rowIds row identifiers, in any order
+	 * @return the values of the rows by identifier, in ascending order; rows without values are
+	 * missing
+	 */
+	public Map<Integer, List<Object>> getRowsByIds(Collection<Integer> rowIds) throws IOException {
+		return measure(GET_ROWS_BY_IDS, () -> readRows(rowIds));
+	}
+
+	private Map<Integer, List<Object>> readRows(Collection<Integer> rowIds) throws IOException {
+		return readRows(rowIds, null);
+	}
+
+	/**
+	 * @param valueRenderOption how values are rendered, formatted if null
+	 */
+	private Map<Integer, List<Object>> readRows(Collection<Integer> rowIds, String valueRenderOption) throws IOException {
+		final List<RowRangePlanner.Span> spans = rowPlanner.plan(rowIds);
+		if (spans.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		final List<String> ranges = new ArrayList<>(spans.size());
+		for (RowRangePlanner.Span span : spans) {
+			ranges.add(A1Notation.encode(getSheetTitle(),
+			                             span.getStart(),
+			                             this.headerOffset.getStartColumnIndex(),
+			                             span.getEnd(),
+			                             this.headerOffset.getEndColumnIndex()));
+		}
+		final List<ValueRange> valueRanges = batchGet(ranges, valueRenderOption).getValueRanges();
+		final List<List<List<Object>>> values = new ArrayList<>(spans.size());
+		for (ValueRange valueRange : valueRanges == null ? Collections.<ValueRange>emptyList() : valueRanges) {
+			values.add(valueRange.getValues());
+		}
+		return RowRangePlanner.split(spans, values);
+	}
+
 	/**
 	 * Appends data at the end of a particular table.
 	 *
-	 * @param rowValues value to be added at the end of the table
+	 * @param rowValues values to be added at the end of the table, in the order of the header columns
+	 * @return inserted values
+	 */
+	public CompletableFuture<ValueRange> appendRow(List<Object> rowValues) throws IOException {
+		return measureAsync(APPEND_ROW, sample -> append(Collections.singletonList(rowValues), sample));
+	}
+
+	/**
+	 * Appends many rows at once, one after the other in the given order, in a single call.
+	 *
+	 * @param rows values of the rows, each in the order of the header columns
 	 * @return inserted values
 	 */
-	private CompletableFuture<ValueRange> appendRow(List<Object> rowValues) throws IOException {
-		ValueRange appendRow = new ValueRange().setValues(Collections.singletonList(rowValues));
+	public CompletableFuture<ValueRange> appendRows(List<List<Object>> rows) throws IOException {
+		if (rows.isEmpty()) {
+			return CompletableFuture.completedFuture(new ValueRange());
+		}
+		return measureAsync(APPEND_ROWS, sample -> append(rows, sample));
+	}
+
+	private CompletableFuture<ValueRange> append(List<List<Object>> rows,
+	                                             OperationMetrics.Sample sample) throws IOException {
+		final CompletableFuture<ValueRange> appended = appendMode == AppendMode.CURSOR ?
+		                                               appendAtCursor(rows, sample) :
+		                                               insertRows(rows, sample);
+		appended.thenRun(() -> tableRows.getAndUpdate(known -> known < 0 ? known : known + rows.size()));
+		return appended;
+	}
+
+	private CompletableFuture<ValueRange> insertRows(List<List<Object>> rows,
+	                                                 OperationMetrics.Sample sample) throws IOException {
+		ValueRange appendRow = new ValueRange().setValues(rows);
 		final GridRange appendGridRange = new GridRange().setStartColumnIndex(headerOffset.getStartColumnIndex())
 		                                                 .setStartRowIndex(headerOffset.getStartRowIndex());
-		final String appendRange = getNotationFromSheetNameAndGridRange(this.getSheetTitle(), appendGridRange);
+		final String appendRange = A1Notation.encode(this.getSheetTitle(), appendGridRange);
+		final boolean echo = echoUpdates;
 		final Sheets.Spreadsheets.Values.Append appendRequest = repository.append(spreadSheetId, appendRange, appendRow)
 		                                                                  .setValueInputOption("USER_ENTERED")
 		                                                                  .setInsertDataOption("INSERT_ROWS")
-		                                                                  .setIncludeValuesInResponse(true);
+		                                                                  .setIncludeValuesInResponse(echo);
 
-		final CompletableFuture<ValueRange> appendedData = executor.getWithRetry(ctx -> appendRequest.execute()
-		                                                                                             .getUpdates()
-		                                                                                             .getUpdatedData());
+		final CompletableFuture<ValueRange> appendedData = executor().getWithRetry(sample.counting(ctx -> {
+			final UpdateValuesResponse updates = appendRequest.execute()
+			                                                  .getUpdates();
+			return echo ?
+			       updates.getUpdatedData() :
+			       new ValueRange().setRange(updates.getUpdatedRange())
+			                       .setValues(rows);
+		}));
 		return appendedData;
 	}
 
+	/**
+	 * Writes rows at the next free rows of the table, as tracked by the append cursor, with a
+	 * {@code batchUpdate} of an explicit range once the grid holds them. Retries write the same rows
+	 * again; rows that could not be written are given back to the cursor.
+	 */
+	private CompletableFuture<ValueRange> appendAtCursor(List<List<Object>> rows,
+	                                                     OperationMetrics.Sample sample) throws IOException {
+		int width = 1;
+		for (List<Object> row : rows) {
+			width = Math.max(width, row.size());
+		}
+		final AppendCursor.Reservation reservation = reserveRows(rows.size());
+		final int firstRow = reservation.getFirstRow();
+		final int startColumn = startColumnIndex();
+		final String appendRange = A1Notation.encode(getSheetTitle(),
+		                                             firstRow,
+		                                             startColumn,
+		                                             firstRow + rows.size() - 1,
+		                                             startColumn + width - 1);
+		final boolean echo = echoUpdates;
+		final List<ValueRange> data = Collections.singletonList(new ValueRange().setRange(appendRange)
+		                                                                        .setValues(rows));
+		final CompletableFuture<Void> gridReady = reservation.whenGridReady();
+		final CompletableFuture<List<UpdateValuesResponse>> written = gridReady.thenCompose(ready -> {
+			try {
+				return writeRanges(data, echo, sample);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		});
+		// Rows are given back before the caller learns about the failure
+		final CompletableFuture<List<UpdateValuesResponse>> settled = written.whenComplete((responses, throwable) -> {
+			if (throwable != null && !reservation.release()) {
+				logger.warn("Rows {} are left blank by a failed append to sheet {} while later rows are reserved; " +
+				            "rows appended by the API stop before them", appendRange, getSheetTitle());
+			}
+		});
+		return settled.thenApply(responses -> {
+			if (echo && !responses.isEmpty()) {
+				return responses.get(0)
+				                .getUpdatedData();
+			}
+			return new ValueRange().setRange(appendRange)
+			                       .setValues(rows);
+		});
+	}
+
+	/**
+	 * Writes ranges of the spreadsheet with a {@code batchUpdate}, through the update multiplexer
+	 * of the repository if it has one, so that the ranges may share their call with writes to other
+	 * sheets. Retries write the same ranges again.
+	 *
+	 * @return the responses of the ranges, in order
+	 */
+	private CompletableFuture<List<UpdateValuesResponse>> writeRanges(List<ValueRange> data,
+	                                                                  boolean echo,
+	                                                                  OperationMetrics.Sample sample) throws IOException {
+		final ValueUpdateMultiplexer multiplexer = repository.getUpdateMultiplexer();
+		if (multiplexer != null) {
+			// Batches are retried by the multiplexer, a failed write is final
+			return executor().getFutureWithRetry(sample.counting(ctx -> {
+				final CompletableFuture<List<UpdateValuesResponse>> written = new CompletableFuture<>();
+				multiplexer.submit(spreadSheetId, data, echo)
+				           .whenComplete((responses, throwable) -> {
+					           if (throwable != null) {
+						           written.completeExceptionally(new AbortRetryException(throwable));
+					           } else {
+						           written.complete(responses);
+					           }
+				           });
+				return written;
+			}));
+		}
+		final BatchUpdateValuesRequest body = new BatchUpdateValuesRequest().setValueInputOption("USER_ENTERED")
+		                                                                    .setIncludeValuesInResponse(echo)
+		                                                                    .setData(data);
+		final Sheets.Spreadsheets.Values.BatchUpdate updateRequest = repository.batchUpdate(spreadSheetId, body);
+		return executor().getWithRetry(sample.counting(ctx -> {
+			final List<UpdateValuesResponse> responses = updateRequest.execute()
+			                                                          .getResponses();
+			return responses == null ? Collections.<UpdateValuesResponse>emptyList() : responses;
+		}));
+	}
+
+	/**
+	 * Reserves the next free rows of the table, seeding the append cursor first if needed and
+	 * starting to grow the grid when they do not fit in it. The cursor is seeded from the first
+	 * column of the table, which holds a value on every row written by the cursor; concurrent first
+	 * appends may each read it, the cursor keeps the furthest row.
+	 *
+	 * @return the rows reserved
+	 */
+	private AppendCursor.Reservation reserveRows(int rows) throws IOException {
+		final AppendCursor cursor = appendCursor;
+		if (!cursor.isSeeded()) {
+			final int startColumn = startColumnIndex();
+			final String firstColumn = A1Notation.encode(getSheetTitle(),
+			                                             headerOffset.getStartRowIndex() + 1,
+			                                             startColumn,
+			                                             null,
+			                                             startColumn);
+			final int[] lastIndex = {-1};
+			repository.streamRange(spreadSheetId, firstColumn, (rangeIndex, rowIndex, values) -> {
+				if (!values.isEmpty()) {
+					lastIndex[0] = rowIndex;
+				}
+			});
+			cursor.observe(toRowId(lastIndex[0] + 1), gridRowCount());
+			logger.debug("Seeded append cursor of sheet {}: {}", getSheetTitle(), cursor);
+		}
+		return cursor.reserve(rows, this::growGrid);
+	}
+
+	/**
+	 * Records the number of rows of the table, from the first row after the header, seen while
+	 * reading it, for the full read threshold and the append cursor.
+	 */
+	private void observeTable(int rows) {
+		tableRows.set(rows);
+		if (appendMode == AppendMode.CURSOR) {
+			appendCursor.observe(toRowId(rows), gridRowCount());
+		}
+	}
+
+	/**
+	 * Adds rows at the end of the grid with a {@code spreadsheets.batchUpdate} run by the retry
+	 * executor, and to the row count of the known metadata.
+	 */
+	private CompletableFuture<Void> growGrid(int rows) {
+		return executor().getWithRetry(ctx -> {
+			final AppendDimensionRequest appendDimension = new AppendDimensionRequest().setSheetId(getSheetId())
+			                                                                           .setDimension("ROWS")
+			                                                                           .setLength(rows);
+			final BatchUpdateSpreadsheetRequest request = new BatchUpdateSpreadsheetRequest()
+					.setRequests(Collections.singletonList(new Request().setAppendDimension(appendDimension)));
+			repository.updateSpreadsheet(spreadSheetId, request)
+			          .execute();
+			final GridProperties grid = sheet().getProperties()
+			                                   .getGridProperties();
+			if (grid != null) {
+				synchronized (grid) {
+					grid.setRowCount(gridRowCount() + rows);
+				}
+			}
+			logger.debug("Added {} rows to the grid of sheet {}", rows, getSheetTitle());
+			return null;
+		});
+	}
+
+	/**
+	 * Number of rows of the grid as known from the sheet metadata, 0 if unknown.
+	 */
+	private int gridRowCount() {
+		final GridProperties grid = sheet().getProperties()
+		                                   .getGridProperties();
+		return grid == null || grid.getRowCount() == null ? 0 : grid.getRowCount();
+	}
+
 	/**
 	 * Appends data after a particular table. Column information must be provided.
 	 *
 	 * @param row columns and their values to be appended at the end of the table
 	 */
 	public CompletableFuture<ValueRange> appendRow(Map<String, Object> row) throws IOException {
-		// Get header information
-		final Map<String, Integer> header = this.getHeader();
-		// Create a new row with new values to be updated
-		List<Object> newRowValues = IntStream.range(0, header.size())
-		                                     .mapToObj(index -> getHeaderColumnNameByPosition(header, index))
-		                                     .map(columnName -> getColumnValueForRow(row, columnName.get(), () -> ""))
-		                                     .map(Object::toString)
-		                                     .collect(Collectors.toList());
-		return this.appendRow(newRowValues);
+		// Create a new row with new values, in the order of the header
+		return measureAsync(APPEND_ROW, sample -> append(Collections.singletonList(getRowSchema().encode(row)), sample));
 	}
 
 	/**
@@ -288,55 +930,203 @@ public class GoogleSheet {
 	 * into consideration to update or create the row.
 	 *
 	 * @param row            columns and their and values to be updated or appended into the table
-	 * @param keyColumns     columns that uniquely establish the identity of a row
+	 * @param searchCriteria key columns of the row and their values
 	 * @param appendIfExists if the row already exists on the table it is updated otherwise appended
 	 * @return
 	 */
 	private CompletableFuture<ValueRange> saveRow(Map<String, Object> row,
-	                                              List<String> keyColumns,
-	                                              boolean appendIfExists) throws IOException {
-		// Prepare search criteria
-		Map<String, Object> searchCriteria = new HashMap<>();
-		keyColumns.stream()
-		          .forEach(key -> searchCriteria.put(key, row.get(key)));
+	                                              Map<String, Object> searchCriteria,
+	                                              boolean appendIfExists,
+	                                              OperationMetrics.Sample sample) throws IOException {
+		// Create a new row with new values to be updated, in the order of the header
+		final RowSchema rowSchema = getRowSchema();
+		final List<Object> newRowValues = rowSchema.encode(row);
 
-		// Search for the row in the current sheet
-		Optional<Integer> searchForRowById = getRowIdByColumnValues(searchCriteria);
-
-		// Get header information
-		final Map<String, Integer> header = this.getHeader();
+		if (updateMode == UpdateMode.CHANGED_CELLS) {
+			// Only the columns of the row are compared, the others are left untouched
+			final boolean[] columns = new boolean[newRowValues.size()];
+			for (String columnName : row.keySet()) {
+				final int column = rowSchema.indexOf(columnName);
+				if (column >= 0) {
+					columns[column] = true;
+				}
+			}
+			return saveChangedCells(newRowValues, columns, searchCriteria, appendIfExists, sample);
+		}
+		return saveRow(newRowValues, searchCriteria, appendIfExists, sample);
+	}
 
-		// Create a new row with new values to be updated
-		List<Object> newRowValues = IntStream.range(0, header.size())
-		                                     .mapToObj(index -> getHeaderColumnNameByPosition(header, index))
-		                                     .map(columnName -> getColumnValueForRow(row, columnName.get(), () -> ""))
-		                                     .map(Object::toString)
-		                                     .collect(Collectors.toList());
+	/**
+	 * Updates the row matching the search criteria with the given values, or appends them at the
+	 * end of the table if there is no such row and {@code appendIfMissing} is set.
+	 *
+	 * @param rowValues       values of the row, in the order of the header columns
+	 * @param searchCriteria  key columns of the row and their values
+	 * @param appendIfMissing if the row is not found on the table it is appended
+	 * @return updated or appended values
+	 */
+	private CompletableFuture<ValueRange> saveRow(List<Object> rowValues,
+	                                              Map<String, Object> searchCriteria,
+	                                              boolean appendIfMissing,
+	                                              OperationMetrics.Sample sample) throws IOException {
+		if (updateMode == UpdateMode.CHANGED_CELLS) {
+			return saveChangedCells(rowValues, null, searchCriteria, appendIfMissing, sample);
+		}
+		// Search for the row in the current sheet
+		Optional<Integer> searchForRowById = findRowId(searchCriteria);
 
 		// If row is present update the values
 		if (searchForRowById.isPresent()) {
-			ValueRange body = new ValueRange().setValues(Collections.singletonList(newRowValues));
+			ValueRange body = new ValueRange().setValues(Collections.singletonList(rowValues));
 			final GridRange updateGridRange = new GridRange().setStartRowIndex(searchForRowById.get())
 			                                                 .setStartColumnIndex(headerOffset.getStartColumnIndex())
 			                                                 .setEndRowIndex(searchForRowById.get());
 
-			final String updateRange = getNotationFromSheetNameAndGridRange(getSheetTitle(), updateGridRange);
+			final String updateRange = A1Notation.encode(getSheetTitle(), updateGridRange);
+			final boolean echo = echoUpdates;
+			if (repository.getUpdateMultiplexer() != null) {
+				return writeRanges(Collections.singletonList(body.setRange(updateRange)), echo, sample).thenApply(responses -> {
+					final UpdateValuesResponse response = responses.get(0);
+					return echo ?
+					       response.getUpdatedData() :
+					       new ValueRange().setRange(response.getUpdatedRange())
+					                       .setValues(body.getValues());
+				});
+			}
 			final Sheets.Spreadsheets.Values.Update updateRequest = repository.update(spreadSheetId, updateRange, body)
-			                                                                  .setIncludeValuesInResponse(true)
+			                                                                  .setIncludeValuesInResponse(echo)
 			                                                                  .setValueInputOption("USER_ENTERED");
-			final CompletableFuture<ValueRange> updatedRow = executor.getWithRetry(ctx -> updateRequest.execute()
-			                                                                                           .getUpdatedData());
+			final CompletableFuture<ValueRange> updatedRow = executor().getWithRetry(sample.counting(ctx -> {
+				final UpdateValuesResponse response = updateRequest.execute();
+				return echo ?
+				       response.getUpdatedData() :
+				       new ValueRange().setRange(response.getUpdatedRange())
+				                       .setValues(body.getValues());
+			}));
 			//updatedRow.thenAccept(updateValuesResponse -> logger.debug(updateValuesResponse.getValues().toString()));
 			return updatedRow;
 		}
 		// Otherwise append the row at the end
-		if (appendIfExists) {
-			return appendRow(row);
+		if (appendIfMissing) {
+			return append(Collections.singletonList(rowValues), sample);
 		}
 
 		return CompletableFuture.completedFuture(new ValueRange());
 	}
 
+	/**
+	 * Updates only the cells of the row matching the search criteria whose values differ from the
+	 * ones read while looking the row up, in a single {@code batchUpdate} of one range per run of
+	 * adjacent changed cells. Nothing is written if no cell changed. The row is read as stored,
+	 * formulas as such and other values unformatted, so that a number rounded, or a date
+	 * formatted, by the sheet is not taken for the value to be written.
+	 *
+	 * @param rowValues       values of the row, in the order of the header columns
+	 * @param columns         columns of the row to compare, by position; null for all of them
+	 * @param searchCriteria  key columns of the row and their values
+	 * @param appendIfMissing if the row is not found on the table it is appended
+	 * @return the values of the row once updated, or the appended values
+	 */
+	private CompletableFuture<ValueRange> saveChangedCells(List<Object> rowValues,
+	                                                       boolean[] columns,
+	                                                       Map<String, Object> searchCriteria,
+	                                                       boolean appendIfMissing,
+	                                                       OperationMetrics.Sample sample) throws IOException {
+		final Optional<FoundRow> found = lookupRow(searchCriteria, FORMULA);
+		if (!found.isPresent()) {
+			return appendIfMissing ? append(Collections.singletonList(rowValues), sample) : CompletableFuture.completedFuture(new ValueRange());
+		}
+		final int rowId = found.get().rowId;
+		final List<Object> current = found.get().values == null ? Collections.emptyList() : found.get().values;
+		final List<Object> updated = new ArrayList<>(current);
+		while (updated.size() < rowValues.size()) {
+			updated.add("");
+		}
+		final int startColumn = startColumnIndex();
+		final List<ValueRange> changes = new ArrayList<>();
+		final List<Integer> firstColumns = new ArrayList<>();
+		int column = 0;
+		while (column < rowValues.size()) {
+			if (!isChanged(rowValues, columns, current, column)) {
+				column++;
+				continue;
+			}
+			final int first = column;
+			while (column < rowValues.size() && isChanged(rowValues, columns, current, column)) {
+				updated.set(column, rowValues.get(column));
+				column++;
+			}
+			changes.add(new ValueRange().setRange(A1Notation.encode(getSheetTitle(),
+			                                                        rowId,
+			                                                        startColumn + first,
+			                                                        rowId,
+			                                                        startColumn + column - 1))
+			                            .setValues(Collections.singletonList(new ArrayList<>(rowValues.subList(first, column)))));
+			firstColumns.add(first);
+		}
+		final String rowRange = A1Notation.encode(getSheetTitle(),
+		                                          rowId,
+		                                          startColumn,
+		                                          rowId,
+		                                          startColumn + Math.max(updated.size(), 1) - 1);
+		if (changes.isEmpty()) {
+			logger.debug("Row {} of sheet {} is unchanged, nothing to update", rowId, getSheetTitle());
+			return CompletableFuture.completedFuture(new ValueRange().setRange(rowRange)
+			                                                         .setValues(Collections.singletonList(updated)));
+		}
+
+		final boolean echo = echoUpdates;
+		return writeRanges(changes, echo, sample).thenApply(responses -> {
+			final List<Object> values = new ArrayList<>(updated);
+			if (echo) {
+				// Cells as rendered by the sheet, e.g. formulas evaluated
+				for (int change = 0; change < responses.size() && change < firstColumns.size(); change++) {
+					final ValueRange echoed = responses.get(change)
+					                                   .getUpdatedData();
+					if (echoed == null || echoed.getValues() == null || echoed.getValues()
+					                                                          .isEmpty()) {
+						continue;
+					}
+					final List<Object> cells = echoed.getValues()
+					                                 .get(0);
+					for (int cell = 0; cell < cells.size() && firstColumns.get(change) + cell < values.size(); cell++) {
+						values.set(firstColumns.get(change) + cell, cells.get(cell));
+					}
+				}
+			}
+			return new ValueRange().setRange(rowRange)
+			                       .setValues(Collections.singletonList(values));
+		});
+	}
+
+	/**
+	 * Whether a cell is to be written: it is among the compared columns and its value differs from
+	 * the one stored on the sheet, see {@link CellEquality}.
+	 */
+	private static boolean isChanged(List<Object> rowValues, boolean[] columns, List<Object> current, int column) {
+		if (columns != null && (column >= columns.length || !columns[column])) {
+			return false;
+		}
+		return !CellEquality.isSameValue(rowValues.get(column), column < current.size() ? current.get(column) : null);
+	}
+
+	private static String textOf(Object value) {
+		return value == null ? "" : value.toString();
+	}
+
+	/**
+	 * Appends or updates a row whose values are already in the order of the header columns.
+	 *
+	 * @param rowValues      values of the row, in the order of the header columns
+	 * @param searchCriteria key columns of the row and their values
+	 * @return updated or appended values
+	 */
+	public CompletableFuture<ValueRange> saveRow(List<Object> rowValues,
+	                                             Map<String, Object> searchCriteria) throws IOException {
+		return measureAsync(SAVE_ROW, sample -> sequenced(searchCriteria,
+		                                                  () -> saveRow(rowValues, searchCriteria, true, sample)));
+	}
+
 	/**
 	 * Appends or updates data on a particular table. Information about columns will be taken
 	 * into consideration to update or create the row.
@@ -346,7 +1136,9 @@ public class GoogleSheet {
 	 * @return
 	 */
 	public CompletableFuture<ValueRange> saveRow(Map<String, Object> row, List<String> keyColumns) throws IOException {
-		return saveRow(row, keyColumns, true);
+		final Map<String, Object> searchCriteria = criteriaOf(row, keyColumns);
+		return measureAsync(SAVE_ROW, sample -> sequenced(searchCriteria,
+		                                                  () -> saveRow(row, searchCriteria, true, sample)));
 	}
 
 	/**
@@ -358,7 +1150,117 @@ public class GoogleSheet {
 	 * @return
 	 */
 	public CompletableFuture<ValueRange> updateRow(Map<String, Object> row, List<String> keyColumns) throws IOException {
-		return saveRow(row, keyColumns, false);
+		final Map<String, Object> searchCriteria = criteriaOf(row, keyColumns);
+		return measureAsync(UPDATE_ROW, sample -> sequenced(searchCriteria,
+		                                                    () -> saveRow(row, searchCriteria, false, sample)));
+	}
+
+	/**
+	 * Key columns of a row and their values.
+	 */
+	private static Map<String, Object> criteriaOf(Map<String, Object> row, List<String> keyColumns) {
+		final Map<String, Object> searchCriteria = new HashMap<>();
+		keyColumns.forEach(key -> searchCriteria.put(key, row.get(key)));
+		return searchCriteria;
+	}
+
+	/**
+	 * Runs an upsert after the upserts of the same key still in progress on this sheet, so that
+	 * the row it looks up reflects their writes: otherwise two upserts of a new key could both miss
+	 * the row and append it twice. Upserts of different keys run concurrently.
+	 * <p>
+	 * Keys are compared by the text of their values, like key cells, whatever the order of the
+	 * criteria. An upsert with none in progress for its key starts on the calling thread, which
+	 * gets its failures to look its row up. A queued upsert looks its row up once the previous one
+	 * completes, on the upsert executor, so its failures complete its future instead of being
+	 * thrown, see {@link #setUpsertExecutor(Executor)}.
+	 */
+	private CompletableFuture<ValueRange> sequenced(Map<String, Object> searchCriteria,
+	                                                KeyedSequencer.Task<ValueRange, IOException> upsert) throws IOException {
+		final Map<String, String> key = new TreeMap<>();
+		searchCriteria.forEach((column, value) -> key.put(column, textOf(value)));
+		return upserts().submit(key, upsert);
+	}
+
+	/**
+	 * Sets how many unwanted rows may be read to join two requested rows in a single range when
+	 * reading many rows, {@value RowRangePlanner#DEFAULT_MAX_GAP} by default.
+	 *
+	 * @param maxGap the gap threshold; 0 only joins adjacent rows
+	 * @return this sheet
+	 */
+	public GoogleSheet setRowGapThreshold(int maxGap) {
+		this.rowPlanner = new RowRangePlanner(maxGap);
+		return this;
+	}
+
+	/**
+	 * Sets the size up to which a sheet is read whole to look a row up by its key, header included
+	 * when needed, so that {@link #getRowByColumnValues(Map)} takes a single round trip. Larger
+	 * sheets have their key columns read, then the row. The size is the number of cells of the
+	 * table from the first row after the header, as seen by the last read and the appends since.
+	 *
+	 * @param fullReadMaxCells number of cells, {@value #DEFAULT_FULL_READ_MAX_CELLS} by default;
+	 *                         0 to never read sheets whole
+	 * @return this sheet
+	 */
+	public GoogleSheet setFullReadMaxCells(long fullReadMaxCells) {
+		this.fullReadMaxCells = fullReadMaxCells;
+		return this;
+	}
+
+	/**
+	 * Sets how rows found by their key are updated by {@code saveRow} and {@code updateRow}.
+	 *
+	 * @param updateMode {@link UpdateMode#FULL_ROW} by default
+	 * @return this sheet
+	 */
+	public GoogleSheet setUpdateMode(UpdateMode updateMode) {
+		this.updateMode = Objects.requireNonNull(updateMode);
+		return this;
+	}
+
+	/**
+	 * Sets whether updates ask the sheet to send the written values back, as rendered by the sheet,
+	 * e.g. with formulas evaluated. Otherwise the values returned are the ones sent.
+	 *
+	 * @param echoUpdates true by default
+	 * @return this sheet
+	 */
+	public GoogleSheet setEchoUpdates(boolean echoUpdates) {
+		this.echoUpdates = echoUpdates;
+		return this;
+	}
+
+	/**
+	 * Sets how rows are appended at the end of the table.
+	 *
+	 * @param appendMode {@link AppendMode#INSERT_ROWS} by default
+	 * @return this sheet
+	 */
+	public GoogleSheet setAppendMode(AppendMode appendMode) {
+		this.appendMode = Objects.requireNonNull(appendMode);
+		return this;
+	}
+
+	/**
+	 * Sets the minimum number of rows added to the grid when appended rows do not fit in it, in
+	 * {@link AppendMode#CURSOR} mode. The append cursor is seeded again on next use.
+	 *
+	 * @param chunkRows number of rows, {@value AppendCursor#DEFAULT_CHUNK_ROWS} by default
+	 * @return this sheet
+	 */
+	public GoogleSheet setAppendChunkRows(int chunkRows) {
+		this.appendCursor = new AppendCursor(chunkRows);
+		return this;
+	}
+
+	/**
+	 * Forgets the next free row of the table, e.g. after rows were added by other means than this
+	 * sheet, so that it is read again on next append in {@link AppendMode#CURSOR} mode.
+	 */
+	public void resetAppendCursor() {
+		appendCursor.reset();
 	}
 
 	public GridRange getHeaderOffset() {
@@ -376,6 +1278,123 @@ public class GoogleSheet {
 	 */
 	public GoogleSheet setHeaderOffset(GridRange headerOffset) {
 		this.headerOffset = headerOffset;
+		this.schema = null;
+		this.headerRange = null;
+		this.appendCursor.reset();
 		return this;
 	}
+
+	/**
+	 * Times a synchronous operation. A failure to fetch the sheet metadata is thrown as the
+	 * {@code IOException} it is.
+	 */
+	private <V> V measure(String operation, IOCallable<V> task) throws IOException {
+		final OperationMetrics.Sample sample = metrics(operation).start();
+		try {
+			final V result = task.call();
+			sample.success();
+			return result;
+		} catch (UncheckedIOException e) {
+			sample.failure();
+			throw e.getCause();
+		} catch (IOException | RuntimeException e) {
+			sample.failure();
+			throw e;
+		}
+	}
+
+	/**
+	 * Times an operation until its future completes; its retries are counted by the sample. A
+	 * failure to fetch the sheet metadata before the future is returned is thrown as the
+	 * {@code IOException} it is.
+	 */
+	private <V> CompletableFuture<V> measureAsync(String operation, AsyncOperation<V> task) throws IOException {
+		final OperationMetrics.Sample sample = metrics(operation).start();
+		final CompletableFuture<V> result;
+		try {
+			result = task.start(sample);
+		} catch (UncheckedIOException e) {
+			sample.failure();
+			throw e.getCause();
+		} catch (IOException | RuntimeException e) {
+			sample.failure();
+			throw e;
+		}
+		return sample.stopOn(result);
+	}
+
+	/**
+	 * Metrics of an operation, tagged with the title of the sheet so that no metadata is fetched.
+	 */
+	private OperationMetrics metrics(String operation) {
+		return repository.getMetrics()
+		                 .operation(spreadSheetId, sheetName, operation);
+	}
+
+	/**
+	 * How a row found by its key is updated.
+	 */
+	public enum UpdateMode {
+		/**
+		 * Every column of the row is written, absent values as empty cells.
+		 */
+		FULL_ROW,
+		/**
+		 * Only the cells whose values differ from the ones on the sheet are written; columns absent
+		 * from the row are left untouched. The row is read when looked up, in the same round trip
+		 * for sheets read whole, see {@link #setFullReadMaxCells(long)}.
+		 */
+		CHANGED_CELLS
+	}
+
+	/**
+	 * How rows are appended at the end of the table.
+	 */
+	public enum AppendMode {
+		/**
+		 * Every append is a {@code values.append} inserting rows: the API looks for the end of the
+		 * table and grows the grid on each call.
+		 */
+		INSERT_ROWS,
+		/**
+		 * The next free row is tracked locally, seeded from the key columns when they are read or
+		 * from the first column of the table on first append. Rows are written at explicit ranges
+		 * with a {@code values.batchUpdate}, in the order they were appended, and the grid grows by
+		 * chunks in the background, see {@link #setAppendChunkRows(int)}. Rows of failed appends are
+		 * given back when no later row is reserved. Only suits tables appended to through this
+		 * sheet, see {@link #resetAppendCursor()}.
+		 */
+		CURSOR
+	}
+
+	/**
+	 * A row found by its key, and its values if it has any.
+	 */
+	private static final class FoundRow {
+		private final int rowId;
+		private final List<Object> values;
+
+		private FoundRow(int rowId, List<Object> values) {
+			this.rowId = rowId;
+			this.values = values;
+		}
+	}
+
+	@FunctionalInterface
+	private interface IOCallable<V> {
+		V call() throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface AsyncOperation<V> {
+		CompletableFuture<V> start(OperationMetrics.Sample sample) throws IOException;
+	}
+
+	/**
+	 * Fetches the metadata of a sheet.
+	 */
+	@FunctionalInterface
+	public interface SheetResolver {
+		Sheet resolve() throws IOException;
+	}
 }
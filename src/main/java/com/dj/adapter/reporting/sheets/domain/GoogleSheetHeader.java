@@ -1,5 +1,6 @@
 package com.dj.adapter.reporting.sheets.domain;
 
+import com.dj.adapter.reporting.sheets.utils.A1Notation;
 import com.dj.adapter.reporting.sheets.utils.GoogleSheetsUtils;
 import com.google.api.services.sheets.v4.model.GridRange;
 
@@ -33,19 +34,21 @@ public class GoogleSheetHeader {
 		                            .setEndColumnIndex(endColumnIndex);
 	}
 
+	/**
+	 * Range of the header row, e.g. {@code B2:F2}; it ends on the start row unless an end row is set.
+	 *
+	 * @throws IllegalStateException if the range has no row
+	 */
 	public String getRangeInA1Notation() {
-		final int startRow = range.getStartRowIndex() == null ? 1 : range.getStartRowIndex() + 1;
-		final String startColumn = range.getStartColumnIndex() == null ? "" : convertNumToColString(
-				range.getStartColumnIndex());
-		final String startRange = String.format("%s%d", startColumn, startRow);
-
-		final String endRow = range.getEndRowIndex() == null ?
-		                      String.valueOf(range.getStartRowIndex() + 1) :
-		                      String.valueOf(range.getEndRowIndex() + 1);
-		final String endColumn = range.getEndColumnIndex() == null ? "" : convertNumToColString(range.getEndColumnIndex());
-		final String endRange = String.format("%s%s", endColumn, endRow);
-
-		return String.format("%s:%s", startRange, endRange);
+		final Integer endRow = range.getEndRowIndex() == null ? range.getStartRowIndex() : range.getEndRowIndex();
+		if (endRow == null) {
+			throw new IllegalStateException("Header range has no row: " + range);
+		}
+		return A1Notation.encode(null,
+		                         range.getStartRowIndex(),
+		                         range.getStartColumnIndex(),
+		                         endRow,
+		                         range.getEndColumnIndex());
 	}
 
 	public List<Object> getColumns() {
@@ -63,13 +66,4 @@ public class GoogleSheetHeader {
 	public void setValues(List<Object> values) {
 		this.values = values;
 	}
-
-	private String convertNumToColString(int col) {
-		int mod = col % 26;
-		int div = col / 26;
-		char small = (char) (mod + 65);
-		char big = (char) (div + 64);
-
-		return (div == 0) ? String.format("%s", small) : String.format("%s%s", big, small);
-	}
 }
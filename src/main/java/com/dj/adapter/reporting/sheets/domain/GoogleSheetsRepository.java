@@ -1,41 +1,45 @@
 package com.dj.adapter.reporting.sheets.domain;
 
-import com.dj.adapter.reporting.sheets.retry.AsyncRetryExecutor;
-import com.dj.adapter.reporting.sheets.retry.RetryExecutor;
+import com.dj.adapter.reporting.sheets.metrics.SheetsMetrics;
+import com.dj.adapter.reporting.sheets.transport.PayloadProbe;
+import com.dj.adapter.reporting.sheets.utils.ValueRangeSink;
+import com.dj.adapter.reporting.sheets.utils.ValueRangeStreamReader;
+import com.google.api.client.googleapis.services.json.AbstractGoogleJsonClientRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.json.JsonParser;
 import com.google.api.services.sheets.v4.Sheets;
 import com.google.api.services.sheets.v4.model.BatchGetValuesResponse;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesRequest;
 import com.google.api.services.sheets.v4.model.ValueRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 
 
 public class GoogleSheetsRepository {
 	public static Logger logger = LoggerFactory.getLogger(GoogleSheetsRepository.class);
 	/**
-	 * If non-null, the value; if null, indicates no value is present
+	 * If non-null, the clients used for every call; if null, indicates no value is present
 	 */
-	private static Sheets value;
-	private ScheduledExecutorService scheduler;
-	private RetryExecutor executor;
+	private SheetsClientPool value;
+	private SheetsMetrics metrics = SheetsMetrics.global();
+	/**
+	 * If non-null, gathers the value updates of the sheets of a spreadsheet into batches
+	 */
+	private ValueUpdateMultiplexer updateMultiplexer;
 
 	/**
 	 * Constructs an empty instance.
 	 **/
 	public GoogleSheetsRepository() {
 		this.value = null;
-		this.scheduler = Executors.newSingleThreadScheduledExecutor();
-		executor = new AsyncRetryExecutor(scheduler).retryOn(IOException.class)
-		                                            .withFixedBackoff(200)
-		                                            .withFixedRate()
-		                                            .withMaxRetries(3);
 	}
 
 	/**
@@ -45,8 +49,17 @@ public class GoogleSheetsRepository {
 	 * @throws NullPointerException if value is null
 	 */
 	public GoogleSheetsRepository(Sheets value) {
-		this();
-		this.value = Objects.requireNonNull(value);
+		this(new SheetsClientPool(Objects.requireNonNull(value)));
+	}
+
+	/**
+	 * Constructs an instance whose calls are spread across a pool of clients.
+	 *
+	 * @param clients the non-null pool of clients, one per credential
+	 * @throws NullPointerException if clients is null
+	 */
+	public GoogleSheetsRepository(SheetsClientPool clients) {
+		this.value = Objects.requireNonNull(clients);
 	}
 
 	/**
@@ -57,11 +70,32 @@ public class GoogleSheetsRepository {
 	 * @return values for all ranges
 	 */
 	public BatchGetValuesResponse getMultipleRanges(String spreadSheetId, List<String> ranges) throws IOException {
-		return value.spreadsheets()
-		            .values()
-		            .batchGet(spreadSheetId)
-		            .setRanges(ranges)
-		            .execute();
+		return client().spreadsheets()
+		              .values()
+		              .batchGet(spreadSheetId)
+		              .setRanges(ranges)
+		              .execute();
+	}
+
+	/**
+	 * Like {@link #getMultipleRanges(String, List)}, with the values rendered as given. Dates and
+	 * times are read as serial numbers unless values are formatted.
+	 *
+	 * @param spreadSheetId     identifier for a particular spreadsheet
+	 * @param ranges            ranges to be retrieved
+	 * @param valueRenderOption {@code FORMATTED_VALUE}, {@code UNFORMATTED_VALUE} or {@code FORMULA}
+	 * @return values for all ranges
+	 */
+	public BatchGetValuesResponse getMultipleRanges(String spreadSheetId,
+	                                                List<String> ranges,
+	                                                String valueRenderOption) throws IOException {
+		return client().spreadsheets()
+		              .values()
+		              .batchGet(spreadSheetId)
+		              .setRanges(ranges)
+		              .setValueRenderOption(valueRenderOption)
+		              .setDateTimeRenderOption("SERIAL_NUMBER")
+		              .execute();
 	}
 
 	/**
@@ -72,21 +106,63 @@ public class GoogleSheetsRepository {
 	 * @return value of the range
 	 */
 	public ValueRange getRange(String spreadSheetId, String range) throws IOException {
-		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-		RetryExecutor executor = new AsyncRetryExecutor(scheduler).retryOn(IOException.class)
-		                                                          .withFixedBackoff(200)
-		                                                          .withFixedRate()
-		                                                          .withMaxRetries(3);
-		final CompletableFuture<ValueRange> withRetry = executor.getWithRetry(context -> value.spreadsheets()
-		                                                                                      .values()
-		                                                                                      .get(spreadSheetId, range)
-		                                                                                      .execute());
-		withRetry.thenAccept(valueRange -> logger.debug("Retrieved values: " + valueRange.toString()));
+		final ValueRange valueRange = client().spreadsheets()
+		                                      .values()
+		                                      .get(spreadSheetId, range)
+		                                      .execute();
+		logger.debug("Retrieved values: {}", valueRange);
+		return valueRange;
+	}
 
-		return value.spreadsheets()
-		            .values()
-		            .get(spreadSheetId, range)
-		            .execute();
+	/**
+	 * Reads a range like {@link #getRange(String, String)}, but hands its rows to a sink as the
+	 * response is parsed, without building a {@code ValueRange}. Meant for large reads, such as
+	 * whole columns or sheets, whose values are kept in another form, e.g. a
+	 * {@link com.dj.adapter.reporting.sheets.utils.ColumnSnapshot}.
+	 *
+	 * @param spreadSheetId identifier for a particular spreadsheet
+	 * @param range         range to be retrieved
+	 * @param sink          receives the rows of the range
+	 */
+	public void streamRange(String spreadSheetId, String range, ValueRangeSink sink) throws IOException {
+		final Sheets client = client();
+		stream(client, client.spreadsheets()
+		                     .values()
+		                     .get(spreadSheetId, range), sink);
+	}
+
+	/**
+	 * Reads multiple ranges like {@link #getMultipleRanges(String, List)}, but hands their rows to
+	 * a sink as the response is parsed, without building the value ranges.
+	 *
+	 * @param spreadSheetId identifier for a particular spreadsheet
+	 * @param ranges        ranges to be retrieved
+	 * @param sink          receives the rows of every range, by index of the range
+	 * @return the number of ranges read
+	 */
+	public int streamMultipleRanges(String spreadSheetId, List<String> ranges, ValueRangeSink sink) throws IOException {
+		final Sheets client = client();
+		return stream(client, client.spreadsheets()
+		                            .values()
+		                            .batchGet(spreadSheetId)
+		                            .setRanges(ranges), sink);
+	}
+
+	private static int stream(Sheets client,
+	                          AbstractGoogleJsonClientRequest<?> request,
+	                          ValueRangeSink sink) throws IOException {
+		final HttpResponse response = request.executeUnparsed();
+		try (InputStream content = PayloadProbe.content(response)) {
+			final JsonParser parser = client.getJsonFactory()
+			                                .createJsonParser(content, response.getContentCharset());
+			try {
+				return ValueRangeStreamReader.read(parser, sink);
+			} finally {
+				parser.close();
+			}
+		} finally {
+			response.disconnect();
+		}
 	}
 
 	/**
@@ -101,9 +177,9 @@ public class GoogleSheetsRepository {
 	public Sheets.Spreadsheets.Values.Append append(String spreadsheetId,
 	                                                String range,
 	                                                ValueRange row) throws IOException {
-		return value.spreadsheets()
-		            .values()
-		            .append(spreadsheetId, range, row);
+		return client().spreadsheets()
+		              .values()
+		              .append(spreadsheetId, range, row);
 	}
 
 	/**
@@ -117,24 +193,117 @@ public class GoogleSheetsRepository {
 	public Sheets.Spreadsheets.Values.Update update(String spreadsheetId,
 	                                                String range,
 	                                                ValueRange row) throws IOException {
-		return value.spreadsheets()
-		            .values()
-		            .update(spreadsheetId, range, row);
+		return client().spreadsheets()
+		              .values()
+		              .update(spreadsheetId, range, row);
 	}
 
 	/**
-	 * If a value is present in this {@code GoogleSheetsRepository}, returns the value,
-	 * otherwise throws {@code NoSuchElementException}.
+	 * Wrapper for Sheets batchUpdate method of values, used to update many ranges at once, e.g. the
+	 * changed cells of a row.
 	 *
-	 * @return the non-null value held by this {@code GoogleSheetsRepository}
+	 * @param spreadsheetId identifier for a particular spreadsheet
+	 * @param request       ranges to be updated and their values
+	 * @return a batch update operation ready to be executed
+	 */
+	public Sheets.Spreadsheets.Values.BatchUpdate batchUpdate(String spreadsheetId,
+	                                                          BatchUpdateValuesRequest request) throws IOException {
+		return client().spreadsheets()
+		              .values()
+		              .batchUpdate(spreadsheetId, request);
+	}
+
+	/**
+	 * Wrapper for Sheets batchUpdate method of spreadsheets, used to change the structure of the
+	 * sheets, e.g. to add rows to their grid.
+	 *
+	 * @param spreadsheetId identifier for a particular spreadsheet
+	 * @param request       changes to be applied, in order
+	 * @return a batch update operation ready to be executed
+	 */
+	public Sheets.Spreadsheets.BatchUpdate updateSpreadsheet(String spreadsheetId,
+	                                                         BatchUpdateSpreadsheetRequest request) throws IOException {
+		return client().spreadsheets()
+		              .batchUpdate(spreadsheetId, request);
+	}
+
+	/**
+	 * If a value is present in this {@code GoogleSheetsRepository}, returns the client that must be
+	 * used for the next call, otherwise throws {@code NoSuchElementException}.
+	 *
+	 * @return the next non-null client of the pool held by this {@code GoogleSheetsRepository}
 	 * @throws NoSuchElementException if there is no value present
+	 * @throws UncheckedIOException   wrapping a {@link QuotaExhaustedException} if every client of
+	 *                                the pool exhausted its quota
 	 * @see GoogleSheetsRepository#isPresent()
 	 */
 	public Sheets get() {
+		try {
+			return client();
+		} catch (QuotaExhaustedException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the pool of clients held by this {@code GoogleSheetsRepository}.
+	 *
+	 * @return the pool of clients, or null if there is no value present
+	 */
+	public SheetsClientPool getClients() {
+		return value;
+	}
+
+	/**
+	 * Returns the metrics of the operations made through this repository.
+	 *
+	 * @return the metrics, published to {@code Metrics.globalRegistry} unless set otherwise
+	 */
+	public SheetsMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the metrics of the operations made through this repository. API calls are measured
+	 * by the clients themselves; see {@link GoogleSheetsRepositoryFactory}.
+	 *
+	 * @param metrics the metrics
+	 * @return this repository
+	 */
+	public GoogleSheetsRepository setMetrics(SheetsMetrics metrics) {
+		this.metrics = Objects.requireNonNull(metrics);
+		return this;
+	}
+
+	/**
+	 * Returns the multiplexer the sheets send their value updates through.
+	 *
+	 * @return the multiplexer, or null if every write is sent on its own
+	 */
+	public ValueUpdateMultiplexer getUpdateMultiplexer() {
+		return updateMultiplexer;
+	}
+
+	/**
+	 * Sets the multiplexer the sheets send their value updates through, so that updates of the
+	 * sheets of a spreadsheet made close together share a single {@code batchUpdate}.
+	 *
+	 * @param updateMultiplexer the multiplexer, or null to send every write on its own
+	 * @return this repository
+	 */
+	public GoogleSheetsRepository setUpdateMultiplexer(ValueUpdateMultiplexer updateMultiplexer) {
+		this.updateMultiplexer = updateMultiplexer;
+		return this;
+	}
+
+	/**
+	 * Acquires the client of the next call, reserving a request of its quota.
+	 */
+	private Sheets client() throws QuotaExhaustedException {
 		if (value == null) {
 			throw new NoSuchElementException("No value present");
 		}
-		return value;
+		return value.acquire();
 	}
 
 	/**
@@ -155,8 +324,8 @@ public class GoogleSheetsRepository {
 	 * @throws IOException
 	 */
 	public GoogleSpreadsheet getSpreadSheetById(String spreadSheetId) throws IOException {
-		return new GoogleSpreadsheet(value.spreadsheets()
-		                                  .get(spreadSheetId)
-		                                  .execute(), this);
+		return new GoogleSpreadsheet(client().spreadsheets()
+		                                     .get(spreadSheetId)
+		                                     .execute(), this);
 	}
 }
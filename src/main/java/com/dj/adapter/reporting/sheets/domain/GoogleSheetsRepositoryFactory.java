@@ -1,76 +1,302 @@
 package com.dj.adapter.reporting.sheets.domain;
 
-import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepository;
+import com.dj.adapter.reporting.sheets.auth.ProactiveTokenRefresher;
+import com.dj.adapter.reporting.sheets.metrics.SheetsMetrics;
+import com.dj.adapter.reporting.sheets.transport.CallRecorder;
+import com.dj.adapter.reporting.sheets.transport.HttpTransports;
+import com.dj.adapter.reporting.sheets.transport.LargePayloadLog;
+import com.dj.adapter.reporting.sheets.transport.PayloadProbe;
+import com.dj.adapter.reporting.sheets.transport.TransportRequestInitializer;
+import com.dj.adapter.reporting.sheets.transport.TransportSettings;
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInstalledApp;
 import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
+import com.google.api.client.googleapis.services.GoogleClientRequestInitializer;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.GenericJson;
 import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.util.IOUtils;
 import com.google.api.client.util.store.MemoryDataStoreFactory;
 import com.google.api.services.sheets.v4.Sheets;
 import com.google.api.services.sheets.v4.SheetsScopes;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class GoogleSheetsRepositoryFactory {
+	private static Logger logger = LoggerFactory.getLogger(GoogleSheetsRepositoryFactory.class);
 	final JacksonFactory jacksonFactory = JacksonFactory.getDefaultInstance();
 	final String APPLICATION_NAME = "FlowIT Reporting";
 	final String CLIENT_SECRET_DIR = "client_secret.json";
 	final String private_key = "service_account.json";
+	private static final String SERVICE_ACCOUNT = "service_account";
+	private final TransportSettings transportSettings;
+	private HttpTransport transport;
+	private ScheduledExecutorService tokenScheduler;
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
+	private SheetsMetrics metrics = SheetsMetrics.global();
+	private CallRecorder callRecorder;
+	private final LargePayloadLog largePayloads;
+	private PayloadProbe payloadProbe;
+	private boolean interactive = false;
 
 	public GoogleSheetsRepositoryFactory() {
+		this(new TransportSettings());
+	}
+
+	public GoogleSheetsRepositoryFactory(TransportSettings transportSettings) {
+		this.transportSettings = Objects.requireNonNull(transportSettings);
+		this.largePayloads = new LargePayloadLog(transportSettings.getLargePayloadSamples(),
+		                                         transportSettings.getLargePayloadBytes());
+		this.payloadProbe = new PayloadProbe(meterRegistry, largePayloads);
 	}
 
 	public GoogleSheetsRepository getRepository(String credentials) {
 		try {
-			final NetHttpTransport trustedTransport = GoogleNetHttpTransport.newTrustedTransport();
-			final Credential credential = this.authorize(credentials);
-
-			GoogleSheetsRepository service = new GoogleSheetsRepository(new Sheets.Builder(trustedTransport, this.jacksonFactory, credential)
-							    .setApplicationName(this.APPLICATION_NAME)
-							    .build());
-			return service;
+			GoogleSheetsRepository service = new GoogleSheetsRepository(this.newClient(credentials, null));
+			return service.setMetrics(metrics);
 		} catch (IOException | GeneralSecurityException e) {
 			e.printStackTrace();
 			return null;
 		}
 	}
 
+	/**
+	 * Creates a repository that spreads its calls across one client per credential, so that the
+	 * quota of every account adds up.
+	 *
+	 * @param credentials       credential resources, one per user or service account
+	 * @param routing           how the next client is chosen
+	 * @param requestsPerMinute quota of every credential
+	 * @return a repository backed by a pool of clients
+	 * @throws IllegalStateException if any credential cannot be authorized
+	 */
+	public GoogleSheetsRepository getRepository(List<String> credentials,
+	                                            SheetsClientPool.Routing routing,
+	                                            int requestsPerMinute) {
+		try {
+			final List<SheetsClientPool.PooledClient> clients = new ArrayList<>(credentials.size());
+			for (String credential : credentials) {
+				final SheetsClientPool.Quota quota = new SheetsClientPool.Quota(requestsPerMinute);
+				clients.add(new SheetsClientPool.PooledClient(credential, this.newClient(credential, quota), quota));
+			}
+			logger.debug("Created a pool of {} Sheets clients with {} routing", clients.size(), routing);
+			return new GoogleSheetsRepository(new SheetsClientPool(clients, routing)).setMetrics(metrics);
+		} catch (IOException | GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot create the Sheets clients of credentials " + credentials, e);
+		}
+	}
+
+	/**
+	 * Creates a repository whose requests are authorized by the given initializer instead of a
+	 * credential resource, e.g. a credential obtained elsewhere or none at all for a stand-in of the
+	 * API.
+	 *
+	 * @param credential initializes every request before it is sent, or {@code null} for none
+	 * @return a repository on the transport of this factory
+	 * @throws IllegalStateException if the transport cannot be created
+	 */
+	public GoogleSheetsRepository getRepository(HttpRequestInitializer credential) {
+		try {
+			return new GoogleSheetsRepository(
+					new Sheets.Builder(this.getTransport(), this.jacksonFactory,
+					                   new TransportRequestInitializer(credential, transportSettings, metrics,
+					                                                   callRecorder, payloadProbe))
+							.setApplicationName(this.APPLICATION_NAME)
+							.setGoogleClientRequestInitializer(this.compressionInitializer())
+							.build()).setMetrics(metrics);
+		} catch (IOException | GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot create the transport of the Sheets client", e);
+		}
+	}
+
+	/**
+	 * @param quota counts the requests executed by the client, if not null
+	 */
+	private Sheets newClient(String credentials, HttpRequestInitializer quota) throws IOException, GeneralSecurityException {
+		final HttpTransport trustedTransport = this.getTransport();
+		final Credential credential = this.authorize(credentials);
+		final ProactiveTokenRefresher tokenRefresher = new ProactiveTokenRefresher(credentials, credential,
+		                                                                           this.getTokenScheduler(),
+		                                                                           meterRegistry).start();
+		return new Sheets.Builder(trustedTransport, this.jacksonFactory,
+		                          new TransportRequestInitializer(tokenRefresher, transportSettings, quota, metrics,
+		                                                          callRecorder, payloadProbe))
+				.setApplicationName(this.APPLICATION_NAME)
+				.setGoogleClientRequestInitializer(this.compressionInitializer())
+				.build();
+	}
+
+	/**
+	 * Returns the transport shared by the authorization flow and every {@code Sheets} client built by
+	 * this factory, so that pooled connections are reused across all of them.
+	 *
+	 * @return the shared transport
+	 */
+	public synchronized HttpTransport getTransport() throws IOException, GeneralSecurityException {
+		if (transport == null) {
+			logger.debug("Creating a new {} HTTP transport", transportSettings.getType());
+			transport = HttpTransports.newTrustedTransport(transportSettings);
+		}
+		return transport;
+	}
+
+	/**
+	 * Replaces the transport built from the settings, e.g. with the one of an in-memory server for
+	 * load tests. Clients created before keep their transport.
+	 *
+	 * @param transport the transport shared by every client created from now on
+	 */
+	public synchronized void setTransport(HttpTransport transport) {
+		this.transport = Objects.requireNonNull(transport);
+	}
+
+	/**
+	 * Single daemon thread refreshing the access tokens of every credential before they expire.
+	 */
+	private synchronized ScheduledExecutorService getTokenScheduler() {
+		if (tokenScheduler == null) {
+			tokenScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "sheets-token-refresh");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return tokenScheduler;
+	}
+
+	/**
+	 * Releases the connections held by the shared transport and stops refreshing tokens.
+	 */
+	public synchronized void shutdown() throws IOException {
+		if (tokenScheduler != null) {
+			tokenScheduler.shutdownNow();
+			tokenScheduler = null;
+		}
+		if (transport != null) {
+			transport.shutdown();
+			transport = null;
+		}
+	}
+
+	/**
+	 * Sets the registry where token lifetime and refresh latency, and the metrics of the
+	 * repositories created from now on, are published.
+	 *
+	 * @param meterRegistry the registry, {@code Metrics.globalRegistry} by default
+	 */
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = Objects.requireNonNull(meterRegistry);
+		this.metrics = meterRegistry == Metrics.globalRegistry ? SheetsMetrics.global() : new SheetsMetrics(meterRegistry);
+		this.payloadProbe = new PayloadProbe(meterRegistry, largePayloads);
+	}
+
+	/**
+	 * Records the calls of every client created from now on.
+	 *
+	 * @param callRecorder the recorder, or {@code null} to stop recording new clients
+	 */
+	public void setCallRecorder(CallRecorder callRecorder) {
+		this.callRecorder = callRecorder;
+	}
+
+	/**
+	 * Returns the calls with the largest payloads made by the clients of this factory, as
+	 * configured by the large payload settings of the transport.
+	 */
+	public LargePayloadLog getLargePayloads() {
+		return largePayloads;
+	}
+
+	public TransportSettings getTransportSettings() {
+		return transportSettings;
+	}
+
+	private GoogleClientRequestInitializer compressionInitializer() {
+		final boolean disableGZipContent = !transportSettings.isGzipRequests();
+		return (AbstractGoogleClientRequest<?> request) -> request.setDisableGZipContent(disableGZipContent);
+	}
+
+	/**
+	 * Authorizes with the given credential resource. Service account keys are used as they are,
+	 * without any user interaction; client secrets go through the installed application flow,
+	 * which needs a browser, and are only accepted when interactive authorization is enabled.
+	 *
+	 * @param clientSecret classpath resource with a service account key or a client secret
+	 * @return the credential, whose token will be fetched on first use
+	 */
 	private Credential authorize(String clientSecret) throws IOException, GeneralSecurityException {
 
 		final JacksonFactory jacksonFactory = JacksonFactory.getDefaultInstance();
-		final NetHttpTransport trustedTransport = GoogleNetHttpTransport.newTrustedTransport();
-		InputStream in = this.getClass()
-		                     .getClassLoader()
-		                     .getResourceAsStream(CLIENT_SECRET_DIR);
-
-//		FileInputStream in = new FileInputStream(this.getClass()
-//		                                             .getClassLoader()
-//		                                             .getResource(private_key)
-//		                                             .getFile());
-//
+		final HttpTransport trustedTransport = this.getTransport();
+		final String resource = clientSecret == null ? private_key : clientSecret;
+		final byte[] content = readResource(resource);
 		List<String> scopes = Arrays.asList(SheetsScopes.SPREADSHEETS);
-//
-//		GoogleCredential credential = GoogleCredential.fromStream(in)
-//		                                              .createScoped(Collections.singleton(SheetsScopes.SPREADSHEETS));
 
-        GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(jacksonFactory, new InputStreamReader(in));
+		final GenericJson credentialType = jacksonFactory.fromInputStream(new ByteArrayInputStream(content),
+		                                                                  GenericJson.class);
+		if (SERVICE_ACCOUNT.equals(credentialType.get("type"))) {
+			logger.debug("Authorizing with service account {}", resource);
+			return GoogleCredential.fromStream(new ByteArrayInputStream(content), trustedTransport, jacksonFactory)
+			                       .createScoped(scopes);
+		}
+		if (!interactive) {
+			throw new IOException(String.format("Credential '%s' needs interactive authorization, which is disabled. " +
+			                                    "Use a service account key or enable interactive authorization.",
+			                                    resource));
+		}
 
+		GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(jacksonFactory,
+		                                                             new InputStreamReader(new ByteArrayInputStream(content)));
+
+		GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow
+				.Builder(trustedTransport, jacksonFactory, clientSecrets, scopes)
+				.setDataStoreFactory(new MemoryDataStoreFactory())
+				.setAccessType("offline")
+				.build();
+		return new AuthorizationCodeInstalledApp(flow, new LocalServerReceiver()).authorize("user");
+	}
+
+	private byte[] readResource(String resource) throws IOException {
+		try (InputStream in = this.getClass()
+		                          .getClassLoader()
+		                          .getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new FileNotFoundException(String.format("Credential '%s' not found in classpath", resource));
+			}
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			IOUtils.copy(in, content);
+			return content.toByteArray();
+		}
+	}
 
-        GoogleAuthorizationCodeFlow flow = new GoogleAuthorizationCodeFlow
-                .Builder(trustedTransport, jacksonFactory, clientSecrets, scopes)
-                .setDataStoreFactory(new MemoryDataStoreFactory())
-                .setAccessType("offline")
-                .build();
-        return new AuthorizationCodeInstalledApp(flow, new LocalServerReceiver()).authorize("user");
-//		return credential;
+	/**
+	 * Allows credentials that need a user to authorize the application in a browser. Disabled by
+	 * default, so that the application never blocks waiting for a human.
+	 *
+	 * @param interactive whether interactive authorization is allowed
+	 */
+	public void setInteractive(boolean interactive) {
+		this.interactive = interactive;
 	}
 }
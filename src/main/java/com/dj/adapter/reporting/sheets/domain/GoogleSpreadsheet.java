@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Optional;
 
 public class GoogleSpreadsheet {
 
@@ -53,16 +54,25 @@ public class GoogleSpreadsheet {
 	 * @return a {@code GoogleSheet} or {@code empty()}
 	 */
 	public GoogleSheet getSheetByName(String sheetName) {
-		final Sheet sheetToBeFound = value.getSheets()
-		                                  .stream()
-		                                  .filter(sheet -> sheet.getProperties()
-		                                                        .getTitle()
-		                                                        .equals(sheetName))
-		                                  .findAny()
-		                                  .get();
+		final Sheet sheetToBeFound = findSheetByName(sheetName).get();
 		return new GoogleSheet(sheetToBeFound, repository).setSpreadSheetId(getId());
 	}
 
+	/**
+	 * Given a name, returns the metadata of the sheet if it exists, otherwise empty.
+	 *
+	 * @param sheetName the name of the sheet to be found
+	 * @return the sheet metadata or {@code empty()}
+	 */
+	public Optional<Sheet> findSheetByName(String sheetName) {
+		return value.getSheets()
+		            .stream()
+		            .filter(sheet -> sheet.getProperties()
+		                                  .getTitle()
+		                                  .equals(sheetName))
+		            .findAny();
+	}
+
 	/**
 	 * Returns the {@code GoogleSpreadsheet} identifier.
 	 *
@@ -0,0 +1,28 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import java.io.IOException;
+
+/**
+ * Thrown when every client of a {@link SheetsClientPool} used up its quota for the current window.
+ * Nothing was sent, so the call can be retried once a window resets.
+ */
+public class QuotaExhaustedException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterMillis;
+
+	/**
+	 * @param retryAfterMillis time until the quota window of a client resets
+	 */
+	public QuotaExhaustedException(long retryAfterMillis) {
+		super("Quota of every Sheets client exhausted, retry in " + retryAfterMillis + "ms");
+		this.retryAfterMillis = retryAfterMillis;
+	}
+
+	/**
+	 * Time until the quota window of a client resets, in milliseconds.
+	 */
+	public long getRetryAfterMillis() {
+		return retryAfterMillis;
+	}
+}
@@ -0,0 +1,187 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable layout of the header of a sheet: the name of every column and its position.
+ * It is built once per header version, so that rows are encoded in O(columns) without looking
+ * columns up in the header over and over.
+ * <p>
+ * Positions are relative to the first header column; {@link #toHeaderMap()} gives the absolute
+ * ones. If a name appears more than once, lookups return its first position.
+ */
+public final class RowSchema {
+	private static final AtomicLong VERSIONS = new AtomicLong();
+
+	private final long version;
+	private final int startColumnIndex;
+	private final String[] names;
+	// Open addressing table from column name to position
+	private final String[] slotNames;
+	private final int[] slotPositions;
+	private final int mask;
+	private final List<String> columnNames;
+	private final Map<String, Integer> headerMap;
+
+	private RowSchema(String[] names, int startColumnIndex) {
+		this.version = VERSIONS.incrementAndGet();
+		this.startColumnIndex = startColumnIndex;
+		this.names = names;
+		final int capacity = Integer.highestOneBit(Math.max(2, names.length) * 2 - 1) << 1;
+		this.slotNames = new String[capacity];
+		this.slotPositions = new int[capacity];
+		this.mask = capacity - 1;
+		final Map<String, Integer> headerMap = new HashMap<>(capacity);
+		for (int position = 0; position < names.length; position++) {
+			final String name = names[position];
+			int slot = spread(name.hashCode()) & mask;
+			while (slotNames[slot] != null && !slotNames[slot].equals(name)) {
+				slot = (slot + 1) & mask;
+			}
+			if (slotNames[slot] == null) {
+				slotNames[slot] = name;
+				slotPositions[slot] = position;
+				headerMap.put(name, position + startColumnIndex);
+			}
+		}
+		this.columnNames = Collections.unmodifiableList(Arrays.asList(names));
+		this.headerMap = Collections.unmodifiableMap(headerMap);
+	}
+
+	/**
+	 * Builds the schema of a header row.
+	 *
+	 * @param headerRow        values of the header row, as read from the sheet
+	 * @param startColumnIndex zero-based index of the first header column on the sheet
+	 * @return a new schema, with a version of its own
+	 */
+	public static RowSchema of(List<Object> headerRow, int startColumnIndex) {
+		final String[] names = new String[headerRow.size()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = String.valueOf(headerRow.get(i));
+		}
+		return new RowSchema(names, startColumnIndex);
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Identifies this header among all schemas built by the application; a new schema is built
+	 * whenever a header changes.
+	 *
+	 * @return version of this schema
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public int getStartColumnIndex() {
+		return startColumnIndex;
+	}
+
+	/**
+	 * Number of header columns.
+	 *
+	 * @return number of columns
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the name of the column at a position relative to the first header column.
+	 *
+	 * @param position zero-based relative position
+	 * @return name of the column
+	 */
+	public String getColumnName(int position) {
+		return names[position];
+	}
+
+	/**
+	 * Returns the position of a column relative to the first header column.
+	 *
+	 * @param columnName name of the column
+	 * @return zero-based relative position, or -1 if there is no such column
+	 */
+	public int indexOf(String columnName) {
+		if (columnName == null) {
+			return -1;
+		}
+		int slot = spread(columnName.hashCode()) & mask;
+		String name;
+		while ((name = slotNames[slot]) != null) {
+			if (name.equals(columnName)) {
+				return slotPositions[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Names of the header columns, in order.
+	 *
+	 * @return unmodifiable list of names
+	 */
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * Maps every column name to its absolute position on the sheet.
+	 *
+	 * @return unmodifiable map of positions
+	 */
+	public Map<String, Integer> toHeaderMap() {
+		return headerMap;
+	}
+
+	/**
+	 * Returns {@code true} if the header row has exactly the columns of this schema.
+	 *
+	 * @param headerRow        values of the header row, as read from the sheet
+	 * @param startColumnIndex zero-based index of the first header column on the sheet
+	 * @return whether this schema describes the header row
+	 */
+	public boolean describes(List<Object> headerRow, int startColumnIndex) {
+		if (this.startColumnIndex != startColumnIndex || headerRow.size() != names.length) {
+			return false;
+		}
+		for (int i = 0; i < names.length; i++) {
+			if (!names[i].equals(String.valueOf(headerRow.get(i)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Lays out the values of a row in the order of the header columns. Columns missing from the
+	 * row, or without value, are left empty.
+	 *
+	 * @param row columns and their values
+	 * @return values of the row, one per header column
+	 */
+	public List<Object> encode(Map<String, Object> row) {
+		final List<Object> values = new ArrayList<>(names.length);
+		for (String name : names) {
+			final Object value = row.get(name);
+			values.add(value == null ? "" : value.toString());
+		}
+		return values;
+	}
+
+	@Override
+	public String toString() {
+		return "RowSchema{version=" + version + ", columns=" + columnNames + "}";
+	}
+}
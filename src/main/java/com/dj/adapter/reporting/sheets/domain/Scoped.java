@@ -0,0 +1,50 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A formatter or validator, and the column it is restricted to if any.
+ */
+final class Scoped<T> {
+	final String column;
+	final T value;
+
+	private Scoped(String column, T value) {
+		this.column = column;
+		this.value = Objects.requireNonNull(value);
+	}
+
+	static <T> List<Scoped<T>> of(String column, Set<T> values) {
+		final List<Scoped<T>> result = new ArrayList<>(values.size());
+		values.forEach(value -> result.add(new Scoped<>(column, value)));
+		return Collections.unmodifiableList(result);
+	}
+
+	@SafeVarargs
+	static <T> List<Scoped<T>> plus(List<Scoped<T>> initial, String column, T... newElements) {
+		final List<Scoped<T>> copy = new ArrayList<>(initial);
+		for (T element : newElements) {
+			final boolean present = copy.stream()
+			                            .anyMatch(scoped -> scoped.value.equals(element)
+					                            && Objects.equals(scoped.column, column));
+			if (!present) {
+				copy.add(new Scoped<>(column, element));
+			}
+		}
+		return Collections.unmodifiableList(copy);
+	}
+
+	static <T> List<T> forColumn(List<Scoped<T>> values, String column) {
+		final List<T> result = new ArrayList<>(values.size());
+		for (Scoped<T> scoped : values) {
+			if (scoped.column == null || scoped.column.equals(column)) {
+				result.add(scoped.value);
+			}
+		}
+		return result;
+	}
+}
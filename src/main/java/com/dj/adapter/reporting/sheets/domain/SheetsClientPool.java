@@ -0,0 +1,252 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.services.sheets.v4.Sheets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of authenticated {@code Sheets} clients, one per credential (user or service account).
+ * Google quotas are enforced per credential, so spreading the calls across the pool raises the
+ * overall throughput. Usage of every client is tracked within a quota window of one minute, by
+ * counting the requests it executes, retries included; see {@link Quota}. A call reserves its slot
+ * when it acquires its client, so that concurrent calls never overshoot the quota.
+ */
+public class SheetsClientPool {
+	private static Logger logger = LoggerFactory.getLogger(SheetsClientPool.class);
+	public static final int DEFAULT_REQUESTS_PER_MINUTE = 60;
+	private static final long WINDOW_MILLIS = 60_000;
+
+	private final List<PooledClient> clients;
+	private final Routing routing;
+	private final AtomicInteger next = new AtomicInteger();
+
+	public SheetsClientPool(Sheets client) {
+		this(Collections.singletonList(new PooledClient("default", client, Integer.MAX_VALUE)), Routing.ROUND_ROBIN);
+	}
+
+	public SheetsClientPool(List<PooledClient> clients, Routing routing) {
+		if (clients.isEmpty()) {
+			throw new IllegalArgumentException("A pool needs at least one Sheets client");
+		}
+		this.clients = Collections.unmodifiableList(new ArrayList<>(clients));
+		this.routing = Objects.requireNonNull(routing);
+	}
+
+	/**
+	 * Chooses the client for the next call, following the routing strategy, and reserves a request
+	 * of its quota for the call. Clients that exhausted their quota are skipped. The calling thread
+	 * never waits: when all are exhausted, the call fails, to be retried once a window resets.
+	 *
+	 * @return the client that must execute the call
+	 * @throws QuotaExhaustedException if every client exhausted its quota
+	 */
+	public Sheets acquire() throws QuotaExhaustedException {
+		final long now = System.currentTimeMillis();
+		final PooledClient chosen = routing == Routing.LEAST_LOADED ? leastLoaded(now) : roundRobin(now);
+		if (chosen != null) {
+			return chosen.getClient();
+		}
+		final long wait = millisUntilReset(now);
+		logger.debug("Quota of every client exhausted, next window in {}ms", wait);
+		throw new QuotaExhaustedException(wait);
+	}
+
+	private PooledClient roundRobin(long now) {
+		final int size = clients.size();
+		final int start = Math.floorMod(next.getAndIncrement(), size);
+		for (int i = 0; i < size; i++) {
+			final PooledClient candidate = clients.get((start + i) % size);
+			if (candidate.quota.tryReserve(now)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reserves a request of the client with the lowest usage; the usage of another client may have
+	 * changed meanwhile, the reservation itself never overshoots.
+	 */
+	private PooledClient leastLoaded(long now) {
+		final List<PooledClient> candidates = new ArrayList<>(clients);
+		candidates.sort(Comparator.comparingInt(candidate -> candidate.getUsage(now)));
+		for (PooledClient candidate : candidates) {
+			if (candidate.quota.tryReserve(now)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	private long millisUntilReset(long now) {
+		long wait = WINDOW_MILLIS;
+		for (PooledClient candidate : clients) {
+			wait = Math.min(wait, candidate.quota.millisUntilReset(now));
+		}
+		return Math.max(wait, 1);
+	}
+
+	public List<PooledClient> getClients() {
+		return clients;
+	}
+
+	public Routing getRouting() {
+		return routing;
+	}
+
+	public enum Routing {
+		/**
+		 * Clients are used in turns.
+		 */
+		ROUND_ROBIN,
+		/**
+		 * The client with fewer calls within the current quota window is used.
+		 */
+		LEAST_LOADED
+	}
+
+	/**
+	 * A {@code Sheets} client together with the quota usage of its credential.
+	 */
+	public static class PooledClient {
+		private final String name;
+		private final Sheets client;
+		private final Quota quota;
+
+		/**
+		 * @param name   name of the credential
+		 * @param client client of the credential, whose requests are counted by the quota
+		 * @param quota  usage of the credential; see {@link Quota#initialize(HttpRequest)}
+		 */
+		public PooledClient(String name, Sheets client, Quota quota) {
+			this.name = name;
+			this.client = Objects.requireNonNull(client);
+			this.quota = Objects.requireNonNull(quota);
+		}
+
+		/**
+		 * Pools a client whose requests are not counted, e.g. with an unlimited quota.
+		 */
+		public PooledClient(String name, Sheets client, int requestsPerMinute) {
+			this(name, client, new Quota(requestsPerMinute));
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Sheets getClient() {
+			return client;
+		}
+
+		public Quota getQuota() {
+			return quota;
+		}
+
+		public int getRequestsPerMinute() {
+			return quota.getRequestsPerMinute();
+		}
+
+		/**
+		 * Number of calls made with this client within the current quota window.
+		 *
+		 * @param now current time in milliseconds
+		 * @return calls in the current window
+		 */
+		public int getUsage(long now) {
+			return quota.getUsage(now);
+		}
+	}
+
+	/**
+	 * Requests executed with a credential within the current quota window. As a request
+	 * initializer, it counts every execution of the requests it initializes, retries included. An
+	 * execution first uses up a request reserved by {@link SheetsClientPool#acquire()}, so that a
+	 * call is counted once; a request reserved but never sent is counted until its window ends.
+	 */
+	public static class Quota implements HttpRequestInitializer {
+		private final int requestsPerMinute;
+		private long windowStart;
+		private int usage;
+		/**
+		 * Requests of the usage reserved by calls not executed yet
+		 */
+		private int reserved;
+
+		public Quota(int requestsPerMinute) {
+			this.requestsPerMinute = requestsPerMinute;
+		}
+
+		public int getRequestsPerMinute() {
+			return requestsPerMinute;
+		}
+
+		@Override
+		public void initialize(HttpRequest request) {
+			final HttpExecuteInterceptor interceptor = request.getInterceptor();
+			request.setInterceptor(httpRequest -> {
+				if (interceptor != null) {
+					interceptor.intercept(httpRequest);
+				}
+				record(System.currentTimeMillis());
+			});
+		}
+
+		/**
+		 * Number of requests executed within the current quota window.
+		 *
+		 * @param now current time in milliseconds
+		 */
+		public synchronized int getUsage(long now) {
+			roll(now);
+			return usage;
+		}
+
+		synchronized void record(long now) {
+			roll(now);
+			if (reserved > 0) {
+				reserved--;
+			} else {
+				usage++;
+			}
+		}
+
+		/**
+		 * Counts a request about to be executed, unless the quota of the window is used up.
+		 *
+		 * @return whether the request was counted
+		 */
+		synchronized boolean tryReserve(long now) {
+			roll(now);
+			if (usage >= requestsPerMinute) {
+				return false;
+			}
+			usage++;
+			reserved++;
+			return true;
+		}
+
+		synchronized long millisUntilReset(long now) {
+			roll(now);
+			return windowStart + WINDOW_MILLIS - now;
+		}
+
+		private void roll(long now) {
+			if (now - windowStart >= WINDOW_MILLIS) {
+				windowStart = now;
+				usage = 0;
+				reserved = 0;
+			}
+		}
+	}
+}
@@ -1,34 +1,73 @@
 package com.dj.adapter.reporting.sheets.domain;
 
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
+/**
+ * Ordered list of validators. Validators run in the order they were applied; those applied for
+ * a column only run on that column.
+ */
 public class ValidationPolicy {
 	public static final ValidationPolicy DEFAULT = new ValidationPolicy();
 
-	private final Set<Validator> validators;
+	private final List<Scoped<Validator>> validators;
 
 	public ValidationPolicy() {
 		this(Collections.emptySet());
 	}
 
 	public ValidationPolicy(Set<Validator> applyValidation) {
-		this.validators = applyValidation;
+		this(Scoped.of(null, applyValidation));
 	}
 
-	private static <T> Set<T> setPlusElems(Set<T> initial, T... newElement) {
-		final HashSet<T> copy = new HashSet<>(initial);
-		copy.addAll(Arrays.asList(newElement));
-		return Collections.unmodifiableSet(copy);
+	private ValidationPolicy(List<Scoped<Validator>> validators) {
+		this.validators = validators;
 	}
 
+	/**
+	 * Applies validators to every column, after the ones already applied.
+	 *
+	 * @param applyValidators validators to be applied
+	 * @return a new policy
+	 */
 	public ValidationPolicy applyValidation(Validator... applyValidators) {
-		return new ValidationPolicy(setPlusElems(validators, applyValidators));
+		return new ValidationPolicy(Scoped.plus(validators, null, applyValidators));
 	}
 
+	/**
+	 * Applies validators to a single column, after the ones already applied.
+	 *
+	 * @param column          name of the column
+	 * @param applyValidators validators to be applied
+	 * @return a new policy
+	 */
+	public ValidationPolicy applyValidation(String column, Validator... applyValidators) {
+		return new ValidationPolicy(Scoped.plus(validators, Objects.requireNonNull(column), applyValidators));
+	}
+
+	/**
+	 * Validators applied to every column, in order.
+	 *
+	 * @return unmodifiable set of validators
+	 */
 	public Set<Validator> getValidators() {
-		return validators;
+		final Set<Validator> result = new LinkedHashSet<>();
+		validators.stream()
+		          .filter(scoped -> scoped.column == null)
+		          .forEach(scoped -> result.add(scoped.value));
+		return Collections.unmodifiableSet(result);
+	}
+
+	/**
+	 * Validators that run on a column, in order.
+	 *
+	 * @param column name of the column
+	 * @return list of validators
+	 */
+	public List<Validator> getValidators(String column) {
+		return Scoped.forColumn(validators, column);
 	}
 }
@@ -1,7 +1,31 @@
 package com.dj.adapter.reporting.sheets.domain;
 
+import java.util.Objects;
+
 @FunctionalInterface
 public interface Validator {
+	/**
+	 * Returns a validator that runs the given one and declares it can run on several threads at
+	 * once, e.g. because it is stateless.
+	 *
+	 * @param validator a validator safe to run in parallel
+	 * @return the declared validator
+	 */
+	static Validator threadSafe(Validator validator) {
+		Objects.requireNonNull(validator);
+		return new Validator() {
+			@Override
+			public Object validate(String k, Object v) {
+				return validator.validate(k, v);
+			}
+
+			@Override
+			public boolean isThreadSafe() {
+				return true;
+			}
+		};
+	}
+
 	/**
 	 * Applies this function to the given arguments.
 	 *
@@ -10,4 +34,15 @@ public interface Validator {
 	 * @return the function result
 	 */
 	Object validate(String k, Object v);
+
+	/**
+	 * Whether this validator can run on several threads at once. Validators are not, unless they
+	 * declare it.
+	 *
+	 * @return {@code true} if it is safe to run this validator in parallel
+	 * @see #threadSafe(Validator)
+	 */
+	default boolean isThreadSafe() {
+		return false;
+	}
 }
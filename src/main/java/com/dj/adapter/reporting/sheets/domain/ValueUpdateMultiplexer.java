@@ -0,0 +1,249 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.dj.adapter.reporting.sheets.retry.BisectingBatchRetry;
+import com.dj.adapter.reporting.sheets.retry.RetryExecutor;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers the value updates made to the sheets of a spreadsheet within a short window, and sends
+ * them as a single {@code spreadsheets.values.batchUpdate}, whose results are handed back to each
+ * write.
+ * <p>
+ * A batch is opened by the first write to a spreadsheet, and sent once its window elapses or once
+ * it holds too many ranges or cells, whichever comes first. Writes are sent in the order they were
+ * submitted. Values are entered as if typed by a user, like every write of {@link GoogleSheet}.
+ * <p>
+ * Batches are retried as a whole on transient failures. A batch rejected by the API for its
+ * content, e.g. a cell over the length limit, is split until the writes it was rejected for are
+ * isolated, see {@link BisectingBatchRetry}: only those writes fail, the others are committed. A
+ * write fails once its batch gave up, it is not to be retried again.
+ */
+public class ValueUpdateMultiplexer {
+	public static final long DEFAULT_WINDOW_MILLIS = 10;
+	public static final int DEFAULT_MAX_RANGES = 100;
+	public static final int DEFAULT_MAX_CELLS = 10000;
+
+	private static Logger logger = LoggerFactory.getLogger(ValueUpdateMultiplexer.class);
+
+	private final GoogleSheetsRepository repository;
+	private final BisectingBatchRetry<Write, List<UpdateValuesResponse>> retry;
+	private final ScheduledExecutorService scheduler;
+	private final long windowMillis;
+	private final int maxRanges;
+	private final int maxCells;
+	/**
+	 * Open batch of each spreadsheet, by identifier
+	 */
+	private final Map<String, Batch> batches = new HashMap<>();
+
+	/**
+	 * @param repository   repository the batches are sent through
+	 * @param executor     sends the batches, and retries them on transient failures
+	 * @param scheduler    closes the batches whose window elapsed
+	 * @param windowMillis how long a batch waits for more writes
+	 * @param maxRanges    number of ranges that sends a batch right away
+	 * @param maxCells     number of cells that sends a batch right away
+	 */
+	public ValueUpdateMultiplexer(GoogleSheetsRepository repository,
+	                              RetryExecutor executor,
+	                              ScheduledExecutorService scheduler,
+	                              long windowMillis,
+	                              int maxRanges,
+	                              int maxCells) {
+		if (windowMillis < 0 || maxRanges < 1 || maxCells < 1) {
+			throw new IllegalArgumentException("Batches must have a window and room for at least one cell");
+		}
+		this.repository = Objects.requireNonNull(repository);
+		this.retry = new BisectingBatchRetry<>(executor, ValueUpdateMultiplexer::isRejected);
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.windowMillis = windowMillis;
+		this.maxRanges = maxRanges;
+		this.maxCells = maxCells;
+	}
+
+	/**
+	 * Adds ranges to the open batch of a spreadsheet. The batch is sent right away if it is full,
+	 * otherwise once its window elapses.
+	 *
+	 * @param spreadsheetId identifier of the spreadsheet
+	 * @param data          ranges to be updated and their values
+	 * @param includeValues whether the updated values are to be returned
+	 * @return completes with the responses of the ranges, in order, or with the failure of the write
+	 */
+	public CompletableFuture<List<UpdateValuesResponse>> submit(String spreadsheetId,
+	                                                            List<ValueRange> data,
+	                                                            boolean includeValues) {
+		Objects.requireNonNull(spreadsheetId);
+		final Write write = new Write(data, includeValues);
+		if (data.isEmpty()) {
+			write.future.complete(Collections.emptyList());
+			return write.future;
+		}
+		Batch full = null;
+		synchronized (batches) {
+			Batch batch = batches.get(spreadsheetId);
+			if (batch == null) {
+				batch = new Batch(spreadsheetId);
+				batches.put(spreadsheetId, batch);
+				final Batch opened = batch;
+				scheduler.schedule(() -> flush(opened), windowMillis, TimeUnit.MILLISECONDS);
+			}
+			batch.add(write);
+			if (batch.ranges >= maxRanges || batch.cells >= maxCells) {
+				batches.remove(spreadsheetId);
+				full = batch;
+			}
+		}
+		if (full != null) {
+			send(full);
+		}
+		return write.future;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	public int getMaxRanges() {
+		return maxRanges;
+	}
+
+	public int getMaxCells() {
+		return maxCells;
+	}
+
+	/**
+	 * Number of spreadsheets with a batch waiting to be sent.
+	 */
+	public int getOpenBatches() {
+		synchronized (batches) {
+			return batches.size();
+		}
+	}
+
+	private void flush(Batch batch) {
+		synchronized (batches) {
+			// Already sent if it filled up meanwhile
+			if (!batches.remove(batch.spreadsheetId, batch)) {
+				return;
+			}
+		}
+		send(batch);
+	}
+
+	private void send(Batch batch) {
+		logger.debug("Sending {} writes to spreadsheet {}", batch.writes.size(), batch.spreadsheetId);
+		final List<CompletableFuture<List<UpdateValuesResponse>>> written = retry.execute(batch.writes, writes -> write(batch.spreadsheetId, writes));
+		for (int i = 0; i < written.size(); i++) {
+			final CompletableFuture<List<UpdateValuesResponse>> future = batch.writes.get(i).future;
+			written.get(i)
+			       .whenComplete((responses, throwable) -> {
+				       if (throwable != null) {
+					       future.completeExceptionally(throwable);
+				       } else {
+					       future.complete(responses);
+				       }
+			       });
+		}
+	}
+
+	/**
+	 * Sends writes as one {@code batchUpdate}.
+	 *
+	 * @return the responses of each write
+	 */
+	private List<List<UpdateValuesResponse>> write(String spreadsheetId, List<Write> writes) throws IOException {
+		final List<ValueRange> data = new ArrayList<>();
+		boolean includeValues = false;
+		for (Write write : writes) {
+			data.addAll(write.data);
+			includeValues |= write.includeValues;
+		}
+		final BatchUpdateValuesResponse response = repository.batchUpdate(spreadsheetId,
+		                                                                  new BatchUpdateValuesRequest().setValueInputOption("USER_ENTERED")
+		                                                                                                .setIncludeValuesInResponse(includeValues)
+		                                                                                                .setData(data))
+		                                                     .execute();
+		final List<UpdateValuesResponse> responses = response.getResponses() == null ? Collections.emptyList() : response.getResponses();
+		if (responses.size() < data.size()) {
+			throw new IOException("Batch update of spreadsheet " + spreadsheetId + " returned " + responses.size() + " responses for " + data.size() + " ranges");
+		}
+		final List<List<UpdateValuesResponse>> results = new ArrayList<>(writes.size());
+		int first = 0;
+		for (Write write : writes) {
+			final int end = first + write.data.size();
+			results.add(new ArrayList<>(responses.subList(first, end)));
+			first = end;
+		}
+		return results;
+	}
+
+	/**
+	 * Whether a batch was rejected by the API for its content: a {@code 400 Bad Request}, which
+	 * fails the same way however many times it is retried.
+	 */
+	static boolean isRejected(Throwable throwable) {
+		final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+		                        throwable.getCause() :
+		                        throwable;
+		return cause instanceof HttpResponseException && ((HttpResponseException) cause).getStatusCode() == 400;
+	}
+
+	private static int cellsOf(ValueRange range) {
+		int cells = 0;
+		if (range.getValues() != null) {
+			for (List<Object> row : range.getValues()) {
+				cells += row.size();
+			}
+		}
+		return cells;
+	}
+
+	private static final class Write {
+		private final List<ValueRange> data;
+		private final boolean includeValues;
+		private final CompletableFuture<List<UpdateValuesResponse>> future = new CompletableFuture<>();
+
+		private Write(List<ValueRange> data, boolean includeValues) {
+			this.data = new ArrayList<>(data);
+			this.includeValues = includeValues;
+		}
+	}
+
+	private static final class Batch {
+		private final String spreadsheetId;
+		private final List<Write> writes = new ArrayList<>();
+		private int ranges;
+		private int cells;
+
+		private Batch(String spreadsheetId) {
+			this.spreadsheetId = spreadsheetId;
+		}
+
+		private void add(Write write) {
+			writes.add(write);
+			ranges += write.data.size();
+			for (ValueRange range : write.data) {
+				cells += cellsOf(range);
+			}
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.dj.adapter.reporting.sheets.mapping;
+
+import com.dj.adapter.reporting.sheets.domain.Formatter;
+import com.dj.adapter.reporting.sheets.domain.Formatters;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+
+/**
+ * Converts mapped values into something the Sheets API accepts as a cell value.
+ */
+final class CellValues {
+	private static final Formatter DATE_TIME = Formatters.dateTime("yyyy-MM-dd HH:mm:ss");
+
+	private CellValues() {
+	}
+
+	/**
+	 * Strings, numbers and booleans are kept, so that the API can interpret them. Dates are written
+	 * in a format the sheet parses as a date, {@code null} as an empty cell and anything else as
+	 * its string representation.
+	 *
+	 * @param value mapped value
+	 * @return cell value
+	 */
+	static Object normalize(Object value) {
+		if (value == null) {
+			return "";
+		}
+		if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+			return value;
+		}
+		if (value instanceof LocalDate) {
+			return DateTimeFormatter.ISO_LOCAL_DATE.format((LocalDate) value);
+		}
+		if (value instanceof Date || value instanceof Instant || value instanceof TemporalAccessor) {
+			final Object formatted = DATE_TIME.format(null, value);
+			if (formatted != value) {
+				return formatted;
+			}
+		}
+		if (value instanceof Enum) {
+			return ((Enum<?>) value).name();
+		}
+		return value.toString();
+	}
+}
@@ -0,0 +1,44 @@
+package com.dj.adapter.reporting.sheets.mapping;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link RowMapper} holding one accessor per header column, all of them resolved beforehand.
+ * Every accessor has type {@code (Object)Object}.
+ */
+final class CompiledRowMapper<T> implements RowMapper<T> {
+	private final Class<T> type;
+	private final String[] columns;
+	private final MethodHandle[] accessors;
+
+	CompiledRowMapper(Class<T> type, String[] columns, MethodHandle[] accessors) {
+		this.type = type;
+		this.columns = columns;
+		this.accessors = accessors;
+	}
+
+	@Override
+	public List<Object> toRow(T source) {
+		final Object[] values = new Object[accessors.length];
+		for (int i = 0; i < accessors.length; i++) {
+			final Object value;
+			try {
+				value = accessors[i].invokeExact((Object) source);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException(String.format("Unable to read column '%s' from %s",
+				                                              columns[i], type.getName()), e);
+			}
+			values[i] = CellValues.normalize(value);
+		}
+		return Arrays.asList(values);
+	}
+
+	@Override
+	public String toString() {
+		return "RowMapper[" + type.getName() + " -> " + Arrays.toString(columns) + "]";
+	}
+}
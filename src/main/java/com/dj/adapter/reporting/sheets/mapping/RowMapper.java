@@ -0,0 +1,19 @@
+package com.dj.adapter.reporting.sheets.mapping;
+
+import java.util.List;
+
+/**
+ * Turns an object into the values of a sheet row, in the order of the header columns.
+ *
+ * @param <T> type of the mapped objects
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+	/**
+	 * Returns the values of the row for the given object, one per header column.
+	 *
+	 * @param source object to be mapped
+	 * @return positional values of the row
+	 */
+	List<Object> toRow(T source);
+}
@@ -0,0 +1,212 @@
+package com.dj.adapter.reporting.sheets.mapping;
+
+import com.dj.adapter.reporting.sheets.domain.RowSchema;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Compiles {@link RowMapper}s from a column mapping such as {@code Task ID: taskId}, where every
+ * header column is mapped to a property of the reported objects. Properties are read through a
+ * public getter ({@code getX}, {@code isX} or {@code x()}) or else through the field itself; maps
+ * are read by key. Properties starting with an underscore are meta fields, whose value does not
+ * come from the object, e.g. {@value #CURRENT_DATE}. Every header column must be mapped, a header
+ * with unmapped columns has no mapper.
+ * <p>
+ * Accessors are resolved once per class and header version; mapping a row then only invokes them.
+ */
+public class RowMapperFactory {
+	public static final String CURRENT_DATE = "_current_date";
+
+	private static final MethodType ACCESSOR = MethodType.methodType(Object.class, Object.class);
+	private static final MethodHandle MAP_GET;
+	private static final MethodHandle SUPPLIER_GET;
+
+	static {
+		try {
+			final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			MAP_GET = lookup.findVirtual(Map.class, "get", ACCESSOR);
+			SUPPLIER_GET = lookup.findVirtual(Supplier.class, "get", MethodType.methodType(Object.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final Map<String, String> columns;
+	private final Map<String, Supplier<?>> metaFields;
+	private final Map<Key, RowMapper<?>> mappers = new ConcurrentHashMap<>();
+
+	public RowMapperFactory(Map<String, String> columns) {
+		this(columns, Collections.singletonMap(CURRENT_DATE, LocalDateTime::now));
+	}
+
+	private RowMapperFactory(Map<String, String> columns, Map<String, Supplier<?>> metaFields) {
+		this.columns = Collections.unmodifiableMap(new LinkedHashMap<>(columns));
+		this.metaFields = Collections.unmodifiableMap(metaFields);
+	}
+
+	/**
+	 * Returns a factory that also resolves the given meta field.
+	 *
+	 * @param name  name of the meta field, starting with an underscore
+	 * @param value supplies the value of the field for every row
+	 * @return a new factory
+	 */
+	public RowMapperFactory withMetaField(String name, Supplier<?> value) {
+		if (!name.startsWith("_")) {
+			throw new IllegalArgumentException("Meta field names must start with an underscore: " + name);
+		}
+		final Map<String, Supplier<?>> metaFields = new HashMap<>(this.metaFields);
+		metaFields.put(name, Objects.requireNonNull(value));
+		return new RowMapperFactory(columns, metaFields);
+	}
+
+	public Map<String, String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Returns the columns of a header that have no mapping.
+	 *
+	 * @param schema schema of the header
+	 * @return names of the unmapped columns, in order
+	 */
+	public List<String> getUnmappedColumns(RowSchema schema) {
+		final List<String> unmapped = new ArrayList<>();
+		for (String name : schema.getColumnNames()) {
+			final String property = columns.get(name);
+			if (property == null || property.isEmpty()) {
+				unmapped.add(name);
+			}
+		}
+		return unmapped;
+	}
+
+	/**
+	 * Returns the mapper of the given class for a header, compiling it the first time.
+	 *
+	 * @param type   class of the mapped objects
+	 * @param schema schema of the header
+	 * @return mapper producing rows in the order of the header
+	 * @throws IllegalArgumentException if a header column has no mapping, or if a mapped property
+	 *                                  cannot be read from the class
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> RowMapper<T> getMapper(Class<T> type, RowSchema schema) {
+		return (RowMapper<T>) mappers.computeIfAbsent(new Key(type, schema.getVersion()), key -> compile(type, schema));
+	}
+
+	private <T> RowMapper<T> compile(Class<T> type, RowSchema schema) {
+		final List<String> unmapped = getUnmappedColumns(schema);
+		if (!unmapped.isEmpty()) {
+			throw new IllegalArgumentException(String.format("Columns %s have no mapping, mapped columns are %s",
+			                                                 unmapped, columns.keySet()));
+		}
+		final String[] names = schema.getColumnNames()
+		                             .toArray(new String[0]);
+		final MethodHandle[] accessors = new MethodHandle[names.length];
+		for (int i = 0; i < names.length; i++) {
+			accessors[i] = accessor(type, columns.get(names[i]));
+		}
+		return new CompiledRowMapper<>(type, names, accessors);
+	}
+
+	private MethodHandle accessor(Class<?> type, String property) {
+		if (property.startsWith("_")) {
+			final Supplier<?> value = metaFields.get(property);
+			if (value == null) {
+				throw new IllegalArgumentException("Unknown meta field " + property);
+			}
+			return MethodHandles.dropArguments(SUPPLIER_GET.bindTo(value), 0, Object.class);
+		}
+		if (Map.class.isAssignableFrom(type)) {
+			return MethodHandles.insertArguments(MAP_GET, 1, property)
+			                    .asType(ACCESSOR);
+		}
+		try {
+			final Method getter = findGetter(type, property);
+			if (getter != null) {
+				getter.setAccessible(true);
+				return MethodHandles.lookup()
+				                    .unreflect(getter)
+				                    .asType(ACCESSOR);
+			}
+			final Field field = findField(type, property);
+			if (field != null) {
+				field.setAccessible(true);
+				return MethodHandles.lookup()
+				                    .unreflectGetter(field)
+				                    .asType(ACCESSOR);
+			}
+		} catch (IllegalAccessException | RuntimeException e) {
+			throw new IllegalArgumentException(String.format("Property '%s' of %s cannot be read",
+			                                                 property, type.getName()), e);
+		}
+		throw new IllegalArgumentException(String.format("No property '%s' in %s", property, type.getName()));
+	}
+
+	private static Method findGetter(Class<?> type, String property) {
+		final String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+		for (String name : new String[]{"get" + suffix, "is" + suffix, property}) {
+			try {
+				final Method method = type.getMethod(name);
+				if (!Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class) {
+					return method;
+				}
+			} catch (NoSuchMethodException e) {
+				// try the next naming convention
+			}
+		}
+		return null;
+	}
+
+	private static Field findField(Class<?> type, String property) {
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			try {
+				final Field field = current.getDeclaredField(property);
+				if (!Modifier.isStatic(field.getModifiers())) {
+					return field;
+				}
+			} catch (NoSuchFieldException e) {
+				// look in the superclass
+			}
+		}
+		return null;
+	}
+
+	private static final class Key {
+		private final Class<?> type;
+		private final long version;
+
+		Key(Class<?> type, long version) {
+			this.type = type;
+			this.version = version;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			final Key key = (Key) o;
+			return type == key.type && version == key.version;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + Long.hashCode(version);
+		}
+	}
+}
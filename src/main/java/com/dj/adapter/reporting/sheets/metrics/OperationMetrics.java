@@ -0,0 +1,130 @@
+package com.dj.adapter.reporting.sheets.metrics;
+
+import com.dj.adapter.reporting.sheets.retry.function.RetryCallable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Meters of one operation on one sheet; see {@link SheetsMetrics}.
+ */
+public final class OperationMetrics {
+	private final MeterRegistry registry;
+	private final String spreadsheet;
+	private final String sheet;
+	private final String operation;
+	private final Timer succeeded;
+	private final Timer failed;
+	private final DistributionSummary attempts;
+	private final AtomicInteger active = new AtomicInteger();
+	private final ConcurrentMap<String, Counter> retries = new ConcurrentHashMap<>();
+
+	OperationMetrics(MeterRegistry registry, String spreadsheet, String sheet, String operation) {
+		this.registry = registry;
+		this.spreadsheet = spreadsheet;
+		this.sheet = sheet;
+		this.operation = operation;
+		this.succeeded = timer("success");
+		this.failed = timer("failure");
+		this.attempts = DistributionSummary.builder("sheets.operation.attempts")
+		                                   .description("Attempts per Sheets operation")
+		                                   .tags(tags())
+		                                   .register(registry);
+		Gauge.builder("sheets.operation.active", active, AtomicInteger::get)
+		     .description("Sheets operations in flight")
+		     .tags(tags())
+		     .register(registry);
+	}
+
+	private Timer timer(String outcome) {
+		return Timer.builder("sheets.operation")
+		            .description("Latency of Sheets operations, retries included")
+		            .tags(tags())
+		            .tag("outcome", outcome)
+		            .publishPercentileHistogram()
+		            .register(registry);
+	}
+
+	private String[] tags() {
+		return new String[]{SheetsMetrics.SPREADSHEET, spreadsheet, SheetsMetrics.SHEET, sheet, SheetsMetrics.OPERATION, operation};
+	}
+
+	/**
+	 * Starts timing an execution of the operation.
+	 */
+	public Sample start() {
+		active.incrementAndGet();
+		return new Sample();
+	}
+
+	private void retried(Throwable cause) {
+		retries.computeIfAbsent(SheetsMetrics.cause(cause),
+		                        name -> Counter.builder("sheets.operation.retries")
+		                                       .description("Retries of Sheets operations")
+		                                       .tags(tags())
+		                                       .tag("cause", name)
+		                                       .register(registry))
+		       .increment();
+	}
+
+	/**
+	 * An execution of the operation, stopped once with its outcome.
+	 */
+	public final class Sample {
+		private final long startNanos = System.nanoTime();
+		private final AtomicInteger attemptCount = new AtomicInteger();
+
+		private Sample() {
+		}
+
+		/**
+		 * Wraps a task run by a retry executor, to count its attempts and the causes of its retries.
+		 *
+		 * @param task the task of the operation
+		 * @return the counted task
+		 */
+		public <V> RetryCallable<V> counting(RetryCallable<V> task) {
+			return context -> {
+				attemptCount.incrementAndGet();
+				if (context.getRetryCount() > 0) {
+					retried(context.getLastThrowable());
+				}
+				return task.call(context);
+			};
+		}
+
+		/**
+		 * Stops the sample when the future completes.
+		 *
+		 * @param future result of the operation
+		 * @return the same future
+		 */
+		public <V> CompletableFuture<V> stopOn(CompletableFuture<V> future) {
+			future.whenComplete((result, throwable) -> stop(throwable == null));
+			return future;
+		}
+
+		public void success() {
+			stop(true);
+		}
+
+		public void failure() {
+			stop(false);
+		}
+
+		private void stop(boolean success) {
+			active.decrementAndGet();
+			(success ? succeeded : failed).record(System.nanoTime() - startNanos, NANOSECONDS);
+			attempts.record(Math.max(1, attemptCount.get()));
+		}
+	}
+}
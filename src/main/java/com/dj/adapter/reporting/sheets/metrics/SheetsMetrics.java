@@ -0,0 +1,214 @@
+package com.dj.adapter.reporting.sheets.metrics;
+
+import com.dj.adapter.reporting.sheets.transport.SheetsApiCall;
+import com.dj.adapter.reporting.sheets.utils.A1Notation;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpIOExceptionHandler;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpResponseInterceptor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Micrometer meters of the Sheets operations and API calls, tagged by spreadsheet, sheet and
+ * operation:
+ * <ul>
+ * <li>{@code sheets.operation}: latency of {@code GoogleSheet} operations, retries included, by outcome</li>
+ * <li>{@code sheets.operation.attempts}: attempts per operation</li>
+ * <li>{@code sheets.operation.retries}: retries of operations, by cause</li>
+ * <li>{@code sheets.operation.active}: operations in flight</li>
+ * <li>{@code sheets.api.calls}: latency of every API call made by the repository, by status</li>
+ * <li>{@code sheets.api.calls.active}: API calls in flight</li>
+ * </ul>
+ * Latency timers publish percentile histograms, so percentiles can be aggregated across instances.
+ */
+public class SheetsMetrics implements HttpRequestInitializer {
+	public static final String SPREADSHEET = "spreadsheet";
+	public static final String SHEET = "sheet";
+	public static final String OPERATION = "operation";
+	private static final String NONE = "none";
+	private static final String MULTIPLE = "multiple";
+	private static final String IO_ERROR = "io_error";
+	private static final SheetsMetrics GLOBAL = new SheetsMetrics(Metrics.globalRegistry);
+
+	private final MeterRegistry registry;
+	private final ConcurrentMap<List<String>, OperationMetrics> operations = new ConcurrentHashMap<>();
+	private final ConcurrentMap<List<String>, AtomicInteger> activeCalls = new ConcurrentHashMap<>();
+
+	public SheetsMetrics(MeterRegistry registry) {
+		this.registry = Objects.requireNonNull(registry);
+	}
+
+	/**
+	 * Metrics published to {@code Metrics.globalRegistry}, for repositories not built by a factory.
+	 */
+	public static SheetsMetrics global() {
+		return GLOBAL;
+	}
+
+	public MeterRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * Returns the meters of an operation on a sheet.
+	 *
+	 * @param spreadsheetId identifier of the spreadsheet
+	 * @param sheet         title of the sheet
+	 * @param operation     name of the operation, e.g. {@code appendRow}
+	 * @return the meters, registered on first use
+	 */
+	public OperationMetrics operation(String spreadsheetId, String sheet, String operation) {
+		final List<String> key = Arrays.asList(tagValue(spreadsheetId), tagValue(sheet), operation);
+		final OperationMetrics metrics = operations.get(key);
+		return metrics != null ? metrics : operations.computeIfAbsent(key, k -> new OperationMetrics(registry,
+		                                                                                              k.get(0),
+		                                                                                              k.get(1),
+		                                                                                              k.get(2)));
+	}
+
+	/**
+	 * Times the request once it is executed, until its response or I/O error. The interceptors and
+	 * handlers already set on the request, like the ones of the credential, still run.
+	 *
+	 * @param request a request being initialized
+	 */
+	@Override
+	public void initialize(HttpRequest request) {
+		final ApiCall pending = new ApiCall();
+		final HttpExecuteInterceptor executeInterceptor = request.getInterceptor();
+		request.setInterceptor(httpRequest -> {
+			if (executeInterceptor != null) {
+				executeInterceptor.intercept(httpRequest);
+			}
+			pending.start(httpRequest);
+		});
+		final HttpResponseInterceptor responseInterceptor = request.getResponseInterceptor();
+		request.setResponseInterceptor(response -> {
+			pending.stop(String.valueOf(response.getStatusCode()));
+			if (responseInterceptor != null) {
+				responseInterceptor.interceptResponse(response);
+			}
+		});
+		final HttpIOExceptionHandler ioExceptionHandler = request.getIOExceptionHandler();
+		request.setIOExceptionHandler((httpRequest, supportsRetry) -> {
+			pending.stop(IO_ERROR);
+			return ioExceptionHandler != null && ioExceptionHandler.handleIOException(httpRequest, supportsRetry);
+		});
+	}
+
+	/**
+	 * Names the cause of a failure for the {@code cause} tag: the HTTP status code of error
+	 * responses, otherwise the simple name of the exception class.
+	 */
+	static String cause(Throwable throwable) {
+		Throwable cause = throwable;
+		while ((cause instanceof CompletionException || cause instanceof ExecutionException
+				|| cause instanceof UncheckedIOException) && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		if (cause == null) {
+			return NONE;
+		}
+		if (cause instanceof HttpResponseException) {
+			return String.valueOf(((HttpResponseException) cause).getStatusCode());
+		}
+		return cause.getClass()
+		            .getSimpleName();
+	}
+
+	private static String tagValue(String value) {
+		return value == null ? NONE : value;
+	}
+
+	/**
+	 * Sheet of the ranges of a call, {@code multiple} if they are on different sheets.
+	 */
+	private static String sheetOf(SheetsApiCall call, GenericUrl url) {
+		String sheet = call.getRange() == null ? null : sheetName(call.getRange());
+		for (Object range : url.getAll("ranges")) {
+			final String rangeSheet = sheetName(String.valueOf(range));
+			if (sheet == null) {
+				sheet = rangeSheet;
+			} else if (!sheet.equals(rangeSheet)) {
+				return MULTIPLE;
+			}
+		}
+		return tagValue(sheet);
+	}
+
+	private static String sheetName(String range) {
+		try {
+			return A1Notation.parse(range)
+			                 .getSheetName();
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * An API call in flight. Requests are executed again on retries, so it is started every time
+	 * and stopped at most once per start.
+	 */
+	private final class ApiCall {
+		private SheetsApiCall call;
+		private String sheet;
+		private AtomicInteger active;
+		private long startNanos;
+		private boolean started;
+
+		private synchronized void start(HttpRequest request) {
+			final GenericUrl url = request.getUrl();
+			call = SheetsApiCall.of(request.getRequestMethod(), url);
+			sheet = sheetOf(call, url);
+			final List<String> key = Arrays.asList(tagValue(call.getSpreadsheetId()), sheet, call.getMethod()
+			                                                                                      .getName());
+			active = activeCalls.computeIfAbsent(key, k -> {
+				final AtomicInteger gauge = new AtomicInteger();
+				Gauge.builder("sheets.api.calls.active", gauge, AtomicInteger::get)
+				     .description("Sheets API calls in flight")
+				     .tags(SPREADSHEET, k.get(0), SHEET, k.get(1), OPERATION, k.get(2))
+				     .register(registry);
+				return gauge;
+			});
+			active.incrementAndGet();
+			started = true;
+			startNanos = System.nanoTime();
+		}
+
+		private synchronized void stop(String status) {
+			if (!started) {
+				return;
+			}
+			started = false;
+			active.decrementAndGet();
+			Timer.builder("sheets.api.calls")
+			     .description("Latency of Sheets API calls")
+			     .tags(SPREADSHEET, tagValue(call.getSpreadsheetId()),
+			           SHEET, sheet,
+			           OPERATION, call.getMethod()
+			                          .getName(),
+			           "status", status)
+			     .publishPercentileHistogram()
+			     .register(registry)
+			     .record(System.nanoTime() - startNanos, NANOSECONDS);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.dj.adapter.reporting.sheets.retry;
+
+import com.dj.adapter.reporting.sheets.retry.function.BatchCallable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Sends batches of items through a {@link RetryExecutor}, completing a future per item.
+ * <p>
+ * Failures of a batch are told apart by a predicate: a transient failure, e.g. a timeout or a
+ * quota error, is handled by the executor, which retries the batch as a whole; a rejection, e.g. a
+ * {@code 400 Bad Request} caused by one bad item, is never retried as is. The rejected batch is
+ * split in two halves, sent one after the other so that items keep their order, until the items it
+ * was rejected for are isolated: only their futures fail, with the rejection, and every other item
+ * is committed. Isolating {@code k} bad items among {@code n} takes about {@code 2k log2(n)} more
+ * batches.
+ *
+ * @param <I> type of the items
+ * @param <R> type of the result of an item
+ */
+public class BisectingBatchRetry<I, R> {
+	private static final Logger log = LoggerFactory.getLogger(BisectingBatchRetry.class);
+
+	private final RetryExecutor executor;
+	private final Predicate<Throwable> rejection;
+
+	/**
+	 * @param executor  sends the batches, and retries them on transient failures
+	 * @param rejection whether a failure of a batch is caused by its content
+	 */
+	public BisectingBatchRetry(RetryExecutor executor, Predicate<Throwable> rejection) {
+		this.executor = Objects.requireNonNull(executor);
+		this.rejection = Objects.requireNonNull(rejection);
+	}
+
+	/**
+	 * Sends a batch of items, and the halves of the batch if it is rejected.
+	 *
+	 * @param items items of the batch, in order
+	 * @param batch sends a batch; a rejection must be thrown before any item is committed
+	 * @return one future per item, in the same order, completed with its result or with the
+	 * failure of the smallest batch that contained it
+	 */
+	public List<CompletableFuture<R>> execute(List<I> items, BatchCallable<I, R> batch) {
+		final List<I> copy = new ArrayList<>(items);
+		final List<CompletableFuture<R>> futures = new ArrayList<>(copy.size());
+		for (int i = 0; i < copy.size(); i++) {
+			futures.add(new CompletableFuture<>());
+		}
+		if (!copy.isEmpty()) {
+			send(copy, futures, batch);
+		}
+		return futures;
+	}
+
+	/**
+	 * @return completes once every item of the batch is settled
+	 */
+	private CompletableFuture<Void> send(List<I> items, List<CompletableFuture<R>> futures, BatchCallable<I, R> batch) {
+		final CompletableFuture<Attempt<R>> attempt = executor.getWithRetry(ctx -> {
+			try {
+				return new Attempt<>(batch.call(items), null);
+			} catch (Exception e) {
+				if (rejection.test(e)) {
+					// Returned rather than thrown, so that the executor does not retry it
+					return new Attempt<>(null, e);
+				}
+				throw e;
+			}
+		});
+		return attempt.handle((sent, throwable) -> {
+			if (throwable != null) {
+				futures.forEach(future -> future.completeExceptionally(throwable));
+				return CompletableFuture.<Void>completedFuture(null);
+			}
+			if (sent.rejection == null) {
+				complete(futures, sent.results);
+				return CompletableFuture.<Void>completedFuture(null);
+			}
+			if (items.size() == 1) {
+				log.debug("Item rejected: {}", sent.rejection.toString());
+				futures.get(0)
+				       .completeExceptionally(sent.rejection);
+				return CompletableFuture.<Void>completedFuture(null);
+			}
+			final int half = items.size() / 2;
+			log.debug("Batch of {} items rejected, splitting it: {}", items.size(), sent.rejection.toString());
+			return send(items.subList(0, half), futures.subList(0, half), batch)
+					.thenCompose(first -> send(items.subList(half, items.size()), futures.subList(half, futures.size()), batch));
+		})
+		              .thenCompose(settled -> settled);
+	}
+
+	private static <R> void complete(List<CompletableFuture<R>> futures, List<R> results) {
+		if (results == null || results.size() != futures.size()) {
+			final IllegalStateException mismatch = new IllegalStateException("Batch of " + futures.size() + " items returned " + (results == null ? 0 : results.size()) + " results");
+			futures.forEach(future -> future.completeExceptionally(mismatch));
+			return;
+		}
+		for (int i = 0; i < futures.size(); i++) {
+			futures.get(i)
+			       .complete(results.get(i));
+		}
+	}
+
+	private static final class Attempt<R> {
+		private final List<R> results;
+		private final Exception rejection;
+
+		private Attempt(List<R> results, Exception rejection) {
+			this.results = results;
+			this.rejection = rejection;
+		}
+	}
+}
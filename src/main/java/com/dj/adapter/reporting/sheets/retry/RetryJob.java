@@ -28,7 +28,9 @@ public abstract class RetryJob<V> implements Runnable {
 
 	protected void handleManualAbort(AbortRetryException abortEx) {
 		logAbort(context);
-		if (context.getLastThrowable() != null) {
+		if (abortEx.getCause() != null) {
+			future.completeExceptionally(abortEx.getCause());
+		} else if (context.getLastThrowable() != null) {
 			future.completeExceptionally(context.getLastThrowable());
 		} else {
 			future.completeExceptionally(abortEx);
@@ -0,0 +1,137 @@
+package com.dj.adapter.reporting.sheets.retry;
+
+import com.dj.adapter.reporting.sheets.retry.function.RetryCallable;
+import com.dj.adapter.reporting.sheets.retry.function.RetryRunnable;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * {@link RetryExecutor} that limits how many tasks of a delegate executor run at the same time and
+ * how often they are started, without blocking any thread: tasks over the limits wait in a queue
+ * and are started, in order, as running tasks complete or the rate allows it.
+ * <p>
+ * Limits apply to tasks, not to attempts: retries of a started task are handled by the delegate.
+ */
+public class ThrottledRetryExecutor implements RetryExecutor {
+
+	private final RetryExecutor delegate;
+	private final ScheduledExecutorService scheduler;
+	private final Semaphore permits;
+	private final long intervalNanos;
+	private final AtomicLong nextStart = new AtomicLong(System.nanoTime());
+	private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * @param delegate          executor running the tasks
+	 * @param scheduler         scheduler used to delay tasks over the rate
+	 * @param maxConcurrency    maximum number of tasks running at the same time, unlimited if not positive
+	 * @param requestsPerSecond maximum number of tasks started per second, unlimited if not positive
+	 */
+	public ThrottledRetryExecutor(RetryExecutor delegate, ScheduledExecutorService scheduler,
+	                              int maxConcurrency, double requestsPerSecond) {
+		this.delegate = Objects.requireNonNull(delegate);
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.permits = new Semaphore(maxConcurrency > 0 ? maxConcurrency : Integer.MAX_VALUE);
+		this.intervalNanos = requestsPerSecond > 0 ? (long) (1_000_000_000L / requestsPerSecond) : 0;
+	}
+
+	@Override
+	public CompletableFuture<Void> doWithRetry(RetryRunnable action) {
+		return submit(() -> delegate.doWithRetry(action));
+	}
+
+	@Override
+	public <V> CompletableFuture<V> getWithRetry(Callable<V> task) {
+		return submit(() -> delegate.getWithRetry(task));
+	}
+
+	@Override
+	public <V> CompletableFuture<V> getWithRetry(RetryCallable<V> task) {
+		return submit(() -> delegate.getWithRetry(task));
+	}
+
+	@Override
+	public <V> CompletableFuture<V> getFutureWithRetry(RetryCallable<CompletableFuture<V>> task) {
+		return submit(() -> delegate.getFutureWithRetry(task));
+	}
+
+	private <V> CompletableFuture<V> submit(Supplier<CompletableFuture<V>> task) {
+		final CompletableFuture<V> result = new CompletableFuture<>();
+		waiting.add(() -> start(task, result));
+		drain();
+		return result;
+	}
+
+	private <V> void start(Supplier<CompletableFuture<V>> task, CompletableFuture<V> result) {
+		final CompletableFuture<V> running;
+		try {
+			running = task.get();
+		} catch (Throwable t) {
+			permits.release();
+			result.completeExceptionally(t);
+			drain();
+			return;
+		}
+		running.whenComplete((value, throwable) -> {
+			permits.release();
+			if (throwable != null) {
+				result.completeExceptionally(throwable);
+			} else {
+				result.complete(value);
+			}
+			drain();
+		});
+	}
+
+	/**
+	 * Starts waiting tasks while there are permits left.
+	 */
+	private void drain() {
+		while (!waiting.isEmpty() && permits.tryAcquire()) {
+			final Runnable next = waiting.poll();
+			if (next == null) {
+				permits.release();
+				return;
+			}
+			final long delay = reserveStart();
+			if (delay > 0) {
+				scheduler.schedule(next, delay, NANOSECONDS);
+			} else {
+				next.run();
+			}
+		}
+	}
+
+	/**
+	 * Reserves the next start time allowed by the rate.
+	 *
+	 * @return nanoseconds to wait before starting
+	 */
+	private long reserveStart() {
+		if (intervalNanos == 0) {
+			return 0;
+		}
+		while (true) {
+			final long now = System.nanoTime();
+			final long next = nextStart.get();
+			final long start = Math.max(next, now);
+			if (nextStart.compareAndSet(next, start + intervalNanos)) {
+				return start - now;
+			}
+		}
+	}
+
+	public RetryExecutor getDelegate() {
+		return delegate;
+	}
+}
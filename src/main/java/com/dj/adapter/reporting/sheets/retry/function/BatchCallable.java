@@ -0,0 +1,16 @@
+package com.dj.adapter.reporting.sheets.retry.function;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface BatchCallable<I, R> {
+
+	/**
+	 * Sends a batch of items.
+	 *
+	 * @param items items of the batch, in order
+	 * @return one result per item, in the same order
+	 */
+	List<R> call(List<I> items) throws Exception;
+
+}
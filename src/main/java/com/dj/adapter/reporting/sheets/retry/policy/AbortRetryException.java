@@ -5,4 +5,11 @@ public class AbortRetryException extends RuntimeException {
 	public AbortRetryException() {
 	}
 
+	/**
+	 * @param cause failure the task is to complete with, without being retried
+	 */
+	public AbortRetryException(Throwable cause) {
+		super(cause);
+	}
+
 }
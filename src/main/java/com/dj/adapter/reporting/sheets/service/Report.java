@@ -0,0 +1,144 @@
+package com.dj.adapter.reporting.sheets.service;
+
+import com.dj.adapter.reporting.sheets.configuration.reports.ReportDefinition;
+import com.dj.adapter.reporting.sheets.domain.GoogleSheet;
+import com.dj.adapter.reporting.sheets.domain.RowSchema;
+import com.dj.adapter.reporting.sheets.mapping.RowMapper;
+import com.dj.adapter.reporting.sheets.mapping.RowMapperFactory;
+import com.google.api.services.sheets.v4.model.ValueRange;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A report sheet registered in {@link ReportRegistry}, together with its definition.
+ */
+public class Report {
+	private final String name;
+	private final ReportDefinition definition;
+	private final GoogleSheet sheet;
+	private final RowMapperFactory mappers;
+
+	public Report(String name, ReportDefinition definition, GoogleSheet sheet) {
+		this.name = name;
+		this.definition = Objects.requireNonNull(definition);
+		this.sheet = Objects.requireNonNull(sheet);
+		this.mappers = new RowMapperFactory(definition.getColumns());
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public ReportDefinition getDefinition() {
+		return definition;
+	}
+
+	public GoogleSheet getSheet() {
+		return sheet;
+	}
+
+	/**
+	 * Columns of the sheet header and the fields of the reported objects holding their values.
+	 *
+	 * @return column mapping of this report
+	 */
+	public Map<String, String> getColumns() {
+		return definition.getColumns();
+	}
+
+	/**
+	 * Columns that uniquely establish the identity of a row.
+	 *
+	 * @return key columns of this report
+	 */
+	public List<String> getKeyColumns() {
+		return definition.getKeyColumns();
+	}
+
+	/**
+	 * Checks that every column of the sheet header is mapped to a property, reading the header if
+	 * needed. Reports without column mapping are not checked.
+	 *
+	 * @throws IllegalStateException if some header columns have no mapping
+	 */
+	public void checkHeader() throws IOException {
+		if (getColumns().isEmpty()) {
+			return;
+		}
+		final List<String> unmapped = mappers.getUnmappedColumns(sheet.getRowSchema());
+		if (!unmapped.isEmpty()) {
+			throw new IllegalStateException(String.format("Columns %s of report %s have no mapping, mapped columns are %s",
+			                                              unmapped, name, getColumns().keySet()));
+		}
+	}
+
+	/**
+	 * Updates the row with the same key columns, or appends it if there is none. Reports without
+	 * key columns always append.
+	 *
+	 * @param row columns and their values
+	 * @return saved values
+	 */
+	public CompletableFuture<ValueRange> save(Map<String, Object> row) throws IOException {
+		if (getKeyColumns().isEmpty()) {
+			return sheet.appendRow(row);
+		}
+		return sheet.saveRow(row, getKeyColumns());
+	}
+
+	/**
+	 * Appends a row at the end of the report.
+	 *
+	 * @param row columns and their values
+	 * @return appended values
+	 */
+	public CompletableFuture<ValueRange> append(Map<String, Object> row) throws IOException {
+		return sheet.appendRow(row);
+	}
+
+	/**
+	 * Updates the row with the same key columns as the given object, or appends it if there is
+	 * none. The object is mapped to the row through the columns of this report.
+	 *
+	 * @param source object to be reported
+	 * @return saved values
+	 */
+	public CompletableFuture<ValueRange> saveObject(Object source) throws IOException {
+		final RowSchema schema = sheet.getRowSchema();
+		final List<Object> rowValues = mapperFor(source, schema).toRow(source);
+		if (getKeyColumns().isEmpty()) {
+			return sheet.appendRow(rowValues);
+		}
+		final Map<String, Object> searchCriteria = new HashMap<>();
+		for (String keyColumn : getKeyColumns()) {
+			final int position = schema.indexOf(keyColumn);
+			if (position < 0) {
+				throw new IllegalArgumentException(String.format("Key column '%s' not found in report %s",
+				                                                 keyColumn, name));
+			}
+			searchCriteria.put(keyColumn, rowValues.get(position));
+		}
+		return sheet.saveRow(rowValues, searchCriteria);
+	}
+
+	/**
+	 * Appends a row for the given object at the end of the report. The object is mapped to the
+	 * row through the columns of this report.
+	 *
+	 * @param source object to be reported
+	 * @return appended values
+	 */
+	public CompletableFuture<ValueRange> appendObject(Object source) throws IOException {
+		return sheet.appendRow(mapperFor(source, sheet.getRowSchema()).toRow(source));
+	}
+
+	@SuppressWarnings("unchecked")
+	private RowMapper<Object> mapperFor(Object source, RowSchema schema) {
+		return (RowMapper<Object>) mappers.getMapper(Objects.requireNonNull(source).getClass(), schema);
+	}
+}
@@ -0,0 +1,167 @@
+package com.dj.adapter.reporting.sheets.service;
+
+import com.dj.adapter.reporting.sheets.concurrent.WriteDispatcher;
+import com.dj.adapter.reporting.sheets.configuration.reports.ReportDefinition;
+import com.dj.adapter.reporting.sheets.domain.GoogleSheet;
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepository;
+import com.dj.adapter.reporting.sheets.domain.GoogleSpreadsheet;
+import com.dj.adapter.reporting.sheets.retry.RetryExecutor;
+import com.dj.adapter.reporting.sheets.retry.ThrottledRetryExecutor;
+import com.google.api.services.sheets.v4.model.GridRange;
+import com.google.api.services.sheets.v4.model.Sheet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Holds every configured report. All of them share the same repository, write dispatcher and
+ * spreadsheet metadata: each spreadsheet is kept once fetched, no matter how many reports write to its
+ * sheets. Sheets are resolved lazily, so building the registry never goes to the network.
+ * <p>
+ * The writes of every report go through the lane of its spreadsheet or sheet, so they keep their
+ * order while reports of other spreadsheets write concurrently.
+ */
+public class ReportRegistry {
+	private static Logger logger = LoggerFactory.getLogger(ReportRegistry.class);
+
+	private final GoogleSheetsRepository repository;
+	private final WriteDispatcher dispatcher;
+	private final ScheduledExecutorService scheduler;
+	private final Executor upsertExecutor;
+	private final Map<String, GoogleSpreadsheet> spreadsheets = new ConcurrentHashMap<>();
+	private final Map<String, Report> reports;
+
+	/**
+	 * Builds a registry whose reports write through lanes per spreadsheet over an executor.
+	 */
+	public ReportRegistry(GoogleSheetsRepository repository,
+	                      RetryExecutor executor,
+	                      ScheduledExecutorService scheduler,
+	                      Executor upsertExecutor,
+	                      Map<String, ReportDefinition> definitions) {
+		this(repository, new WriteDispatcher(executor, WriteDispatcher.LaneScope.SPREADSHEET), scheduler, upsertExecutor, definitions);
+	}
+
+	/**
+	 * Builds a registry whose reports write through the lanes of a dispatcher.
+	 *
+	 * @param upsertExecutor bounded executor looking rows up for the queued upserts of every report
+	 */
+	public ReportRegistry(GoogleSheetsRepository repository,
+	                      WriteDispatcher dispatcher,
+	                      ScheduledExecutorService scheduler,
+	                      Executor upsertExecutor,
+	                      Map<String, ReportDefinition> definitions) {
+		this.repository = Objects.requireNonNull(repository);
+		this.dispatcher = Objects.requireNonNull(dispatcher);
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.upsertExecutor = Objects.requireNonNull(upsertExecutor);
+		final Map<String, Report> reports = new LinkedHashMap<>();
+		definitions.forEach((name, definition) -> reports.put(name, newReport(name, definition)));
+		this.reports = Collections.unmodifiableMap(reports);
+		logger.debug("Registered reports: {}", reports.keySet());
+	}
+
+	private Report newReport(String name, ReportDefinition definition) {
+		Objects.requireNonNull(definition.getSpreadsheetId(), "Missing spreadsheet identifier of report " + name);
+		Objects.requireNonNull(definition.getSheetName(), "Missing sheet name of report " + name);
+		if (!definition.getColumns()
+		               .isEmpty()) {
+			for (String keyColumn : definition.getKeyColumns()) {
+				if (!definition.getColumns()
+				               .containsKey(keyColumn)) {
+					throw new IllegalArgumentException(String.format("Key column '%s' of report %s has no mapping, mapped columns are %s",
+					                                                 keyColumn, name, definition.getColumns()
+					                                                                            .keySet()));
+				}
+			}
+		}
+		final ReportDefinition.HeaderOffset offset = definition.getHeaderOffset();
+		final GridRange headerOffset = new GridRange().setStartRowIndex(offset.getStartRowIndex())
+		                                              .setEndRowIndex(offset.getEndRowIndex())
+		                                              .setStartColumnIndex(offset.getStartColumnIndex())
+		                                              .setEndColumnIndex(offset.getEndColumnIndex());
+		final GoogleSheet sheet = new GoogleSheet(definition.getSpreadsheetId(),
+		                                          definition.getSheetName(),
+		                                          () -> resolveSheet(definition.getSpreadsheetId(),
+		                                                             definition.getSheetName()),
+		                                          repository).setHeaderOffset(headerOffset)
+		                                                     .setRowGapThreshold(definition.getRowGapThreshold())
+		                                                     .setFullReadMaxCells(definition.getFullReadMaxCells())
+		                                                     .setUpdateMode(definition.getUpdateMode())
+		                                                     .setEchoUpdates(definition.isEchoUpdates())
+		                                                     .setAppendMode(definition.getAppendMode())
+		                                                     .setAppendChunkRows(definition.getAppendChunkRows())
+		                                                     .setExecutor(executorFor(definition))
+		                                                     .setUpsertExecutor(upsertExecutor);
+		return new Report(name, definition, sheet);
+	}
+
+	private RetryExecutor executorFor(ReportDefinition definition) {
+		final RetryExecutor lane = dispatcher.lane(definition.getSpreadsheetId(), definition.getSheetName());
+		if (definition.getMaxConcurrency() <= 0 && definition.getRequestsPerSecond() <= 0) {
+			return lane;
+		}
+		return new ThrottledRetryExecutor(lane,
+		                                  scheduler,
+		                                  definition.getMaxConcurrency(),
+		                                  definition.getRequestsPerSecond());
+	}
+
+	private Sheet resolveSheet(String spreadsheetId, String sheetName) throws IOException {
+		return spreadsheet(spreadsheetId).findSheetByName(sheetName)
+		                                 .orElseThrow(() -> new NoSuchElementException(
+				                                 String.format("Sheet '%s' not found in spreadsheet %s", sheetName, spreadsheetId)));
+	}
+
+	/**
+	 * Metadata of a spreadsheet, fetched on first use. It is fetched outside of the map, so that
+	 * the round trip holds no other spreadsheet; sheets of a spreadsheet first used concurrently
+	 * may fetch it more than once, and all keep the first one stored.
+	 */
+	private GoogleSpreadsheet spreadsheet(String spreadsheetId) throws IOException {
+		final GoogleSpreadsheet known = spreadsheets.get(spreadsheetId);
+		if (known != null) {
+			return known;
+		}
+		final GoogleSpreadsheet fetched = repository.getSpreadSheetById(spreadsheetId);
+		final GoogleSpreadsheet stored = spreadsheets.putIfAbsent(spreadsheetId, fetched);
+		return stored != null ? stored : fetched;
+	}
+
+	/**
+	 * Returns the report registered with the given name, if any.
+	 *
+	 * @param name name of the report
+	 * @return the report or {@code empty()}
+	 */
+	public Optional<Report> find(String name) {
+		return Optional.ofNullable(reports.get(name));
+	}
+
+	/**
+	 * Returns the report registered with the given name.
+	 *
+	 * @param name name of the report
+	 * @return the report
+	 * @throws NoSuchElementException if there is no report with that name
+	 */
+	public Report get(String name) {
+		return find(name).orElseThrow(() -> new NoSuchElementException("No report named " + name));
+	}
+
+	public Collection<Report> getReports() {
+		return reports.values();
+	}
+}
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.NoSuchElementException;
 
 @Service
 public class SheetsReportingService {
@@ -27,4 +28,23 @@ public class SheetsReportingService {
 		return repository.getSpreadSheetById(spreadSheetId)
 		                 .getSheetByName(sheetName);
 	}
+
+	/**
+	 * Returns a handle to a sheet without going to the network; its metadata is fetched the first
+	 * time it is needed.
+	 *
+	 * @param spreadSheetId identifier of the spreadsheet
+	 * @param sheetName     the name of the sheet
+	 * @return a lazily resolved {@code GoogleSheet}
+	 */
+	public GoogleSheet getLazySheetByName(String spreadSheetId, String sheetName) {
+		return new GoogleSheet(spreadSheetId,
+		                       sheetName,
+		                       () -> repository.getSpreadSheetById(spreadSheetId)
+		                                       .findSheetByName(sheetName)
+		                                       .orElseThrow(() -> new NoSuchElementException(
+				                                       String.format("Sheet '%s' not found in spreadsheet %s",
+				                                                     sheetName, spreadSheetId))),
+		                       repository);
+	}
 }
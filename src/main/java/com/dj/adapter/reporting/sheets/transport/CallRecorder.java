@@ -0,0 +1,182 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponseInterceptor;
+import com.google.api.client.http.json.JsonHttpContent;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesRequest;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every Sheets API call made by the clients it is attached to, with its timing, ranges and
+ * payload sizes, as a trace that can be replayed later against a stand-in of the API.
+ * <p>
+ * Calls are timed from the execute interceptor to the response interceptor, so requests failing
+ * before any response arrives, like timeouts, are not recorded.
+ */
+public class CallRecorder implements HttpRequestInitializer, Closeable {
+	private static Logger logger = LoggerFactory.getLogger(CallRecorder.class);
+
+	private final Writer writer;
+	private final long startNanos = System.nanoTime();
+	private boolean closed;
+
+	public CallRecorder(Writer writer) throws IOException {
+		this.writer = writer;
+		writer.write(TracedCall.HEADER);
+		writer.write('\n');
+	}
+
+	/**
+	 * Creates a recorder writing to a file, replacing it if it exists.
+	 *
+	 * @param file the trace file
+	 * @return the recorder
+	 */
+	public static CallRecorder toFile(Path file) throws IOException {
+		logger.info("Recording Sheets API calls to {}", file);
+		return new CallRecorder(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Records the request once it is executed. The interceptors already set on the request, like
+	 * the one of the credential, still run first.
+	 *
+	 * @param request a request being initialized
+	 */
+	@Override
+	public void initialize(HttpRequest request) {
+		final PendingCall pending = new PendingCall();
+		final HttpExecuteInterceptor executeInterceptor = request.getInterceptor();
+		request.setInterceptor(httpRequest -> {
+			if (executeInterceptor != null) {
+				executeInterceptor.intercept(httpRequest);
+			}
+			pending.start(httpRequest);
+		});
+		final HttpResponseInterceptor responseInterceptor = request.getResponseInterceptor();
+		request.setResponseInterceptor(response -> {
+			final long durationNanos = System.nanoTime() - pending.startNanos;
+			final Long contentLength = response.getHeaders()
+			                                   .getContentLength();
+			record(pending.toCall(response.getStatusCode(), durationNanos,
+			                      contentLength == null ? -1 : contentLength));
+			if (responseInterceptor != null) {
+				responseInterceptor.interceptResponse(response);
+			}
+		});
+	}
+
+	private synchronized void record(TracedCall call) {
+		if (closed) {
+			return;
+		}
+		try {
+			writer.write(call.toLine());
+			writer.write('\n');
+		} catch (IOException e) {
+			logger.warn("Unable to record {}, recording stopped", call, e);
+			closed = true;
+		}
+	}
+
+	public synchronized void flush() throws IOException {
+		if (!closed) {
+			writer.flush();
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			writer.close();
+		}
+	}
+
+	/**
+	 * What is known about a call before its response arrives. Requests are executed again on
+	 * retries, so it is started again every time.
+	 */
+	private final class PendingCall {
+		private volatile long startNanos;
+		private SheetsApiCall call;
+		private List<String> ranges;
+		private int rows;
+		private int cells;
+		private CountingContent counting;
+		private long requestBytes;
+
+		private void start(HttpRequest request) throws IOException {
+			final GenericUrl url = request.getUrl();
+			call = SheetsApiCall.of(request.getRequestMethod(), url);
+			ranges = new ArrayList<>();
+			rows = 0;
+			cells = 0;
+			if (call.getRange() != null) {
+				ranges.add(call.getRange());
+			}
+			for (Object range : url.getAll("ranges")) {
+				ranges.add(String.valueOf(range));
+			}
+			// Counted as the body is written, as serializing it for its length would do it twice
+			counting = CountingContent.install(request);
+			final HttpContent content = request.getContent();
+			requestBytes = counting != null || content == null ? 0 : content.getLength();
+			if (content instanceof JsonHttpContent) {
+				count(((JsonHttpContent) content).getData());
+			}
+			startNanos = System.nanoTime();
+		}
+
+		private void count(Object data) {
+			if (data instanceof ValueRange) {
+				count(((ValueRange) data).getValues());
+			} else if (data instanceof BatchUpdateValuesRequest) {
+				final List<ValueRange> updates = ((BatchUpdateValuesRequest) data).getData();
+				for (ValueRange update : updates == null ? Collections.<ValueRange>emptyList() : updates) {
+					ranges.add(update.getRange());
+					count(update.getValues());
+				}
+			}
+		}
+
+		private void count(List<List<Object>> values) {
+			if (values != null) {
+				rows += values.size();
+				for (List<Object> row : values) {
+					cells += row.size();
+				}
+			}
+		}
+
+		private TracedCall toCall(int statusCode, long durationNanos, long responseBytes) {
+			return new TracedCall(TimeUnit.NANOSECONDS.toMillis(startNanos - CallRecorder.this.startNanos),
+			                      call.getMethod(),
+			                      call.getSpreadsheetId(),
+			                      ranges,
+			                      rows,
+			                      cells,
+			                      counting == null ? requestBytes : counting.getWritten(),
+			                      statusCode,
+			                      TimeUnit.NANOSECONDS.toMicros(durationNanos),
+			                      responseBytes);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.json.JsonHttpContent;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JSON content counting the bytes of its last serialization, so that the size of a request is
+ * known without serializing it once more. It stays a {@link JsonHttpContent}, so that other
+ * observers can still read its data.
+ */
+final class CountingContent extends JsonHttpContent {
+	private volatile long written;
+
+	private CountingContent(JsonHttpContent content) {
+		super(content.getJsonFactory(), content.getData());
+		setWrapperKey(content.getWrapperKey());
+		setMediaType(content.getMediaType());
+	}
+
+	/**
+	 * Makes the JSON content of a request count its bytes, unless it already does. Observers
+	 * installing it from their execute interceptor share the same count.
+	 *
+	 * @param request a request being executed
+	 * @return the counting content, or {@code null} if the request has no JSON content
+	 */
+	static CountingContent install(HttpRequest request) {
+		final HttpContent content = request.getContent();
+		if (content instanceof CountingContent) {
+			return (CountingContent) content;
+		}
+		if (content == null || content.getClass() != JsonHttpContent.class) {
+			return null;
+		}
+		final CountingContent counting = new CountingContent((JsonHttpContent) content);
+		request.setContent(counting);
+		return counting;
+	}
+
+	/**
+	 * Returns the number of bytes written by the last serialization.
+	 */
+	long getWritten() {
+		return written;
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		final long[] count = new long[1];
+		super.writeTo(new FilterOutputStream(out) {
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				count[0]++;
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				count[0] += len;
+			}
+		});
+		written = count[0];
+	}
+}
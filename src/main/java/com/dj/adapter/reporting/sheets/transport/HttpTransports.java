@@ -0,0 +1,77 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import com.google.api.client.googleapis.GoogleUtils;
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.ssl.SSLContexts;
+
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+public final class HttpTransports {
+
+	private HttpTransports() {
+	}
+
+	/**
+	 * Creates a new transport trusting Google certificates, as configured by the given settings.
+	 *
+	 * @param settings transport settings
+	 * @return a transport that can be shared by every client of the application
+	 */
+	public static HttpTransport newTrustedTransport(TransportSettings settings) throws IOException, GeneralSecurityException {
+		if (settings.getType() == TransportSettings.Type.NET_HTTP) {
+			return GoogleNetHttpTransport.newTrustedTransport();
+		}
+		return new ApacheHttpTransport(newHttpClient(settings));
+	}
+
+	/**
+	 * Builds the client the way {@code ApacheHttpTransport.newDefaultHttpClient()} does, with a
+	 * pooled connection manager: the transport of google-http-client 1.23 reads the parameters of
+	 * the client, which clients built by {@code HttpClientBuilder} do not support. Gzip is handled
+	 * by the Google client, not by Apache, so that the content codec is applied once. The legacy
+	 * types are named in full, as importing them would warn outside of the suppression.
+	 */
+	// The legacy client API is the one ApacheHttpTransport of google-http-client 1.23 supports
+	@SuppressWarnings("deprecation")
+	private static HttpClient newHttpClient(TransportSettings settings) throws IOException, GeneralSecurityException {
+		final org.apache.http.conn.ssl.SSLSocketFactory sslSocketFactory =
+				new org.apache.http.conn.ssl.SSLSocketFactory(SSLContexts.custom()
+				                                                         .loadTrustMaterial(GoogleUtils.getCertificateTrustStore(), null)
+				                                                         .build());
+		final org.apache.http.conn.scheme.SchemeRegistry schemes = new org.apache.http.conn.scheme.SchemeRegistry();
+		schemes.register(new org.apache.http.conn.scheme.Scheme("http", 80, org.apache.http.conn.scheme.PlainSocketFactory.getSocketFactory()));
+		schemes.register(new org.apache.http.conn.scheme.Scheme("https", 443, sslSocketFactory));
+
+		final org.apache.http.impl.conn.PoolingClientConnectionManager connectionManager =
+				new org.apache.http.impl.conn.PoolingClientConnectionManager(schemes, settings.getKeepAliveMillis(), TimeUnit.MILLISECONDS);
+		connectionManager.setMaxTotal(settings.getMaxConnections());
+		connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerRoute());
+
+		final org.apache.http.impl.client.DefaultHttpClient client =
+				new org.apache.http.impl.client.DefaultHttpClient(connectionManager, newHttpParams(settings));
+		client.setKeepAliveStrategy((response, context) -> settings.getKeepAliveMillis());
+		client.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+		client.setRoutePlanner(new org.apache.http.impl.conn.ProxySelectorRoutePlanner(schemes, ProxySelector.getDefault()));
+		return client;
+	}
+
+	// Parameters of the legacy client API, see newHttpClient
+	@SuppressWarnings("deprecation")
+	private static org.apache.http.params.HttpParams newHttpParams(TransportSettings settings) {
+		final org.apache.http.params.HttpParams params = new org.apache.http.params.BasicHttpParams();
+		org.apache.http.params.HttpConnectionParams.setStaleCheckingEnabled(params, true);
+		org.apache.http.params.HttpConnectionParams.setSocketBufferSize(params, 8192);
+		org.apache.http.params.HttpConnectionParams.setConnectionTimeout(params, settings.getConnectTimeoutMillis());
+		org.apache.http.params.HttpConnectionParams.setSoTimeout(params, settings.getReadTimeoutMillis());
+		org.apache.http.client.params.HttpClientParams.setConnectionManagerTimeout(params, settings.getConnectTimeoutMillis());
+		org.apache.http.client.params.HttpClientParams.setCookiePolicy(params, org.apache.http.client.params.CookiePolicy.IGNORE_COOKIES);
+		return params;
+	}
+}
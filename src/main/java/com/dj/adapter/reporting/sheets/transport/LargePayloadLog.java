@@ -0,0 +1,84 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring buffer keeping the latest API calls whose request or response body reached a
+ * threshold, so that oversized exchanges can be inspected after the fact.
+ */
+public class LargePayloadLog {
+	private final AtomicReferenceArray<PayloadSample> samples;
+	private final AtomicLong next = new AtomicLong();
+	private final long thresholdBytes;
+
+	/**
+	 * @param capacity       number of samples kept, older ones being overwritten
+	 * @param thresholdBytes size of request or response body from which a call is kept
+	 */
+	public LargePayloadLog(int capacity, long thresholdBytes) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.samples = new AtomicReferenceArray<>(capacity);
+		this.thresholdBytes = thresholdBytes;
+	}
+
+	public long getThresholdBytes() {
+		return thresholdBytes;
+	}
+
+	public int getCapacity() {
+		return samples.length();
+	}
+
+	/**
+	 * Keeps the sample if its request or response body reached the threshold.
+	 *
+	 * @param sample the measured call
+	 * @return {@code true} if it was kept
+	 */
+	public boolean offer(PayloadSample sample) {
+		if (sample.getRequestBytes() < thresholdBytes && sample.getResponseBytes() < thresholdBytes) {
+			return false;
+		}
+		samples.set((int) (next.getAndIncrement() % samples.length()), sample);
+		return true;
+	}
+
+	/**
+	 * Number of samples kept since the start or the last {@link #clear()}, overwritten ones included.
+	 */
+	public long getTotal() {
+		return next.get();
+	}
+
+	/**
+	 * Returns the kept samples, newest first.
+	 */
+	public List<PayloadSample> getSamples() {
+		final long last = next.get();
+		final int count = (int) Math.min(last, samples.length());
+		final List<PayloadSample> result = new ArrayList<>(count);
+		for (long index = last - 1; index >= last - count; index--) {
+			final PayloadSample sample = samples.get((int) (index % samples.length()));
+			if (sample != null) {
+				result.add(sample);
+			}
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Drops the kept samples and starts counting again.
+	 */
+	public void clear() {
+		next.set(0);
+		for (int index = 0; index < samples.length(); index++) {
+			samples.set(index, null);
+		}
+	}
+}
@@ -0,0 +1,396 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import com.dj.adapter.reporting.sheets.metrics.SheetsMetrics;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseInterceptor;
+import com.google.api.client.util.ObjectParser;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Measures the payloads of the Sheets API calls and where their time goes, by API method:
+ * <ul>
+ * <li>{@code sheets.api.request.size}: request body, before compression</li>
+ * <li>{@code sheets.api.response.size}: response body as parsed, after decompression</li>
+ * <li>{@code sheets.api.first.byte}: from sending the request to receiving the response headers</li>
+ * <li>{@code sheets.api.parse}: reading and parsing the response body in {@code execute()}</li>
+ * <li>{@code sheets.api.total}: from sending the request to the end of parsing</li>
+ * </ul>
+ * Calls whose request or response body reaches the threshold of the {@link LargePayloadLog} are
+ * kept there with their sizes and timings.
+ * <p>
+ * Successful responses are measured when {@code execute()} parses them, or when the content
+ * returned by {@link #content(HttpResponse)} for a response of {@code executeUnparsed()} is closed.
+ * Error responses are measured when they arrive, with the size given by their
+ * {@code Content-Length}.
+ */
+public class PayloadProbe implements HttpRequestInitializer {
+	private static final long[] SIZE_BUCKETS = {1 << 10, 16 << 10, 64 << 10, 256 << 10, 1 << 20, 4 << 20, 16 << 20};
+
+	private final MeterRegistry registry;
+	private final LargePayloadLog log;
+	private final ConcurrentMap<SheetsApiCall.Method, Meters> meters = new ConcurrentHashMap<>();
+
+	/**
+	 * @param registry where the meters are published
+	 * @param log      where large payloads are kept
+	 */
+	public PayloadProbe(MeterRegistry registry, LargePayloadLog log) {
+		this.registry = Objects.requireNonNull(registry);
+		this.log = Objects.requireNonNull(log);
+	}
+
+	public LargePayloadLog getLog() {
+		return log;
+	}
+
+	/**
+	 * Measures the request once it is executed. The interceptors already set on the request, like
+	 * the one of the credential, still run first. The parser of the client is set after
+	 * initialization, so it is wrapped at execution time.
+	 *
+	 * @param request a request being initialized
+	 */
+	@Override
+	public void initialize(HttpRequest request) {
+		final ProbedCall probed = new ProbedCall();
+		final HttpExecuteInterceptor executeInterceptor = request.getInterceptor();
+		request.setInterceptor(httpRequest -> {
+			if (executeInterceptor != null) {
+				executeInterceptor.intercept(httpRequest);
+			}
+			probed.start(httpRequest);
+		});
+		final HttpResponseInterceptor responseInterceptor = request.getResponseInterceptor();
+		request.setResponseInterceptor(response -> {
+			probed.headers(response);
+			if (responseInterceptor != null) {
+				responseInterceptor.interceptResponse(response);
+			}
+		});
+	}
+
+	/**
+	 * Returns the content of a response read through {@code executeUnparsed()}, measured like the
+	 * responses parsed by {@code execute()}: reading it counts as parsing, and closing it finishes
+	 * the call. The content is returned as it is if the request is not probed.
+	 *
+	 * @param response a successful response, not read yet
+	 * @return the content of the response, to be closed once read
+	 */
+	public static InputStream content(HttpResponse response) throws IOException {
+		final InputStream content = response.getContent();
+		final ObjectParser parser = response.getRequest()
+		                                    .getParser();
+		if (content == null || !(parser instanceof MeasuringParser)) {
+			return content;
+		}
+		return new StreamedContent(content, ((MeasuringParser) parser).probed);
+	}
+
+	private Meters meters(SheetsApiCall.Method method) {
+		final Meters existing = meters.get(method);
+		return existing != null ? existing : meters.computeIfAbsent(method, Meters::new);
+	}
+
+	private final class Meters {
+		private final DistributionSummary requestSize;
+		private final DistributionSummary responseSize;
+		private final Timer firstByte;
+		private final Timer parse;
+		private final Timer total;
+
+		private Meters(SheetsApiCall.Method method) {
+			requestSize = size("sheets.api.request.size", "Size of Sheets API request bodies", method);
+			responseSize = size("sheets.api.response.size", "Size of Sheets API response bodies", method);
+			firstByte = timer("sheets.api.first.byte", "Time to first byte of Sheets API responses", method);
+			parse = timer("sheets.api.parse", "Time reading and parsing Sheets API responses", method);
+			total = timer("sheets.api.total", "Time of Sheets API calls including parsing", method);
+		}
+
+		private DistributionSummary size(String name, String description, SheetsApiCall.Method method) {
+			return DistributionSummary.builder(name)
+			                          .description(description)
+			                          .baseUnit("bytes")
+			                          .tags(SheetsMetrics.OPERATION, method.getName())
+			                          .sla(SIZE_BUCKETS)
+			                          .register(registry);
+		}
+
+		private Timer timer(String name, String description, SheetsApiCall.Method method) {
+			return Timer.builder(name)
+			            .description(description)
+			            .tags(SheetsMetrics.OPERATION, method.getName())
+			            .publishPercentileHistogram()
+			            .register(registry);
+		}
+	}
+
+	/**
+	 * A call being measured. Requests are executed again on retries, so it is started every time
+	 * and finished at most once per start. A request executes, gets its response and parses it on
+	 * a single thread.
+	 */
+	private final class ProbedCall {
+		private SheetsApiCall call;
+		private GenericUrl url;
+		private CountingContent content;
+		private long requestBytes;
+		private long startNanos;
+		private long firstByteNanos;
+		private int statusCode;
+		private long wireResponseBytes;
+		private boolean pending;
+
+		private void start(HttpRequest request) throws IOException {
+			url = request.getUrl();
+			call = SheetsApiCall.of(request.getRequestMethod(), url);
+			content = CountingContent.install(request);
+			if (content == null) {
+				final HttpContent requestContent = request.getContent();
+				requestBytes = requestContent == null ? 0 : requestContent.getLength();
+			}
+			if (!(request.getParser() instanceof MeasuringParser) && request.getParser() != null) {
+				request.setParser(new MeasuringParser(request.getParser(), this));
+			}
+			pending = true;
+			startNanos = System.nanoTime();
+		}
+
+		private void headers(HttpResponse response) {
+			if (!pending) {
+				return;
+			}
+			firstByteNanos = System.nanoTime() - startNanos;
+			statusCode = response.getStatusCode();
+			final Long contentLength = response.getHeaders()
+			                                   .getContentLength();
+			wireResponseBytes = contentLength == null ? -1 : contentLength;
+			if (content != null) {
+				requestBytes = content.getWritten();
+			}
+			meters(call.getMethod()).firstByte.record(firstByteNanos, NANOSECONDS);
+			if (!response.isSuccessStatusCode()) {
+				finish(Math.max(0, wireResponseBytes), 0);
+			}
+		}
+
+		private void parsed(long responseBytes, long parseNanos) {
+			if (pending) {
+				finish(responseBytes, parseNanos);
+			}
+		}
+
+		private void finish(long responseBytes, long parseNanos) {
+			pending = false;
+			final long totalNanos = System.nanoTime() - startNanos;
+			final Meters callMeters = meters(call.getMethod());
+			callMeters.requestSize.record(requestBytes);
+			callMeters.responseSize.record(responseBytes);
+			callMeters.parse.record(parseNanos, NANOSECONDS);
+			callMeters.total.record(totalNanos, NANOSECONDS);
+			if (requestBytes >= log.getThresholdBytes() || responseBytes >= log.getThresholdBytes()) {
+				log.offer(new PayloadSample(Instant.now(),
+				                            call.getMethod()
+				                                .getName(),
+				                            call.getSpreadsheetId(),
+				                            ranges(),
+				                            statusCode,
+				                            requestBytes,
+				                            responseBytes,
+				                            wireResponseBytes,
+				                            TimeUnit.NANOSECONDS.toMicros(firstByteNanos),
+				                            TimeUnit.NANOSECONDS.toMicros(parseNanos),
+				                            TimeUnit.NANOSECONDS.toMicros(totalNanos)));
+			}
+		}
+
+		private List<String> ranges() {
+			final List<String> ranges = new ArrayList<>();
+			if (call.getRange() != null) {
+				ranges.add(call.getRange());
+			}
+			for (Object range : url.getAll("ranges")) {
+				ranges.add(String.valueOf(range));
+			}
+			return ranges;
+		}
+	}
+
+	/**
+	 * Parser of a single request, timing the parsing of its responses and counting the bytes read.
+	 */
+	private static final class MeasuringParser implements ObjectParser {
+		private final ObjectParser delegate;
+		private final ProbedCall probed;
+
+		private MeasuringParser(ObjectParser delegate, ProbedCall probed) {
+			this.delegate = delegate;
+			this.probed = probed;
+		}
+
+		@Override
+		public <T> T parseAndClose(InputStream in, Charset charset, Class<T> dataClass) throws IOException {
+			final CountingInputStream counting = new CountingInputStream(in);
+			final long start = System.nanoTime();
+			try {
+				return delegate.parseAndClose(counting, charset, dataClass);
+			} finally {
+				probed.parsed(counting.count, System.nanoTime() - start);
+			}
+		}
+
+		@Override
+		public Object parseAndClose(InputStream in, Charset charset, Type dataType) throws IOException {
+			final CountingInputStream counting = new CountingInputStream(in);
+			final long start = System.nanoTime();
+			try {
+				return delegate.parseAndClose(counting, charset, dataType);
+			} finally {
+				probed.parsed(counting.count, System.nanoTime() - start);
+			}
+		}
+
+		@Override
+		public <T> T parseAndClose(Reader reader, Class<T> dataClass) throws IOException {
+			final CountingReader counting = new CountingReader(reader);
+			final long start = System.nanoTime();
+			try {
+				return delegate.parseAndClose(counting, dataClass);
+			} finally {
+				probed.parsed(counting.count, System.nanoTime() - start);
+			}
+		}
+
+		@Override
+		public Object parseAndClose(Reader reader, Type dataType) throws IOException {
+			final CountingReader counting = new CountingReader(reader);
+			final long start = System.nanoTime();
+			try {
+				return delegate.parseAndClose(counting, dataType);
+			} finally {
+				probed.parsed(counting.count, System.nanoTime() - start);
+			}
+		}
+	}
+
+	private static class CountingInputStream extends FilterInputStream {
+		protected long count;
+
+		private CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			final int read = super.read(b, off, len);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			final long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
+	/**
+	 * Content of a response parsed outside of {@code execute()}, timed from its creation to its
+	 * first close.
+	 */
+	private static final class StreamedContent extends CountingInputStream {
+		private final ProbedCall probed;
+		private final long startNanos = System.nanoTime();
+		private boolean closed;
+
+		private StreamedContent(InputStream in, ProbedCall probed) {
+			super(in);
+			this.probed = probed;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				super.close();
+			} finally {
+				probed.parsed(count, System.nanoTime() - startNanos);
+			}
+		}
+	}
+
+	/**
+	 * Counts characters, which is the size in bytes for the ASCII of most responses.
+	 */
+	private static final class CountingReader extends FilterReader {
+		private long count;
+
+		private CountingReader(Reader in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			final int c = super.read();
+			if (c >= 0) {
+				count++;
+			}
+			return c;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			final int read = super.read(cbuf, off, len);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			final long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+}
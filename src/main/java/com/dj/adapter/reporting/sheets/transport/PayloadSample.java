@@ -0,0 +1,112 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sizes and timings of one API call, as measured by {@link PayloadProbe}. Getters make it
+ * serializable as is by the actuator endpoint.
+ */
+public final class PayloadSample {
+	private final Instant timestamp;
+	private final String method;
+	private final String spreadsheetId;
+	private final List<String> ranges;
+	private final int statusCode;
+	private final long requestBytes;
+	private final long responseBytes;
+	private final long wireResponseBytes;
+	private final long firstByteMicros;
+	private final long parseMicros;
+	private final long totalMicros;
+
+	PayloadSample(Instant timestamp,
+	              String method,
+	              String spreadsheetId,
+	              List<String> ranges,
+	              int statusCode,
+	              long requestBytes,
+	              long responseBytes,
+	              long wireResponseBytes,
+	              long firstByteMicros,
+	              long parseMicros,
+	              long totalMicros) {
+		this.timestamp = timestamp;
+		this.method = method;
+		this.spreadsheetId = spreadsheetId;
+		this.ranges = Collections.unmodifiableList(ranges);
+		this.statusCode = statusCode;
+		this.requestBytes = requestBytes;
+		this.responseBytes = responseBytes;
+		this.wireResponseBytes = wireResponseBytes;
+		this.firstByteMicros = firstByteMicros;
+		this.parseMicros = parseMicros;
+		this.totalMicros = totalMicros;
+	}
+
+	public Instant getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * API method, e.g. {@code spreadsheets.values.get}.
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	public String getSpreadsheetId() {
+		return spreadsheetId;
+	}
+
+	public List<String> getRanges() {
+		return ranges;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * Size of the request body before compression.
+	 */
+	public long getRequestBytes() {
+		return requestBytes;
+	}
+
+	/**
+	 * Size of the response body as parsed, after decompression.
+	 */
+	public long getResponseBytes() {
+		return responseBytes;
+	}
+
+	/**
+	 * Size of the response body as sent, from its {@code Content-Length}, or -1 if unknown.
+	 */
+	public long getWireResponseBytes() {
+		return wireResponseBytes;
+	}
+
+	/**
+	 * Time from sending the request to receiving the response headers.
+	 */
+	public long getFirstByteMicros() {
+		return firstByteMicros;
+	}
+
+	/**
+	 * Time spent reading and parsing the response body.
+	 */
+	public long getParseMicros() {
+		return parseMicros;
+	}
+
+	/**
+	 * Time from sending the request to the end of parsing.
+	 */
+	public long getTotalMicros() {
+		return totalMicros;
+	}
+}
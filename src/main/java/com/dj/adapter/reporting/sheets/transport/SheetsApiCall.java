@@ -0,0 +1,146 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import com.google.api.client.http.GenericUrl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A call to the Sheets v4 REST API, identified from the HTTP method and URL of a request.
+ */
+public final class SheetsApiCall {
+	private final Method method;
+	private final String spreadsheetId;
+	private final String range;
+
+	private SheetsApiCall(Method method, String spreadsheetId, String range) {
+		this.method = method;
+		this.spreadsheetId = spreadsheetId;
+		this.range = range;
+	}
+
+	/**
+	 * Identifies the API method a request calls.
+	 *
+	 * @param httpMethod HTTP method of the request
+	 * @param url        URL of the request
+	 * @return the call, whose method is {@link Method#OTHER} if the URL is not a Sheets v4 one
+	 */
+	public static SheetsApiCall of(String httpMethod, GenericUrl url) {
+		final List<String> parts = url.getPathParts() == null ? Collections.emptyList() : url.getPathParts();
+		// Path parts start with an empty one, for the leading slash
+		int v4 = parts.indexOf("v4");
+		if (v4 < 0 || parts.size() < v4 + 3 || !"spreadsheets".equals(parts.get(v4 + 1))) {
+			return new SheetsApiCall(Method.OTHER, null, null);
+		}
+		final String id = parts.get(v4 + 2);
+		final int remaining = parts.size() - v4 - 3;
+		if (remaining == 0) {
+			if (id.endsWith(":batchUpdate")) {
+				return new SheetsApiCall(Method.SPREADSHEETS_BATCH_UPDATE, strip(id, ":batchUpdate"), null);
+			}
+			return new SheetsApiCall("GET".equals(httpMethod) ? Method.SPREADSHEETS_GET : Method.OTHER, id, null);
+		}
+		final String collection = parts.get(v4 + 3);
+		if (remaining == 1) {
+			switch (collection) {
+				case "values:batchGet":
+					return new SheetsApiCall(Method.VALUES_BATCH_GET, id, null);
+				case "values:batchUpdate":
+					return new SheetsApiCall(Method.VALUES_BATCH_UPDATE, id, null);
+				case "values:batchClear":
+					return new SheetsApiCall(Method.VALUES_BATCH_CLEAR, id, null);
+				default:
+					return new SheetsApiCall(Method.OTHER, id, null);
+			}
+		}
+		if (remaining == 2 && "values".equals(collection)) {
+			final String range = parts.get(v4 + 4);
+			if (range.endsWith(":append")) {
+				return new SheetsApiCall(Method.VALUES_APPEND, id, strip(range, ":append"));
+			}
+			if (range.endsWith(":clear")) {
+				return new SheetsApiCall(Method.VALUES_CLEAR, id, strip(range, ":clear"));
+			}
+			if ("GET".equals(httpMethod)) {
+				return new SheetsApiCall(Method.VALUES_GET, id, range);
+			}
+			if ("PUT".equals(httpMethod)) {
+				return new SheetsApiCall(Method.VALUES_UPDATE, id, range);
+			}
+		}
+		return new SheetsApiCall(Method.OTHER, id, null);
+	}
+
+	private static String strip(String value, String suffix) {
+		return value.substring(0, value.length() - suffix.length());
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	/**
+	 * Identifier of the spreadsheet, or {@code null} if the call is not about one.
+	 */
+	public String getSpreadsheetId() {
+		return spreadsheetId;
+	}
+
+	/**
+	 * Range in the path of the call, or {@code null} for calls without one, like batch calls.
+	 */
+	public String getRange() {
+		return range;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof SheetsApiCall)) return false;
+		final SheetsApiCall that = (SheetsApiCall) o;
+		return method == that.method
+				&& Objects.equals(spreadsheetId, that.spreadsheetId)
+				&& Objects.equals(range, that.range);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(method, spreadsheetId, range);
+	}
+
+	@Override
+	public String toString() {
+		return range == null ? method.getName() + " " + spreadsheetId : method.getName() + " " + spreadsheetId + " " + range;
+	}
+
+	/**
+	 * Methods of the Sheets v4 API.
+	 */
+	public enum Method {
+		SPREADSHEETS_GET("spreadsheets.get"),
+		SPREADSHEETS_BATCH_UPDATE("spreadsheets.batchUpdate"),
+		VALUES_GET("spreadsheets.values.get"),
+		VALUES_BATCH_GET("spreadsheets.values.batchGet"),
+		VALUES_APPEND("spreadsheets.values.append"),
+		VALUES_UPDATE("spreadsheets.values.update"),
+		VALUES_BATCH_UPDATE("spreadsheets.values.batchUpdate"),
+		VALUES_CLEAR("spreadsheets.values.clear"),
+		VALUES_BATCH_CLEAR("spreadsheets.values.batchClear"),
+		OTHER("other");
+
+		private final String name;
+
+		Method(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Name of the method as in the API reference, e.g. {@code spreadsheets.values.get}.
+		 */
+		public String getName() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Sheets API call recorded by {@link CallRecorder}. Calls are stored one per line, as tab
+ * separated fields, so that traces of long runs stay small and can be read with any tool.
+ */
+public final class TracedCall {
+	/**
+	 * First line of every trace, followed by one line per call.
+	 */
+	public static final String HEADER = "#sheets-trace 1";
+	private static final String UTF_8 = "UTF-8";
+
+	private final long offsetMillis;
+	private final SheetsApiCall.Method method;
+	private final String spreadsheetId;
+	private final List<String> ranges;
+	private final int rows;
+	private final int cells;
+	private final long requestBytes;
+	private final int statusCode;
+	private final long durationMicros;
+	private final long responseBytes;
+
+	public TracedCall(long offsetMillis,
+	                  SheetsApiCall.Method method,
+	                  String spreadsheetId,
+	                  List<String> ranges,
+	                  int rows,
+	                  int cells,
+	                  long requestBytes,
+	                  int statusCode,
+	                  long durationMicros,
+	                  long responseBytes) {
+		this.offsetMillis = offsetMillis;
+		this.method = method;
+		this.spreadsheetId = spreadsheetId;
+		this.ranges = Collections.unmodifiableList(new ArrayList<>(ranges));
+		this.rows = rows;
+		this.cells = cells;
+		this.requestBytes = requestBytes;
+		this.statusCode = statusCode;
+		this.durationMicros = durationMicros;
+		this.responseBytes = responseBytes;
+	}
+
+	/**
+	 * Parses a line written by {@link #toLine()}.
+	 *
+	 * @param line the line, without its line terminator
+	 * @return the call
+	 * @throws IllegalArgumentException if the line is not a traced call
+	 */
+	public static TracedCall parse(String line) {
+		final String[] fields = line.split("\t", -1);
+		if (fields.length != 10) {
+			throw new IllegalArgumentException("Not a traced call: " + line);
+		}
+		final List<String> ranges = new ArrayList<>();
+		if (!fields[3].isEmpty()) {
+			for (String range : fields[3].split(",")) {
+				ranges.add(decode(range));
+			}
+		}
+		return new TracedCall(Long.parseLong(fields[0]),
+		                      SheetsApiCall.Method.valueOf(fields[1]),
+		                      fields[2].isEmpty() ? null : fields[2],
+		                      ranges,
+		                      Integer.parseInt(fields[4]),
+		                      Integer.parseInt(fields[5]),
+		                      Long.parseLong(fields[6]),
+		                      Integer.parseInt(fields[7]),
+		                      Long.parseLong(fields[8]),
+		                      Long.parseLong(fields[9]));
+	}
+
+	/**
+	 * Formats this call as a line of a trace, without line terminator.
+	 */
+	public String toLine() {
+		final StringBuilder line = new StringBuilder(64 + 32 * ranges.size());
+		line.append(offsetMillis)
+		    .append('\t')
+		    .append(method.name())
+		    .append('\t')
+		    .append(spreadsheetId == null ? "" : spreadsheetId)
+		    .append('\t');
+		for (int index = 0; index < ranges.size(); index++) {
+			if (index > 0) {
+				line.append(',');
+			}
+			line.append(encode(ranges.get(index)));
+		}
+		return line.append('\t')
+		           .append(rows)
+		           .append('\t')
+		           .append(cells)
+		           .append('\t')
+		           .append(requestBytes)
+		           .append('\t')
+		           .append(statusCode)
+		           .append('\t')
+		           .append(durationMicros)
+		           .append('\t')
+		           .append(responseBytes)
+		           .toString();
+	}
+
+	private static String encode(String range) {
+		try {
+			return URLEncoder.encode(range, UTF_8);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String decode(String range) {
+		try {
+			return URLDecoder.decode(range, UTF_8);
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Milliseconds from the start of the recording to the start of this call.
+	 */
+	public long getOffsetMillis() {
+		return offsetMillis;
+	}
+
+	public SheetsApiCall.Method getMethod() {
+		return method;
+	}
+
+	public String getSpreadsheetId() {
+		return spreadsheetId;
+	}
+
+	/**
+	 * Ranges read or written by the call, several for batch calls.
+	 */
+	public List<String> getRanges() {
+		return ranges;
+	}
+
+	/**
+	 * Number of rows sent by the call, 0 for reads.
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Number of cells sent by the call, 0 for reads.
+	 */
+	public int getCells() {
+		return cells;
+	}
+
+	/**
+	 * Size of the request body before compression, or -1 if unknown.
+	 */
+	public long getRequestBytes() {
+		return requestBytes;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * Time from sending the request to receiving the response headers.
+	 */
+	public long getDurationMicros() {
+		return durationMicros;
+	}
+
+	/**
+	 * Size of the response body as sent, or -1 if unknown.
+	 */
+	public long getResponseBytes() {
+		return responseBytes;
+	}
+
+	@Override
+	public String toString() {
+		return toLine();
+	}
+}
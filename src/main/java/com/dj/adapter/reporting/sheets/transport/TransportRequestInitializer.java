@@ -0,0 +1,72 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Initializes every request with the configured timeouts and compression, after delegating to
+ * the credential (or any other) initializer, and then runs the initializers observing the calls,
+ * like metrics, payload probe and recorder.
+ */
+public class TransportRequestInitializer implements HttpRequestInitializer {
+	private static final String GZIP = "gzip";
+
+	private final HttpRequestInitializer delegate;
+	private final TransportSettings settings;
+	private final List<HttpRequestInitializer> observers;
+
+	/**
+	 * @param delegate  initializer of the credential, run first
+	 * @param settings  timeouts and compression
+	 * @param observers initializers run last, in order, to observe the calls, e.g. metrics or a
+	 *                  recorder; null ones are skipped
+	 */
+	public TransportRequestInitializer(HttpRequestInitializer delegate,
+	                                   TransportSettings settings,
+	                                   HttpRequestInitializer... observers) {
+		this.delegate = delegate;
+		this.settings = Objects.requireNonNull(settings);
+		this.observers = new ArrayList<>(observers.length);
+		for (HttpRequestInitializer observer : observers) {
+			if (observer != null) {
+				this.observers.add(observer);
+			}
+		}
+	}
+
+	@Override
+	public void initialize(HttpRequest request) throws IOException {
+		if (delegate != null) {
+			delegate.initialize(request);
+		}
+		request.setConnectTimeout(settings.getConnectTimeoutMillis())
+		       .setReadTimeout(settings.getReadTimeoutMillis());
+		if (settings.isGzipResponses()) {
+			// Google only compresses responses when the user agent also contains "gzip". Client request
+			// headers are copied after initialization, so it has to be done at execution time.
+			final HttpExecuteInterceptor interceptor = request.getInterceptor();
+			request.setInterceptor(httpRequest -> {
+				if (interceptor != null) {
+					interceptor.intercept(httpRequest);
+				}
+				httpRequest.getHeaders()
+				           .setAcceptEncoding(GZIP);
+				final String userAgent = httpRequest.getHeaders()
+				                                    .getUserAgent();
+				if (userAgent == null || !userAgent.contains(GZIP)) {
+					httpRequest.getHeaders()
+					           .setUserAgent(userAgent == null ? GZIP : userAgent + " (" + GZIP + ")");
+				}
+			});
+		}
+		for (HttpRequestInitializer observer : observers) {
+			observer.initialize(request);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+/**
+ * Settings for the HTTP transport used by every {@code Sheets} client built by
+ * {@link com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepositoryFactory}.
+ * It is a plain bean so it can be bound from {@code google.api.transport} properties.
+ */
+public class TransportSettings {
+	public static final int DEFAULT_MAX_CONNECTIONS = 50;
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+	public static final long DEFAULT_KEEP_ALIVE_MILLIS = 60_000;
+	public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 20_000;
+	public static final int DEFAULT_READ_TIMEOUT_MILLIS = 20_000;
+	public static final long DEFAULT_LARGE_PAYLOAD_BYTES = 256 * 1024;
+	public static final int DEFAULT_LARGE_PAYLOAD_SAMPLES = 100;
+
+	private Type type = Type.APACHE;
+	private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+	private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+	private long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+	private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+	private int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+	private boolean gzipRequests = true;
+	private boolean gzipResponses = true;
+	private long largePayloadBytes = DEFAULT_LARGE_PAYLOAD_BYTES;
+	private int largePayloadSamples = DEFAULT_LARGE_PAYLOAD_SAMPLES;
+
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	public long getKeepAliveMillis() {
+		return keepAliveMillis;
+	}
+
+	public void setKeepAliveMillis(long keepAliveMillis) {
+		this.keepAliveMillis = keepAliveMillis;
+	}
+
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+
+	public int getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+	public void setReadTimeoutMillis(int readTimeoutMillis) {
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
+
+	public boolean isGzipRequests() {
+		return gzipRequests;
+	}
+
+	public void setGzipRequests(boolean gzipRequests) {
+		this.gzipRequests = gzipRequests;
+	}
+
+	public boolean isGzipResponses() {
+		return gzipResponses;
+	}
+
+	public void setGzipResponses(boolean gzipResponses) {
+		this.gzipResponses = gzipResponses;
+	}
+
+	/**
+	 * Size of request or response body from which a call is kept in the large payload log.
+	 */
+	public long getLargePayloadBytes() {
+		return largePayloadBytes;
+	}
+
+	public void setLargePayloadBytes(long largePayloadBytes) {
+		this.largePayloadBytes = largePayloadBytes;
+	}
+
+	/**
+	 * Number of large payload calls kept, older ones being dropped.
+	 */
+	public int getLargePayloadSamples() {
+		return largePayloadSamples;
+	}
+
+	public void setLargePayloadSamples(int largePayloadSamples) {
+		this.largePayloadSamples = largePayloadSamples;
+	}
+
+	public enum Type {
+		/**
+		 * JDK {@code HttpURLConnection} based transport, with default connection handling.
+		 */
+		NET_HTTP,
+		/**
+		 * Apache HTTP client with a pool of kept-alive connections.
+		 */
+		APACHE
+	}
+}
@@ -0,0 +1,482 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import com.google.api.services.sheets.v4.model.GridRange;
+
+import java.util.Objects;
+
+/**
+ * Encodes and parses cell and range references in A1 notation, such as {@code 'Class Data'!B2:F},
+ * and in R1C1 notation, such as {@code R2C2:R10C6}.
+ * <p>
+ * Following the convention of this library, indexes are zero-based and end indexes are
+ * inclusive: a range with start and end row index 1 covers the second row only. A missing index
+ * leaves the range open on that side.
+ */
+public final class A1Notation {
+	/**
+	 * Number of columns up to {@code ZZZ}, the last one a sheet can have.
+	 */
+	private static final int MAX_COLUMNS = 18278;
+	private static final int CACHED_LABELS = 1024;
+	private static final String[] LABELS = new String[CACHED_LABELS];
+
+	static {
+		final StringBuilder label = new StringBuilder(3);
+		for (int i = 0; i < CACHED_LABELS; i++) {
+			label.setLength(0);
+			LABELS[i] = appendComputedColumn(label, i).toString();
+		}
+	}
+
+	private A1Notation() {
+	}
+
+	/**
+	 * Returns the label of a column, e.g. {@code A} for 0, {@code AA} for 26 or {@code AAA} for 702.
+	 *
+	 * @param columnIndex zero-based column index
+	 * @return the column label
+	 */
+	public static String columnLabel(int columnIndex) {
+		checkColumn(columnIndex);
+		if (columnIndex < CACHED_LABELS) {
+			return LABELS[columnIndex];
+		}
+		return appendComputedColumn(new StringBuilder(3), columnIndex).toString();
+	}
+
+	/**
+	 * Appends the label of a column.
+	 *
+	 * @param builder     where the label is appended
+	 * @param columnIndex zero-based column index
+	 * @return the builder
+	 */
+	public static StringBuilder appendColumn(StringBuilder builder, int columnIndex) {
+		checkColumn(columnIndex);
+		if (columnIndex < CACHED_LABELS) {
+			return builder.append(LABELS[columnIndex]);
+		}
+		return appendComputedColumn(builder, columnIndex);
+	}
+
+	private static StringBuilder appendComputedColumn(StringBuilder builder, int columnIndex) {
+		// Bijective base 26: A..Z, AA..ZZ, AAA..
+		final char[] label = new char[7];
+		int position = label.length;
+		int number = columnIndex + 1;
+		while (number > 0) {
+			number--;
+			label[--position] = (char) ('A' + number % 26);
+			number /= 26;
+		}
+		return builder.append(label, position, label.length - position);
+	}
+
+	/**
+	 * Returns the index of a column label, e.g. 0 for {@code A} or 702 for {@code AAA}. Lower
+	 * case letters are accepted.
+	 *
+	 * @param label column label
+	 * @return zero-based column index
+	 * @throws IllegalArgumentException if the label is not made of letters only
+	 */
+	public static int columnIndex(CharSequence label) {
+		if (label.length() == 0) {
+			throw new IllegalArgumentException("Empty column label");
+		}
+		return columnIndex(label, 0, label.length());
+	}
+
+	private static int columnIndex(CharSequence label, int from, int to) {
+		long number = 0;
+		for (int i = from; i < to; i++) {
+			final int letter = letterValue(label.charAt(i));
+			if (letter < 0) {
+				throw new IllegalArgumentException("Invalid column label: " + label.subSequence(from, to));
+			}
+			number = number * 26 + letter + 1;
+			if (number > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Column label too long: " + label.subSequence(from, to));
+			}
+		}
+		return (int) number - 1;
+	}
+
+	private static int letterValue(char c) {
+		if (c >= 'A' && c <= 'Z') {
+			return c - 'A';
+		}
+		if (c >= 'a' && c <= 'z') {
+			return c - 'a';
+		}
+		return -1;
+	}
+
+	private static void checkColumn(int columnIndex) {
+		if (columnIndex < 0) {
+			throw new IllegalArgumentException("Negative column index: " + columnIndex);
+		}
+	}
+
+	/**
+	 * Returns the reference of a single cell, e.g. {@code B3}.
+	 *
+	 * @param rowIndex    zero-based row index
+	 * @param columnIndex zero-based column index
+	 * @return the cell reference
+	 */
+	public static String cell(int rowIndex, int columnIndex) {
+		return appendColumn(new StringBuilder(8), columnIndex).append(rowIndex + 1)
+		                                                       .toString();
+	}
+
+	/**
+	 * Returns a sheet name as it must be written in a reference: quoted, with quotes doubled, unless
+	 * it is made of letters, digits and underscores only and cannot be taken for a cell.
+	 *
+	 * @param sheetName name of the sheet
+	 * @return the name ready to be written before {@code !}
+	 */
+	public static String quoteSheetName(String sheetName) {
+		return appendSheetName(new StringBuilder(sheetName.length() + 2), sheetName).toString();
+	}
+
+	private static StringBuilder appendSheetName(StringBuilder builder, String sheetName) {
+		if (!needsQuotes(sheetName)) {
+			return builder.append(sheetName);
+		}
+		builder.append('\'');
+		for (int i = 0; i < sheetName.length(); i++) {
+			final char c = sheetName.charAt(i);
+			if (c == '\'') {
+				builder.append('\'');
+			}
+			builder.append(c);
+		}
+		return builder.append('\'');
+	}
+
+	private static boolean needsQuotes(String sheetName) {
+		if (sheetName.isEmpty() || Character.isDigit(sheetName.charAt(0))) {
+			return true;
+		}
+		for (int i = 0; i < sheetName.length(); i++) {
+			final char c = sheetName.charAt(i);
+			if (!(c == '_' || (c < 128 && Character.isLetterOrDigit(c)))) {
+				return true;
+			}
+		}
+		// Names such as A1 or R1C1 would be read as cells
+		try {
+			final A1Range range = parseReference(null, sheetName, 0, sheetName.length());
+			return range != null && !isBeyondLastColumn(range);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Encodes a range of a sheet, e.g. {@code 'Class Data'!A2:G2}. The start row defaults to the
+	 * first row; the end is left out if it has no index. Without any index the whole sheet is
+	 * referred to by its name.
+	 *
+	 * @param sheetName name of the sheet, or {@code null} for none
+	 * @param range     range to be encoded, with inclusive end indexes
+	 * @return the range in A1 notation
+	 */
+	public static String encode(String sheetName, GridRange range) {
+		return encode(sheetName,
+		              range.getStartRowIndex(),
+		              range.getStartColumnIndex(),
+		              range.getEndRowIndex(),
+		              range.getEndColumnIndex());
+	}
+
+	/**
+	 * Encodes a range of a sheet; see {@link #encode(String, GridRange)}.
+	 *
+	 * @param sheetName        name of the sheet, or {@code null} for none
+	 * @param startRowIndex    zero-based start row, or {@code null} for the first row
+	 * @param startColumnIndex zero-based start column, or {@code null} for none
+	 * @param endRowIndex      zero-based inclusive end row, or {@code null} for none
+	 * @param endColumnIndex   zero-based inclusive end column, or {@code null} for none
+	 * @return the range in A1 notation
+	 */
+	public static String encode(String sheetName,
+	                            Integer startRowIndex,
+	                            Integer startColumnIndex,
+	                            Integer endRowIndex,
+	                            Integer endColumnIndex) {
+		final StringBuilder builder = new StringBuilder(sheetName == null ? 16 : sheetName.length() + 18);
+		if (sheetName != null && startRowIndex == null && startColumnIndex == null
+				&& endRowIndex == null && endColumnIndex == null) {
+			return appendSheetName(builder, sheetName).toString();
+		}
+		if (sheetName != null) {
+			appendSheetName(builder, sheetName).append('!');
+		}
+		if (startColumnIndex != null) {
+			appendColumn(builder, startColumnIndex);
+		}
+		builder.append(startRowIndex == null ? 1 : startRowIndex + 1);
+		if (endRowIndex != null || endColumnIndex != null) {
+			builder.append(':');
+			if (endColumnIndex != null) {
+				appendColumn(builder, endColumnIndex);
+			}
+			if (endRowIndex != null) {
+				builder.append(endRowIndex + 1);
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Encodes a range in R1C1 notation, e.g. {@code R2C1:R2C7}. Every index must be present.
+	 *
+	 * @param sheetName name of the sheet, or {@code null} for none
+	 * @param range     range to be encoded, with inclusive end indexes
+	 * @return the range in R1C1 notation
+	 */
+	public static String encodeR1C1(String sheetName, GridRange range) {
+		final StringBuilder builder = new StringBuilder(32);
+		if (sheetName != null) {
+			appendSheetName(builder, sheetName).append('!');
+		}
+		builder.append('R')
+		       .append(Objects.requireNonNull(range.getStartRowIndex(), "startRowIndex") + 1)
+		       .append('C')
+		       .append(Objects.requireNonNull(range.getStartColumnIndex(), "startColumnIndex") + 1);
+		if (range.getEndRowIndex() != null || range.getEndColumnIndex() != null) {
+			builder.append(":R")
+			       .append(Objects.requireNonNull(range.getEndRowIndex(), "endRowIndex") + 1)
+			       .append('C')
+			       .append(Objects.requireNonNull(range.getEndColumnIndex(), "endColumnIndex") + 1);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Parses a reference in A1 or R1C1 notation: a cell ({@code B3}), a range ({@code B3:D10}), an
+	 * open-ended range ({@code A:C}, {@code 2:5}, {@code B3:D}), optionally preceded by a sheet
+	 * name, quoted or not ({@code 'Class Data'!A2}). A sheet name alone refers to the whole sheet.
+	 *
+	 * @param reference the reference
+	 * @return the parsed range
+	 * @throws IllegalArgumentException if the reference is malformed
+	 */
+	public static A1Range parse(String reference) {
+		Objects.requireNonNull(reference);
+		String sheetName = null;
+		int start = 0;
+		if (reference.startsWith("'")) {
+			final StringBuilder name = new StringBuilder(reference.length());
+			int i = 1;
+			while (true) {
+				if (i >= reference.length()) {
+					throw new IllegalArgumentException("Unterminated sheet name: " + reference);
+				}
+				final char c = reference.charAt(i++);
+				if (c == '\'') {
+					if (i < reference.length() && reference.charAt(i) == '\'') {
+						name.append('\'');
+						i++;
+					} else {
+						break;
+					}
+				} else {
+					name.append(c);
+				}
+			}
+			sheetName = name.toString();
+			if (i == reference.length()) {
+				return new A1Range(sheetName, null, null, null, null);
+			}
+			if (reference.charAt(i) != '!') {
+				throw new IllegalArgumentException("Expected '!' after sheet name: " + reference);
+			}
+			start = i + 1;
+		} else {
+			final int separator = reference.lastIndexOf('!');
+			if (separator >= 0) {
+				sheetName = reference.substring(0, separator);
+				start = separator + 1;
+			}
+		}
+		if (start == reference.length()) {
+			if (sheetName == null) {
+				throw new IllegalArgumentException("Empty reference");
+			}
+			return new A1Range(sheetName, null, null, null, null);
+		}
+		final A1Range range = parseReference(sheetName, reference, start, reference.length());
+		if (range == null || isBeyondLastColumn(range)) {
+			if (sheetName == null) {
+				// A name without cells refers to a whole sheet
+				return new A1Range(reference, null, null, null, null);
+			}
+			throw new IllegalArgumentException("Invalid reference: " + reference);
+		}
+		return range;
+	}
+
+	private static boolean isBeyondLastColumn(A1Range range) {
+		return (range.getStartColumnIndex() != null && range.getStartColumnIndex() >= MAX_COLUMNS)
+				|| (range.getEndColumnIndex() != null && range.getEndColumnIndex() >= MAX_COLUMNS);
+	}
+
+	/**
+	 * Parses the cells part of a reference, returning {@code null} if it is not made of cells.
+	 */
+	private static A1Range parseReference(String sheetName, String reference, int from, int to) {
+		final int colon = reference.indexOf(':', from);
+		final int startEnd = colon < 0 || colon >= to ? to : colon;
+		final int[] start = parseCell(reference, from, startEnd);
+		if (start == null) {
+			return null;
+		}
+		if (startEnd == to) {
+			// A single cell needs both row and column
+			if (start[0] < 0 || start[1] < 0) {
+				return null;
+			}
+			return new A1Range(sheetName, start[0], start[1], start[0], start[1]);
+		}
+		final int[] end = parseCell(reference, startEnd + 1, to);
+		if (end == null || end[2] != start[2]) {
+			throw new IllegalArgumentException("Invalid range: " + reference.substring(from, to));
+		}
+		return new A1Range(sheetName,
+		                   start[0] < 0 ? null : start[0],
+		                   start[1] < 0 ? null : start[1],
+		                   end[0] < 0 ? null : end[0],
+		                   end[1] < 0 ? null : end[1]);
+	}
+
+	/**
+	 * Parses a cell as {row, column, isR1C1}, with -1 for a missing row or column, or returns
+	 * {@code null} if it is not a cell.
+	 */
+	private static int[] parseCell(String reference, int from, int to) {
+		if (from >= to) {
+			return null;
+		}
+		final int[] r1c1 = parseR1C1Cell(reference, from, to);
+		if (r1c1 != null) {
+			return r1c1;
+		}
+		int i = from;
+		while (i < to && letterValue(reference.charAt(i)) >= 0) {
+			i++;
+		}
+		final int lettersEnd = i;
+		while (i < to && reference.charAt(i) >= '0' && reference.charAt(i) <= '9') {
+			i++;
+		}
+		if (i != to || (lettersEnd == from && lettersEnd == to)) {
+			return null;
+		}
+		final int column = lettersEnd == from ? -1 : columnIndex(reference, from, lettersEnd);
+		final int row = lettersEnd == to ? -1 : parsePositive(reference, lettersEnd, to) - 1;
+		return new int[]{row, column, 0};
+	}
+
+	private static int[] parseR1C1Cell(String reference, int from, int to) {
+		if (reference.charAt(from) != 'R' && reference.charAt(from) != 'r') {
+			return null;
+		}
+		int i = from + 1;
+		final int rowStart = i;
+		while (i < to && Character.isDigit(reference.charAt(i))) {
+			i++;
+		}
+		if (i == rowStart || i >= to || (reference.charAt(i) != 'C' && reference.charAt(i) != 'c')) {
+			return null;
+		}
+		final int rowEnd = i++;
+		final int columnStart = i;
+		while (i < to && Character.isDigit(reference.charAt(i))) {
+			i++;
+		}
+		if (i != to || i == columnStart) {
+			return null;
+		}
+		return new int[]{parsePositive(reference, rowStart, rowEnd) - 1, parsePositive(reference, columnStart, to) - 1, 1};
+	}
+
+	private static int parsePositive(String reference, int from, int to) {
+		long number = 0;
+		for (int i = from; i < to; i++) {
+			number = number * 10 + (reference.charAt(i) - '0');
+			if (number > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Index too large: " + reference.substring(from, to));
+			}
+		}
+		if (number == 0) {
+			throw new IllegalArgumentException("Rows and columns start at 1: " + reference.substring(from, to));
+		}
+		return (int) number;
+	}
+
+	/**
+	 * A parsed reference. Indexes are zero-based, end indexes inclusive, and {@code null} where the
+	 * range is open.
+	 */
+	public static final class A1Range {
+		private final String sheetName;
+		private final Integer startRowIndex;
+		private final Integer startColumnIndex;
+		private final Integer endRowIndex;
+		private final Integer endColumnIndex;
+
+		private A1Range(String sheetName,
+		                Integer startRowIndex,
+		                Integer startColumnIndex,
+		                Integer endRowIndex,
+		                Integer endColumnIndex) {
+			this.sheetName = sheetName;
+			this.startRowIndex = startRowIndex;
+			this.startColumnIndex = startColumnIndex;
+			this.endRowIndex = endRowIndex;
+			this.endColumnIndex = endColumnIndex;
+		}
+
+		public String getSheetName() {
+			return sheetName;
+		}
+
+		public Integer getStartRowIndex() {
+			return startRowIndex;
+		}
+
+		public Integer getStartColumnIndex() {
+			return startColumnIndex;
+		}
+
+		public Integer getEndRowIndex() {
+			return endRowIndex;
+		}
+
+		public Integer getEndColumnIndex() {
+			return endColumnIndex;
+		}
+
+		/**
+		 * Returns the range as a {@code GridRange}, keeping inclusive end indexes.
+		 *
+		 * @return a new grid range without sheet identifier
+		 */
+		public GridRange toGridRange() {
+			return new GridRange().setStartRowIndex(startRowIndex)
+			                      .setStartColumnIndex(startColumnIndex)
+			                      .setEndRowIndex(endRowIndex)
+			                      .setEndColumnIndex(endColumnIndex);
+		}
+
+		@Override
+		public String toString() {
+			return encode(sheetName, startRowIndex, startColumnIndex, endRowIndex, endColumnIndex);
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Next free row of a table, tracked locally so that rows can be appended at explicit ranges
+ * instead of having the API look for the end of the table on every append.
+ * <p>
+ * The cursor also tracks the rows of the grid: rows are reserved in the grid already allocated,
+ * which grows by chunks of rows when a reservation would go past its end. Reservations are
+ * serialized, so concurrent appends get distinct, consecutive rows in the order they were
+ * reserved, but the grid grows in the background: a reservation is only ready to be written once
+ * the growths requested so far are done. Rows of a reservation that could not be written are given
+ * back with {@link Reservation#release()}, so that no blank row is left in the table.
+ * <p>
+ * The cursor only knows about the rows it saw or reserved: it suits tables only appended to
+ * through it, and must be {@link #reset()} when rows are added by other means.
+ */
+public final class AppendCursor {
+	public static final int DEFAULT_CHUNK_ROWS = 200;
+	private static final CompletableFuture<Void> GROWN = CompletableFuture.completedFuture(null);
+
+	private final int chunkRows;
+	private boolean seeded;
+	private int nextRow;
+	private int gridRows;
+	/**
+	 * Incremented on reset, so that reservations made before are not given back
+	 */
+	private int generation;
+	/**
+	 * Completes once the growths requested so far are done
+	 */
+	private CompletableFuture<Void> growth = GROWN;
+	/**
+	 * Rows given back before the rows following them, by first row, with their end
+	 */
+	private final TreeMap<Integer, Integer> released = new TreeMap<>();
+
+	/**
+	 * @param chunkRows minimum number of rows added to the grid when it is full
+	 */
+	public AppendCursor(int chunkRows) {
+		if (chunkRows < 1) {
+			throw new IllegalArgumentException("Chunks must have at least one row");
+		}
+		this.chunkRows = chunkRows;
+	}
+
+	public int getChunkRows() {
+		return chunkRows;
+	}
+
+	public synchronized boolean isSeeded() {
+		return seeded;
+	}
+
+	/**
+	 * Zero-based row the next reservation starts at, or -1 if the cursor is not seeded.
+	 */
+	public synchronized int getNextRow() {
+		return seeded ? nextRow : -1;
+	}
+
+	/**
+	 * Number of rows of the grid, as known by the cursor, growths in progress included, or -1 if it
+	 * is not seeded.
+	 */
+	public synchronized int getGridRows() {
+		return seeded ? gridRows : -1;
+	}
+
+	/**
+	 * Records rows of the table seen on the sheet, e.g. while reading its key columns: seeds the
+	 * cursor if needed, otherwise moves it past them. The cursor never moves backwards.
+	 *
+	 * @param nextRow  zero-based row following the last one holding values
+	 * @param gridRows number of rows of the grid, as known from the sheet metadata
+	 */
+	public synchronized void observe(int nextRow, int gridRows) {
+		if (!seeded) {
+			this.nextRow = nextRow;
+			this.gridRows = Math.max(nextRow, gridRows);
+			seeded = true;
+			return;
+		}
+		this.nextRow = Math.max(this.nextRow, nextRow);
+		this.gridRows = Math.max(this.gridRows, Math.max(this.nextRow, gridRows));
+	}
+
+	/**
+	 * Reserves consecutive rows, asking for the grid to grow if they do not fit in it. The grower
+	 * is called with the cursor locked, so it must only start the growth.
+	 *
+	 * @param rows   number of rows to reserve
+	 * @param grower starts adding rows at the end of the grid
+	 * @return the reservation, ready once the grid holds its rows
+	 * @throws IllegalStateException if the cursor is not seeded
+	 */
+	public synchronized Reservation reserve(int rows, GridGrower grower) {
+		if (!seeded) {
+			throw new IllegalStateException("Append cursor is not seeded");
+		}
+		if (rows < 1) {
+			throw new IllegalArgumentException("At least one row must be reserved");
+		}
+		final int end = nextRow + rows;
+		final CompletableFuture<Void> ready = end > gridRows ? grow(Math.max(chunkRows, end - gridRows), grower) : growth;
+		final int first = nextRow;
+		nextRow = end;
+		return new Reservation(first, rows, ready, generation);
+	}
+
+	/**
+	 * Starts a growth of the grid.
+	 *
+	 * @return completes once this growth and the ones in progress are done
+	 */
+	private CompletableFuture<Void> grow(int rows, GridGrower grower) {
+		final CompletableFuture<?> grown = grower.grow(rows);
+		gridRows += rows;
+		final int grownGeneration = generation;
+		final CompletableFuture<Void> pending = growth.isDone() && !growth.isCompletedExceptionally() ?
+		                                        grown.<Void>thenApply(result -> null) :
+		                                        CompletableFuture.allOf(growth, grown);
+		growth = pending;
+		grown.whenComplete((result, throwable) -> {
+			if (throwable != null) {
+				shrink(rows, grownGeneration);
+			}
+		});
+		pending.whenComplete((result, throwable) -> {
+			if (throwable != null) {
+				restartGrowth(pending);
+			}
+		});
+		return pending;
+	}
+
+	/**
+	 * Forgets rows the grid did not get.
+	 */
+	private synchronized void shrink(int rows, int grownGeneration) {
+		if (grownGeneration == generation) {
+			gridRows -= rows;
+		}
+	}
+
+	/**
+	 * Lets the next reservations wait for the next growths only, once a growth failed.
+	 */
+	private synchronized void restartGrowth(CompletableFuture<Void> failed) {
+		if (growth == failed) {
+			growth = GROWN;
+		}
+	}
+
+	private synchronized boolean release(Reservation reservation) {
+		if (reservation.generation != generation) {
+			return false;
+		}
+		released.put(reservation.firstRow, reservation.firstRow + reservation.rows);
+		Map.Entry<Integer, Integer> last = released.lastEntry();
+		while (last != null && last.getValue() == nextRow) {
+			nextRow = last.getKey();
+			released.remove(last.getKey());
+			last = released.lastEntry();
+		}
+		return !released.containsKey(reservation.firstRow);
+	}
+
+	/**
+	 * Forgets the position of the cursor, so that it is seeded again on next use.
+	 */
+	public synchronized void reset() {
+		seeded = false;
+		nextRow = 0;
+		gridRows = 0;
+		generation++;
+		growth = GROWN;
+		released.clear();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return seeded ? "AppendCursor{next=" + nextRow + ", grid=" + gridRows + "}" : "AppendCursor{not seeded}";
+	}
+
+	/**
+	 * Rows reserved to be written.
+	 */
+	public final class Reservation {
+		private final int firstRow;
+		private final int rows;
+		private final CompletableFuture<Void> grown;
+		private final int generation;
+
+		private Reservation(int firstRow, int rows, CompletableFuture<Void> grown, int generation) {
+			this.firstRow = firstRow;
+			this.rows = rows;
+			this.grown = grown;
+			this.generation = generation;
+		}
+
+		/**
+		 * Zero-based first row reserved.
+		 */
+		public int getFirstRow() {
+			return firstRow;
+		}
+
+		public int getRows() {
+			return rows;
+		}
+
+		/**
+		 * Completes once the grid holds the rows, or exceptionally if it could not grow.
+		 */
+		public CompletableFuture<Void> whenGridReady() {
+			return grown;
+		}
+
+		/**
+		 * Gives the rows back after they could not be written. They are reserved again by the next
+		 * reservations if no row after them is still reserved; otherwise they are left blank, unless
+		 * every reservation after them is given back too.
+		 *
+		 * @return whether the rows are free again
+		 */
+		public boolean release() {
+			return AppendCursor.this.release(this);
+		}
+	}
+
+	/**
+	 * Adds rows at the end of the grid of a sheet.
+	 */
+	@FunctionalInterface
+	public interface GridGrower {
+		/**
+		 * Starts adding rows, without waiting for them.
+		 *
+		 * @param rows number of rows to add
+		 * @return completes once the rows are added, or exceptionally if they cannot be
+		 */
+		CompletableFuture<?> grow(int rows);
+	}
+}
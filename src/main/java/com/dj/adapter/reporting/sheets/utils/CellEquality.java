@@ -0,0 +1,106 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Tells whether a value written with {@code USER_ENTERED} input matches a cell read with the
+ * {@code FORMULA} or {@code UNFORMATTED_VALUE} render options, i.e. whether writing it again
+ * would leave the cell as it is.
+ * <p>
+ * Both sides are brought to the value the sheet stores: numbers by value, whatever their type or
+ * text ({@code 1.50} and {@code 1.5}), percentages as fractions ({@code 50%} and {@code 0.5}),
+ * booleans whatever their case, and dates written as {@code yyyy-MM-dd} or
+ * {@code yyyy-MM-dd HH:mm:ss} as the serial number the sheet reads them back as. Anything else,
+ * formulas included, is compared as text; missing cells read as empty.
+ */
+public final class CellEquality {
+	/**
+	 * Day 0 of the serial numbers of the sheets
+	 */
+	private static final LocalDate EPOCH = LocalDate.of(1899, 12, 30);
+	private static final double SECONDS_PER_DAY = 24 * 60 * 60;
+	/**
+	 * Relative difference below which two numbers are the same, for serial numbers computed here
+	 * and by the sheet
+	 */
+	private static final double TOLERANCE = 1e-12;
+	private static final Pattern NUMBER = Pattern.compile("[-+]?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?");
+	private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}( \\d{2}:\\d{2}:\\d{2})?");
+	private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ENGLISH);
+
+	private CellEquality() {
+	}
+
+	/**
+	 * @param written value to be written, as entered by a user
+	 * @param read    value of the cell, rendered unformatted or as formula; null if missing
+	 * @return whether both are the same once stored
+	 */
+	public static boolean isSameValue(Object written, Object read) {
+		final Object left = normalize(written);
+		final Object right = normalize(read);
+		if (left instanceof Double && right instanceof Double) {
+			final double a = (Double) left;
+			final double b = (Double) right;
+			return a == b || Math.abs(a - b) <= TOLERANCE * Math.max(Math.abs(a), Math.abs(b));
+		}
+		return left.equals(right);
+	}
+
+	private static Object normalize(Object value) {
+		if (value == null) {
+			return "";
+		}
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		if (value instanceof Boolean) {
+			return value;
+		}
+		final String text = value.toString();
+		final String trimmed = text.trim();
+		if (trimmed.isEmpty()) {
+			return "";
+		}
+		if ("TRUE".equalsIgnoreCase(trimmed) || "FALSE".equalsIgnoreCase(trimmed)) {
+			return Boolean.valueOf(trimmed);
+		}
+		if (NUMBER.matcher(trimmed)
+		          .matches()) {
+			return Double.parseDouble(trimmed);
+		}
+		if (trimmed.endsWith("%")) {
+			final String percentage = trimmed.substring(0, trimmed.length() - 1)
+			                                 .trim();
+			if (NUMBER.matcher(percentage)
+			          .matches()) {
+				return new BigDecimal(percentage).movePointLeft(2)
+				                                 .doubleValue();
+			}
+		}
+		if (DATE.matcher(trimmed)
+		        .matches()) {
+			try {
+				return serialNumber(trimmed.length() > 10 ?
+				                    LocalDateTime.parse(trimmed, DATE_TIME) :
+				                    LocalDate.parse(trimmed)
+				                             .atStartOfDay());
+			} catch (DateTimeParseException e) {
+				// Not a valid date, e.g. 2018-13-01, the sheet keeps it as text
+			}
+		}
+		return text;
+	}
+
+	private static double serialNumber(LocalDateTime dateTime) {
+		return ChronoUnit.DAYS.between(EPOCH, dateTime.toLocalDate()) + dateTime.toLocalTime()
+		                                                                        .toSecondOfDay() / SECONDS_PER_DAY;
+	}
+}
@@ -0,0 +1,106 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Columnar copy of streamed value ranges: every column of every range is kept as a single list
+ * of cells, so that large reads cost one list per column instead of one per row. Missing cells,
+ * like the trailing empty cells the API omits, read as {@code null}.
+ */
+public class ColumnSnapshot implements ValueRangeSink {
+	private final List<List<ArrayList<Object>>> ranges = new ArrayList<>();
+	private final List<String> rangeNames = new ArrayList<>();
+	private final List<Integer> rowCounts = new ArrayList<>();
+
+	@Override
+	public void row(int rangeIndex, int rowIndex, List<Object> values) {
+		final List<ArrayList<Object>> columns = range(rangeIndex);
+		for (int column = 0; column < values.size(); column++) {
+			while (columns.size() <= column) {
+				columns.add(new ArrayList<>());
+			}
+			final ArrayList<Object> cells = columns.get(column);
+			while (cells.size() < rowIndex) {
+				cells.add(null);
+			}
+			cells.add(values.get(column));
+		}
+	}
+
+	@Override
+	public void endRange(int rangeIndex, String range, int rows) {
+		range(rangeIndex);
+		rangeNames.set(rangeIndex, range);
+		rowCounts.set(rangeIndex, rows);
+		for (ArrayList<Object> cells : ranges.get(rangeIndex)) {
+			cells.trimToSize();
+		}
+	}
+
+	private List<ArrayList<Object>> range(int rangeIndex) {
+		while (ranges.size() <= rangeIndex) {
+			ranges.add(new ArrayList<>(1));
+			rangeNames.add(null);
+			rowCounts.add(0);
+		}
+		return ranges.get(rangeIndex);
+	}
+
+	/**
+	 * Number of ranges received.
+	 */
+	public int getRangeCount() {
+		return ranges.size();
+	}
+
+	/**
+	 * The range as returned by the API, in A1 notation.
+	 */
+	public String getRange(int rangeIndex) {
+		return rangeNames.get(rangeIndex);
+	}
+
+	/**
+	 * Number of rows of a range, empty trailing rows excluded.
+	 */
+	public int getRowCount(int rangeIndex) {
+		return rowCounts.get(rangeIndex);
+	}
+
+	/**
+	 * Number of columns of a range, up to its last non-empty cell.
+	 */
+	public int getColumnCount(int rangeIndex) {
+		return ranges.get(rangeIndex)
+		             .size();
+	}
+
+	/**
+	 * Returns a cell of a range.
+	 *
+	 * @return the value, or {@code null} if the cell is empty or out of the range
+	 */
+	public Object get(int rangeIndex, int rowIndex, int columnIndex) {
+		final List<ArrayList<Object>> columns = ranges.get(rangeIndex);
+		if (columnIndex >= columns.size()) {
+			return null;
+		}
+		final List<Object> cells = columns.get(columnIndex);
+		return rowIndex < cells.size() ? cells.get(rowIndex) : null;
+	}
+
+	/**
+	 * Returns a column of a range, e.g. the only column of a key column read. It may be shorter
+	 * than the range when its last cells are empty.
+	 *
+	 * @return unmodifiable list of the cells of the column
+	 */
+	public List<Object> getColumn(int rangeIndex, int columnIndex) {
+		final List<ArrayList<Object>> columns = ranges.get(rangeIndex);
+		return columnIndex < columns.size() ?
+		       Collections.unmodifiableList(columns.get(columnIndex)) :
+		       Collections.emptyList();
+	}
+}
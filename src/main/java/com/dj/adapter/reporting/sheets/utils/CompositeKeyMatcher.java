@@ -0,0 +1,300 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import com.google.api.services.sheets.v4.model.BatchGetValuesResponse;
+import com.google.api.services.sheets.v4.model.ValueRange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.function.BiPredicate;
+
+/**
+ * Finds the rows whose key columns hold a given composite key. Keys are compared column by
+ * column, each cell by its text, so no row is ever joined into a single string and values may
+ * hold any character.
+ * <p>
+ * Rows are indexed from 0, the first row of the key column ranges. Columns may have different
+ * lengths, as the API omits trailing empty cells: missing and empty cells both read as the empty
+ * string, and so does a {@code null} key value.
+ */
+public final class CompositeKeyMatcher {
+	private static final String EMPTY = "";
+	private static final int[] NONE = new int[0];
+
+	private final Cells cells;
+	private final int columns;
+	private final int rows;
+
+	private CompositeKeyMatcher(Cells cells, int columns, int rows) {
+		this.cells = cells;
+		this.columns = columns;
+		this.rows = rows;
+	}
+
+	/**
+	 * Creates a matcher over the values of key column ranges, one range per key column, whose
+	 * rows hold the key in their first cell.
+	 *
+	 * @param columns values of every key column, in the order of the key; null for empty ranges
+	 * @return the matcher
+	 */
+	public static CompositeKeyMatcher of(List<List<List<Object>>> columns) {
+		final List<List<List<Object>>> values = new ArrayList<>(columns.size());
+		int rows = 0;
+		for (List<List<Object>> column : columns) {
+			final List<List<Object>> cells = column == null ? Collections.emptyList() : column;
+			values.add(cells);
+			rows = Math.max(rows, cells.size());
+		}
+		return new CompositeKeyMatcher((column, row) -> {
+			final List<List<Object>> cells = values.get(column);
+			if (row >= cells.size()) {
+				return null;
+			}
+			final List<Object> cell = cells.get(row);
+			return cell == null || cell.isEmpty() ? null : cell.get(0);
+		}, values.size(), rows);
+	}
+
+	/**
+	 * Creates a matcher over the key columns read by a {@code batchGet}, one range per key column.
+	 *
+	 * @param response the key columns, in the order of the key
+	 * @return the matcher
+	 */
+	public static CompositeKeyMatcher of(BatchGetValuesResponse response) {
+		final List<ValueRange> valueRanges = response.getValueRanges() == null ?
+		                                     Collections.emptyList() :
+		                                     response.getValueRanges();
+		final List<List<List<Object>>> columns = new ArrayList<>(valueRanges.size());
+		for (ValueRange valueRange : valueRanges) {
+			columns.add(valueRange.getValues());
+		}
+		return of(columns);
+	}
+
+	/**
+	 * Creates a matcher over key columns streamed into a snapshot, one range per key column.
+	 *
+	 * @param snapshot the key columns, in the order of the key
+	 * @return the matcher
+	 */
+	public static CompositeKeyMatcher of(ColumnSnapshot snapshot) {
+		int rows = 0;
+		for (int range = 0; range < snapshot.getRangeCount(); range++) {
+			rows = Math.max(rows, snapshot.getRowCount(range));
+		}
+		return new CompositeKeyMatcher((column, row) -> snapshot.get(column, row, 0), snapshot.getRangeCount(), rows);
+	}
+
+	/**
+	 * Creates a matcher over whole rows, e.g. a table read at once, whose key cells are at given
+	 * positions.
+	 *
+	 * @param rows       values of the rows
+	 * @param keyColumns position of every key column within the rows, in the order of the key
+	 * @return the matcher
+	 */
+	public static CompositeKeyMatcher ofRows(List<List<Object>> rows, int[] keyColumns) {
+		final int[] positions = keyColumns.clone();
+		return new CompositeKeyMatcher((column, row) -> {
+			final List<Object> cells = rows.get(row);
+			return cells == null || positions[column] >= cells.size() ? null : cells.get(positions[column]);
+		}, positions.length, rows.size());
+	}
+
+	/**
+	 * Number of rows, up to the last one holding a key cell.
+	 */
+	public int getRowCount() {
+		return rows;
+	}
+
+	/**
+	 * Returns the first row holding a key.
+	 *
+	 * @param key values of the key columns, in their order
+	 * @return the index of the row, or empty if no row holds the key
+	 */
+	public OptionalInt firstMatch(List<?> key) {
+		final String[] texts = texts(key);
+		for (int row = 0; row < rows; row++) {
+			if (matches(row, texts)) {
+				return OptionalInt.of(row);
+			}
+		}
+		return OptionalInt.empty();
+	}
+
+	/**
+	 * Returns the first row holding a key, its cells compared to the values of the key by a
+	 * predicate rather than by their text, e.g. for cells read unformatted.
+	 *
+	 * @param key       values of the key columns, in their order
+	 * @param sameValue tells whether a value of the key and a cell, null if missing, are the same
+	 * @return the index of the row, or empty if no row holds the key
+	 */
+	public OptionalInt firstMatch(List<?> key, BiPredicate<Object, Object> sameValue) {
+		checkSize(key);
+		for (int row = 0; row < rows; row++) {
+			boolean matches = true;
+			for (int column = 0; matches && column < columns; column++) {
+				matches = sameValue.test(key.get(column), cells.get(column, row));
+			}
+			if (matches) {
+				return OptionalInt.of(row);
+			}
+		}
+		return OptionalInt.empty();
+	}
+
+	/**
+	 * Returns every row holding a key, e.g. to detect duplicates.
+	 *
+	 * @param key values of the key columns, in their order
+	 * @return the indexes of the rows, in ascending order
+	 */
+	public int[] allMatches(List<?> key) {
+		final String[] texts = texts(key);
+		int[] matches = NONE;
+		int count = 0;
+		for (int row = 0; row < rows; row++) {
+			if (matches(row, texts)) {
+				if (count == matches.length) {
+					matches = Arrays.copyOf(matches, Math.max(4, count * 2));
+				}
+				matches[count++] = row;
+			}
+		}
+		return count == matches.length ? matches : Arrays.copyOf(matches, count);
+	}
+
+	/**
+	 * Hashes the key of every row, so that many keys can be looked up without scanning the rows
+	 * every time.
+	 *
+	 * @return an index of the rows by key
+	 */
+	public Index index() {
+		return new Index();
+	}
+
+	private void checkSize(List<?> key) {
+		if (key.size() != columns) {
+			throw new IllegalArgumentException(String.format("Key has %d values but there are %d key columns",
+			                                                 key.size(), columns));
+		}
+	}
+
+	private String[] texts(List<?> key) {
+		checkSize(key);
+		final String[] texts = new String[columns];
+		for (int column = 0; column < columns; column++) {
+			texts[column] = text(key.get(column));
+		}
+		return texts;
+	}
+
+	private boolean matches(int row, String[] key) {
+		for (int column = 0; column < columns; column++) {
+			if (!key[column].equals(text(cells.get(column, row)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int hash(String[] key) {
+		int hash = 1;
+		for (String text : key) {
+			hash = 31 * hash + text.hashCode();
+		}
+		return hash;
+	}
+
+	private static String text(Object value) {
+		if (value == null) {
+			return EMPTY;
+		}
+		return value instanceof String ? (String) value : String.valueOf(value);
+	}
+
+	/**
+	 * Rows chained by the hash of their key, without any object per row.
+	 */
+	public final class Index {
+		private final int[] hashes = new int[rows];
+		private final int[] next = new int[rows];
+		private final int[] heads;
+		private final int mask;
+
+		private Index() {
+			int capacity = 1;
+			while (capacity < rows * 2) {
+				capacity <<= 1;
+			}
+			heads = new int[capacity];
+			Arrays.fill(heads, -1);
+			mask = capacity - 1;
+			final String[] key = new String[columns];
+			// Inserted from the last row, so that chains are in ascending order
+			for (int row = rows - 1; row >= 0; row--) {
+				for (int column = 0; column < columns; column++) {
+					key[column] = text(cells.get(column, row));
+				}
+				final int hash = hash(key);
+				final int bucket = bucket(hash);
+				hashes[row] = hash;
+				next[row] = heads[bucket];
+				heads[bucket] = row;
+			}
+		}
+
+		/**
+		 * @see CompositeKeyMatcher#firstMatch(List)
+		 */
+		public OptionalInt firstMatch(List<?> key) {
+			final String[] texts = texts(key);
+			final int hash = hash(texts);
+			for (int row = heads[bucket(hash)]; row >= 0; row = next[row]) {
+				if (hashes[row] == hash && matches(row, texts)) {
+					return OptionalInt.of(row);
+				}
+			}
+			return OptionalInt.empty();
+		}
+
+		/**
+		 * @see CompositeKeyMatcher#allMatches(List)
+		 */
+		public int[] allMatches(List<?> key) {
+			final String[] texts = texts(key);
+			final int hash = hash(texts);
+			int[] matches = NONE;
+			int count = 0;
+			for (int row = heads[bucket(hash)]; row >= 0; row = next[row]) {
+				if (hashes[row] == hash && matches(row, texts)) {
+					if (count == matches.length) {
+						matches = Arrays.copyOf(matches, Math.max(4, count * 2));
+					}
+					matches[count++] = row;
+				}
+			}
+			return count == matches.length ? matches : Arrays.copyOf(matches, count);
+		}
+
+		private int bucket(int hash) {
+			return (hash ^ (hash >>> 16)) & mask;
+		}
+	}
+
+	/**
+	 * Key cell of a column and row, null if it is missing.
+	 */
+	@FunctionalInterface
+	private interface Cells {
+		Object get(int column, int row);
+	}
+}
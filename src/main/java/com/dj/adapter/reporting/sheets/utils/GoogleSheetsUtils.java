@@ -12,7 +12,9 @@ public final class GoogleSheetsUtils {
 	 *
 	 * @param response The response when retrieving more than one range of values in a spreadsheet.
 	 * @return a list containing values for every range
+	 * @deprecated see {@link MergedValueRanges}; use {@link CompositeKeyMatcher#of(BatchGetValuesResponse)}
 	 */
+	@Deprecated
 	public static MergedValueRanges mergeMultipleValueRanges(BatchGetValuesResponse response) {
 		return MergedValueRanges.of(response.getValueRanges()
 		                                    .stream()
@@ -55,9 +57,11 @@ public final class GoogleSheetsUtils {
 	 * @return a map for postions in the list
 	 */
 	public static Map<String, Integer> listToMap(List<Object> items, Integer offset) {
-		final Map<String, Integer> result = new HashMap<>();
-		items.stream()
-		     .forEach(item -> result.put(String.valueOf(item), items.indexOf(item) + offset));
+		final Map<String, Integer> result = new HashMap<>(items.size() * 4 / 3 + 1);
+		int position = offset;
+		for (Object item : items) {
+			result.putIfAbsent(String.valueOf(item), position++);
+		}
 		return result;
 	}
 
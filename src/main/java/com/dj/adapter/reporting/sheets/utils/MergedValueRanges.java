@@ -5,6 +5,13 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+/**
+ * Values of multiple ranges joined item by item.
+ *
+ * @deprecated rows are joined into strings, skipping the first one; look rows up by key with
+ * {@link CompositeKeyMatcher} instead
+ */
+@Deprecated
 public class MergedValueRanges {
 	private final List<List<List<Object>>> value;
 
@@ -25,20 +32,24 @@ public class MergedValueRanges {
 	/**
 	 * Checks the minimum size of the merged lists.
 	 *
-	 * @return the size of the list with fewer elements
+	 * @return the size of the list with fewer elements, ranges without values being empty
 	 */
 	private Optional<Integer> minimumSize() {
-		return this.value.stream().map(List::size).min(Integer::compareTo);
+		return this.value.stream()
+		                 .map(values -> values == null ? 0 : values.size())
+		                 .min(Integer::compareTo);
 	}
 
 	/**
 	 * Concatenate all the elements, item by item, from the different lists, using provided delimiter.
+	 * The first item of every list is skipped, and lists are truncated to the shortest one.
 	 *
 	 * @param delimiter character sequence used as delimiter
 	 * @return a unique list of concatenated elements
 	 */
 	public Optional<List<String>> concat(CharSequence delimiter) {
-		return Optional.ofNullable(IntStream.range(1, this.minimumSize().get())
+		return Optional.ofNullable(IntStream.range(1, this.minimumSize()
+		                                                          .orElse(0))
 		                                    .mapToObj(index -> this.value.stream()
 		                                                                 .map(value -> value.get(index))
 		                                                                 .map(item -> String.valueOf(item.stream()
@@ -0,0 +1,143 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Plans the reading of many rows as few ranges: requested rows are sorted and merged into spans
+ * whenever the rows between them are no more than a gap threshold, trading a few unwanted rows
+ * for fewer ranges in a single {@code batchGet}. The values read are then split back per row.
+ */
+public final class RowRangePlanner {
+	public static final int DEFAULT_MAX_GAP = 8;
+
+	private final int maxGap;
+
+	/**
+	 * @param maxGap number of unwanted rows read at most to join two requested rows in a single
+	 *               range; 0 only joins adjacent rows
+	 */
+	public RowRangePlanner(int maxGap) {
+		if (maxGap < 0) {
+			throw new IllegalArgumentException("Gap threshold must not be negative");
+		}
+		this.maxGap = maxGap;
+	}
+
+	public int getMaxGap() {
+		return maxGap;
+	}
+
+	/**
+	 * Merges rows into spans.
+	 *
+	 * @param rowIds zero-based rows, in any order, possibly repeated
+	 * @return the spans covering every row, in ascending order
+	 */
+	public List<Span> plan(Collection<Integer> rowIds) {
+		final int[] rows = new int[rowIds.size()];
+		int count = 0;
+		for (Integer rowId : rowIds) {
+			if (rowId == null || rowId < 0) {
+				throw new IllegalArgumentException("Invalid row " + rowId);
+			}
+			rows[count++] = rowId;
+		}
+		if (count == 0) {
+			return Collections.emptyList();
+		}
+		Arrays.sort(rows);
+		final List<Span> spans = new ArrayList<>();
+		int first = 0;
+		for (int index = 1; index <= count; index++) {
+			if (index == count || rows[index] - rows[index - 1] - 1 > maxGap) {
+				spans.add(new Span(distinct(rows, first, index)));
+				first = index;
+			}
+		}
+		return spans;
+	}
+
+	/**
+	 * Splits the values read for every span back per requested row.
+	 *
+	 * @param spans  the planned spans
+	 * @param values values read for every span, in the same order; null for spans without values
+	 * @return the values of every requested row that has any, by row
+	 */
+	public static Map<Integer, List<Object>> split(List<Span> spans, List<List<List<Object>>> values) {
+		final Map<Integer, List<Object>> rows = new TreeMap<>();
+		for (int index = 0; index < spans.size(); index++) {
+			final Span span = spans.get(index);
+			final List<List<Object>> spanValues = index < values.size() ? values.get(index) : null;
+			if (spanValues == null) {
+				continue;
+			}
+			for (int rowId : span.rowIds) {
+				final int offset = rowId - span.start;
+				if (offset < spanValues.size() && spanValues.get(offset) != null && !spanValues.get(offset)
+				                                                                               .isEmpty()) {
+					rows.put(rowId, spanValues.get(offset));
+				}
+			}
+		}
+		return rows;
+	}
+
+	private static int[] distinct(int[] sorted, int from, int to) {
+		final int[] rows = new int[to - from];
+		int count = 0;
+		for (int index = from; index < to; index++) {
+			if (count == 0 || rows[count - 1] != sorted[index]) {
+				rows[count++] = sorted[index];
+			}
+		}
+		return count == rows.length ? rows : Arrays.copyOf(rows, count);
+	}
+
+	/**
+	 * Consecutive rows read as a single range, and the requested ones among them.
+	 */
+	public static final class Span {
+		private final int start;
+		private final int end;
+		private final int[] rowIds;
+
+		private Span(int[] rowIds) {
+			this.start = rowIds[0];
+			this.end = rowIds[rowIds.length - 1];
+			this.rowIds = rowIds;
+		}
+
+		/**
+		 * Zero-based first row.
+		 */
+		public int getStart() {
+			return start;
+		}
+
+		/**
+		 * Zero-based last row, inclusive.
+		 */
+		public int getEnd() {
+			return end;
+		}
+
+		/**
+		 * Requested rows, in ascending order.
+		 */
+		public int[] getRowIds() {
+			return rowIds.clone();
+		}
+
+		@Override
+		public String toString() {
+			return "Span{" + start + ".." + end + ", " + rowIds.length + " rows}";
+		}
+	}
+}
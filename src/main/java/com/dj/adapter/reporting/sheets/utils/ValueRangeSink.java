@@ -0,0 +1,31 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import java.util.List;
+
+/**
+ * Receives the rows of one or more value ranges as they are parsed from a response, so that they
+ * are never held as a whole. See {@link ValueRangeStreamReader}.
+ */
+@FunctionalInterface
+public interface ValueRangeSink {
+
+	/**
+	 * Receives a row of a range, or a column if the ranges were read by columns.
+	 *
+	 * @param rangeIndex index of the range, in the order the ranges were requested
+	 * @param rowIndex   index of the row within the range
+	 * @param values     values of the row, trailing empty cells omitted as the API does; the list
+	 *                   is reused for the next row, so it has to be copied to be kept
+	 */
+	void row(int rangeIndex, int rowIndex, List<Object> values);
+
+	/**
+	 * Called once all the rows of a range have been received.
+	 *
+	 * @param rangeIndex index of the range, in the order the ranges were requested
+	 * @param range      the range in A1 notation, as returned by the API
+	 * @param rows       number of rows received
+	 */
+	default void endRange(int rangeIndex, String range, int rows) {
+	}
+}
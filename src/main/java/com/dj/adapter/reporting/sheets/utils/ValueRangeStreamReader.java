@@ -0,0 +1,116 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the {@code ValueRange} of a {@code values.get} response, or the value ranges of a
+ * {@code values.batchGet} response, token by token, handing every row to a {@link ValueRangeSink}
+ * as soon as it is parsed. Only one row is held at a time, and its list is reused.
+ * <p>
+ * Cells are decoded as the client does: strings as {@code String}, numbers as {@code BigDecimal}
+ * and booleans as {@code Boolean}.
+ */
+public final class ValueRangeStreamReader {
+	private static final String VALUE_RANGES = "valueRanges";
+	private static final String VALUES = "values";
+	private static final String RANGE = "range";
+
+	private final JsonParser parser;
+	private final ValueRangeSink sink;
+	private final ArrayList<Object> row = new ArrayList<>();
+	private final List<Object> rowView = Collections.unmodifiableList(row);
+	private int ranges;
+
+	private ValueRangeStreamReader(JsonParser parser, ValueRangeSink sink) {
+		this.parser = parser;
+		this.sink = sink;
+	}
+
+	/**
+	 * Reads a response to its end, without closing the parser.
+	 *
+	 * @param parser parser positioned before the response object
+	 * @param sink   receives the rows
+	 * @return the number of ranges read
+	 * @throws IOException if the response cannot be read or is not a value range response
+	 */
+	public static int read(JsonParser parser, ValueRangeSink sink) throws IOException {
+		final ValueRangeStreamReader reader = new ValueRangeStreamReader(parser, sink);
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new IOException("Expected a value range object but got " + parser.getCurrentToken());
+		}
+		reader.readRangeObject(false);
+		return reader.ranges;
+	}
+
+	/**
+	 * Reads an object whose start has just been read: a value range, or a batch response holding
+	 * value ranges.
+	 *
+	 * @param inBatch whether the object is an element of {@code valueRanges}
+	 */
+	private void readRangeObject(boolean inBatch) throws IOException {
+		final int rangeIndex = ranges;
+		String range = null;
+		int rows = -1;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			final String field = parser.getCurrentName();
+			final JsonToken value = parser.nextToken();
+			if (RANGE.equals(field) && value == JsonToken.VALUE_STRING) {
+				range = parser.getText();
+			} else if (VALUES.equals(field) && value == JsonToken.START_ARRAY) {
+				rows = readValues(rangeIndex);
+			} else if (VALUE_RANGES.equals(field) && value == JsonToken.START_ARRAY) {
+				while (parser.nextToken() == JsonToken.START_OBJECT) {
+					readRangeObject(true);
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+		if (inBatch || range != null || rows >= 0) {
+			// Empty ranges come without values
+			sink.endRange(rangeIndex, range, Math.max(rows, 0));
+			ranges = rangeIndex + 1;
+		}
+	}
+
+	private int readValues(int rangeIndex) throws IOException {
+		int rowIndex = 0;
+		while (parser.nextToken() == JsonToken.START_ARRAY) {
+			row.clear();
+			JsonToken token;
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				row.add(readCell(token));
+			}
+			sink.row(rangeIndex, rowIndex++, rowView);
+		}
+		return rowIndex;
+	}
+
+	private Object readCell(JsonToken token) throws IOException {
+		switch (token) {
+			case VALUE_STRING:
+				return parser.getText();
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+				return parser.getDecimalValue();
+			case VALUE_TRUE:
+				return Boolean.TRUE;
+			case VALUE_FALSE:
+				return Boolean.FALSE;
+			case START_ARRAY:
+			case START_OBJECT:
+				parser.skipChildren();
+				return null;
+			default:
+				return null;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.dj.adapter.reporting.sheets.concurrent;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class KeyedSequencerTest {
+	private final List<Runnable> queued = new ArrayList<>();
+	private final Executor executor = queued::add;
+	private final KeyedSequencer<String> sequencer = new KeyedSequencer<>(executor);
+	private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+	@Test
+	public void runsTasksOfAKeyOneAfterTheOther() {
+		final CompletableFuture<String> first = new CompletableFuture<>();
+		final CompletableFuture<String> second = new CompletableFuture<>();
+		final CompletableFuture<String> firstResult = sequencer.submit("a", task("a1", first));
+		final CompletableFuture<String> secondResult = sequencer.submit("a", task("a2", second));
+		final CompletableFuture<String> thirdResult = sequencer.submit("a", task("a3", CompletableFuture.completedFuture("3")));
+		assertEquals(Collections.singletonList("a1"), started);
+
+		first.complete("1");
+		assertEquals("1", firstResult.join());
+		assertEquals(Collections.singletonList("a1"), started);
+		runQueued();
+		assertEquals(Arrays.asList("a1", "a2"), started);
+		assertFalse(thirdResult.isDone());
+
+		second.complete("2");
+		runQueued();
+		assertEquals(Arrays.asList("a1", "a2", "a3"), started);
+		assertEquals("2", secondResult.join());
+		assertEquals("3", thirdResult.join());
+		assertEquals(0, sequencer.getPendingKeys());
+	}
+
+	@Test
+	public void runsTasksOfDifferentKeysConcurrently() {
+		final CompletableFuture<String> first = new CompletableFuture<>();
+		sequencer.submit("a", task("a1", first));
+		sequencer.submit("b", task("b1", new CompletableFuture<>()));
+		assertEquals(Arrays.asList("a1", "b1"), started);
+		assertTrue(queued.isEmpty());
+		assertEquals(2, sequencer.getPendingKeys());
+
+		first.complete("1");
+		assertEquals(1, sequencer.getPendingKeys());
+	}
+
+	@Test
+	public void throwsTheFailuresOfATaskStartedRightAway() {
+		try {
+			sequencer.submit("a", () -> {
+				throw new IOException("lookup failed");
+			});
+			fail("Failure to start not thrown");
+		} catch (IOException e) {
+			assertEquals("lookup failed", e.getMessage());
+		}
+		assertEquals(0, sequencer.getPendingKeys());
+		assertEquals("1", sequencer.submit("a", task("a1", CompletableFuture.completedFuture("1")))
+		                           .join());
+	}
+
+	@Test
+	public void failsTheFutureOfAQueuedTaskThatFailsToStart() throws IOException {
+		final CompletableFuture<String> first = new CompletableFuture<>();
+		sequencer.submit("a", task("a1", first));
+		final CompletableFuture<String> failing = sequencer.submit("a", () -> {
+			throw new IOException("lookup failed");
+		});
+		final CompletableFuture<String> next = sequencer.submit("a", task("a3", CompletableFuture.completedFuture("3")));
+
+		first.completeExceptionally(new IllegalStateException("write failed"));
+		runQueued();
+		try {
+			failing.join();
+			fail("Failure to start not reported");
+		} catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		runQueued();
+		assertEquals("3", next.join());
+		assertEquals(0, sequencer.getPendingKeys());
+	}
+
+	@Test
+	public void failsQueuedTasksRejectedByTheExecutor() {
+		final KeyedSequencer<String> rejecting = new KeyedSequencer<>(runnable -> {
+			throw new RejectedExecutionException("shut down");
+		});
+		final CompletableFuture<String> first = new CompletableFuture<>();
+		rejecting.submit("a", task("a1", first));
+		final CompletableFuture<String> rejected = rejecting.submit("a", task("a2", CompletableFuture.completedFuture("2")));
+
+		first.complete("1");
+		assertTrue(rejected.isCompletedExceptionally());
+		assertEquals(Collections.singletonList("a1"), started);
+		assertEquals(0, rejecting.getPendingKeys());
+	}
+
+	private KeyedSequencer.Task<String, RuntimeException> task(String name, CompletableFuture<String> future) {
+		return () -> {
+			started.add(name);
+			return future;
+		};
+	}
+
+	private void runQueued() {
+		final List<Runnable> tasks = new ArrayList<>(queued);
+		queued.clear();
+		tasks.forEach(Runnable::run);
+	}
+}
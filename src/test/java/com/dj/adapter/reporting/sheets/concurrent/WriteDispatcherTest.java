@@ -0,0 +1,118 @@
+package com.dj.adapter.reporting.sheets.concurrent;
+
+import com.dj.adapter.reporting.sheets.retry.AsyncRetryExecutor;
+import com.dj.adapter.reporting.sheets.retry.RetryExecutor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WriteDispatcherTest {
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+	private final RetryExecutor delegate = new AsyncRetryExecutor(scheduler).withFixedBackoff(10)
+	                                                                        .withMaxRetries(3);
+
+	@After
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void runsTheWritesOfALaneOneAtATimeInOrder() {
+		final RetryExecutor lane = new WriteDispatcher(delegate, WriteDispatcher.LaneScope.SHEET).lane("spreadsheet", "Tasks");
+		final List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger overlaps = new AtomicInteger();
+		final List<CompletableFuture<Void>> writes = new ArrayList<>();
+		for (int write = 0; write < 50; write++) {
+			final int number = write;
+			writes.add(lane.doWithRetry(ctx -> {
+				if (running.incrementAndGet() > 1) {
+					overlaps.incrementAndGet();
+				}
+				Thread.sleep(1);
+				written.add(number);
+				running.decrementAndGet();
+			}));
+		}
+		CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]))
+		                 .join();
+		assertEquals(0, overlaps.get());
+		for (int write = 0; write < 50; write++) {
+			assertEquals(write, (int) written.get(write));
+		}
+	}
+
+	@Test
+	public void waitsForTheRetriesOfAWriteBeforeTheNextOne() {
+		final RetryExecutor lane = new WriteDispatcher(delegate, WriteDispatcher.LaneScope.SHEET).lane("spreadsheet", "Tasks");
+		final List<String> written = Collections.synchronizedList(new ArrayList<>());
+		final CompletableFuture<Void> first = lane.doWithRetry(ctx -> {
+			if (ctx.getRetryCount() < 2) {
+				throw new IOException("429 Too Many Requests");
+			}
+			written.add("first");
+		});
+		final CompletableFuture<Void> second = lane.doWithRetry(ctx -> written.add("second"));
+		second.join();
+		assertTrue(first.isDone());
+		assertEquals(2, written.size());
+		assertEquals("first", written.get(0));
+	}
+
+	@Test
+	public void keepsOtherLanesGoingWhileOneIsStuck() throws InterruptedException {
+		final WriteDispatcher dispatcher = new WriteDispatcher(delegate, WriteDispatcher.LaneScope.SHEET);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CompletableFuture<Void> stuck = dispatcher.lane("spreadsheet", "Tasks")
+		                                                .doWithRetry(ctx -> release.await());
+		final CompletableFuture<String> other = dispatcher.lane("spreadsheet", "Notes")
+		                                                  .getWithRetry(() -> "written");
+		assertEquals("written", other.join());
+		assertFalse(stuck.isDone());
+		release.countDown();
+		stuck.join();
+		assertEquals(0, dispatcher.getActiveLanes());
+	}
+
+	@Test
+	public void sharesALaneBetweenTheSheetsOfASpreadsheet() throws Exception {
+		final WriteDispatcher dispatcher = new WriteDispatcher(delegate, WriteDispatcher.LaneScope.SPREADSHEET);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CompletableFuture<Void> first = dispatcher.lane("spreadsheet", "Tasks")
+		                                                .doWithRetry(ctx -> release.await());
+		final CompletableFuture<String> sameSpreadsheet = dispatcher.lane("spreadsheet", "Notes")
+		                                                            .getWithRetry(() -> "written");
+		final CompletableFuture<String> otherSpreadsheet = dispatcher.lane("other", "Tasks")
+		                                                             .getWithRetry(() -> "written");
+		assertEquals("written", otherSpreadsheet.join());
+		Thread.sleep(50);
+		assertFalse(sameSpreadsheet.isDone());
+		release.countDown();
+		assertEquals("written", sameSpreadsheet.get(1, TimeUnit.SECONDS));
+		assertTrue(first.isDone());
+	}
+
+	@Test
+	public void runsTheNextWriteOnceOneFails() {
+		final RetryExecutor lane = new WriteDispatcher(new AsyncRetryExecutor(scheduler).dontRetry(),
+		                                               WriteDispatcher.LaneScope.SHEET).lane("spreadsheet", "Tasks");
+		final CompletableFuture<Void> failed = lane.doWithRetry(ctx -> {
+			throw new IOException("400 Bad Request");
+		});
+		assertEquals("written", lane.getWithRetry(() -> "written")
+		                            .join());
+		assertTrue(failed.isCompletedExceptionally());
+	}
+}
@@ -0,0 +1,63 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class FormattersTest {
+	private final Formatter utc = Formatters.dateTime(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"), ZoneOffset.UTC);
+
+	@Test
+	public void formatsDatesAndTimes() {
+		final Instant instant = Instant.parse("2018-05-17T10:15:30Z");
+		assertEquals("2018-05-17 10:15:30", utc.format("Date", Date.from(instant)));
+		assertEquals("2018-05-17 10:15:30", utc.format("Date", instant));
+		assertEquals("2018-05-17 10:15:30", utc.format("Date", LocalDateTime.of(2018, 5, 17, 10, 15, 30)));
+		assertEquals("2018-05-17 00:00:00", utc.format("Date", LocalDate.of(2018, 5, 17)));
+
+		final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+		calendar.setTime(Date.from(instant));
+		assertEquals("2018-05-17 10:15:30", utc.format("Date", calendar));
+	}
+
+	@Test
+	public void formatsInTheGivenZone() {
+		final Formatter paris = Formatters.dateTime(DateTimeFormatter.ofPattern("HH:mm"), ZoneId.of("Europe/Paris"));
+		assertEquals("12:15", paris.format("Date", Instant.parse("2018-05-17T10:15:30Z")));
+	}
+
+	@Test
+	public void leavesOtherValuesUnchanged() {
+		final Object value = new Object();
+		assertSame(value, utc.format("Date", value));
+		assertEquals("2018-05-17", utc.format("Date", "2018-05-17"));
+		assertEquals(42, utc.format("Date", 42));
+		assertNull(utc.format("Date", null));
+	}
+
+	@Test
+	public void builtInsAreThreadSafe() {
+		assertTrue(Formatters.dateTime("yyyy-MM-dd").isThreadSafe());
+		assertTrue(Formatters.isoDate().isThreadSafe());
+		assertTrue(Formatters.nullToEmpty().isThreadSafe());
+		assertTrue(Formatters.maxLength(10).isThreadSafe());
+	}
+
+	@Test
+	public void replacesNullAndTruncatesText() {
+		assertEquals("", Formatters.nullToEmpty().format("Name", null));
+		assertEquals("abc", Formatters.maxLength(3).format("Name", "abcdef"));
+		assertEquals("ab", Formatters.maxLength(3).format("Name", "ab"));
+		assertEquals(12345, Formatters.maxLength(3).format("Name", 12345));
+	}
+}
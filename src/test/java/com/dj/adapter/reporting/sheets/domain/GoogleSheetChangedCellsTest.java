@@ -0,0 +1,93 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import com.dj.adapter.reporting.sheets.transport.SheetsApiCall;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Updates of the changed cells only, on cells rendered by the sheet otherwise than they are stored.
+ */
+public class GoogleSheetChangedCellsTest {
+	private final InMemorySheetsServer server = new InMemorySheetsServer();
+	private GoogleSheet sheet;
+
+	@Before
+	public void setUp() throws IOException {
+		server.addSheet("spreadsheet", "Tasks", Arrays.asList(Arrays.asList("Task ID", "Amount", "Share", "Total"),
+		                                                      Arrays.asList("t1", new BigDecimal("1234.4"), new BigDecimal("0.5"), "=B2*C2"),
+		                                                      Arrays.asList("t2", new BigDecimal("10"), new BigDecimal("1"), "=B3*C3")));
+		// Amounts are rounded to units, shares are percentages
+		server.setNumberFormat("spreadsheet", "Tasks", 1, new DecimalFormat("0"));
+		server.setNumberFormat("spreadsheet", "Tasks", 2, NumberFormat.getPercentInstance(Locale.ENGLISH));
+		server.addSheet("spreadsheet", "Numbers", Arrays.asList(Arrays.asList("Id", "Name"),
+		                                                        Arrays.asList(new BigDecimal("7.5"), "old")));
+		server.setNumberFormat("spreadsheet", "Numbers", 0, new DecimalFormat("0"));
+		sheet = server.newSheet("spreadsheet", "Tasks", 0, 3)
+		              .setUpdateMode(GoogleSheet.UpdateMode.CHANGED_CELLS);
+	}
+
+	@Test
+	public void writesNumbersThatOnlyLookTheSame() throws IOException {
+		assertEquals("1234", sheet.getRowByColumnValues(key("t1"))
+		                          .get()
+		                          .get(1));
+		save("t1", "1234", "0.5", "=B2*C2");
+		assertEquals(1, updates());
+		assertEquals(Arrays.asList("t1", "1234", new BigDecimal("0.5"), "=B2*C2"), row(1));
+	}
+
+	@Test
+	public void skipsValuesStoredAlready() throws IOException {
+		save("t1", "1234.40", "50%", "=B2*C2");
+		save("t2", 10, 1, "=B3*C3");
+		assertEquals(0, updates());
+	}
+
+	@Test
+	public void writesChangedFormulas() throws IOException {
+		save("t2", 10, 1, "=B3+C3");
+		assertEquals(1, updates());
+		assertEquals("=B3+C3", row(2).get(3));
+	}
+
+	@Test
+	public void matchesKeysAsStored() throws IOException {
+		final GoogleSheet numbers = server.newSheet("spreadsheet", "Numbers", 0, 1)
+		                                  .setUpdateMode(GoogleSheet.UpdateMode.CHANGED_CELLS);
+		numbers.saveRow(Arrays.asList("7.50", "new"), Collections.singletonMap("Id", "7.50"))
+		       .join();
+		assertEquals(Arrays.asList(Arrays.asList("Id", "Name"), Arrays.asList(new BigDecimal("7.5"), "new")),
+		             server.getValues("spreadsheet", "Numbers"));
+	}
+
+	private void save(String taskId, Object amount, Object share, Object total) throws IOException {
+		sheet.saveRow(Arrays.asList(taskId, amount, share, total), key(taskId))
+		     .join();
+	}
+
+	private long updates() {
+		return server.getRequestCount(SheetsApiCall.Method.VALUES_BATCH_UPDATE);
+	}
+
+	private List<Object> row(int row) {
+		return server.getValues("spreadsheet", "Tasks")
+		             .get(row);
+	}
+
+	private static Map<String, Object> key(String taskId) {
+		return Collections.singletonMap("Task ID", taskId);
+	}
+}
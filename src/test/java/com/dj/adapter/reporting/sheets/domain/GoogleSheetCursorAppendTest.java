@@ -0,0 +1,134 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import com.dj.adapter.reporting.sheets.transport.CallRecorder;
+import com.dj.adapter.reporting.sheets.transport.SheetsApiCall;
+import com.dj.adapter.reporting.sheets.transport.TracedCall;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Appends at the rows tracked by the append cursor, to a table ending a few rows before the end
+ * of its grid of 1000 rows.
+ */
+public class GoogleSheetCursorAppendTest {
+	private final InMemorySheetsServer server = new InMemorySheetsServer();
+	private GoogleSheet sheet;
+
+	@Before
+	public void setUp() throws IOException {
+		server.addSheet("spreadsheet", "Tasks", rows(0, 995));
+		sheet = server.newSheet("spreadsheet", "Tasks", 0, 1)
+		              .setAppendMode(GoogleSheet.AppendMode.CURSOR)
+		              .setAppendChunkRows(50);
+	}
+
+	@Test
+	public void appendsAfterTheLastRowWithoutLookingForIt() throws IOException {
+		assertEquals("Tasks!A996:B996", sheet.appendRow(Arrays.asList("t995", "n995"))
+		                                     .join()
+		                                     .getRange());
+		server.resetCounters();
+		assertEquals("Tasks!A997:B997", sheet.appendRow(Arrays.asList("t996", "n996"))
+		                                     .join()
+		                                     .getRange());
+		assertEquals(1, server.getRequestCount());
+		assertEquals(1, server.getRequestCount(SheetsApiCall.Method.VALUES_BATCH_UPDATE));
+		assertEquals(0, server.getRequestCount(SheetsApiCall.Method.VALUES_APPEND));
+	}
+
+	@Test
+	public void growsTheGridByChunks() throws IOException {
+		sheet.appendRows(rows(995, 1000))
+		     .join();
+		server.resetCounters();
+		sheet.appendRows(rows(1000, 1010))
+		     .join();
+		assertEquals(1, server.getRequestCount(SheetsApiCall.Method.SPREADSHEETS_BATCH_UPDATE));
+		sheet.appendRows(rows(1010, 1050))
+		     .join();
+		assertEquals(1, server.getRequestCount(SheetsApiCall.Method.SPREADSHEETS_BATCH_UPDATE));
+		sheet.appendRows(rows(1050, 1200))
+		     .join();
+		assertEquals(2, server.getRequestCount(SheetsApiCall.Method.SPREADSHEETS_BATCH_UPDATE));
+		assertEquals(0, server.getRequestCount(SheetsApiCall.Method.VALUES_APPEND));
+		assertEquals(rows(0, 1200), server.getValues("spreadsheet", "Tasks"));
+	}
+
+	@Test
+	public void givesConcurrentAppendsDistinctRows() throws IOException {
+		final List<CompletableFuture<?>> appended = new ArrayList<>();
+		for (int task = 995; task < 1195; task++) {
+			appended.add(sheet.appendRow(Arrays.asList("t" + task, "n" + task)));
+		}
+		CompletableFuture.allOf(appended.toArray(new CompletableFuture<?>[0]))
+		                 .join();
+		final List<List<Object>> values = server.getValues("spreadsheet", "Tasks");
+		assertEquals(1195, values.size());
+		final Set<Object> tasks = new HashSet<>();
+		for (List<Object> row : values) {
+			tasks.add(row.get(0));
+		}
+		assertEquals(1195, tasks.size());
+	}
+
+	@Test
+	public void seedsFromTheFirstColumn() throws IOException {
+		final StringWriter trace = new StringWriter();
+		final GoogleSheetsRepositoryFactory factory = new GoogleSheetsRepositoryFactory();
+		factory.setCallRecorder(new CallRecorder(trace));
+		final GoogleSheet recorded = server.newSheet(factory, "spreadsheet", "Tasks", 0, 1)
+		                                   .setAppendMode(GoogleSheet.AppendMode.CURSOR);
+		recorded.appendRow(Arrays.asList("t995", "n995"))
+		        .join();
+		final List<List<String>> reads = new ArrayList<>();
+		for (String line : trace.toString()
+		                        .split("\n")) {
+			if (!line.startsWith("#")) {
+				final TracedCall call = TracedCall.parse(line);
+				if (call.getMethod() == SheetsApiCall.Method.VALUES_GET) {
+					reads.add(call.getRanges());
+				}
+			}
+		}
+		assertEquals(Collections.singletonList(Collections.singletonList("Tasks!A2:A")), reads);
+	}
+
+	@Test
+	public void givesRejectedRowsBack() throws IOException {
+		final char[] tooLong = new char[50001];
+		Arrays.fill(tooLong, 'x');
+		try {
+			sheet.appendRow(Arrays.asList("t995", new String(tooLong)))
+			     .join();
+			fail("Cell over the size limit written");
+		} catch (CompletionException e) {
+			// expected
+		}
+		assertEquals("Tasks!A996:B996", sheet.appendRow(Arrays.asList("t995", "n995"))
+		                                     .join()
+		                                     .getRange());
+		assertEquals(rows(0, 996), server.getValues("spreadsheet", "Tasks"));
+	}
+
+	private static List<List<Object>> rows(int from, int to) {
+		final List<List<Object>> rows = new ArrayList<>();
+		for (int task = from; task < to; task++) {
+			rows.add(task == 0 ? Arrays.asList("Task ID", "Name") : Arrays.asList("t" + task, "n" + task));
+		}
+		return rows;
+	}
+}
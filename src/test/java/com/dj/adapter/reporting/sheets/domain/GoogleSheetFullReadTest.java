@@ -0,0 +1,82 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Choice between reading a sheet whole and reading its key columns to look a row up, as the
+ * table grows.
+ */
+public class GoogleSheetFullReadTest {
+	/**
+	 * Round trips of a lookup reading the sheet whole, and reading its key columns then the row
+	 */
+	private static final long FULL_READ = 1;
+	private static final long COLUMN_READ = 2;
+
+	private final InMemorySheetsServer server = new InMemorySheetsServer();
+	private GoogleSheet sheet;
+
+	@Before
+	public void setUp() throws IOException {
+		server.addSheet("spreadsheet", "Tasks", rows(0, 100));
+		sheet = server.newSheet("spreadsheet", "Tasks", 0, 1)
+		              .setFullReadMaxCells(300);
+		sheet.getRowSchema();
+	}
+
+	@Test
+	public void readsSmallTablesWholeWhateverTheirGrid() throws IOException {
+		// The grid has 1000 rows, more than the threshold, until the table is read
+		assertEquals(COLUMN_READ, lookup("t50"));
+		assertEquals(FULL_READ, lookup("t99"));
+		assertEquals(FULL_READ, lookup("t1"));
+	}
+
+	@Test
+	public void readsKeyColumnsOnceAppendedRowsExceedTheThreshold() throws IOException {
+		lookup("t1");
+		assertEquals(FULL_READ, lookup("t1"));
+		sheet.appendRows(rows(100, 150))
+		     .join();
+		assertEquals(FULL_READ, lookup("t120"));
+		sheet.appendRows(rows(150, 200))
+		     .join();
+		assertEquals(COLUMN_READ, lookup("t180"));
+		assertEquals(COLUMN_READ, lookup("t1"));
+	}
+
+	/**
+	 * Looks a task up.
+	 *
+	 * @return the number of requests it took
+	 */
+	private long lookup(String taskId) throws IOException {
+		server.resetCounters();
+		assertTrue(sheet.getRowByColumnValues(Collections.singletonMap("Task ID", taskId))
+		                .isPresent());
+		return server.getRequestCount();
+	}
+
+	private static List<List<Object>> rows(int from, int to) {
+		final List<List<Object>> rows = new ArrayList<>();
+		if (from == 0) {
+			rows.add(Arrays.asList("Task ID", "Status"));
+			from = 1;
+		}
+		for (int task = from; task < to; task++) {
+			rows.add(Arrays.asList("t" + task, "open"));
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,21 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.google.api.services.sheets.v4.model.GridRange;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GoogleSheetHeaderTest {
+
+	@Test
+	public void endsOnTheStartRow() {
+		assertEquals("A3:3", new GoogleSheetHeader(2).getRangeInA1Notation());
+		assertEquals("B3:F3", new GoogleSheetHeader(2, 1, 5).getRangeInA1Notation());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsRangesWithoutRows() {
+		new GoogleSheetHeader(new GridRange().setStartColumnIndex(0)
+		                                     .setEndColumnIndex(5)).getRangeInA1Notation();
+	}
+}
@@ -0,0 +1,79 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Row identifiers found by key, whether the sheet is read whole or by key columns.
+ */
+public class GoogleSheetKeyLookupTest {
+	private static final long FULL_READ = 10000;
+	private static final long COLUMN_READ = 0;
+
+	@Test
+	public void rowIdsAreZeroBasedSheetRows() throws IOException {
+		for (long fullReadMaxCells : new long[]{FULL_READ, COLUMN_READ}) {
+			final GoogleSheet sheet = sheet(0, fullReadMaxCells);
+			assertEquals(Optional.of(1), sheet.getRowIdByColumnValues(key("t1", "n1")));
+			assertEquals(Optional.of(42), sheet.getRowIdByColumnValues(key("t42", "n42")));
+			assertEquals(Optional.of(99), sheet.getRowIdByColumnValues(key("t99", "n99")));
+			assertEquals(Optional.empty(), sheet.getRowIdByColumnValues(key("t42", "n41")));
+		}
+	}
+
+	@Test
+	public void rowIdsAccountForTheHeaderOffset() throws IOException {
+		for (long fullReadMaxCells : new long[]{FULL_READ, COLUMN_READ}) {
+			final GoogleSheet sheet = sheet(3, fullReadMaxCells);
+			assertEquals(Optional.of(4), sheet.getRowIdByColumnValues(key("t1", "n1")));
+			assertEquals(Optional.of(45), sheet.getRowIdByColumnValues(key("t42", "n42")));
+			assertEquals(Arrays.asList("t42", "n42", "s42"), sheet.getRowById(45)
+			                                                      .orElse(null));
+		}
+	}
+
+	@Test
+	public void findsEveryRowOfADuplicateKey() throws IOException {
+		for (long fullReadMaxCells : new long[]{FULL_READ, COLUMN_READ}) {
+			final GoogleSheet sheet = sheet(0, fullReadMaxCells);
+			assertEquals(Arrays.asList(100, 101), sheet.getRowIdsByColumnValues(key("dup", "n")));
+		}
+	}
+
+	/**
+	 * Sheet whose header, at the given row, is followed by the rows of tasks {@code t1} to
+	 * {@code t99} and two rows sharing the key {@code dup}.
+	 */
+	private static GoogleSheet sheet(int headerRow, long fullReadMaxCells) throws IOException {
+		final List<List<Object>> rows = new ArrayList<>();
+		for (int row = 0; row < headerRow; row++) {
+			rows.add(Arrays.asList("Report", "title " + row));
+		}
+		rows.add(Arrays.asList("Task ID", "Name", "Status"));
+		for (int task = 1; task < 100; task++) {
+			rows.add(Arrays.asList("t" + task, "n" + task, "s" + task));
+		}
+		rows.add(Arrays.asList("dup", "n", "first"));
+		rows.add(Arrays.asList("dup", "n", "second"));
+		final InMemorySheetsServer server = new InMemorySheetsServer().addSheet("spreadsheet", "Tasks", rows);
+		return server.newSheet("spreadsheet", "Tasks", headerRow, 2)
+		             .setFullReadMaxCells(fullReadMaxCells);
+	}
+
+	private static Map<String, Object> key(String taskId, String name) {
+		final Map<String, Object> key = new LinkedHashMap<>();
+		key.put("Task ID", taskId);
+		key.put("Name", name);
+		return key;
+	}
+}
@@ -0,0 +1,70 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import com.google.api.services.sheets.v4.model.GridRange;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Operations of a lazy sheet whose metadata cannot be fetched.
+ */
+public class GoogleSheetLazyResolutionTest {
+	private final InMemorySheetsServer server = new InMemorySheetsServer();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private GoogleSheet sheet;
+
+	@Before
+	public void setUp() {
+		server.addSheet("spreadsheet", "Tasks", Arrays.asList(Arrays.asList("Task ID", "Name"),
+		                                                      Arrays.asList("t1", "n1")));
+		final GoogleSheetsRepositoryFactory factory = new GoogleSheetsRepositoryFactory();
+		factory.setMeterRegistry(registry);
+		sheet = new GoogleSheet("spreadsheet", "Tasks", () -> {
+			throw new IOException("metadata unavailable");
+		}, server.newRepository(factory));
+		sheet.setHeaderOffset(new GridRange().setStartRowIndex(0)
+		                                     .setStartColumnIndex(0)
+		                                     .setEndRowIndex(0)
+		                                     .setEndColumnIndex(1));
+	}
+
+	@Test
+	public void throwsTheFailureToFetchMetadataAsIOException() {
+		// Whether to read the sheet whole depends on the size of its grid
+		try {
+			sheet.getRowByColumnValues(Collections.singletonMap("Task ID", "t1"));
+			fail("Lookup without metadata succeeded");
+		} catch (IOException e) {
+			assertEquals("metadata unavailable", e.getMessage());
+		}
+		assertEquals(1, operations("getRowByColumnValues", "failure"));
+	}
+
+	@Test
+	public void usesTheSheetNameWithoutFetchingMetadata() throws IOException {
+		assertEquals("Tasks", sheet.getSheetTitle());
+		assertEquals(Integer.valueOf(0), sheet.getHeader()
+		                                      .get("Task ID"));
+		assertEquals(Optional.of(1), sheet.getRowIdByColumnValues(Collections.singletonMap("Task ID", "t1")));
+		assertEquals(1, operations("getHeader", "success"));
+		assertEquals(1, operations("getRowIdByColumnValues", "success"));
+	}
+
+	private long operations(String operation, String outcome) {
+		final Timer timer = registry.find("sheets.operation")
+		                            .tag("sheet", "Tasks")
+		                            .tag("operation", operation)
+		                            .tag("outcome", outcome)
+		                            .timer();
+		return timer == null ? 0 : timer.count();
+	}
+}
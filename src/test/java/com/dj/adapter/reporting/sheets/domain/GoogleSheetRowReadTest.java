@@ -0,0 +1,77 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import com.dj.adapter.reporting.sheets.transport.SheetsApiCall;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Rows read by identifier or by key, in a single {@code batchGet}.
+ */
+public class GoogleSheetRowReadTest {
+	private final InMemorySheetsServer server = new InMemorySheetsServer();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private GoogleSheet sheet;
+
+	@Before
+	public void setUp() throws IOException {
+		final List<List<Object>> rows = new ArrayList<>();
+		rows.add(Arrays.asList("Task ID", "Status"));
+		for (int task = 1; task < 100; task++) {
+			rows.add(Arrays.asList("t" + task, task % 10 == 0 ? "done" : "open"));
+		}
+		server.addSheet("spreadsheet", "Tasks", rows);
+		final GoogleSheetsRepositoryFactory factory = new GoogleSheetsRepositoryFactory();
+		factory.setMeterRegistry(registry);
+		sheet = server.newSheet(factory, "spreadsheet", "Tasks", 0, 1)
+		              .setFullReadMaxCells(0)
+		              .setRowGapThreshold(8);
+		sheet.getRowSchema();
+	}
+
+	@Test
+	public void readsManyRowsInOneCall() throws IOException {
+		server.resetCounters();
+		final Map<Integer, List<Object>> rows = sheet.getRowsByIds(Arrays.asList(50, 3, 5, 400, 48));
+		assertEquals(Arrays.asList(3, 5, 48, 50), new ArrayList<>(rows.keySet()));
+		assertEquals(Arrays.asList("t48", "open"), rows.get(48));
+		assertEquals(1, server.getRequestCount());
+		assertEquals(1, server.getRequestCount(SheetsApiCall.Method.VALUES_BATCH_GET));
+	}
+
+	@Test
+	public void readsRowsByKeyAsOneOperation() throws IOException {
+		final Map<Integer, List<Object>> rows = sheet.getRowsByColumnValues(Collections.singletonMap("Status", "done"));
+		assertEquals(Arrays.asList(10, 20, 30, 40, 50, 60, 70, 80, 90), new ArrayList<>(rows.keySet()));
+		assertEquals(Arrays.asList("t70", "done"), rows.get(70));
+		assertEquals(1, operations("getRowsByColumnValues"));
+		assertEquals(0, operations("getRowIdsByColumnValues"));
+		assertEquals(0, operations("getRowsByIds"));
+	}
+
+	@Test
+	public void readsNothingWithoutMatches() throws IOException {
+		server.resetCounters();
+		assertEquals(Collections.emptyMap(), sheet.getRowsByColumnValues(Collections.singletonMap("Status", "late")));
+		assertEquals(1, server.getRequestCount());
+	}
+
+	private long operations(String operation) {
+		final Timer timer = registry.find("sheets.operation")
+		                            .tag("operation", operation)
+		                            .tag("outcome", "success")
+		                            .timer();
+		return timer == null ? 0 : timer.count();
+	}
+}
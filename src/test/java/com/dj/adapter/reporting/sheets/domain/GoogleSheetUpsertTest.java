@@ -0,0 +1,72 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import com.dj.adapter.reporting.sheets.testing.LatencyDistribution;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Upserts of the same key, made while the previous ones are still being written.
+ */
+public class GoogleSheetUpsertTest {
+	private final InMemorySheetsServer server = new InMemorySheetsServer();
+	private final ExecutorService upsertExecutor = Executors.newFixedThreadPool(2);
+	private final AtomicInteger queuedUpserts = new AtomicInteger();
+	private GoogleSheet sheet;
+
+	@Before
+	public void setUp() throws IOException {
+		server.addSheet("spreadsheet", "Tasks", Collections.singletonList(Arrays.asList("Task ID", "Count")))
+		      .setLatency(LatencyDistribution.logNormal(5, 10));
+		sheet = server.newSheet("spreadsheet", "Tasks", 0, 1)
+		              .setUpsertExecutor(runnable -> {
+			              queuedUpserts.incrementAndGet();
+			              upsertExecutor.execute(runnable);
+		              });
+		sheet.getRowSchema();
+	}
+
+	@After
+	public void tearDown() {
+		upsertExecutor.shutdownNow();
+	}
+
+	@Test
+	public void appliesUpsertsOfAKeyInOrder() throws IOException {
+		final List<CompletableFuture<ValueRange>> saved = new ArrayList<>();
+		for (int count = 0; count < 20; count++) {
+			final Map<String, Object> row = new LinkedHashMap<>();
+			row.put("Task ID", "t" + count / 5);
+			row.put("Count", count);
+			saved.add(sheet.saveRow(row, Collections.singletonList("Task ID")));
+		}
+		CompletableFuture.allOf(saved.toArray(new CompletableFuture<?>[0]))
+		                 .join();
+
+		final List<List<Object>> values = server.getValues("spreadsheet", "Tasks");
+		assertEquals(5, values.size());
+		for (int key = 0; key < 4; key++) {
+			final List<Object> row = values.get(key + 1);
+			assertEquals("t" + key, row.get(0));
+			assertEquals(String.valueOf(5 * key + 4), row.get(1)
+			                                          .toString());
+		}
+		assertTrue(queuedUpserts.get() > 0);
+	}
+}
@@ -0,0 +1,83 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.sheets.v4.Sheets;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class SheetsClientPoolTest {
+	private final InMemorySheetsServer server = new InMemorySheetsServer();
+
+	@Test
+	public void neverOvershootsTheQuotaOfConcurrentCalls() throws Exception {
+		final SheetsClientPool.Quota quota = new SheetsClientPool.Quota(10);
+		final SheetsClientPool pool = new SheetsClientPool(Arrays.asList(new SheetsClientPool.PooledClient("first", client(), quota)),
+		                                                   SheetsClientPool.Routing.ROUND_ROBIN);
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<Boolean>> calls = new ArrayList<>();
+			for (int call = 0; call < 100; call++) {
+				calls.add(executor.submit(() -> {
+					try {
+						pool.acquire();
+						return true;
+					} catch (QuotaExhaustedException e) {
+						return false;
+					}
+				}));
+			}
+			int acquired = 0;
+			for (Future<Boolean> call : calls) {
+				acquired += call.get() ? 1 : 0;
+			}
+			assertEquals(10, acquired);
+			assertEquals(10, quota.getUsage(System.currentTimeMillis()));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void failsRightAwayOnceEveryQuotaIsExhausted() throws QuotaExhaustedException {
+		final SheetsClientPool pool = new SheetsClientPool(Arrays.asList(new SheetsClientPool.PooledClient("first", client(), 1),
+		                                                                 new SheetsClientPool.PooledClient("second", client(), 1)),
+		                                                   SheetsClientPool.Routing.LEAST_LOADED);
+		final Sheets first = pool.acquire();
+		assertNotSame(first, pool.acquire());
+		try {
+			pool.acquire();
+			fail("Client acquired over quota");
+		} catch (QuotaExhaustedException e) {
+			assertTrue(e.getRetryAfterMillis() > 0);
+			assertTrue(e.getRetryAfterMillis() <= 60_000);
+		}
+	}
+
+	@Test
+	public void countsAReservedCallOnceExecuted() throws QuotaExhaustedException {
+		final SheetsClientPool.Quota quota = new SheetsClientPool.Quota(5);
+		final SheetsClientPool pool = new SheetsClientPool(Arrays.asList(new SheetsClientPool.PooledClient("first", client(), quota)),
+		                                                   SheetsClientPool.Routing.ROUND_ROBIN);
+		final long now = System.currentTimeMillis();
+		pool.acquire();
+		quota.record(now);
+		assertEquals(1, quota.getUsage(now));
+		// Executed again, e.g. retried by the client itself
+		quota.record(now);
+		assertEquals(2, quota.getUsage(now));
+	}
+
+	private Sheets client() {
+		return new Sheets.Builder(server.newTransport(), JacksonFactory.getDefaultInstance(), null).setApplicationName("test")
+		                                                                                          .build();
+	}
+}
@@ -0,0 +1,157 @@
+package com.dj.adapter.reporting.sheets.domain;
+
+import com.dj.adapter.reporting.sheets.retry.AsyncRetryExecutor;
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import com.dj.adapter.reporting.sheets.transport.SheetsApiCall;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Value updates sent together to the sheets of a spreadsheet.
+ */
+public class ValueUpdateMultiplexerTest {
+	private static final List<String> SHEETS = Arrays.asList("A", "B", "C", "D");
+
+	private final InMemorySheetsServer server = new InMemorySheetsServer();
+	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+	private GoogleSheetsRepository repository;
+
+	@Before
+	public void setUp() {
+		for (String spreadsheet : Arrays.asList("spreadsheet", "other")) {
+			for (String sheet : SHEETS) {
+				server.addSheet(spreadsheet, sheet, Collections.singletonList(Arrays.asList("Task ID", "Name")));
+			}
+		}
+		repository = server.newRepository();
+	}
+
+	@After
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void sendsTheWritesOfAWindowTogether() {
+		final ValueUpdateMultiplexer multiplexer = multiplexer(20, 100);
+		final List<CompletableFuture<List<UpdateValuesResponse>>> writes = new ArrayList<>();
+		for (String sheet : SHEETS) {
+			writes.add(multiplexer.submit("spreadsheet", Arrays.asList(row(sheet, 2, "t1"), row(sheet, 3, "t2")), false));
+		}
+		for (int write = 0; write < writes.size(); write++) {
+			final List<UpdateValuesResponse> responses = writes.get(write)
+			                                                   .join();
+			assertEquals(2, responses.size());
+			assertEquals(SHEETS.get(write) + "!A3:B3", responses.get(1)
+			                                                    .getUpdatedRange());
+		}
+		assertEquals(1, server.getRequestCount(SheetsApiCall.Method.VALUES_BATCH_UPDATE));
+		for (String sheet : SHEETS) {
+			assertEquals(Arrays.asList("t2", "n-t2"), server.getValues("spreadsheet", sheet)
+			                                               .get(2));
+		}
+	}
+
+	@Test
+	public void sendsFullBatchesBeforeTheirWindowElapses() throws Exception {
+		final ValueUpdateMultiplexer multiplexer = multiplexer(TimeUnit.MINUTES.toMillis(1), 3);
+		final List<CompletableFuture<List<UpdateValuesResponse>>> writes = new ArrayList<>();
+		for (int row = 2; row < 5; row++) {
+			writes.add(multiplexer.submit("spreadsheet", Collections.singletonList(row("A", row, "t" + row)), false));
+		}
+		for (CompletableFuture<List<UpdateValuesResponse>> write : writes) {
+			write.get(5, TimeUnit.SECONDS);
+		}
+		assertEquals(1, server.getRequestCount(SheetsApiCall.Method.VALUES_BATCH_UPDATE));
+		assertEquals(0, multiplexer.getOpenBatches());
+
+		multiplexer.submit("spreadsheet", Collections.singletonList(row("A", 5, "t5")), false);
+		assertEquals(1, multiplexer.getOpenBatches());
+	}
+
+	@Test
+	public void sendsABatchPerSpreadsheet() {
+		final ValueUpdateMultiplexer multiplexer = multiplexer(20, 100);
+		final CompletableFuture<List<UpdateValuesResponse>> first = multiplexer.submit("spreadsheet", Collections.singletonList(row("A", 2, "t1")), false);
+		final CompletableFuture<List<UpdateValuesResponse>> second = multiplexer.submit("other", Collections.singletonList(row("A", 2, "t2")), false);
+		CompletableFuture.allOf(first, second)
+		                 .join();
+		assertEquals(2, server.getRequestCount(SheetsApiCall.Method.VALUES_BATCH_UPDATE));
+		assertEquals("t1", server.getValues("spreadsheet", "A")
+		                         .get(1)
+		                         .get(0));
+		assertEquals("t2", server.getValues("other", "A")
+		                         .get(1)
+		                         .get(0));
+	}
+
+	@Test
+	public void failsOnlyTheWriteTheBatchWasRejectedFor() throws InterruptedException {
+		final ValueUpdateMultiplexer multiplexer = multiplexer(20, 100);
+		final char[] tooLong = new char[50001];
+		Arrays.fill(tooLong, 'x');
+		final List<CompletableFuture<List<UpdateValuesResponse>>> writes = new ArrayList<>();
+		for (int row = 2; row < 10; row++) {
+			final String task = row == 6 ? new String(tooLong) : "t" + row;
+			writes.add(multiplexer.submit("spreadsheet", Collections.singletonList(row("A", row, task)), false));
+		}
+		for (int row = 2; row < 10; row++) {
+			final CompletableFuture<List<UpdateValuesResponse>> write = writes.get(row - 2);
+			if (row == 6) {
+				try {
+					write.get();
+					fail("Rejected write committed");
+				} catch (ExecutionException e) {
+					assertEquals(400, ((HttpResponseException) e.getCause()).getStatusCode());
+				}
+			} else {
+				write.join();
+				assertEquals("t" + row, server.getValues("spreadsheet", "A")
+				                              .get(row - 1)
+				                              .get(0));
+			}
+		}
+		// The whole batch, its halves, then halves of the rejected half down to the write
+		assertEquals(7, server.getRequestCount(SheetsApiCall.Method.VALUES_BATCH_UPDATE));
+	}
+
+	@Test
+	public void completesEmptyWritesRightAway() {
+		final ValueUpdateMultiplexer multiplexer = multiplexer(20, 100);
+		assertEquals(Collections.emptyList(), multiplexer.submit("spreadsheet", Collections.emptyList(), false)
+		                                                 .join());
+		assertEquals(0, multiplexer.getOpenBatches());
+		assertEquals(0, server.getRequestCount());
+	}
+
+	private ValueUpdateMultiplexer multiplexer(long windowMillis, int maxRanges) {
+		return new ValueUpdateMultiplexer(repository,
+		                                  new AsyncRetryExecutor(scheduler).withFixedBackoff(10)
+		                                                                   .withMaxRetries(2),
+		                                  scheduler,
+		                                  windowMillis,
+		                                  maxRanges,
+		                                  ValueUpdateMultiplexer.DEFAULT_MAX_CELLS);
+	}
+
+	private static ValueRange row(String sheet, int row, String task) {
+		return new ValueRange().setRange(sheet + "!A" + row + ":B" + row)
+		                       .setValues(Collections.singletonList(Arrays.asList(task, "n-" + task)));
+	}
+}
@@ -0,0 +1,100 @@
+package com.dj.adapter.reporting.sheets.mapping;
+
+import com.dj.adapter.reporting.sheets.domain.RowSchema;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RowMapperFactoryTest {
+	private final RowSchema schema = RowSchema.of(Arrays.asList("Task ID", "Editor", "Claim Date", "Completed Date"), 0);
+
+	@Test
+	public void mapsPropertiesInHeaderOrder() {
+		final RowMapperFactory factory = new RowMapperFactory(columns()).withMetaField("_current_date", () -> "now");
+		final List<Object> row = factory.getMapper(Task.class, schema)
+		                                .toRow(new Task(7, "jane", LocalDateTime.of(2018, 5, 17, 10, 15, 30)));
+		assertEquals(Arrays.asList(7, "jane", "2018-05-17 10:15:30", "now"), row);
+	}
+
+	@Test
+	public void readsMapsByKey() {
+		final HashMap<String, Object> task = new HashMap<>();
+		task.put("taskId", "T-1");
+		task.put("claimTime", LocalDate.of(2018, 5, 17));
+		final RowMapperFactory factory = new RowMapperFactory(columns()).withMetaField("_current_date", () -> null);
+		assertEquals(Arrays.asList("T-1", "", "2018-05-17", ""), factory.getMapper(HashMap.class, schema)
+		                                                                .toRow(task));
+	}
+
+	@Test
+	public void reusesMappersOfTheSameHeader() {
+		final RowMapperFactory factory = new RowMapperFactory(columns());
+		assertSame(factory.getMapper(Task.class, schema), factory.getMapper(Task.class, schema));
+		assertNotSame(factory.getMapper(Task.class, schema),
+		              factory.getMapper(Task.class, RowSchema.of(Arrays.asList("Task ID", "Editor", "Claim Date", "Completed Date"), 0)));
+	}
+
+	@Test
+	public void listsUnmappedColumns() {
+		final Map<String, String> columns = columns();
+		columns.remove("Editor");
+		columns.put("Claim Date", "");
+		assertEquals(Arrays.asList("Editor", "Claim Date"), new RowMapperFactory(columns).getUnmappedColumns(schema));
+		assertEquals(Collections.emptyList(), new RowMapperFactory(columns()).getUnmappedColumns(schema));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsHeadersWithUnmappedColumns() {
+		final Map<String, String> columns = columns();
+		columns.remove("Editor");
+		new RowMapperFactory(columns).getMapper(Task.class, schema);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownProperties() {
+		final Map<String, String> columns = columns();
+		columns.put("Editor", "editor");
+		new RowMapperFactory(columns).getMapper(Task.class, schema);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnknownMetaFields() {
+		final Map<String, String> columns = columns();
+		columns.put("Completed Date", "_completed_date");
+		new RowMapperFactory(columns).getMapper(Task.class, schema);
+	}
+
+	private static Map<String, String> columns() {
+		final Map<String, String> columns = new LinkedHashMap<>();
+		columns.put("Task ID", "taskId");
+		columns.put("Editor", "user");
+		columns.put("Claim Date", "claimTime");
+		columns.put("Completed Date", RowMapperFactory.CURRENT_DATE);
+		return columns;
+	}
+
+	public static class Task {
+		private final int taskId;
+		private final String user;
+		private final LocalDateTime claimTime;
+
+		Task(int taskId, String user, LocalDateTime claimTime) {
+			this.taskId = taskId;
+			this.user = user;
+			this.claimTime = claimTime;
+		}
+
+		public String getUser() {
+			return user;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.dj.adapter.reporting.sheets.retry;
+
+import com.dj.adapter.reporting.sheets.retry.function.BatchCallable;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BisectingBatchRetryTest {
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+	private final BisectingBatchRetry<Integer, String> retry = new BisectingBatchRetry<>(new AsyncRetryExecutor(scheduler).withNoDelay()
+	                                                                                                                     .withMaxRetries(2),
+	                                                                                     t -> t instanceof IllegalArgumentException);
+	/**
+	 * Items committed, in the order they were
+	 */
+	private final List<Integer> committed = Collections.synchronizedList(new ArrayList<>());
+	private final AtomicInteger batches = new AtomicInteger();
+
+	@After
+	public void tearDown() {
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void sendsAcceptedBatchesOnce() {
+		final List<CompletableFuture<String>> futures = retry.execute(items(8), rejecting(-1));
+		for (int item = 0; item < 8; item++) {
+			assertEquals("r" + item, futures.get(item)
+			                                .join());
+		}
+		assertEquals(1, batches.get());
+	}
+
+	@Test
+	public void isolatesOneBadItemAmongMany() throws InterruptedException {
+		final List<CompletableFuture<String>> futures = retry.execute(items(16), rejecting(11));
+		for (int item = 0; item < 16; item++) {
+			if (item == 11) {
+				try {
+					futures.get(item)
+					       .get();
+					fail("Bad item committed");
+				} catch (ExecutionException e) {
+					assertTrue(e.getCause() instanceof IllegalArgumentException);
+				}
+			} else {
+				assertEquals("r" + item, futures.get(item)
+				                                .join());
+			}
+		}
+		// The whole batch, then both halves at each of the log2(16) levels
+		assertEquals(1 + 2 * 4, batches.get());
+		final List<Integer> expected = items(16);
+		expected.remove(Integer.valueOf(11));
+		assertEquals(expected, committed);
+	}
+
+	@Test
+	public void retriesTransientFailuresAsAWhole() {
+		final BatchCallable<Integer, String> send = rejecting(-1);
+		final List<CompletableFuture<String>> futures = retry.execute(items(4), items -> {
+			if (batches.get() == 0) {
+				batches.incrementAndGet();
+				throw new IOException("503 Service Unavailable");
+			}
+			return send.call(items);
+		});
+		assertEquals("r3", futures.get(3)
+		                          .join());
+		assertEquals(2, batches.get());
+		assertEquals(items(4), committed);
+	}
+
+	@Test
+	public void failsEveryItemOnceRetriesAreExhausted() {
+		final List<CompletableFuture<String>> futures = retry.execute(items(4), items -> {
+			batches.incrementAndGet();
+			throw new IOException("503 Service Unavailable");
+		});
+		for (CompletableFuture<String> future : futures) {
+			try {
+				future.join();
+				fail("Failed batch completed");
+			} catch (RuntimeException e) {
+				assertTrue(e.getCause() instanceof IOException);
+			}
+		}
+		assertEquals(3, batches.get());
+	}
+
+	@Test
+	public void failsEveryItemWhenResultsAreMissing() {
+		final List<CompletableFuture<String>> futures = retry.execute(items(4), items -> Collections.singletonList("r0"));
+		for (CompletableFuture<String> future : futures) {
+			try {
+				future.join();
+				fail("Item without result completed");
+			} catch (RuntimeException e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+		}
+	}
+
+	@Test
+	public void sendsNothingForNoItems() {
+		assertTrue(retry.execute(Collections.emptyList(), rejecting(-1))
+		                .isEmpty());
+		assertEquals(0, batches.get());
+	}
+
+	/**
+	 * Sends batches, rejecting the ones holding a bad item before committing anything.
+	 */
+	private BatchCallable<Integer, String> rejecting(int bad) {
+		return items -> {
+			batches.incrementAndGet();
+			if (items.contains(bad)) {
+				throw new IllegalArgumentException("Invalid item " + bad);
+			}
+			final List<String> results = new ArrayList<>();
+			for (Integer item : items) {
+				committed.add(item);
+				results.add("r" + item);
+			}
+			return results;
+		};
+	}
+
+	private static List<Integer> items(int count) {
+		final List<Integer> items = new ArrayList<>();
+		for (int item = 0; item < count; item++) {
+			items.add(item);
+		}
+		return items;
+	}
+}
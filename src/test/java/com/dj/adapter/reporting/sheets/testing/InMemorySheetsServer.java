@@ -0,0 +1,873 @@
+package com.dj.adapter.reporting.sheets.testing;
+
+import com.dj.adapter.reporting.sheets.domain.GoogleSheet;
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepository;
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepositoryFactory;
+import com.dj.adapter.reporting.sheets.transport.SheetsApiCall;
+import com.dj.adapter.reporting.sheets.utils.A1Notation;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.sheets.v4.model.AppendDimensionRequest;
+import com.google.api.services.sheets.v4.model.AppendValuesResponse;
+import com.google.api.services.sheets.v4.model.BatchGetValuesResponse;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetResponse;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.GridProperties;
+import com.google.api.services.sheets.v4.model.GridRange;
+import com.google.api.services.sheets.v4.model.Request;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory stand-in for the Sheets v4 API, to load test the adapter without a network or quota.
+ * <p>
+ * Spreadsheets hold plain values, rendered through the number format of their column, if any,
+ * unless read unformatted. Reads, appends and updates behave like the real API for the
+ * value input and render options used by this adapter: appends grow the grid, updates must fit in
+ * it, and {@code spreadsheets.batchUpdate} can add rows or columns to it. Every response can be
+ * delayed, throttled or failed on purpose, and per-credential quotas are enforced per minute like
+ * Google does.
+ * Clients reach it through {@link #newTransport()} or {@link #newRepository()}.
+ */
+public class InMemorySheetsServer {
+	private static Logger logger = LoggerFactory.getLogger(InMemorySheetsServer.class);
+	private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+	private static final String ANONYMOUS = "anonymous";
+	private static final int DEFAULT_ROW_COUNT = 1000;
+	private static final int DEFAULT_COLUMN_COUNT = 26;
+	/**
+	 * Characters a cell can hold
+	 */
+	private static final int MAX_CELL_LENGTH = 50000;
+
+	private final Map<String, StoredSpreadsheet> spreadsheets = new ConcurrentHashMap<>();
+	private final Map<String, QuotaWindow> quotas = new ConcurrentHashMap<>();
+	private final Map<SheetsApiCall.Method, LongAdder> requests = new EnumMap<>(SheetsApiCall.Method.class);
+	private final LongAdder throttled = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private volatile LatencyDistribution latency = LatencyDistribution.none();
+	private volatile double throttleRate;
+	private volatile double serverErrorRate;
+	private volatile int requestsPerMinute;
+
+	public InMemorySheetsServer() {
+		for (SheetsApiCall.Method method : SheetsApiCall.Method.values()) {
+			requests.put(method, new LongAdder());
+		}
+	}
+
+	/**
+	 * Creates an empty spreadsheet, or does nothing if it already exists.
+	 *
+	 * @param spreadsheetId identifier of the spreadsheet
+	 * @return this server
+	 */
+	public InMemorySheetsServer addSpreadsheet(String spreadsheetId) {
+		spreadsheets.computeIfAbsent(spreadsheetId, StoredSpreadsheet::new);
+		return this;
+	}
+
+	/**
+	 * Adds a sheet to a spreadsheet, creating the spreadsheet if needed.
+	 *
+	 * @param spreadsheetId identifier of the spreadsheet
+	 * @param title         name of the sheet
+	 * @param values        initial rows of the sheet, usually the header
+	 * @return this server
+	 */
+	public InMemorySheetsServer addSheet(String spreadsheetId, String title, List<List<Object>> values) {
+		final StoredSpreadsheet spreadsheet = spreadsheets.computeIfAbsent(spreadsheetId, StoredSpreadsheet::new);
+		synchronized (spreadsheet) {
+			if (spreadsheet.find(title) != null) {
+				throw new IllegalArgumentException(String.format("Sheet '%s' already exists in %s", title, spreadsheetId));
+			}
+			final StoredSheet sheet = new StoredSheet(spreadsheet.sheets.size(), title);
+			sheet.write(0, 0, values);
+			spreadsheet.sheets.add(sheet);
+		}
+		return this;
+	}
+
+	/**
+	 * Sets the format numbers of a column are rendered with when values are read formatted, the
+	 * default, e.g. to round them. Numbers sent as text are formatted too, as the API parses them.
+	 *
+	 * @param spreadsheetId identifier of the spreadsheet
+	 * @param title         name of the sheet
+	 * @param column        zero-based column
+	 * @param format        format of the numbers
+	 * @return this server
+	 */
+	public InMemorySheetsServer setNumberFormat(String spreadsheetId, String title, int column, NumberFormat format) {
+		final StoredSpreadsheet spreadsheet = spreadsheets.get(spreadsheetId);
+		if (spreadsheet == null) {
+			throw new IllegalArgumentException("No spreadsheet " + spreadsheetId);
+		}
+		synchronized (spreadsheet) {
+			final StoredSheet sheet = spreadsheet.find(title);
+			if (sheet == null) {
+				throw new IllegalArgumentException(String.format("No sheet '%s' in %s", title, spreadsheetId));
+			}
+			sheet.formats.put(column, (NumberFormat) format.clone());
+		}
+		return this;
+	}
+
+	/**
+	 * Tells whether a spreadsheet has a sheet.
+	 *
+	 * @param spreadsheetId identifier of the spreadsheet
+	 * @param title         name of the sheet
+	 * @return {@code true} if both exist
+	 */
+	public boolean hasSheet(String spreadsheetId, String title) {
+		final StoredSpreadsheet spreadsheet = spreadsheets.get(spreadsheetId);
+		if (spreadsheet == null) {
+			return false;
+		}
+		synchronized (spreadsheet) {
+			return spreadsheet.find(title) != null;
+		}
+	}
+
+	/**
+	 * Returns a copy of the rows of a sheet, as stored, to assert on what clients wrote.
+	 *
+	 * @param spreadsheetId identifier of the spreadsheet
+	 * @param title         name of the sheet
+	 * @return the rows, without trailing empty cells
+	 */
+	public List<List<Object>> getValues(String spreadsheetId, String title) {
+		final StoredSpreadsheet spreadsheet = spreadsheets.get(spreadsheetId);
+		if (spreadsheet == null) {
+			throw new IllegalArgumentException("No spreadsheet " + spreadsheetId);
+		}
+		synchronized (spreadsheet) {
+			final StoredSheet sheet = spreadsheet.find(title);
+			if (sheet == null) {
+				throw new IllegalArgumentException(String.format("No sheet '%s' in %s", title, spreadsheetId));
+			}
+			return sheet.read(0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * Sets the latency added to every response.
+	 *
+	 * @param latency the latency, none by default
+	 * @return this server
+	 */
+	public InMemorySheetsServer setLatency(LatencyDistribution latency) {
+		this.latency = Objects.requireNonNull(latency);
+		return this;
+	}
+
+	/**
+	 * Sets the share of requests failed on purpose, regardless of quota.
+	 *
+	 * @param throttleRate    share of requests answered with 429 Too Many Requests, from 0 to 1
+	 * @param serverErrorRate share of requests answered with 503 Service Unavailable, from 0 to 1
+	 * @return this server
+	 */
+	public InMemorySheetsServer setErrorRates(double throttleRate, double serverErrorRate) {
+		if (throttleRate < 0 || serverErrorRate < 0 || throttleRate + serverErrorRate > 1) {
+			throw new IllegalArgumentException("Error rates must be positive and add up to 1 at most");
+		}
+		this.throttleRate = throttleRate;
+		this.serverErrorRate = serverErrorRate;
+		return this;
+	}
+
+	/**
+	 * Sets the number of requests each credential may send per minute; requests over it are
+	 * answered with 429 until the next minute starts.
+	 *
+	 * @param requestsPerMinute quota of every credential, 0 for none
+	 * @return this server
+	 */
+	public InMemorySheetsServer setQuota(int requestsPerMinute) {
+		this.requestsPerMinute = requestsPerMinute;
+		quotas.clear();
+		return this;
+	}
+
+	/**
+	 * Creates a transport answering from this server, to build {@code Sheets} clients on.
+	 */
+	public HttpTransport newTransport() {
+		return new InMemorySheetsTransport(this);
+	}
+
+	/**
+	 * Creates a repository without credentials answering from this server.
+	 */
+	public GoogleSheetsRepository newRepository() {
+		return newRepository(new GoogleSheetsRepositoryFactory());
+	}
+
+	/**
+	 * Creates a repository without credentials answering from this server, with the metrics and
+	 * settings of the given factory, whose transport is replaced.
+	 */
+	public GoogleSheetsRepository newRepository(GoogleSheetsRepositoryFactory factory) {
+		factory.setTransport(newTransport());
+		return factory.getRepository(request -> {});
+	}
+
+	/**
+	 * Returns a sheet of this server, read through a new repository without credentials, whose
+	 * header is the given row from the first column to the given one.
+	 *
+	 * @param headerRow       zero-based row of the header
+	 * @param headerEndColumn zero-based last column of the header
+	 */
+	public GoogleSheet newSheet(String spreadsheetId, String title, int headerRow, int headerEndColumn) throws IOException {
+		return newSheet(new GoogleSheetsRepositoryFactory(), spreadsheetId, title, headerRow, headerEndColumn);
+	}
+
+	/**
+	 * Like {@link #newSheet(String, String, int, int)}, with the metrics and settings of the given
+	 * factory, whose transport is replaced.
+	 */
+	public GoogleSheet newSheet(GoogleSheetsRepositoryFactory factory,
+	                            String spreadsheetId,
+	                            String title,
+	                            int headerRow,
+	                            int headerEndColumn) throws IOException {
+		return newRepository(factory).getSpreadSheetById(spreadsheetId)
+		                             .getSheetByName(title)
+		                             .setHeaderOffset(new GridRange().setStartRowIndex(headerRow)
+		                                                             .setStartColumnIndex(0)
+		                                                             .setEndRowIndex(headerRow)
+		                                                             .setEndColumnIndex(headerEndColumn));
+	}
+
+	/**
+	 * Number of requests received for a method, including the ones failed on purpose.
+	 */
+	public long getRequestCount(SheetsApiCall.Method method) {
+		return requests.get(method)
+		               .sum();
+	}
+
+	/**
+	 * Number of requests received for all methods.
+	 */
+	public long getRequestCount() {
+		long count = 0;
+		for (LongAdder adder : requests.values()) {
+			count += adder.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * Number of requests answered with 429, because of the quota or of the throttle rate.
+	 */
+	public long getThrottledCount() {
+		return throttled.sum();
+	}
+
+	/**
+	 * Number of requests answered with 503 because of the server error rate.
+	 */
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	public void resetCounters() {
+		requests.values()
+		        .forEach(LongAdder::reset);
+		throttled.reset();
+		failed.reset();
+	}
+
+	Response handle(String httpMethod, String url, String authorization, byte[] content) {
+		final SheetsApiCall call = SheetsApiCall.of(httpMethod, new GenericUrl(url));
+		requests.get(call.getMethod())
+		        .increment();
+		Response response;
+		try {
+			final double outcome = ThreadLocalRandom.current()
+			                                        .nextDouble();
+			if (!withinQuota(authorization)) {
+				throttled.increment();
+				response = Response.error(429, "RESOURCE_EXHAUSTED",
+				                          "Quota exceeded for quota metric 'Read/Write requests' per minute per user.");
+			} else if (outcome < throttleRate) {
+				throttled.increment();
+				response = Response.error(429, "RESOURCE_EXHAUSTED", "Too many requests.");
+			} else if (outcome < throttleRate + serverErrorRate) {
+				failed.increment();
+				response = Response.error(503, "UNAVAILABLE", "The service is currently unavailable.");
+			} else {
+				response = Response.ok(dispatch(call, new GenericUrl(url), content));
+			}
+		} catch (ApiException e) {
+			response = Response.error(e.statusCode, e.status, e.getMessage());
+		} catch (IOException | RuntimeException e) {
+			logger.debug("Cannot handle {} {}", httpMethod, url, e);
+			response = Response.error(400, "INVALID_ARGUMENT", "Invalid request: " + e.getMessage());
+		}
+		sleep(latency.nextMillis());
+		return response;
+	}
+
+	private boolean withinQuota(String authorization) {
+		final int limit = requestsPerMinute;
+		if (limit <= 0) {
+			return true;
+		}
+		return quotas.computeIfAbsent(authorization == null ? ANONYMOUS : authorization, key -> new QuotaWindow())
+		             .tryAcquire(limit);
+	}
+
+	private static void sleep(long millis) {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+			      .interrupt();
+		}
+	}
+
+	private GenericJson dispatch(SheetsApiCall call, GenericUrl url, byte[] content) throws IOException {
+		switch (call.getMethod()) {
+			case SPREADSHEETS_GET: {
+				final StoredSpreadsheet spreadsheet = spreadsheet(call.getSpreadsheetId());
+				synchronized (spreadsheet) {
+					return spreadsheet.describe();
+				}
+			}
+			case VALUES_GET: {
+				final StoredSpreadsheet spreadsheet = spreadsheet(call.getSpreadsheetId());
+				synchronized (spreadsheet) {
+					return spreadsheet.get(call.getRange(), (String) url.getFirst("valueRenderOption"));
+				}
+			}
+			case VALUES_BATCH_GET: {
+				final StoredSpreadsheet spreadsheet = spreadsheet(call.getSpreadsheetId());
+				final List<ValueRange> valueRanges = new ArrayList<>();
+				synchronized (spreadsheet) {
+					for (Object range : url.getAll("ranges")) {
+						valueRanges.add(spreadsheet.get(String.valueOf(range), (String) url.getFirst("valueRenderOption")));
+					}
+				}
+				return new BatchGetValuesResponse().setSpreadsheetId(spreadsheet.id)
+				                                   .setValueRanges(valueRanges);
+			}
+			case VALUES_APPEND: {
+				final StoredSpreadsheet spreadsheet = spreadsheet(call.getSpreadsheetId());
+				final ValueRange body = parse(content, ValueRange.class);
+				synchronized (spreadsheet) {
+					return spreadsheet.append(call.getRange(), body.getValues(),
+					                          "true".equals(url.getFirst("includeValuesInResponse")));
+				}
+			}
+			case VALUES_UPDATE: {
+				final StoredSpreadsheet spreadsheet = spreadsheet(call.getSpreadsheetId());
+				final ValueRange body = parse(content, ValueRange.class);
+				synchronized (spreadsheet) {
+					return spreadsheet.update(call.getRange(), body.getValues(),
+					                          "true".equals(url.getFirst("includeValuesInResponse")));
+				}
+			}
+			case VALUES_BATCH_UPDATE: {
+				final StoredSpreadsheet spreadsheet = spreadsheet(call.getSpreadsheetId());
+				final BatchUpdateValuesRequest body = parse(content, BatchUpdateValuesRequest.class);
+				final boolean includeValues = Boolean.TRUE.equals(body.get("includeValuesInResponse"));
+				final List<UpdateValuesResponse> responses = new ArrayList<>();
+				int rows = 0;
+				int columns = 0;
+				int cells = 0;
+				final List<ValueRange> batch = body.getData() == null ? Collections.<ValueRange>emptyList() : body.getData();
+				synchronized (spreadsheet) {
+					// The batch is rejected as a whole, before any range is written
+					for (ValueRange data : batch) {
+						spreadsheet.checkUpdate(data.getRange(), data.getValues());
+					}
+					for (ValueRange data : batch) {
+						final UpdateValuesResponse response = spreadsheet.update(data.getRange(), data.getValues(),
+						                                                         includeValues);
+						rows += response.getUpdatedRows();
+						columns = Math.max(columns, response.getUpdatedColumns());
+						cells += response.getUpdatedCells();
+						responses.add(response);
+					}
+				}
+				return new BatchUpdateValuesResponse().setSpreadsheetId(spreadsheet.id)
+				                                      .setTotalUpdatedRows(rows)
+				                                      .setTotalUpdatedColumns(columns)
+				                                      .setTotalUpdatedCells(cells)
+				                                      .setTotalUpdatedSheets(responses.isEmpty() ? 0 : 1)
+				                                      .setResponses(responses);
+			}
+			case SPREADSHEETS_BATCH_UPDATE: {
+				final StoredSpreadsheet spreadsheet = spreadsheet(call.getSpreadsheetId());
+				final BatchUpdateSpreadsheetRequest body = parse(content, BatchUpdateSpreadsheetRequest.class);
+				final List<Request> changes = body.getRequests() == null ? Collections.emptyList() : body.getRequests();
+				final List<com.google.api.services.sheets.v4.model.Response> replies = new ArrayList<>(changes.size());
+				synchronized (spreadsheet) {
+					// Every change is checked before any is applied, as the API applies all or none
+					for (Request change : changes) {
+						spreadsheet.check(change);
+					}
+					for (Request change : changes) {
+						spreadsheet.apply(change);
+						replies.add(new com.google.api.services.sheets.v4.model.Response());
+					}
+				}
+				return new BatchUpdateSpreadsheetResponse().setSpreadsheetId(spreadsheet.id)
+				                                           .setReplies(replies);
+			}
+			default:
+				throw new ApiException(404, "NOT_FOUND", call.getMethod()
+				                                             .getName() + " is not supported by the in-memory server");
+		}
+	}
+
+	private StoredSpreadsheet spreadsheet(String spreadsheetId) {
+		final StoredSpreadsheet spreadsheet = spreadsheetId == null ? null : spreadsheets.get(spreadsheetId);
+		if (spreadsheet == null) {
+			throw new ApiException(404, "NOT_FOUND", "Requested entity was not found.");
+		}
+		return spreadsheet;
+	}
+
+	private static <T> T parse(byte[] content, Class<T> type) throws IOException {
+		return JSON_FACTORY.fromInputStream(new ByteArrayInputStream(content), StandardCharsets.UTF_8, type);
+	}
+
+	/**
+	 * Response sent back by the transport.
+	 */
+	static final class Response {
+		private final int statusCode;
+		private final String status;
+		private final byte[] content;
+
+		private Response(int statusCode, String status, byte[] content) {
+			this.statusCode = statusCode;
+			this.status = status;
+			this.content = content;
+		}
+
+		static Response ok(GenericJson body) throws IOException {
+			return new Response(200, "OK", JSON_FACTORY.toByteArray(body));
+		}
+
+		static Response error(int statusCode, String status, String message) {
+			final Map<String, Object> error = new LinkedHashMap<>();
+			error.put("code", statusCode);
+			error.put("message", message);
+			error.put("status", status);
+			try {
+				return new Response(statusCode, status,
+				                    JSON_FACTORY.toByteArray(Collections.singletonMap("error", error)));
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		int getStatusCode() {
+			return statusCode;
+		}
+
+		String getStatus() {
+			return status;
+		}
+
+		byte[] getContent() {
+			return content;
+		}
+	}
+
+	private static final class ApiException extends RuntimeException {
+		private final int statusCode;
+		private final String status;
+
+		private ApiException(int statusCode, String status, String message) {
+			super(message);
+			this.statusCode = statusCode;
+			this.status = status;
+		}
+	}
+
+	/**
+	 * Requests of one credential in the current minute.
+	 */
+	private static final class QuotaWindow {
+		private long minute;
+		private int count;
+
+		synchronized boolean tryAcquire(int limit) {
+			final long now = TimeUnit.NANOSECONDS.toMinutes(System.nanoTime());
+			if (now != minute) {
+				minute = now;
+				count = 0;
+			}
+			return ++count <= limit;
+		}
+	}
+
+	/**
+	 * A spreadsheet; callers synchronize on it.
+	 */
+	private static final class StoredSpreadsheet {
+		private final String id;
+		private final List<StoredSheet> sheets = new ArrayList<>();
+
+		private StoredSpreadsheet(String id) {
+			this.id = id;
+		}
+
+		private StoredSheet find(String title) {
+			for (StoredSheet sheet : sheets) {
+				if (sheet.title.equals(title)) {
+					return sheet;
+				}
+			}
+			return null;
+		}
+
+		private StoredSheet find(int sheetId) {
+			for (StoredSheet sheet : sheets) {
+				if (sheet.sheetId == sheetId) {
+					return sheet;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Checks a change of {@code spreadsheets.batchUpdate}; only {@code appendDimension} is
+		 * supported.
+		 */
+		private void check(Request change) {
+			final AppendDimensionRequest appendDimension = change.getAppendDimension();
+			if (appendDimension == null) {
+				throw new ApiException(400, "INVALID_ARGUMENT",
+				                       "Only appendDimension requests are supported by the in-memory server");
+			}
+			if (appendDimension.getSheetId() == null || find(appendDimension.getSheetId()) == null) {
+				throw new ApiException(400, "INVALID_ARGUMENT", "No grid with id: " + appendDimension.getSheetId());
+			}
+			if (!"ROWS".equals(appendDimension.getDimension()) && !"COLUMNS".equals(appendDimension.getDimension())) {
+				throw new ApiException(400, "INVALID_ARGUMENT", "Invalid dimension: " + appendDimension.getDimension());
+			}
+			if (appendDimension.getLength() == null || appendDimension.getLength() < 1) {
+				throw new ApiException(400, "INVALID_ARGUMENT", "Length must be greater than 0");
+			}
+		}
+
+		private void apply(Request change) {
+			final AppendDimensionRequest appendDimension = change.getAppendDimension();
+			final StoredSheet sheet = find(appendDimension.getSheetId());
+			if ("ROWS".equals(appendDimension.getDimension())) {
+				sheet.gridRows = sheet.rowCount() + appendDimension.getLength();
+			} else {
+				sheet.gridColumns = sheet.columnCount() + appendDimension.getLength();
+			}
+		}
+
+		private Spreadsheet describe() {
+			final List<Sheet> described = new ArrayList<>(sheets.size());
+			for (StoredSheet sheet : sheets) {
+				described.add(new Sheet().setProperties(
+						new SheetProperties().setSheetId(sheet.sheetId)
+						                     .setTitle(sheet.title)
+						                     .setIndex(sheet.sheetId)
+						                     .setGridProperties(new GridProperties().setRowCount(sheet.rowCount())
+						                                                            .setColumnCount(sheet.columnCount()))));
+			}
+			return new Spreadsheet().setSpreadsheetId(id)
+			                        .setSheets(described);
+		}
+
+		/**
+		 * Resolves the sheet of a range, the first one when the range does not name any.
+		 */
+		private StoredSheet sheetOf(A1Notation.A1Range range) {
+			final StoredSheet sheet = range.getSheetName() == null
+					? (sheets.isEmpty() ? null : sheets.get(0))
+					: find(range.getSheetName());
+			if (sheet == null) {
+				throw new ApiException(400, "INVALID_ARGUMENT", "Unable to parse range: " + range);
+			}
+			return sheet;
+		}
+
+		private A1Notation.A1Range parseRange(String range) {
+			try {
+				return A1Notation.parse(range);
+			} catch (IllegalArgumentException e) {
+				throw new ApiException(400, "INVALID_ARGUMENT", "Unable to parse range: " + range);
+			}
+		}
+
+		private ValueRange get(String reference, String valueRenderOption) {
+			final A1Notation.A1Range range = parseRange(reference);
+			final StoredSheet sheet = sheetOf(range);
+			final int startRow = valueOr(range.getStartRowIndex(), 0);
+			final int startColumn = valueOr(range.getStartColumnIndex(), 0);
+			final int endRow = Math.min(valueOr(range.getEndRowIndex(), Integer.MAX_VALUE), sheet.rowCount() - 1);
+			final int endColumn = Math.min(valueOr(range.getEndColumnIndex(), Integer.MAX_VALUE),
+			                               sheet.columnCount() - 1);
+			final ValueRange valueRange = new ValueRange()
+					.setRange(A1Notation.encode(sheet.title, startRow, startColumn, endRow, endColumn))
+					.setMajorDimension("ROWS");
+			final List<List<Object>> values = sheet.render(sheet.read(startRow, startColumn, endRow, endColumn), startColumn,
+			                                               valueRenderOption == null || "FORMATTED_VALUE".equals(valueRenderOption));
+			if (!values.isEmpty()) {
+				valueRange.setValues(values);
+			}
+			return valueRange;
+		}
+
+		/**
+		 * Writes after the last row of the table found at the start of the range, like the API does
+		 * with {@code INSERT_ROWS} when nothing lies below the table.
+		 */
+		private AppendValuesResponse append(String reference, List<List<Object>> values, boolean includeValues) {
+			final A1Notation.A1Range range = parseRange(reference);
+			final StoredSheet sheet = sheetOf(range);
+			final int startRow = valueOr(range.getStartRowIndex(), 0);
+			final int startColumn = valueOr(range.getStartColumnIndex(), 0);
+			final int lastRow = sheet.lastRow();
+			final AppendValuesResponse response = new AppendValuesResponse().setSpreadsheetId(id);
+			if (lastRow >= startRow) {
+				response.setTableRange(A1Notation.encode(sheet.title, startRow, startColumn, lastRow,
+				                                         Math.max(startColumn, sheet.widest() - 1)));
+			}
+			return response.setUpdates(write(sheet, Math.max(startRow, lastRow + 1), startColumn, values,
+			                                 includeValues));
+		}
+
+		/**
+		 * Writes at the start of the range, which must fit in the grid, unlike appends.
+		 */
+		private UpdateValuesResponse update(String reference, List<List<Object>> values, boolean includeValues) {
+			checkUpdate(reference, values);
+			final A1Notation.A1Range range = parseRange(reference);
+			return write(sheetOf(range), valueOr(range.getStartRowIndex(), 0), valueOr(range.getStartColumnIndex(), 0),
+			             values, includeValues);
+		}
+
+		/**
+		 * Rejects an update like the API does: ranges past the grid and cells over the length limit.
+		 */
+		private void checkUpdate(String reference, List<List<Object>> values) {
+			final A1Notation.A1Range range = parseRange(reference);
+			final StoredSheet sheet = sheetOf(range);
+			final int startRow = valueOr(range.getStartRowIndex(), 0);
+			final int startColumn = valueOr(range.getStartColumnIndex(), 0);
+			int columns = 0;
+			for (List<Object> row : values == null ? Collections.<List<Object>>emptyList() : values) {
+				columns = Math.max(columns, row.size());
+				for (Object cell : row) {
+					if (cell != null && cell.toString()
+					                        .length() > MAX_CELL_LENGTH) {
+						throw new ApiException(400, "INVALID_ARGUMENT",
+						                       String.format("Your input contains more than the maximum of %d characters in a single cell.",
+						                                     MAX_CELL_LENGTH));
+					}
+				}
+			}
+			final int rows = values == null ? 0 : values.size();
+			if (startRow + rows > sheet.rowCount() || startColumn + columns > sheet.columnCount()) {
+				throw new ApiException(400, "INVALID_ARGUMENT",
+				                       String.format("Range (%s) exceeds grid limits. Max rows: %d, max columns: %d",
+				                                     reference, sheet.rowCount(), sheet.columnCount()));
+			}
+		}
+
+		private UpdateValuesResponse write(StoredSheet sheet,
+		                                   int startRow,
+		                                   int startColumn,
+		                                   List<List<Object>> values,
+		                                   boolean includeValues) {
+			final List<List<Object>> rows = values == null ? Collections.emptyList() : values;
+			int columns = 0;
+			int cells = 0;
+			for (List<Object> row : rows) {
+				columns = Math.max(columns, row.size());
+				cells += row.size();
+			}
+			sheet.write(startRow, startColumn, rows);
+			final String updatedRange = A1Notation.encode(sheet.title, startRow, startColumn,
+			                                              startRow + Math.max(rows.size(), 1) - 1,
+			                                              startColumn + Math.max(columns, 1) - 1);
+			final UpdateValuesResponse response = new UpdateValuesResponse().setSpreadsheetId(id)
+			                                                                .setUpdatedRange(updatedRange)
+			                                                                .setUpdatedRows(rows.size())
+			                                                                .setUpdatedColumns(columns)
+			                                                                .setUpdatedCells(cells);
+			if (includeValues) {
+				response.setUpdatedData(new ValueRange().setRange(updatedRange)
+				                                        .setMajorDimension("ROWS")
+				                                        .setValues(sheet.read(startRow, startColumn,
+				                                                              startRow + rows.size() - 1,
+				                                                              startColumn + columns - 1)));
+			}
+			return response;
+		}
+
+		private static int valueOr(Integer value, int defaultValue) {
+			return value == null ? defaultValue : value;
+		}
+	}
+
+	/**
+	 * A sheet, as a list of rows holding the values sent by clients.
+	 */
+	private static final class StoredSheet {
+		private final int sheetId;
+		private final String title;
+		private final List<List<Object>> rows = new ArrayList<>();
+		private int gridRows = DEFAULT_ROW_COUNT;
+		private int gridColumns = DEFAULT_COLUMN_COUNT;
+		/**
+		 * Number formats, by column
+		 */
+		private final Map<Integer, NumberFormat> formats = new HashMap<>();
+
+		private StoredSheet(int sheetId, String title) {
+			this.sheetId = sheetId;
+			this.title = title;
+		}
+
+		/**
+		 * Rows of the grid, which grows with appended rows.
+		 */
+		private int rowCount() {
+			return Math.max(gridRows, rows.size());
+		}
+
+		private int columnCount() {
+			return Math.max(gridColumns, widest());
+		}
+
+		private int widest() {
+			int widest = 0;
+			for (List<Object> row : rows) {
+				widest = Math.max(widest, row.size());
+			}
+			return widest;
+		}
+
+		/**
+		 * Index of the last row with a value, or -1 if the sheet is empty.
+		 */
+		private int lastRow() {
+			for (int index = rows.size() - 1; index >= 0; index--) {
+				if (!trimmed(rows.get(index), 0, Integer.MAX_VALUE).isEmpty()) {
+					return index;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Reads a block of cells, trimming trailing empty cells and rows like the API does.
+		 */
+		private List<List<Object>> read(int startRow, int startColumn, int endRow, int endColumn) {
+			final List<List<Object>> values = new ArrayList<>();
+			final int last = Math.min(endRow, rows.size() - 1);
+			for (int index = startRow; index <= last; index++) {
+				values.add(trimmed(rows.get(index), startColumn, endColumn));
+			}
+			while (!values.isEmpty() && values.get(values.size() - 1)
+			                                  .isEmpty()) {
+				values.remove(values.size() - 1);
+			}
+			return values;
+		}
+
+		/**
+		 * Renders cells read from a column on: numbers through the format of their column when
+		 * formatted, as numbers otherwise, even if they were sent as text.
+		 */
+		private List<List<Object>> render(List<List<Object>> values, int startColumn, boolean formatted) {
+			if (formatted && formats.isEmpty()) {
+				return values;
+			}
+			for (List<Object> row : values) {
+				for (int column = 0; column < row.size(); column++) {
+					final BigDecimal number = numberOf(row.get(column));
+					final NumberFormat format = formats.get(startColumn + column);
+					if (number != null && (!formatted || format != null)) {
+						row.set(column, formatted ? format.format(number) : number);
+					}
+				}
+			}
+			return values;
+		}
+
+		private static BigDecimal numberOf(Object value) {
+			if (value instanceof Number) {
+				return new BigDecimal(value.toString());
+			}
+			try {
+				return value instanceof String ? new BigDecimal(((String) value).trim()) : null;
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		private void write(int startRow, int startColumn, List<List<Object>> values) {
+			for (int offset = 0; offset < values.size(); offset++) {
+				while (rows.size() <= startRow + offset) {
+					rows.add(new ArrayList<>());
+				}
+				final List<Object> row = rows.get(startRow + offset);
+				final List<Object> written = values.get(offset);
+				while (row.size() < startColumn + written.size()) {
+					row.add("");
+				}
+				for (int column = 0; column < written.size(); column++) {
+					final Object value = written.get(column);
+					row.set(startColumn + column, value == null ? "" : value);
+				}
+			}
+		}
+
+		private static List<Object> trimmed(List<Object> row, int startColumn, int endColumn) {
+			int end = Math.min(row.size() - 1, endColumn);
+			while (end >= startColumn && "".equals(row.get(end))) {
+				end--;
+			}
+			return end < startColumn ? new ArrayList<>() : new ArrayList<>(row.subList(startColumn, end + 1));
+		}
+	}
+}
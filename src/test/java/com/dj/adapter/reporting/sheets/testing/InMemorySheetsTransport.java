@@ -0,0 +1,134 @@
+package com.dj.adapter.reporting.sheets.testing;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Transport answering every request from an {@link InMemorySheetsServer}, so that {@code Sheets}
+ * clients built on it never go to the network.
+ */
+public class InMemorySheetsTransport extends HttpTransport {
+	private final InMemorySheetsServer server;
+
+	public InMemorySheetsTransport(InMemorySheetsServer server) {
+		this.server = server;
+	}
+
+	@Override
+	public boolean supportsMethod(String method) {
+		return true;
+	}
+
+	@Override
+	protected LowLevelHttpRequest buildRequest(String method, String url) {
+		return new Request(method, url);
+	}
+
+	private final class Request extends LowLevelHttpRequest {
+		private final String method;
+		private final String url;
+		private String authorization;
+
+		private Request(String method, String url) {
+			this.method = method;
+			this.url = url;
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			if ("Authorization".equalsIgnoreCase(name)) {
+				authorization = value;
+			}
+		}
+
+		@Override
+		public LowLevelHttpResponse execute() throws IOException {
+			return new Response(server.handle(method, url, authorization, readContent()));
+		}
+
+		private byte[] readContent() throws IOException {
+			if (getStreamingContent() == null) {
+				return new byte[0];
+			}
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			getStreamingContent().writeTo(content);
+			if (!"gzip".equalsIgnoreCase(getContentEncoding())) {
+				return content.toByteArray();
+			}
+			try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(content.toByteArray()))) {
+				final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+				final byte[] buffer = new byte[4096];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					decoded.write(buffer, 0, read);
+				}
+				return decoded.toByteArray();
+			}
+		}
+	}
+
+	private static final class Response extends LowLevelHttpResponse {
+		private final InMemorySheetsServer.Response response;
+
+		private Response(InMemorySheetsServer.Response response) {
+			this.response = response;
+		}
+
+		@Override
+		public InputStream getContent() {
+			return new ByteArrayInputStream(response.getContent());
+		}
+
+		@Override
+		public String getContentEncoding() {
+			return null;
+		}
+
+		@Override
+		public long getContentLength() {
+			return response.getContent().length;
+		}
+
+		@Override
+		public String getContentType() {
+			return "application/json; charset=UTF-8";
+		}
+
+		@Override
+		public String getStatusLine() {
+			return "HTTP/1.1 " + response.getStatusCode() + " " + getReasonPhrase();
+		}
+
+		@Override
+		public int getStatusCode() {
+			return response.getStatusCode();
+		}
+
+		@Override
+		public String getReasonPhrase() {
+			return response.getStatusCode() < 300 ? "OK" : response.getStatus();
+		}
+
+		@Override
+		public int getHeaderCount() {
+			return 1;
+		}
+
+		@Override
+		public String getHeaderName(int index) {
+			return "Content-Length";
+		}
+
+		@Override
+		public String getHeaderValue(int index) {
+			return String.valueOf(response.getContent().length);
+		}
+	}
+}
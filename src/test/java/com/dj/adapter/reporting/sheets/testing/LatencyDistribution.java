@@ -0,0 +1,63 @@
+package com.dj.adapter.reporting.sheets.testing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency added by {@link InMemorySheetsServer} to every response.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+	/**
+	 * No latency at all.
+	 */
+	static LatencyDistribution none() {
+		return () -> 0;
+	}
+
+	/**
+	 * The same latency for every response.
+	 *
+	 * @param millis latency in milliseconds
+	 */
+	static LatencyDistribution fixed(long millis) {
+		return () -> millis;
+	}
+
+	/**
+	 * Latency uniformly distributed between two values.
+	 *
+	 * @param minMillis minimum latency in milliseconds, inclusive
+	 * @param maxMillis maximum latency in milliseconds, inclusive
+	 */
+	static LatencyDistribution uniform(long minMillis, long maxMillis) {
+		if (maxMillis < minMillis) {
+			throw new IllegalArgumentException("Maximum latency is lower than minimum");
+		}
+		return () -> ThreadLocalRandom.current()
+		                              .nextLong(minMillis, maxMillis + 1);
+	}
+
+	/**
+	 * Log-normal latency, the usual shape of network latency: most responses close to the median
+	 * and a long tail, with one percent of them above the given 99th percentile.
+	 *
+	 * @param medianMillis median latency in milliseconds
+	 * @param p99Millis    99th percentile of the latency in milliseconds
+	 */
+	static LatencyDistribution logNormal(double medianMillis, double p99Millis) {
+		if (medianMillis <= 0 || p99Millis < medianMillis) {
+			throw new IllegalArgumentException("Median must be positive and not above the 99th percentile");
+		}
+		// 2.326 is the 99th percentile of the standard normal distribution
+		final double sigma = Math.log(p99Millis / medianMillis) / 2.326;
+		return () -> Math.round(medianMillis * Math.exp(sigma * ThreadLocalRandom.current()
+		                                                                         .nextGaussian()));
+	}
+
+	/**
+	 * Returns the latency of the next response.
+	 *
+	 * @return latency in milliseconds
+	 */
+	long nextMillis();
+}
@@ -0,0 +1,52 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepository;
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepositoryFactory;
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class CallRecorderTest {
+
+	@Test
+	public void recordsTheSizeOfTheBodyAsSent() throws IOException {
+		final InMemorySheetsServer server = new InMemorySheetsServer();
+		server.addSheet("spreadsheet", "Tasks", Collections.singletonList(Arrays.asList("Task ID", "Name")));
+		final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		final StringWriter trace = new StringWriter();
+		final GoogleSheetsRepositoryFactory factory = new GoogleSheetsRepositoryFactory();
+		factory.setMeterRegistry(registry);
+		factory.setCallRecorder(new CallRecorder(trace));
+		final GoogleSheetsRepository repository = server.newRepository(factory);
+
+		final ValueRange row = new ValueRange().setValues(Collections.singletonList(Arrays.asList("t1", "n1")));
+		repository.update("spreadsheet", "Tasks!A2:B2", row)
+		          .setValueInputOption("RAW")
+		          .execute();
+
+		final long bodyBytes = JacksonFactory.getDefaultInstance()
+		                                     .toByteArray(row).length;
+		final String[] lines = trace.toString()
+		                            .split("\n");
+		assertEquals(2, lines.length);
+		final TracedCall call = TracedCall.parse(lines[1]);
+		assertEquals(SheetsApiCall.Method.VALUES_UPDATE, call.getMethod());
+		assertEquals(1, call.getRows());
+		assertEquals(2, call.getCells());
+		assertEquals(bodyBytes, call.getRequestBytes());
+		// The payload probe reads the same count
+		final DistributionSummary requestSize = registry.find("sheets.api.request.size")
+		                                                .summary();
+		assertEquals(bodyBytes, (long) requestSize.totalAmount());
+	}
+}
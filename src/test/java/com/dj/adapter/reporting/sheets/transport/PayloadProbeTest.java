@@ -0,0 +1,83 @@
+package com.dj.adapter.reporting.sheets.transport;
+
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepository;
+import com.dj.adapter.reporting.sheets.domain.GoogleSheetsRepositoryFactory;
+import com.dj.adapter.reporting.sheets.testing.InMemorySheetsServer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PayloadProbeTest {
+	private final InMemorySheetsServer server = new InMemorySheetsServer();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private GoogleSheetsRepositoryFactory factory;
+	private GoogleSheetsRepository repository;
+
+	@Before
+	public void setUp() {
+		final List<List<Object>> rows = new ArrayList<>();
+		for (int row = 0; row < 100; row++) {
+			rows.add(Arrays.asList("t" + row, "n" + row));
+		}
+		server.addSheet("spreadsheet", "Tasks", rows);
+		final TransportSettings settings = new TransportSettings();
+		settings.setLargePayloadBytes(1024);
+		factory = new GoogleSheetsRepositoryFactory(settings);
+		factory.setMeterRegistry(registry);
+		repository = server.newRepository(factory);
+	}
+
+	@Test
+	public void measuresStreamedResponses() throws IOException {
+		final List<Object> keys = new ArrayList<>();
+		repository.streamRange("spreadsheet", "Tasks!A1:B100", (range, row, values) -> keys.add(values.get(0)));
+		assertEquals(100, keys.size());
+		repository.streamMultipleRanges("spreadsheet", Arrays.asList("Tasks!A1:A10", "Tasks!B1:B10"),
+		                                (range, row, values) -> {
+		                                });
+
+		final DistributionSummary getSize = summary("sheets.api.response.size", "spreadsheets.values.get");
+		assertEquals(1, getSize.count());
+		assertTrue(getSize.totalAmount() > 1024);
+		assertEquals(1, summary("sheets.api.response.size", "spreadsheets.values.batchGet").count());
+		assertEquals(1, timer("sheets.api.total", "spreadsheets.values.get").count());
+		assertEquals(1, timer("sheets.api.total", "spreadsheets.values.batchGet").count());
+		final List<PayloadSample> samples = factory.getLargePayloads()
+		                                           .getSamples();
+		assertEquals(1, samples.size());
+		assertEquals("spreadsheets.values.get", samples.get(0)
+		                                               .getMethod());
+		assertEquals((long) getSize.totalAmount(), samples.get(0)
+		                                                  .getResponseBytes());
+	}
+
+	@Test
+	public void measuresParsedResponsesOnce() throws IOException {
+		repository.getRange("spreadsheet", "Tasks!A1:B100");
+		assertEquals(1, summary("sheets.api.response.size", "spreadsheets.values.get").count());
+		assertEquals(1, factory.getLargePayloads()
+		                       .getSamples()
+		                       .size());
+	}
+
+	private DistributionSummary summary(String name, String operation) {
+		return registry.find(name)
+		               .tag("operation", operation)
+		               .summary();
+	}
+
+	private Timer timer(String name, String operation) {
+		return registry.find(name)
+		               .tag("operation", operation)
+		               .timer();
+	}
+}
@@ -0,0 +1,185 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import com.google.api.services.sheets.v4.model.GridRange;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class A1NotationTest {
+
+	@Test
+	public void labelsColumns() {
+		assertEquals("A", A1Notation.columnLabel(0));
+		assertEquals("Z", A1Notation.columnLabel(25));
+		assertEquals("AA", A1Notation.columnLabel(26));
+		assertEquals("ZZ", A1Notation.columnLabel(701));
+		assertEquals("AAA", A1Notation.columnLabel(702));
+		assertEquals("ZZZ", A1Notation.columnLabel(18277));
+		// Around the end of the cached labels
+		assertEquals("AMJ", A1Notation.columnLabel(1023));
+		assertEquals("AMK", A1Notation.columnLabel(1024));
+		assertEquals("xAMK", A1Notation.appendColumn(new StringBuilder("x"), 1024).toString());
+	}
+
+	@Test
+	public void indexesColumnLabels() {
+		for (int column = 0; column < 18278; column++) {
+			assertEquals(column, A1Notation.columnIndex(A1Notation.columnLabel(column)));
+		}
+		assertEquals(27, A1Notation.columnIndex("ab"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeColumns() {
+		A1Notation.columnLabel(-1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsLabelsWithDigits() {
+		A1Notation.columnIndex("A1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsEmptyLabels() {
+		A1Notation.columnIndex("");
+	}
+
+	@Test
+	public void quotesSheetNames() {
+		assertEquals("Tasks", A1Notation.quoteSheetName("Tasks"));
+		assertEquals("Sheet_2", A1Notation.quoteSheetName("Sheet_2"));
+		assertEquals("'Class Data'", A1Notation.quoteSheetName("Class Data"));
+		assertEquals("'Bob''s'", A1Notation.quoteSheetName("Bob's"));
+		assertEquals("'2019'", A1Notation.quoteSheetName("2019"));
+		assertEquals("'Ventes\u20ac'", A1Notation.quoteSheetName("Ventes\u20ac"));
+		assertEquals("''", A1Notation.quoteSheetName(""));
+		// Names that would be read as cells
+		assertEquals("'A1'", A1Notation.quoteSheetName("A1"));
+		assertEquals("'R1C1'", A1Notation.quoteSheetName("R1C1"));
+		// Beyond the last column it cannot be a cell
+		assertEquals("AAAA1", A1Notation.quoteSheetName("AAAA1"));
+	}
+
+	@Test
+	public void encodesRanges() {
+		assertEquals("B3", A1Notation.cell(2, 1));
+		assertEquals("'Class Data'!A2:G2", A1Notation.encode("Class Data", 1, 0, 1, 6));
+		assertEquals("A2:G2", A1Notation.encode(null, new GridRange().setStartRowIndex(1)
+		                                                              .setStartColumnIndex(0)
+		                                                              .setEndRowIndex(1)
+		                                                              .setEndColumnIndex(6)));
+	}
+
+	@Test
+	public void encodesOpenRanges() {
+		assertEquals("Tasks", A1Notation.encode("Tasks", null, null, null, null));
+		assertEquals("Tasks!A1", A1Notation.encode("Tasks", null, 0, null, null));
+		assertEquals("B3:D", A1Notation.encode(null, 2, 1, null, 3));
+		assertEquals("3:10", A1Notation.encode(null, 2, null, 9, null));
+		assertEquals("B3", A1Notation.encode(null, 2, 1, null, null));
+	}
+
+	@Test
+	public void encodesR1C1() {
+		final GridRange range = new GridRange().setStartRowIndex(1)
+		                                       .setStartColumnIndex(0)
+		                                       .setEndRowIndex(1)
+		                                       .setEndColumnIndex(6);
+		assertEquals("R2C1:R2C7", A1Notation.encodeR1C1(null, range));
+		assertEquals("Tasks!R2C1", A1Notation.encodeR1C1("Tasks", new GridRange().setStartRowIndex(1)
+		                                                                        .setStartColumnIndex(0)));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void requiresEveryR1C1Index() {
+		A1Notation.encodeR1C1(null, new GridRange().setStartRowIndex(1));
+	}
+
+	@Test
+	public void parsesCellsAndRanges() {
+		assertRange(A1Notation.parse("B3"), null, 2, 1, 2, 1);
+		assertRange(A1Notation.parse("b3:d10"), null, 2, 1, 9, 3);
+		assertRange(A1Notation.parse("Tasks!A2:G2"), "Tasks", 1, 0, 1, 6);
+		assertRange(A1Notation.parse("'Class Data'!A2"), "Class Data", 1, 0, 1, 0);
+		assertRange(A1Notation.parse("'Bob''s'!A2"), "Bob's", 1, 0, 1, 0);
+		assertRange(A1Notation.parse("ZZZ1"), null, 0, 18277, 0, 18277);
+	}
+
+	@Test
+	public void parsesOpenRanges() {
+		assertRange(A1Notation.parse("A:C"), null, null, 0, null, 2);
+		assertRange(A1Notation.parse("2:5"), null, 1, null, 4, null);
+		assertRange(A1Notation.parse("Tasks!B3:D"), "Tasks", 2, 1, null, 3);
+	}
+
+	@Test
+	public void parsesR1C1() {
+		assertRange(A1Notation.parse("R2C1:R2C7"), null, 1, 0, 1, 6);
+		assertRange(A1Notation.parse("Tasks!r3c2"), "Tasks", 2, 1, 2, 1);
+	}
+
+	@Test
+	public void parsesSheetNamesAlone() {
+		assertRange(A1Notation.parse("Tasks"), "Tasks", null, null, null, null);
+		assertRange(A1Notation.parse("'Class Data'"), "Class Data", null, null, null, null);
+		assertRange(A1Notation.parse("Tasks!"), "Tasks", null, null, null, null);
+		// Beyond ZZZ, a reference is a sheet name
+		assertRange(A1Notation.parse("AAAA1"), "AAAA1", null, null, null, null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMixedNotations() {
+		A1Notation.parse("A1:R2C2");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsRowZero() {
+		A1Notation.parse("A0");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsUnterminatedQuotes() {
+		A1Notation.parse("'Class Data!A1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsColumnsBeyondZZZInSheets() {
+		A1Notation.parse("Tasks!AAAA1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsEmptyReferences() {
+		A1Notation.parse("");
+	}
+
+	@Test
+	public void roundTripsThroughParse() {
+		final String[] references = {"B3:D10", "Tasks!A2:G2", "'Class Data'!A2:G2", "'Bob''s'!B3:D",
+				"3:10", "'A1'!C5:C5", "'R1C1'!A1:ZZZ2", "Tasks", "'2019'"};
+		for (String reference : references) {
+			assertEquals(reference, A1Notation.parse(reference).toString());
+		}
+		// A cell comes back as a range of one cell
+		assertEquals("B3:B3", A1Notation.parse("B3").toString());
+		final String encoded = A1Notation.encode("Class Data", 4, 30, 9, 1024);
+		final GridRange range = A1Notation.parse(encoded).toGridRange();
+		assertEquals(Integer.valueOf(4), range.getStartRowIndex());
+		assertEquals(Integer.valueOf(30), range.getStartColumnIndex());
+		assertEquals(Integer.valueOf(9), range.getEndRowIndex());
+		assertEquals(Integer.valueOf(1024), range.getEndColumnIndex());
+		assertEquals(encoded, A1Notation.encode("Class Data", range));
+	}
+
+	private static void assertRange(A1Notation.A1Range range,
+	                                String sheetName,
+	                                Integer startRow,
+	                                Integer startColumn,
+	                                Integer endRow,
+	                                Integer endColumn) {
+		assertEquals(sheetName, range.getSheetName());
+		assertEquals(startRow, range.getStartRowIndex());
+		assertEquals(startColumn, range.getStartColumnIndex());
+		assertEquals(endRow, range.getEndRowIndex());
+		assertEquals(endColumn, range.getEndColumnIndex());
+	}
+}
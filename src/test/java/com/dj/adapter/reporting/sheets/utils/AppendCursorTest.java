@@ -0,0 +1,217 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class AppendCursorTest {
+	private final List<Integer> growths = Collections.synchronizedList(new ArrayList<>());
+	private final AppendCursor.GridGrower grower = rows -> {
+		growths.add(rows);
+		return CompletableFuture.completedFuture(null);
+	};
+
+	@Test
+	public void reservesConsecutiveRowsWithinTheGrid() {
+		final AppendCursor cursor = new AppendCursor(10);
+		cursor.observe(6, 100);
+		assertEquals(6, cursor.reserve(1, grower)
+		                      .getFirstRow());
+		final AppendCursor.Reservation reservation = cursor.reserve(3, grower);
+		assertEquals(7, reservation.getFirstRow());
+		assertEquals(3, reservation.getRows());
+		assertTrue(reservation.whenGridReady()
+		                      .isDone());
+		assertEquals(10, cursor.getNextRow());
+		assertEquals(Collections.emptyList(), growths);
+	}
+
+	@Test
+	public void growsTheGridByChunks() {
+		final AppendCursor cursor = new AppendCursor(10);
+		cursor.observe(8, 10);
+		assertEquals(8, cursor.reserve(2, grower)
+		                      .getFirstRow());
+		assertEquals(10, cursor.reserve(1, grower)
+		                       .getFirstRow());
+		assertEquals(Collections.singletonList(10), growths);
+		assertEquals(20, cursor.getGridRows());
+		for (int row = 11; row < 20; row++) {
+			assertEquals(row, cursor.reserve(1, grower)
+			                        .getFirstRow());
+		}
+		assertEquals(Collections.singletonList(10), growths);
+		assertEquals(20, cursor.reserve(1, grower)
+		                       .getFirstRow());
+		assertEquals(Arrays.asList(10, 10), growths);
+	}
+
+	@Test
+	public void growsTheGridEnoughForLargeReservations() {
+		final AppendCursor cursor = new AppendCursor(10);
+		cursor.observe(5, 10);
+		assertEquals(5, cursor.reserve(100, grower)
+		                      .getFirstRow());
+		assertEquals(Collections.singletonList(95), growths);
+		assertEquals(105, cursor.getGridRows());
+		assertEquals(105, cursor.getNextRow());
+	}
+
+	@Test
+	public void growsTheGridWithoutWaitingForIt() {
+		final AppendCursor cursor = new AppendCursor(10);
+		cursor.observe(10, 10);
+		final CompletableFuture<Void> grown = new CompletableFuture<>();
+		final AppendCursor.Reservation first = cursor.reserve(1, rows -> grown);
+		// Rows in the chunk being added wait for it too
+		final AppendCursor.Reservation second = cursor.reserve(1, grower);
+		assertEquals(11, second.getFirstRow());
+		assertEquals(Collections.emptyList(), growths);
+		assertFalse(first.whenGridReady()
+		                 .isDone());
+		assertFalse(second.whenGridReady()
+		                  .isDone());
+		grown.complete(null);
+		assertTrue(first.whenGridReady()
+		                .isDone());
+		assertTrue(second.whenGridReady()
+		                 .isDone());
+		assertTrue(cursor.reserve(1, grower)
+		                 .whenGridReady()
+		                 .isDone());
+	}
+
+	@Test
+	public void shrinksBackWhenTheGridCannotGrow() {
+		final AppendCursor cursor = new AppendCursor(10);
+		cursor.observe(10, 10);
+		final CompletableFuture<Void> grown = new CompletableFuture<>();
+		final AppendCursor.Reservation reservation = cursor.reserve(1, rows -> grown);
+		assertEquals(20, cursor.getGridRows());
+		grown.completeExceptionally(new IOException("quota exceeded"));
+		assertTrue(reservation.whenGridReady()
+		                      .isCompletedExceptionally());
+		assertEquals(10, cursor.getGridRows());
+		assertTrue(reservation.release());
+		assertEquals(10, cursor.getNextRow());
+		// The next reservation grows the grid again, without waiting for the failed growth
+		final AppendCursor.Reservation retried = cursor.reserve(1, grower);
+		assertEquals(10, retried.getFirstRow());
+		assertTrue(retried.whenGridReady()
+		                  .isDone());
+		assertFalse(retried.whenGridReady()
+		                   .isCompletedExceptionally());
+		assertEquals(Collections.singletonList(10), growths);
+	}
+
+	@Test
+	public void givesBackTheLastRowsReserved() {
+		final AppendCursor cursor = new AppendCursor(10);
+		cursor.observe(1, 100);
+		cursor.reserve(2, grower);
+		final AppendCursor.Reservation failed = cursor.reserve(3, grower);
+		assertTrue(failed.release());
+		assertEquals(3, cursor.getNextRow());
+		assertEquals(3, cursor.reserve(1, grower)
+		                      .getFirstRow());
+	}
+
+	@Test
+	public void givesBackRowsOnceTheRowsAfterThemAreGivenBack() {
+		final AppendCursor cursor = new AppendCursor(10);
+		cursor.observe(1, 100);
+		final AppendCursor.Reservation first = cursor.reserve(2, grower);
+		final AppendCursor.Reservation second = cursor.reserve(3, grower);
+		final AppendCursor.Reservation third = cursor.reserve(1, grower);
+		assertFalse(first.release());
+		assertFalse(second.release());
+		assertEquals(7, cursor.getNextRow());
+		assertTrue(third.release());
+		assertEquals(1, cursor.getNextRow());
+	}
+
+	@Test
+	public void leavesRowsBeforeWrittenOnes() {
+		final AppendCursor cursor = new AppendCursor(10);
+		cursor.observe(1, 100);
+		final AppendCursor.Reservation failed = cursor.reserve(2, grower);
+		cursor.reserve(3, grower);
+		assertFalse(failed.release());
+		assertEquals(6, cursor.getNextRow());
+	}
+
+	@Test
+	public void ignoresReservationsMadeBeforeAReset() {
+		final AppendCursor cursor = new AppendCursor(10);
+		cursor.observe(1, 100);
+		final AppendCursor.Reservation reservation = cursor.reserve(2, grower);
+		cursor.reset();
+		cursor.observe(3, 100);
+		assertFalse(reservation.release());
+		assertEquals(3, cursor.getNextRow());
+	}
+
+	@Test
+	public void neverMovesBackwards() {
+		final AppendCursor cursor = new AppendCursor(10);
+		cursor.observe(50, 100);
+		cursor.observe(20, 100);
+		assertEquals(50, cursor.getNextRow());
+		cursor.observe(120, 100);
+		assertEquals(120, cursor.getNextRow());
+		assertEquals(120, cursor.getGridRows());
+	}
+
+	@Test
+	public void mustBeSeeded() {
+		final AppendCursor cursor = new AppendCursor(10);
+		assertEquals(-1, cursor.getNextRow());
+		try {
+			cursor.reserve(1, grower);
+			fail("Unseeded cursor reserved rows");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		cursor.observe(3, 10);
+		cursor.reset();
+		assertFalse(cursor.isSeeded());
+	}
+
+	@Test
+	public void givesDistinctRowsToConcurrentReservations() throws Exception {
+		final AppendCursor cursor = new AppendCursor(16);
+		cursor.observe(1, 1);
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<Integer>> reserved = new ArrayList<>();
+			for (int reservation = 0; reservation < 1000; reservation++) {
+				reserved.add(executor.submit(() -> cursor.reserve(1, grower)
+				                                         .getFirstRow()));
+			}
+			final boolean[] rows = new boolean[1001];
+			for (Future<Integer> row : reserved) {
+				assertFalse(rows[row.get()]);
+				rows[row.get()] = true;
+			}
+			assertEquals(1001, cursor.getNextRow());
+			int grown = 1;
+			for (int growth : growths) {
+				grown += growth;
+			}
+			assertEquals(cursor.getGridRows(), grown);
+			assertEquals((1000 + 15) / 16, growths.size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class CellEqualityTest {
+	@Test
+	public void comparesNumbersByValue() {
+		assertTrue(CellEquality.isSameValue("1.50", new BigDecimal("1.5")));
+		assertTrue(CellEquality.isSameValue(42, new BigDecimal("42")));
+		assertTrue(CellEquality.isSameValue(0.1 + 0.2, new BigDecimal("0.3")));
+		assertFalse(CellEquality.isSameValue("1234", new BigDecimal("1234.4")));
+		assertFalse(CellEquality.isSameValue(1234.5, "1,235"));
+	}
+
+	@Test
+	public void comparesPercentagesAsFractions() {
+		assertTrue(CellEquality.isSameValue("50%", new BigDecimal("0.5")));
+		assertTrue(CellEquality.isSameValue("12.5 %", 0.125));
+		assertFalse(CellEquality.isSameValue("50%", "50"));
+	}
+
+	@Test
+	public void comparesDatesAsSerialNumbers() {
+		assertTrue(CellEquality.isSameValue("2018-05-17", new BigDecimal("43237")));
+		assertTrue(CellEquality.isSameValue("2018-05-17 12:00:00", new BigDecimal("43237.5")));
+		assertTrue(CellEquality.isSameValue("2018-05-17 10:15:30", 43237 + (10 * 3600 + 15 * 60 + 30) / 86400.0));
+		assertFalse(CellEquality.isSameValue("2018-05-17 10:15:31", 43237 + (10 * 3600 + 15 * 60 + 30) / 86400.0));
+		assertFalse(CellEquality.isSameValue("2018-13-01", new BigDecimal("43237")));
+	}
+
+	@Test
+	public void comparesBooleansWhateverTheirCase() {
+		assertTrue(CellEquality.isSameValue("true", Boolean.TRUE));
+		assertTrue(CellEquality.isSameValue(Boolean.FALSE, "FALSE"));
+		assertFalse(CellEquality.isSameValue("true", "yes"));
+	}
+
+	@Test
+	public void comparesOtherValuesAsText() {
+		assertTrue(CellEquality.isSameValue("=SUM(A1:A3)", "=SUM(A1:A3)"));
+		assertFalse(CellEquality.isSameValue("=SUM(A1:A3)", new BigDecimal("6")));
+		assertTrue(CellEquality.isSameValue("open", "open"));
+		assertFalse(CellEquality.isSameValue("open", "Open"));
+	}
+
+	@Test
+	public void readsMissingCellsAsEmpty() {
+		assertTrue(CellEquality.isSameValue("", null));
+		assertTrue(CellEquality.isSameValue(null, ""));
+		assertFalse(CellEquality.isSameValue(0, null));
+	}
+}
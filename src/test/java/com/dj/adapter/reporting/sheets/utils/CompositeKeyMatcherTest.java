@@ -0,0 +1,121 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import com.google.api.services.sheets.v4.model.BatchGetValuesResponse;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalInt;
+
+import static org.junit.Assert.*;
+
+public class CompositeKeyMatcherTest {
+	@Test
+	public void indexesRowsFromTheFirstRowOfTheRanges() {
+		final CompositeKeyMatcher matcher = CompositeKeyMatcher.of(Arrays.asList(column("t1", "t2", "t3"),
+		                                                                         column("a", "b", "c")));
+		assertEquals(OptionalInt.of(0), matcher.firstMatch(Arrays.asList("t1", "a")));
+		assertEquals(OptionalInt.of(2), matcher.firstMatch(Arrays.asList("t3", "c")));
+		assertEquals(OptionalInt.empty(), matcher.firstMatch(Arrays.asList("t3", "a")));
+		assertEquals(3, matcher.getRowCount());
+	}
+
+	@Test
+	public void readsMissingAndEmptyCellsAsEmptyText() {
+		final List<List<Object>> names = column("a", "b");
+		names.set(1, Collections.emptyList());
+		final CompositeKeyMatcher matcher = CompositeKeyMatcher.of(Arrays.asList(column("t1", "t2", "t3"), names));
+		assertEquals(3, matcher.getRowCount());
+		assertEquals(OptionalInt.of(1), matcher.firstMatch(Arrays.asList("t2", "")));
+		assertEquals(OptionalInt.of(2), matcher.firstMatch(Arrays.asList("t3", null)));
+		assertEquals(OptionalInt.empty(), CompositeKeyMatcher.of(Arrays.asList(null, null))
+		                                                     .firstMatch(Arrays.asList("t1", "a")));
+	}
+
+	@Test
+	public void comparesCellsByText() {
+		final CompositeKeyMatcher matcher = CompositeKeyMatcher.of(Collections.singletonList(column("1", 2, "a\tb")));
+		assertEquals(OptionalInt.of(0), matcher.firstMatch(Collections.singletonList(1)));
+		assertEquals(OptionalInt.of(1), matcher.firstMatch(Collections.singletonList("2")));
+		assertEquals(OptionalInt.of(2), matcher.firstMatch(Collections.singletonList("a\tb")));
+	}
+
+	@Test
+	public void doesNotJoinKeyColumns() {
+		final CompositeKeyMatcher matcher = CompositeKeyMatcher.of(Arrays.asList(column("a b", "a"),
+		                                                                         column("c", "b c")));
+		assertArrayEquals(new int[]{1}, matcher.allMatches(Arrays.asList("a", "b c")));
+	}
+
+	@Test
+	public void findsEveryMatchInAscendingOrder() {
+		final CompositeKeyMatcher matcher = CompositeKeyMatcher.of(Collections.singletonList(column("a", "b", "a", "c", "a")));
+		assertArrayEquals(new int[]{0, 2, 4}, matcher.allMatches(Collections.singletonList("a")));
+		assertArrayEquals(new int[0], matcher.allMatches(Collections.singletonList("d")));
+	}
+
+	@Test
+	public void indexFindsTheSameRowsAsAScan() {
+		final List<List<Object>> ids = new ArrayList<>();
+		final List<List<Object>> names = new ArrayList<>();
+		for (int row = 0; row < 1000; row++) {
+			ids.add(Collections.singletonList("t" + row % 300));
+			names.add(Collections.singletonList("n" + row % 7));
+		}
+		final CompositeKeyMatcher matcher = CompositeKeyMatcher.of(Arrays.asList(ids, names));
+		final CompositeKeyMatcher.Index index = matcher.index();
+		for (int id = 0; id < 310; id++) {
+			for (int name = 0; name < 7; name++) {
+				final List<String> key = Arrays.asList("t" + id, "n" + name);
+				assertEquals(matcher.firstMatch(key), index.firstMatch(key));
+				assertArrayEquals(matcher.allMatches(key), index.allMatches(key));
+			}
+		}
+	}
+
+	@Test
+	public void matchesWholeRowsAtKeyPositions() {
+		final List<List<Object>> rows = Arrays.asList(Arrays.asList("t1", "x", "a"),
+		                                              Arrays.asList("t2", "y"),
+		                                              Arrays.asList("t3", "z", "c"));
+		final CompositeKeyMatcher matcher = CompositeKeyMatcher.ofRows(rows, new int[]{2, 0});
+		assertEquals(OptionalInt.of(2), matcher.firstMatch(Arrays.asList("c", "t3")));
+		assertEquals(OptionalInt.of(1), matcher.firstMatch(Arrays.asList("", "t2")));
+	}
+
+	@Test
+	public void readsBatchGetResponses() {
+		final BatchGetValuesResponse response = new BatchGetValuesResponse().setValueRanges(Arrays.asList(new ValueRange().setValues(column("t1", "t2")),
+		                                                                                                  new ValueRange()));
+		assertEquals(OptionalInt.of(1), CompositeKeyMatcher.of(response)
+		                                                   .firstMatch(Arrays.asList("t2", "")));
+	}
+
+	@Test
+	public void comparesCellsWithAPredicate() {
+		final CompositeKeyMatcher matcher = CompositeKeyMatcher.of(Arrays.asList(column("t1", "t2"),
+		                                                                         column(new BigDecimal("1.5"), new BigDecimal("2"))));
+		assertEquals(OptionalInt.empty(), matcher.firstMatch(Arrays.asList("t2", "2.0")));
+		assertEquals(OptionalInt.of(1), matcher.firstMatch(Arrays.asList("t2", "2.0"), (value, cell) -> cell instanceof BigDecimal ?
+		                                                                                                 new BigDecimal(value.toString()).compareTo((BigDecimal) cell) == 0 :
+		                                                                                                 value.equals(cell)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsKeysOfAnotherSize() {
+		CompositeKeyMatcher.of(Arrays.asList(column("t1"), column("a")))
+		                   .firstMatch(Collections.singletonList("t1"));
+	}
+
+	private static List<List<Object>> column(Object... cells) {
+		final List<List<Object>> column = new ArrayList<>();
+		for (Object cell : cells) {
+			column.add(Collections.singletonList(cell));
+		}
+		return column;
+	}
+}
@@ -0,0 +1,79 @@
+package com.dj.adapter.reporting.sheets.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RowRangePlannerTest {
+	@Test
+	public void joinsRowsWithinTheGapThreshold() {
+		final List<RowRangePlanner.Span> spans = new RowRangePlanner(2).plan(Arrays.asList(10, 13, 16, 20, 21));
+		assertEquals(2, spans.size());
+		assertSpan(spans.get(0), 10, 16, 10, 13, 16);
+		assertSpan(spans.get(1), 20, 21, 20, 21);
+	}
+
+	@Test
+	public void joinsOnlyAdjacentRowsWithoutThreshold() {
+		final List<RowRangePlanner.Span> spans = new RowRangePlanner(0).plan(Arrays.asList(3, 4, 6));
+		assertEquals(2, spans.size());
+		assertSpan(spans.get(0), 3, 4, 3, 4);
+		assertSpan(spans.get(1), 6, 6, 6);
+	}
+
+	@Test
+	public void sortsAndDropsRepeatedRows() {
+		final List<RowRangePlanner.Span> spans = new RowRangePlanner(8).plan(Arrays.asList(30, 5, 7, 5, 30));
+		assertEquals(2, spans.size());
+		assertSpan(spans.get(0), 5, 7, 5, 7);
+		assertSpan(spans.get(1), 30, 30, 30);
+	}
+
+	@Test
+	public void plansNothingForNoRows() {
+		assertEquals(Collections.emptyList(), new RowRangePlanner(8).plan(Collections.emptyList()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeRows() {
+		new RowRangePlanner(8).plan(Arrays.asList(1, -1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeThresholds() {
+		new RowRangePlanner(-1);
+	}
+
+	@Test
+	public void splitsValuesBackPerRequestedRow() {
+		final List<RowRangePlanner.Span> spans = new RowRangePlanner(2).plan(Arrays.asList(10, 12, 13, 20));
+		final List<List<Object>> first = Arrays.asList(row("r10"), row("r11"), Collections.emptyList(), row("r13"));
+		final Map<Integer, List<Object>> rows = RowRangePlanner.split(spans, Arrays.asList(first, null));
+		assertEquals(Arrays.asList(10, 13), Arrays.asList(rows.keySet()
+		                                                      .toArray()));
+		assertEquals(row("r10"), rows.get(10));
+		assertEquals(row("r13"), rows.get(13));
+	}
+
+	@Test
+	public void splitsShortRanges() {
+		final List<RowRangePlanner.Span> spans = new RowRangePlanner(8).plan(Arrays.asList(1, 4));
+		final Map<Integer, List<Object>> rows = RowRangePlanner.split(spans, Collections.singletonList(Collections.singletonList(row("r1"))));
+		assertEquals(Collections.singletonMap(1, row("r1")), rows);
+	}
+
+	private static List<Object> row(String value) {
+		return Collections.singletonList(value);
+	}
+
+	private static void assertSpan(RowRangePlanner.Span span, int start, int end, int... rowIds) {
+		assertEquals(start, span.getStart());
+		assertEquals(end, span.getEnd());
+		assertArrayEquals(rowIds, span.getRowIds());
+	}
+}